@@ -7,17 +7,15 @@ import com.aerospike.client.policy.WritePolicy;
 import io.tapdata.base.ConnectorBase;
 import io.tapdata.connector.aerospike.bean.AerospikeNamespaces;
 import io.tapdata.connector.aerospike.bean.AerospikeSet;
-import io.tapdata.connector.aerospike.bean.IRecord;
-import io.tapdata.connector.aerospike.bean.TapAerospikeRecord;
+import io.tapdata.connector.aerospike.utils.AerospikeBins;
+import io.tapdata.connector.aerospike.utils.AerospikeKeyBuilder;
 import io.tapdata.connector.aerospike.utils.AerospikeSinkConfig;
 import io.tapdata.connector.aerospike.utils.AerospikeStringSink;
 import io.tapdata.entity.codec.TapCodecRegistry;
 import io.tapdata.entity.event.dml.*;
 import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.event.dml.TapRecordEvent;
-import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
-import io.tapdata.entity.schema.value.DateTime;
 import io.tapdata.pdk.apis.TapConnector;
 import io.tapdata.pdk.apis.context.TapConnectionContext;
 import io.tapdata.pdk.apis.annotations.TapConnectorClass;
@@ -30,6 +28,7 @@ import io.tapdata.pdk.apis.functions.ConnectorFunctions;
 import org.junit.Assert;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
@@ -42,16 +41,23 @@ public class AerospikeConnector extends ConnectorBase implements TapConnector {
     private AerospikeSinkConfig sinkConfig;
     private AerospikeStringSink aerospikeStringSink;
     private final WritePolicy policy = new WritePolicy();
+    //Bin names and key builders of the tables, computed once.
+    private final Map<String, AerospikeBins> tableBins = new ConcurrentHashMap<>();
+    private final Map<String, AerospikeKeyBuilder> tableKeyBuilders = new ConcurrentHashMap<>();
 
     public void initConnection(Map<String, Object> configMap) throws Exception {
         if (aerospikeStringSink == null) {
-            aerospikeStringSink = new AerospikeStringSink();
+            aerospikeStringSink = createStringSink();
             sinkConfig = AerospikeSinkConfig.load(configMap);
             policy.timeoutDelay = 20;
             aerospikeStringSink.open(sinkConfig);
         }
     }
 
+    protected AerospikeStringSink createStringSink() {
+        return new AerospikeStringSink();
+    }
+
     /**
      * The method invocation life circle is below,
      * initiated -> discoverSchema -> ended
@@ -160,27 +166,41 @@ public class AerospikeConnector extends ConnectorBase implements TapConnector {
     }
 
     /**
+     * @return the key of the record, the user key is compact bytes by default, or the string of generateASPrimaryKey for the sets written by the older versions.
+     */
+    private Key recordKey(TapTable table, Map<String, Object> recordMap) {
+        if (sinkConfig.isStringPrimaryKey())
+            return new Key(sinkConfig.getKeyspace(), table.getName(), generateASPrimaryKey(recordMap, table.primaryKeys(), '_'));
+        AerospikeKeyBuilder keyBuilder = tableKeyBuilders.computeIfAbsent(table.getName(), name -> new AerospikeKeyBuilder(table.primaryKeys()));
+        //The buffer of the builder is shared by the write and the query.
+        synchronized (keyBuilder) {
+            return keyBuilder.key(sinkConfig.getKeyspace(), table.getName(), recordMap);
+        }
+    }
+
+    /**
+     * Look up the keys of all the filters by batch get, the results are in the same order of the filters.
      *
      * @param connectorContext
      * @param filters
      * @param listConsumer
      */
-    private void queryByFilter(TapConnectorContext connectorContext, List<TapFilter> filters, Consumer<List<FilterResult>> listConsumer) {
-        String keySet = connectorContext.getTable().getName();
-        LinkedHashMap<String, TapField> nameFieldMap = connectorContext.getTable().getNameFieldMap();
-        Collection<String> primaryKeys = connectorContext.getTable().primaryKeys();
-        List<FilterResult> result = new LinkedList<>();
-        for (TapFilter filter : filters) {
-            FilterResult filterResult = new FilterResult();
-            String key = generateASPrimaryKey(filter.getMatch(), primaryKeys, '_');
-            try {
-                Record filterRecordResult = aerospikeStringSink.read(keySet, key);
-                if (filterRecordResult != null) {
-                    filterResult.setResult(filterRecordResult.bins);
-                }
-                result.add(filterResult);
-            } catch (AerospikeException aerospikeException) {
-                filterResult.setError(aerospikeException);
+    private void queryByFilter(TapConnectorContext connectorContext, List<TapFilter> filters, Consumer<List<FilterResult>> listConsumer) throws Exception {
+        initConnection(connectorContext.getConnectionConfig());
+        TapTable table = connectorContext.getTable();
+        List<FilterResult> result = new ArrayList<>(filters.size());
+        Key[] keys = new Key[filters.size()];
+        for (int i = 0; i < filters.size(); i++) {
+            keys[i] = recordKey(table, filters.get(i).getMatch());
+        }
+        try {
+            Record[] records = aerospikeStringSink.read(keys);
+            for (int i = 0; i < filters.size(); i++) {
+                result.add(new FilterResult().filter(filters.get(i)).result(records[i] != null ? records[i].bins : null));
+            }
+        } catch (AerospikeException aerospikeException) {
+            for (TapFilter filter : filters) {
+                result.add(new FilterResult().filter(filter).error(aerospikeException));
             }
         }
         listConsumer.accept(result);
@@ -208,43 +228,27 @@ public class AerospikeConnector extends ConnectorBase implements TapConnector {
         AtomicLong inserted = new AtomicLong(0); //insert count
         AtomicLong updated = new AtomicLong(0); //update count
         AtomicLong deleted = new AtomicLong(0); //delete count
+        TapTable targetTable = connectorContext.getTable();
+        String keySet = targetTable.getName();
+        AerospikeBins aerospikeBins = tableBins.computeIfAbsent(keySet, name -> new AerospikeBins(targetTable));
         for (TapRecordEvent recordEvent : tapRecordEvents) {
-            TapTable targetTable = connectorContext.getTable();
-            Collection<String> primaryKeys = targetTable.primaryKeys();
-
-            String keySet = targetTable.getName();
-            String newKey;
-            IRecord<String> newRecord;
-            LinkedHashMap<String, TapField> nameFieldMap = targetTable.getNameFieldMap();
+            Key key;
             if (recordEvent instanceof TapInsertRecordEvent) {
                 TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) recordEvent;
                 Map<String, Object> after = insertRecordEvent.getAfter();
-                for (String columnName : nameFieldMap.keySet()) {
-                    TapField tapField = nameFieldMap.get(columnName);
-                    Object value = after.get(columnName);
-                    if (value instanceof DateTime) {
-                        // TODO 依据不同的TapField进行不同类型的格式化
-                        String dateValue = this.formatTapDateTime((DateTime) value, "yyyy-MM-dd HH:mm:ss");
-                        after.put(columnName, dateValue);
-                    }
-                }
-                newKey = generateASPrimaryKey(after, primaryKeys, '_');
-                newRecord = new TapAerospikeRecord(toJson(after), newKey);
-                aerospikeStringSink.write(newRecord, keySet);
+                key = recordKey(targetTable, after);
+                aerospikeStringSink.write(key, aerospikeBins.toBins(after, key.userKey.getObject()));
                 inserted.incrementAndGet();
             } else if (recordEvent instanceof TapUpdateRecordEvent) {
                 TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) recordEvent;
                 Map<String, Object> after = updateRecordEvent.getAfter();
-                newKey = generateASPrimaryKey(after, primaryKeys, '_');
-                newRecord = new TapAerospikeRecord(toJson(after), newKey);
-                aerospikeStringSink.write(newRecord, keySet);
+                key = recordKey(targetTable, after);
+                aerospikeStringSink.write(key, aerospikeBins.toBins(after, key.userKey.getObject()));
                 updated.incrementAndGet();
             } else if (recordEvent instanceof TapDeleteRecordEvent) {
                 TapDeleteRecordEvent deleteRecordEvent = (TapDeleteRecordEvent) recordEvent;
                 Map<String, Object> before = deleteRecordEvent.getBefore();
-                newKey = generateASPrimaryKey(before, primaryKeys, '_');
-                Key key = new Key(sinkConfig.getKeyspace(), keySet, newKey);
-                aerospikeStringSink.client.delete(policy, key);
+                aerospikeStringSink.client.delete(policy, recordKey(targetTable, before));
                 deleted.incrementAndGet();
             }
         }
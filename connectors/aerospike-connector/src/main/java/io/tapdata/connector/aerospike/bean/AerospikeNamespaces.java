@@ -1,6 +1,6 @@
 package io.tapdata.connector.aerospike.bean;
 
-import com.aerospike.client.AerospikeClient;
+import com.aerospike.client.IAerospikeClient;
 import com.aerospike.client.Info;
 
 import java.util.*;
@@ -10,11 +10,11 @@ public class AerospikeNamespaces {
     private  AerospikeNamespaces(){}
 
 
-    public static String[] getNamespaces(AerospikeClient client){
+    public static String[] getNamespaces(IAerospikeClient client){
         return Info.request(client.getInfoPolicyDefault(), client.getNodes()[0], "namespaces").split(";");
     }
 
-    public static  ArrayList<AerospikeSet> getSets(AerospikeClient client,String namespace){
+    public static  ArrayList<AerospikeSet> getSets(IAerospikeClient client,String namespace){
         String[] namespaces = getNamespaces(client);
         if(!Arrays.asList(namespaces).contains(namespace)) return  null;
         String[] raw_sets = Info.request(client.getInfoPolicyDefault(), client.getNodes()[0], "sets").split(";");
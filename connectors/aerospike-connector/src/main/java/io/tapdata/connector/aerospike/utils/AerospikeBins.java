@@ -0,0 +1,211 @@
+package io.tapdata.connector.aerospike.utils;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.Value;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.alibaba.fastjson.util.RyuDouble;
+import com.alibaba.fastjson.util.RyuFloat;
+import io.tapdata.base.ConnectorBase;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.value.DateTime;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.zone.ZoneRules;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Build the bins of a table straight from the record map.
+ *
+ * The bin names are computed once per table. Aerospike limits the bin name to 14 characters,
+ * the longer field name is truncated, and if two fields truncate to the same name, they get a hash suffix instead.
+ * The field out of the table gets its name on the first use, it is shared by the write threads,
+ * the name taken by another field already, even a short one, gets a hash suffix too.
+ * The bin values are the same as the record went through toJson and JSON.parseObject before,
+ * DateTime is "yyyy-MM-dd HH:mm:ss" in the default time zone of the JVM.
+ */
+public class AerospikeBins {
+    public static final int MAX_BIN_NAME_LENGTH = 14;
+    public static final String PRIMARY_KEY_BIN = "PK";
+    private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    //Same as SimpleDateFormat, which takes the default time zone when it is created.
+    private static final ZoneRules ZONE_RULES = TimeZone.getDefault().toZoneId().getRules();
+    private static final SerializerFeature[] JSON_FEATURES = {SerializerFeature.DisableCircularReferenceDetect, SerializerFeature.SortField, SerializerFeature.MapSortField};
+
+    private final Map<String, String> binNames = new ConcurrentHashMap<>();
+    //Guarded by this after the constructor.
+    private final Set<String> usedBinNames = new HashSet<>();
+
+    public AerospikeBins(TapTable table) {
+        this(table.getNameFieldMap() != null ? table.getNameFieldMap().keySet() : Collections.emptySet());
+    }
+
+    public AerospikeBins(Collection<String> fieldNames) {
+        Map<String, Integer> truncatedCount = new HashMap<>();
+        for (String fieldName : fieldNames) {
+            if (fieldName.length() <= MAX_BIN_NAME_LENGTH) {
+                binNames.put(fieldName, fieldName);
+                usedBinNames.add(fieldName);
+            } else {
+                truncatedCount.merge(fieldName.substring(0, MAX_BIN_NAME_LENGTH), 1, Integer::sum);
+            }
+        }
+        //Sorted, so that the names don't depend on the order of the fields.
+        List<String> longFieldNames = new ArrayList<>();
+        for (String fieldName : fieldNames) {
+            if (fieldName.length() > MAX_BIN_NAME_LENGTH)
+                longFieldNames.add(fieldName);
+        }
+        Collections.sort(longFieldNames);
+        for (String fieldName : longFieldNames) {
+            String truncated = fieldName.substring(0, MAX_BIN_NAME_LENGTH);
+            if (truncatedCount.get(truncated) == 1 && !usedBinNames.contains(truncated)) {
+                binNames.put(fieldName, truncated);
+                usedBinNames.add(truncated);
+            }
+        }
+        for (String fieldName : longFieldNames) {
+            if (!binNames.containsKey(fieldName))
+                binNames.put(fieldName, hashedBinName(fieldName));
+        }
+    }
+
+    /**
+     * @return the bin name of the field, the field which is not in the table gets its name on the first call.
+     */
+    public String binName(String fieldName) {
+        String binName = binNames.get(fieldName);
+        return binName != null ? binName : newBinName(fieldName);
+    }
+
+    private synchronized String newBinName(String fieldName) {
+        String binName = binNames.get(fieldName);
+        if (binName == null) {
+            binName = fieldName.length() <= MAX_BIN_NAME_LENGTH ? fieldName : fieldName.substring(0, MAX_BIN_NAME_LENGTH);
+            if (!usedBinNames.add(binName))
+                binName = hashedBinName(fieldName);
+            binNames.put(fieldName, binName);
+        }
+        return binName;
+    }
+
+    /**
+     * The bins of the record, with the primary key bin first, the null values are skipped.
+     *
+     * @param primaryKey the user key of the record, string or bytes
+     */
+    public Bin[] toBins(Map<String, Object> record, Object primaryKey) {
+        List<Bin> bins = new ArrayList<>(record.size() + 1);
+        //A field named PK overwrites the primary key bin.
+        if (primaryKey != null && record.get(PRIMARY_KEY_BIN) == null)
+            bins.add(new Bin(PRIMARY_KEY_BIN, primaryKey));
+        for (Map.Entry<String, Object> entry : record.entrySet()) {
+            if (entry.getValue() == null)
+                continue;
+            bins.add(new Bin(binName(entry.getKey()), binValue(entry.getValue())));
+        }
+        return bins.toArray(new Bin[0]);
+    }
+
+    /**
+     * Convert the value to the one it became after toJson and JSON.parseObject,
+     * numbers in int range are Integer, floating numbers are BigDecimal, byte[] is base64 string.
+     */
+    public static Value binValue(Object value) {
+        if (value instanceof String)
+            return Value.get((String) value);
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+            return integralValue(((Number) value).longValue());
+        if (value instanceof Double) {
+            double doubleValue = (Double) value;
+            if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue))
+                return Value.getAsNull();
+            return Value.get((Object) new BigDecimal(RyuDouble.toString(doubleValue)));
+        }
+        if (value instanceof Float) {
+            float floatValue = (Float) value;
+            if (Float.isNaN(floatValue) || Float.isInfinite(floatValue))
+                return Value.getAsNull();
+            return Value.get((Object) new BigDecimal(RyuFloat.toString(floatValue)));
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            //Plain digits without the decimal point are parsed back as integer.
+            return decimal.scale() == 0 ? integralValue(decimal.unscaledValue()) : Value.get((Object) decimal);
+        }
+        if (value instanceof BigInteger)
+            return integralValue((BigInteger) value);
+        if (value instanceof Boolean)
+            return Value.get((boolean) (Boolean) value);
+        if (value instanceof DateTime)
+            return Value.get(formatDateTime((DateTime) value));
+        if (value instanceof byte[])
+            return Value.get(Base64.getEncoder().encodeToString((byte[]) value));
+        if (value instanceof Character)
+            return Value.get(value.toString());
+        if (value.getClass() == Date.class)
+            return integralValue(((Date) value).getTime());
+        //Map, list and the others are rare, convert them as before.
+        return Value.get(JSON.parse(JSON.toJSONString(value, JSON_FEATURES)));
+    }
+
+    /**
+     * Format as "yyyy-MM-dd HH:mm:ss" from the calendar fields directly, without SimpleDateFormat.
+     * The years before 1900 or after 9999 are left to SimpleDateFormat, for the historical time zones and the Julian calendar.
+     */
+    public static String formatDateTime(DateTime dateTime) {
+        long epochSecond = dateTime.getSeconds();
+        long localSecond = epochSecond + ZONE_RULES.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        long epochDay = Math.floorDiv(localSecond, 86400);
+        int secondOfDay = (int) Math.floorMod(localSecond, 86400);
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int year = date.getYear();
+        if (year < 1900 || year > 9999)
+            return ConnectorBase.formatTapDateTime(dateTime, DATE_TIME_PATTERN);
+        char[] chars = new char[19];
+        digits(chars, 0, year, 4);
+        chars[4] = '-';
+        digits(chars, 5, date.getMonthValue(), 2);
+        chars[7] = '-';
+        digits(chars, 8, date.getDayOfMonth(), 2);
+        chars[10] = ' ';
+        digits(chars, 11, secondOfDay / 3600, 2);
+        chars[13] = ':';
+        digits(chars, 14, secondOfDay / 60 % 60, 2);
+        chars[16] = ':';
+        digits(chars, 17, secondOfDay % 60, 2);
+        return new String(chars);
+    }
+
+    private static void digits(char[] chars, int offset, int value, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static Value integralValue(long value) {
+        return value == (int) value ? Value.get((int) value) : Value.get(value);
+    }
+
+    private static Value integralValue(BigInteger value) {
+        if (value.bitLength() < 64)
+            return integralValue(value.longValue());
+        return Value.get((Object) value);
+    }
+
+    private String hashedBinName(String fieldName) {
+        int salt = 0;
+        while (true) {
+            int hash = (fieldName.hashCode() * 31 + salt++) & Integer.MAX_VALUE;
+            String suffix = Integer.toString(hash, 36);
+            String binName = fieldName.substring(0, Math.min(fieldName.length(), MAX_BIN_NAME_LENGTH - suffix.length() - 1)) + "_" + suffix;
+            if (usedBinNames.add(binName))
+                return binName;
+        }
+    }
+}
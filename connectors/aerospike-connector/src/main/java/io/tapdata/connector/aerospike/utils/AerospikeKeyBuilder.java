@@ -0,0 +1,207 @@
+package io.tapdata.connector.aerospike.utils;
+
+import com.aerospike.client.Key;
+import com.aerospike.client.Value;
+import com.aerospike.client.command.ParticleType;
+import gnu.crypto.hash.RipeMD160;
+import io.tapdata.entity.schema.value.DateTime;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Build the user key of a record from its primary key values, as compact bytes instead of "name_value_name_value".
+ *
+ * Only the values are written, in the order of the primary keys, each one is a type tag followed by the value,
+ * variable length values are prefixed by their length, so no value can be confused with another one whatever it contains.
+ * The numbers with the same value make the same key, 5, 5L and 5.0 are all written as long.
+ * The bytes are built in a buffer reused by the records, not thread safe.
+ */
+public class AerospikeKeyBuilder {
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_DOUBLE = 2;
+    private static final byte TYPE_DECIMAL = 3;
+    private static final byte TYPE_STRING = 4;
+    private static final byte TYPE_BYTES = 5;
+    private static final byte TYPE_BOOLEAN = 6;
+    private static final byte TYPE_DATE_TIME = 7;
+    private static final byte TYPE_OTHER = 8;
+
+    private final String[] primaryKeys;
+    private byte[] buffer = new byte[64];
+    private int length;
+    //Same hash as Crypto.computeDigest of the client, reset by every digest.
+    private final RipeMD160 ripeMD160 = new RipeMD160();
+    private String digestSet;
+    private byte[] digestSetBytes;
+
+    public AerospikeKeyBuilder(Collection<String> primaryKeys) {
+        this.primaryKeys = primaryKeys.toArray(new String[0]);
+    }
+
+    /**
+     * The key with the digest computed from the buffer, same as new Key(namespace, set, build(record)),
+     * without the intermediate copies and the new hash of each Key.
+     */
+    public Key key(String namespace, String set, Map<String, Object> record) {
+        writeRecord(record);
+        if (!set.equals(digestSet)) {
+            digestSet = set;
+            digestSetBytes = set.getBytes(StandardCharsets.UTF_8);
+        }
+        ripeMD160.update(digestSetBytes, 0, digestSetBytes.length);
+        ripeMD160.update((byte) ParticleType.BLOB);
+        ripeMD160.update(buffer, 0, length);
+        return new Key(namespace, ripeMD160.digest(), set, new Value.BytesValue(Arrays.copyOf(buffer, length)));
+    }
+
+    /**
+     * @return the key bytes of the record, a new array of the exact length.
+     */
+    public byte[] build(Map<String, Object> record) {
+        writeRecord(record);
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private void writeRecord(Map<String, Object> record) {
+        length = 0;
+        for (String primaryKey : primaryKeys) {
+            writeValue(record.get(primaryKey));
+        }
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            writeString(TYPE_STRING, (String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            double doubleValue = ((Number) value).doubleValue();
+            long longValue = (long) doubleValue;
+            if (longValue == doubleValue && longValue != Long.MAX_VALUE && longValue != Long.MIN_VALUE) {
+                writeLong(longValue);
+            } else {
+                writeByte(TYPE_DOUBLE);
+                writeFixedLong(Double.doubleToLongBits(doubleValue));
+            }
+        } else if (value instanceof BigInteger) {
+            BigInteger bigInteger = (BigInteger) value;
+            if (bigInteger.bitLength() < 64)
+                writeLong(bigInteger.longValue());
+            else
+                writeDecimal(new BigDecimal(bigInteger));
+        } else if (value instanceof BigDecimal) {
+            writeDecimal((BigDecimal) value);
+        } else if (value instanceof Boolean) {
+            writeByte(TYPE_BOOLEAN);
+            writeByte((Boolean) value ? (byte) 1 : (byte) 0);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            writeByte(TYPE_BYTES);
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        } else if (value instanceof DateTime) {
+            DateTime dateTime = (DateTime) value;
+            writeDateTime(dateTime.getSeconds() != null ? dateTime.getSeconds() : 0, dateTime.getNano() != null ? dateTime.getNano() : 0);
+        } else if (value instanceof Date) {
+            long time = ((Date) value).getTime();
+            writeDateTime(Math.floorDiv(time, 1000), Math.floorMod(time, 1000) * 1000000L);
+        } else {
+            writeString(TYPE_OTHER, value.toString());
+        }
+    }
+
+    private void writeDecimal(BigDecimal decimal) {
+        BigDecimal stripped = decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+        //Integral and in the range of long, same as the other integral numbers.
+        if (stripped.scale() <= 0 && stripped.precision() - stripped.scale() <= 19) {
+            BigInteger integer = stripped.toBigIntegerExact();
+            if (integer.bitLength() < 64) {
+                writeLong(integer.longValue());
+                return;
+            }
+        }
+        byte[] unscaled = stripped.unscaledValue().toByteArray();
+        writeByte(TYPE_DECIMAL);
+        writeVarInt(stripped.scale());
+        writeVarInt(unscaled.length);
+        ensureCapacity(unscaled.length);
+        System.arraycopy(unscaled, 0, buffer, length, unscaled.length);
+        length += unscaled.length;
+    }
+
+    private void writeLong(long value) {
+        writeByte(TYPE_LONG);
+        writeFixedLong(value);
+    }
+
+    private void writeDateTime(long seconds, long nano) {
+        writeByte(TYPE_DATE_TIME);
+        writeFixedLong(seconds);
+        writeFixedLong(nano);
+    }
+
+    /**
+     * The length prefix is the count of the UTF-8 bytes, ASCII is encoded straight into the buffer.
+     */
+    private void writeString(byte type, String value) {
+        writeByte(type);
+        if (!isAscii(value)) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+            return;
+        }
+        writeVarInt(value.length());
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[length++] = (byte) value.charAt(i);
+        }
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80)
+                return false;
+        }
+        return true;
+    }
+
+    private void writeVarInt(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeFixedLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeByte(byte value) {
+        ensureCapacity(1);
+        buffer[length++] = value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+    }
+}
@@ -10,6 +10,8 @@ import java.util.Map;
 
 public class AerospikeSinkConfig implements Serializable {
     private static final long serialVersionUID = 1L;
+    public static final String PRIMARY_KEY_FORMAT_BINARY = "binary";
+    public static final String PRIMARY_KEY_FORMAT_STRING = "string";
     private String seedHosts;
     private String keyspace;
     private String userName;
@@ -17,6 +19,13 @@ public class AerospikeSinkConfig implements Serializable {
     private int maxConcurrentRequests = 100;
     private int timeoutMs = 100;
     private int retries = 1;
+    //Max keys of one batch get.
+    private int batchReadSize = 5000;
+    //Threads of one batch get, 0 to read all the nodes in parallel, 1 to read the nodes one by one.
+    private int batchConcurrentThreads = 0;
+    //string: "name_value_name_value" as the sets written by the older versions, binary: opt-in compact typed bytes of the primary key values,
+    //the records written in one format are not found by the keys of the other, only for the new sets.
+    private String primaryKeyFormat = PRIMARY_KEY_FORMAT_STRING;
 
     public static AerospikeSinkConfig load(String jsonFile) throws  IOException{
         ObjectMapper mapper = new ObjectMapper(new JsonFactory());
@@ -61,6 +70,22 @@ public class AerospikeSinkConfig implements Serializable {
         return this.retries;
     }
 
+    public int getBatchReadSize() {
+        return this.batchReadSize;
+    }
+
+    public int getBatchConcurrentThreads() {
+        return this.batchConcurrentThreads;
+    }
+
+    public String getPrimaryKeyFormat() {
+        return this.primaryKeyFormat;
+    }
+
+    public boolean isStringPrimaryKey() {
+        return PRIMARY_KEY_FORMAT_STRING.equalsIgnoreCase(this.primaryKeyFormat);
+    }
+
     public AerospikeSinkConfig setSeedHosts(String seedHosts) {
         this.seedHosts = seedHosts;
         return this;
@@ -95,4 +120,19 @@ public class AerospikeSinkConfig implements Serializable {
         this.retries = retries;
         return this;
     }
+
+    public AerospikeSinkConfig setBatchReadSize(int batchReadSize) {
+        this.batchReadSize = batchReadSize;
+        return this;
+    }
+
+    public AerospikeSinkConfig setBatchConcurrentThreads(int batchConcurrentThreads) {
+        this.batchConcurrentThreads = batchConcurrentThreads;
+        return this;
+    }
+
+    public AerospikeSinkConfig setPrimaryKeyFormat(String primaryKeyFormat) {
+        this.primaryKeyFormat = primaryKeyFormat;
+        return this;
+    }
 }
\ No newline at end of file
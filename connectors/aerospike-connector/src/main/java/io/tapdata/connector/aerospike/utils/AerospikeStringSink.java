@@ -1,13 +1,13 @@
 package io.tapdata.connector.aerospike.utils;
 
 import com.aerospike.client.*;
+import com.aerospike.client.policy.BatchPolicy;
 import com.aerospike.client.policy.ClientPolicy;
 import com.aerospike.client.policy.WritePolicy;
-import io.tapdata.connector.aerospike.bean.IRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
+import java.util.Arrays;
 
 public class AerospikeStringSink {
     public AerospikeStringSink() {
@@ -16,7 +16,9 @@ public class AerospikeStringSink {
     private static final Logger LOG = LoggerFactory.getLogger(AerospikeStringSink.class);
     private AerospikeSinkConfig aerospikeSinkConfig;
     private WritePolicy writePolicy;
-    public AerospikeClient client;
+    //Built once, reused by every batch read.
+    private BatchPolicy batchPolicy;
+    public IAerospikeClient client;
 
     public void open(AerospikeSinkConfig config) {
         this.aerospikeSinkConfig = config;
@@ -24,7 +26,10 @@ public class AerospikeStringSink {
             this.writePolicy = new WritePolicy();
             this.writePolicy.maxRetries = this.aerospikeSinkConfig.getRetries();
             this.writePolicy.setTimeout(this.aerospikeSinkConfig.getTimeoutMs());
-            this.createClient();
+            this.batchPolicy = new BatchPolicy();
+            this.batchPolicy.maxRetries = this.aerospikeSinkConfig.getRetries();
+            this.batchPolicy.maxConcurrentThreads = this.aerospikeSinkConfig.getBatchConcurrentThreads();
+            this.client = this.createClient();
         } else {
             throw new IllegalArgumentException("Required property not set.");
         }
@@ -48,27 +53,32 @@ public class AerospikeStringSink {
     }
 
 
-    public void write(IRecord<String> record, String keySet) {
-        Key key = new Key(this.aerospikeSinkConfig.getKeyspace(), keySet, record.getKey().get());
-        if (record.getKey().isPresent()) {
-            Bin key_bin = new Bin("PK", record.getKey().get());
-            this.client.put(this.writePolicy, key, key_bin);
+    /**
+     * Read the keys by batch get in chunks of batchReadSize keys.
+     *
+     * @return records in the same order of the keys, null for the key not found.
+     */
+    public Record[] read(Key[] keys) {
+        int batchReadSize = Math.max(1, this.aerospikeSinkConfig.getBatchReadSize());
+        if (keys.length <= batchReadSize)
+            return client.get(batchPolicy, keys);
+        Record[] records = new Record[keys.length];
+        for (int from = 0; from < keys.length; from += batchReadSize) {
+            Key[] chunk = Arrays.copyOfRange(keys, from, Math.min(from + batchReadSize, keys.length));
+            Record[] chunkRecords = client.get(batchPolicy, chunk);
+            System.arraycopy(chunkRecords, 0, records, from, chunk.length);
         }
+        return records;
+    }
 
-        Bin[] bins = new Bin[record.getBinValuesMap().size()];
-        int idx = 0;
-        for (Map.Entry<String, Object> entry : record.getBinValuesMap().entrySet()) {
-            String binKey = entry.getKey();
-            if (binKey.length() > 14) {
-                binKey = binKey.substring(0,14);
-            }
-            Bin bin = new Bin(binKey, entry.getValue());
-            bins[idx++] = bin;
-        }
+    /**
+     * Put the bins built by AerospikeBins in one round trip, the primary key bin is already in the bins.
+     */
+    public void write(Key key, Bin[] bins) {
         this.client.put(this.writePolicy, key, bins);
     }
 
-    private void createClient() {
+    protected IAerospikeClient createClient() {
         String[] hosts = this.aerospikeSinkConfig.getSeedHosts().split(",");
         if (hosts.length <= 0) {
             throw new RuntimeException("Invalid Seed Hosts");
@@ -86,7 +96,7 @@ public class AerospikeStringSink {
                 policy.password = this.aerospikeSinkConfig.getPassword();
             }
 
-            this.client = new AerospikeClient(policy, aeroSpikeHosts);
+            return new AerospikeClient(policy, aeroSpikeHosts);
         }
     }
 }
@@ -1,6 +1,7 @@
 package empty;
 
 import com.aerospike.client.AerospikeClient;
+import com.aerospike.client.IAerospikeClient;
 import com.aerospike.client.Bin;
 import com.aerospike.client.Key;
 import com.aerospike.client.Record;
@@ -9,8 +10,7 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import io.tapdata.connector.aerospike.bean.AerospikeNamespaces;
 import io.tapdata.connector.aerospike.bean.AerospikeSet;
-import io.tapdata.connector.aerospike.bean.IRecord;
-import io.tapdata.connector.aerospike.bean.TapAerospikeRecord;
+import io.tapdata.connector.aerospike.utils.AerospikeBins;
 import io.tapdata.connector.aerospike.utils.AerospikeSinkConfig;
 import io.tapdata.connector.aerospike.utils.AerospikeStringSink;
 import io.tapdata.entity.utils.DataMap;
@@ -127,9 +127,8 @@ public class BasicTest {
         JSONObject after_json_obj = (JSONObject) dataMap.get("after");
 
         String keyStr = after_json_obj.get("id").toString();
-        String after_json = after_json_obj.toJSONString();
 
-        AerospikeClient client = aerospikeStringSink.client;
+        IAerospikeClient client = aerospikeStringSink.client;
         String keySet = "test_set_name";
         client.truncate(client.getInfoPolicyDefault(), sinkConfig.getKeyspace(), keySet, null);
 
@@ -149,9 +148,7 @@ public class BasicTest {
         Assert.assertTrue(keySetFlag);
 
         clearKeyInKeySet(sinkConfig, keySet, keyStr);
-        IRecord<String> tapAerospikeRecord = new TapAerospikeRecord(after_json, keyStr);
-
-        aerospikeStringSink.write(tapAerospikeRecord, keySet);
+        aerospikeStringSink.write(new Key(sinkConfig.getKeyspace(), keySet, keyStr), new AerospikeBins(after_json_obj.keySet()).toBins(after_json_obj, keyStr));
 
         key = new Key(sinkConfig.getKeyspace(), keySet, keyStr);
         Assert.assertEquals("{PK=1.0}", aerospikeStringSink.client.get(policy, key, "PK").bins.toString());
@@ -9,8 +9,6 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import io.tapdata.connector.aerospike.bean.AerospikeNamespaces;
 import io.tapdata.connector.aerospike.bean.AerospikeSet;
-import io.tapdata.connector.aerospike.bean.IRecord;
-import io.tapdata.connector.aerospike.bean.TapAerospikeRecord;
 import io.tapdata.connector.aerospike.utils.AerospikeSinkConfig;
 import io.tapdata.connector.aerospike.utils.AerospikeStringSink;
 import io.tapdata.entity.utils.DataMap;
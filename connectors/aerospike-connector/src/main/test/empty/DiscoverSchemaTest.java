@@ -1,6 +1,6 @@
 package empty;
 
-import com.aerospike.client.AerospikeClient;
+import com.aerospike.client.IAerospikeClient;
 import com.aerospike.client.Bin;
 import com.aerospike.client.Key;
 import com.aerospike.client.policy.WritePolicy;
@@ -38,7 +38,7 @@ public class DiscoverSchemaTest {
         initConnection(configPath);
 
         // test get namespaces
-        AerospikeClient client = this.aerospikeStringSink.client;
+        IAerospikeClient client = this.aerospikeStringSink.client;
         String[] ns =AerospikeNamespaces.getNamespaces(client);
         Assert.assertEquals("test", ns[0]);
         Assert.assertEquals("bar", ns[1]);
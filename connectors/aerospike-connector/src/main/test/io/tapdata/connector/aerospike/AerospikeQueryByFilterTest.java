@@ -0,0 +1,74 @@
+package io.tapdata.connector.aerospike;
+
+import io.tapdata.connector.aerospike.utils.AerospikeKeyBuilder;
+import io.tapdata.entity.codec.TapCodecRegistry;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.FilterResult;
+import io.tapdata.pdk.apis.entity.TapFilter;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.Assert.*;
+
+public class AerospikeQueryByFilterTest {
+    private final TapTable table = table("querySet")
+            .add(field("id", "int").isPrimaryKey(true).primaryKeyPos(1))
+            .add(field("name", "string"));
+
+    @Test
+    public void batchGetInChunks() throws Throwable {
+        MockAerospikeClient mockClient = new MockAerospikeClient();
+        AerospikeKeyBuilder keyBuilder = new AerospikeKeyBuilder(table.primaryKeys());
+        for (int id = 0; id < 10000; id += 2) {
+            Map<String, Object> bins = new LinkedHashMap<>();
+            bins.put("id", (long) id);
+            bins.put("name", "name_" + id);
+            mockClient.records.put(keyBuilder.key("test", table.getName(), bins), bins);
+        }
+        AerospikeConnector connector = mockClient.connector();
+        ConnectorFunctions connectorFunctions = new ConnectorFunctions();
+        connector.registerCapabilities(connectorFunctions, new TapCodecRegistry());
+        DataMap config = new DataMap();
+        config.put("seedHosts", "127.0.0.1:3000");
+        config.put("keyspace", "test");
+        config.put("batchReadSize", 300);
+        config.put("primaryKeyFormat", "binary");
+        config.put("batchConcurrentThreads", 4);
+        TapConnectorContext connectorContext = new TapConnectorContext(null, table, config, new DataMap());
+
+        List<TapFilter> filters = new ArrayList<>();
+        //Look up in random order to verify the mapping back.
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < 10000; id++) ids.add(id);
+        Collections.shuffle(ids, new Random(40));
+        for (Integer id : ids) {
+            TapFilter filter = new TapFilter();
+            filter.setMatch(DataMap.create().kv("id", id));
+            filters.add(filter);
+        }
+        AtomicReference<List<FilterResult>> results = new AtomicReference<>();
+        connectorFunctions.getQueryByFilterFunction().query(connectorContext, filters, results::set);
+
+        assertEquals((10000 + 300 - 1) / 300, mockClient.batchSizes.size());
+        assertFalse(mockClient.calls.contains("exists"));
+        assertEquals(4, mockClient.lastBatchPolicy.maxConcurrentThreads);
+        assertEquals(10000, results.get().size());
+        for (int i = 0; i < filters.size(); i++) {
+            FilterResult result = results.get().get(i);
+            int id = ids.get(i);
+            assertSame(filters.get(i), result.getFilter());
+            if (id % 2 == 0) {
+                assertEquals("name_" + id, result.getResult().get("name"));
+            } else {
+                assertNull(result.getResult());
+            }
+        }
+        connector.destroy();
+    }
+}
@@ -0,0 +1,75 @@
+package io.tapdata.connector.aerospike;
+
+import com.aerospike.client.*;
+import com.aerospike.client.policy.BatchPolicy;
+import io.tapdata.connector.aerospike.utils.AerospikeStringSink;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * In memory IAerospikeClient for put, get, batch get and delete, records the calls.
+ */
+public class MockAerospikeClient {
+    public final Map<Key, Map<String, Object>> records = new HashMap<>();
+    public final List<String> calls = new ArrayList<>();
+    public final List<Integer> batchSizes = new ArrayList<>();
+    public BatchPolicy lastBatchPolicy;
+
+    public IAerospikeClient client() {
+        return (IAerospikeClient) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{IAerospikeClient.class}, (proxy, method, args) -> {
+            calls.add(method.getName());
+            switch (method.getName()) {
+                case "put": {
+                    Key key = (Key) args[1];
+                    Map<String, Object> bins = records.computeIfAbsent(key, k -> new LinkedHashMap<>());
+                    for (Bin bin : (Bin[]) args[2]) {
+                        bins.put(bin.name, bin.value.getObject());
+                    }
+                    return null;
+                }
+                case "get":
+                    if (args[0] instanceof BatchPolicy && args[1] instanceof Key[]) {
+                        lastBatchPolicy = (BatchPolicy) args[0];
+                        Key[] keys = (Key[]) args[1];
+                        batchSizes.add(keys.length);
+                        Record[] result = new Record[keys.length];
+                        for (int i = 0; i < keys.length; i++) {
+                            result[i] = record(keys[i]);
+                        }
+                        return result;
+                    }
+                    return record((Key) args[1]);
+                case "delete":
+                    return records.remove((Key) args[1]) != null;
+                case "isConnected":
+                    return true;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private Record record(Key key) {
+        Map<String, Object> bins = records.get(key);
+        return bins != null ? new Record(new LinkedHashMap<>(bins), 1, 0) : null;
+    }
+
+    /**
+     * AerospikeConnector on the mock client.
+     */
+    public AerospikeConnector connector() {
+        IAerospikeClient mockClient = client();
+        return new AerospikeConnector() {
+            @Override
+            protected AerospikeStringSink createStringSink() {
+                return new AerospikeStringSink() {
+                    @Override
+                    protected IAerospikeClient createClient() {
+                        return mockClient;
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package io.tapdata.connector.aerospike.utils;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+import static io.tapdata.connector.aerospike.utils.AerospikeBinsTest.dateTime;
+import static io.tapdata.connector.aerospike.utils.AerospikeBinsTest.jsonPathBins;
+import static org.junit.Assert.*;
+
+/**
+ * Compare the direct bins with the json path of writeRecord, 1M records takes about 45 seconds, run it manually.
+ */
+@Ignore("Benchmark, run manually")
+public class AerospikeBinsBenchmark {
+    @Test
+    public void directBinsFasterThanJsonPath() {
+        final int recordCount = 1000000;
+        List<String> fieldNames = new ArrayList<>();
+        for (int i = 0; i < 10; i++) fieldNames.add("field_" + i);
+        fieldNames.add("a_very_long_field_name");
+        List<Map<String, Object>> records = new ArrayList<>(recordCount);
+        Random random = new Random(41);
+        for (int i = 0; i < recordCount; i++) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("field_0", i);
+            record.put("field_1", "name_" + i);
+            record.put("field_2", random.nextLong());
+            record.put("field_3", random.nextDouble());
+            record.put("field_4", random.nextBoolean());
+            record.put("field_5", new BigDecimal(BigInteger.valueOf(random.nextInt()), 2));
+            record.put("field_6", dateTime(1700000000L + i));
+            record.put("field_7", "some text of the record " + i);
+            record.put("field_8", random.nextInt(1000));
+            record.put("field_9", null);
+            record.put("a_very_long_field_name", "long_" + i);
+            records.add(record);
+        }
+
+        long checksum = 0;
+        long time = System.currentTimeMillis();
+        for (Map<String, Object> record : records) {
+            checksum += jsonPathBins(record, "k", true).size();
+        }
+        long jsonTime = System.currentTimeMillis() - time;
+
+        AerospikeBins aerospikeBins = new AerospikeBins(fieldNames);
+        time = System.currentTimeMillis();
+        for (Map<String, Object> record : records) {
+            checksum += aerospikeBins.toBins(record, "k").length;
+        }
+        long binsTime = System.currentTimeMillis() - time;
+        assertEquals(recordCount * 11L * 2, checksum);
+        assertTrue(recordCount + " records, json path takes " + jsonTime + "ms, direct bins take " + binsTime + "ms", binsTime < jsonTime);
+    }
+}
@@ -0,0 +1,292 @@
+package io.tapdata.connector.aerospike.utils;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.Key;
+import com.aerospike.client.Value;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import io.tapdata.base.ConnectorBase;
+import io.tapdata.connector.aerospike.AerospikeConnector;
+import io.tapdata.connector.aerospike.MockAerospikeClient;
+import io.tapdata.entity.codec.TapCodecRegistry;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.value.DateTime;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.Assert.*;
+
+public class AerospikeBinsTest {
+    private static final SerializerFeature[] JSON_FEATURES = {SerializerFeature.DisableCircularReferenceDetect, SerializerFeature.SortField, SerializerFeature.MapSortField};
+
+    /**
+     * The bins as writeRecord built them before, toJson, parsed into a DataMap and put by AerospikeStringSink with the primary key bin put first.
+     */
+    static Map<String, Value> jsonPathBins(Map<String, Object> record, String primaryKey, boolean insert) {
+        Map<String, Object> after = new LinkedHashMap<>(record);
+        if (insert) {
+            for (Map.Entry<String, Object> entry : after.entrySet()) {
+                if (entry.getValue() instanceof DateTime)
+                    entry.setValue(ConnectorBase.formatTapDateTime((DateTime) entry.getValue(), "yyyy-MM-dd HH:mm:ss"));
+            }
+        }
+        DataMap binValuesMap = JSON.parseObject(JSON.toJSONString(after, JSON_FEATURES), DataMap.class);
+        Map<String, Value> bins = new LinkedHashMap<>();
+        bins.put("PK", new Bin("PK", primaryKey).value);
+        for (Map.Entry<String, Object> entry : binValuesMap.entrySet()) {
+            String binKey = entry.getKey();
+            if (binKey.length() > 14)
+                binKey = binKey.substring(0, 14);
+            bins.put(binKey, new Bin(binKey, entry.getValue()).value);
+        }
+        return bins;
+    }
+
+    private Map<String, Value> binsMap(Bin[] bins) {
+        Map<String, Value> map = new LinkedHashMap<>();
+        for (Bin bin : bins) {
+            assertFalse("Duplicated bin " + bin.name, map.containsKey(bin.name));
+            map.put(bin.name, bin.value);
+        }
+        return map;
+    }
+
+    private void assertSameValue(String message, Value expected, Value actual) {
+        assertEquals(message, expected.getClass(), actual.getClass());
+        assertEquals(message, expected.getType(), actual.getType());
+        assertEquals(message, expected.getObject(), actual.getObject());
+    }
+
+    private void assertSameBins(Map<String, Value> expected, Map<String, Value> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, Value> entry : expected.entrySet()) {
+            assertSameValue(entry.getKey(), entry.getValue(), actual.get(entry.getKey()));
+        }
+    }
+
+    static DateTime dateTime(long seconds) {
+        DateTime dateTime = new DateTime();
+        dateTime.setSeconds(seconds);
+        dateTime.setNano(123456789L);
+        return dateTime;
+    }
+
+    /**
+     * One value for each TapValue type, with the edge values of the number and binary types.
+     */
+    private Map<String, Object> allTypesRecord() {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("id", 1);
+        //TapString
+        record.put("string", "abc");
+        record.put("unicode", "中文 é \"quoted\" \\ \n");
+        record.put("empty", "");
+        //TapNumber
+        record.put("int", Integer.MIN_VALUE);
+        record.put("longSmall", 5L);
+        record.put("longBig", Long.MAX_VALUE);
+        record.put("short", (short) -3);
+        record.put("byte", (byte) 2);
+        record.put("double", 1.5d);
+        record.put("doubleWhole", 2.0d);
+        record.put("doubleHuge", 1e20d);
+        record.put("doubleTiny", 1.0E-7d);
+        record.put("doubleNegZero", -0.0d);
+        record.put("doubleNaN", Double.NaN);
+        record.put("doubleInf", Double.NEGATIVE_INFINITY);
+        record.put("float", 1.1f);
+        record.put("floatWhole", 3.0f);
+        record.put("decimal", new BigDecimal("1.50"));
+        record.put("decimalWhole", new BigDecimal("100"));
+        record.put("decimalExp", new BigDecimal("1E+3"));
+        record.put("decimalHuge", new BigDecimal("123456789012345678901234567890"));
+        record.put("bigInteger", new BigInteger("123456789012345678901234567890"));
+        record.put("bigIntegerSmall", BigInteger.TEN);
+        //TapBoolean
+        record.put("boolean", true);
+        //TapBinary
+        record.put("binary1", new byte[]{1});
+        record.put("binary2", new byte[]{1, 2});
+        record.put("binary3", new byte[]{1, 2, 3, -1});
+        //TapDateTime, TapDate, TapTime, TapYear
+        record.put("dateTime", dateTime(1700000000L));
+        record.put("dateBefore1970", dateTime(-1000000000L));
+        record.put("dateAncient", dateTime(-20000000000L));
+        //TapArray
+        record.put("array", Arrays.asList(1, 2.5d, "a", null, Arrays.asList(3L, 4L)));
+        //TapMap
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("z", 1);
+        nested.put("a", 2.0d);
+        nested.put("dateTime", dateTime(1700000000L));
+        nested.put("nullValue", null);
+        record.put("map", nested);
+        //TapRaw
+        record.put("date", new Date(1700000000123L));
+        record.put("char", 'c');
+        record.put("nullValue", null);
+        //Longer than 14 characters.
+        record.put("a_very_long_field_name", "long");
+        return record;
+    }
+
+    @Test
+    public void sameBinsAsJsonPath() {
+        Map<String, Object> record = allTypesRecord();
+        AerospikeBins aerospikeBins = new AerospikeBins(record.keySet());
+        assertSameBins(jsonPathBins(record, "id_1", true), binsMap(aerospikeBins.toBins(record, "id_1")));
+    }
+
+    @Test
+    public void updateFormatsDateTimeAsInsert() {
+        Map<String, Object> record = allTypesRecord();
+        AerospikeBins aerospikeBins = new AerospikeBins(record.keySet());
+        Map<String, Value> bins = binsMap(aerospikeBins.toBins(record, "id_1"));
+        assertSameValue("dateTime", Value.get(ConnectorBase.formatTapDateTime(dateTime(1700000000L), "yyyy-MM-dd HH:mm:ss")), bins.get("dateTime"));
+        //Except the DateTime, the update is the same as before.
+        record.remove("dateTime");
+        record.remove("dateBefore1970");
+        record.remove("dateAncient");
+        assertSameBins(jsonPathBins(record, "id_1", false), binsMap(aerospikeBins.toBins(record, "id_1")));
+    }
+
+    @Test
+    public void sameNumbersAsJsonPath() {
+        Random random = new Random(41);
+        for (int i = 0; i < 100000; i++) {
+            Object[] values = {
+                    Double.longBitsToDouble(random.nextLong()), random.nextDouble() * Math.pow(10, random.nextInt(40) - 20),
+                    Float.intBitsToFloat(random.nextInt()), random.nextFloat() * 1000,
+                    new BigDecimal(BigInteger.valueOf(random.nextLong()), random.nextInt(20) - 10),
+                    new BigInteger(random.nextInt(100) + 1, random), random.nextLong(), random.nextInt(),
+            };
+            for (Object value : values) {
+                Map<String, Object> record = new LinkedHashMap<>();
+                record.put("value", value);
+                Value expected = jsonPathBins(record, "k", true).get("value");
+                Bin[] bins = new AerospikeBins(record.keySet()).toBins(record, "k");
+                assertSameValue(value.getClass() + " " + value, expected, binsMap(bins).get("value"));
+            }
+        }
+    }
+
+    @Test
+    public void formatDateTimeAsSimpleDateFormat() {
+        Random random = new Random(41);
+        //From 1900 to 2100, the years out of range fall back to SimpleDateFormat.
+        long from = -2208988800L;
+        long to = 4102444800L;
+        for (int i = 0; i < 200000; i++) {
+            DateTime dateTime = dateTime(from + (long) (random.nextDouble() * (to - from)));
+            assertEquals(ConnectorBase.formatTapDateTime(dateTime, "yyyy-MM-dd HH:mm:ss"), AerospikeBins.formatDateTime(dateTime));
+        }
+        for (long seconds : new long[]{from, to, 0, -1, 253402300799L, 253402300800L, -62135596800L, -99999999999L}) {
+            assertEquals(ConnectorBase.formatTapDateTime(dateTime(seconds), "yyyy-MM-dd HH:mm:ss"), AerospikeBins.formatDateTime(dateTime(seconds)));
+        }
+    }
+
+    @Test
+    public void binNamesNoCollision() {
+        List<String> fieldNames = Arrays.asList("customer_address_line1", "customer_address_line2", "customer_address_line3",
+                "abcdefghijklmn", "abcdefghijklmnop", "short", "unique_long_field_name");
+        AerospikeBins aerospikeBins = new AerospikeBins(fieldNames);
+        Set<String> binNames = new HashSet<>();
+        for (String fieldName : fieldNames) {
+            String binName = aerospikeBins.binName(fieldName);
+            assertTrue(binName, binName.length() <= AerospikeBins.MAX_BIN_NAME_LENGTH);
+            assertTrue("Collision " + binName, binNames.add(binName));
+        }
+        //Kept as before when there is no collision.
+        assertEquals("short", aerospikeBins.binName("short"));
+        assertEquals("abcdefghijklmn", aerospikeBins.binName("abcdefghijklmn"));
+        assertEquals("unique_long_fi", aerospikeBins.binName("unique_long_field_name"));
+        //Same names whatever the order of the fields.
+        List<String> reversed = new ArrayList<>(fieldNames);
+        Collections.reverse(reversed);
+        AerospikeBins reversedBins = new AerospikeBins(reversed);
+        for (String fieldName : fieldNames) {
+            assertEquals(aerospikeBins.binName(fieldName), reversedBins.binName(fieldName));
+        }
+        //The field out of the table doesn't take the name of a table field.
+        String extra = aerospikeBins.binName("unique_long_fi_extra");
+        assertTrue(extra, binNames.add(extra));
+        assertEquals(extra, aerospikeBins.binName("unique_long_fi_extra"));
+        //Nor does the short one.
+        String shortExtra = aerospikeBins.binName("unique_long_fi");
+        assertTrue(shortExtra, binNames.add(shortExtra));
+        assertTrue(shortExtra, shortExtra.length() <= AerospikeBins.MAX_BIN_NAME_LENGTH);
+        assertEquals(shortExtra, aerospikeBins.binName("unique_long_fi"));
+    }
+
+    @Test
+    public void binNamesOfConcurrentWriters() throws Exception {
+        AerospikeBins aerospikeBins = new AerospikeBins(Collections.singletonList("id"));
+        int threadCount = 8;
+        List<Map<String, String>> threadBinNames = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Map<String, String> names = new HashMap<>();
+            threadBinNames.add(names);
+            threads.add(new Thread(() -> {
+                for (int field = 0; field < 2000; field++) {
+                    String fieldName = "extra_long_field_" + field;
+                    names.put(fieldName, aerospikeBins.binName(fieldName));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        //Every thread sees the same name of a field, and the names don't collide.
+        for (Map<String, String> names : threadBinNames) {
+            assertEquals(threadBinNames.get(0), names);
+        }
+        assertEquals(2000, new HashSet<>(threadBinNames.get(0).values()).size());
+    }
+
+    @Test
+    public void writeRecordInOnePut() throws Throwable {
+        MockAerospikeClient mockClient = new MockAerospikeClient();
+        AerospikeConnector connector = mockClient.connector();
+        ConnectorFunctions connectorFunctions = new ConnectorFunctions();
+        connector.registerCapabilities(connectorFunctions, new TapCodecRegistry());
+        DataMap config = new DataMap();
+        config.put("seedHosts", "127.0.0.1:3000");
+        config.put("keyspace", "test");
+        config.put("primaryKeyFormat", "binary");
+        TapTable table = table("writeSet")
+                .add(field("id", "int").isPrimaryKey(true).primaryKeyPos(1))
+                .add(field("created", "datetime"))
+                .add(field("customer_address_line1", "string"))
+                .add(field("customer_address_line2", "string"));
+        TapConnectorContext connectorContext = new TapConnectorContext(null, table, config, new DataMap());
+
+        List<TapRecordEvent> events = new ArrayList<>();
+        for (int id = 0; id < 100; id++) {
+            events.add(insertRecordEvent(map(entry("id", id), entry("created", dateTime(1700000000L + id)),
+                    entry("customer_address_line1", "line1_" + id), entry("customer_address_line2", "line2_" + id)), table));
+        }
+        connectorFunctions.getWriteRecordFunction().writeDML(connectorContext, events, result -> assertEquals(100, result.getInsertedCount()));
+        assertEquals(100, Collections.frequency(mockClient.calls, "put"));
+        byte[] userKey = new AerospikeKeyBuilder(table.primaryKeys()).build(map(entry("id", 7)));
+        Map<String, Object> bins = mockClient.records.get(new Key("test", table.getName(), userKey));
+        assertArrayEquals(userKey, (byte[]) bins.get("PK"));
+        assertEquals(7, bins.get("id"));
+        assertEquals(AerospikeBins.formatDateTime(dateTime(1700000007L)), bins.get("created"));
+        assertEquals(5, bins.size());
+        assertTrue(bins.containsValue("line1_7"));
+        assertTrue(bins.containsValue("line2_7"));
+        connector.destroy();
+    }
+}
@@ -0,0 +1,56 @@
+package io.tapdata.connector.aerospike.utils;
+
+import com.aerospike.client.Key;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import static io.tapdata.connector.aerospike.utils.AerospikeKeyBuilderTest.stringKey;
+import static org.junit.Assert.*;
+
+/**
+ * Compare the allocation of the binary key with the string key of the older versions, run it manually.
+ */
+@Ignore("Benchmark, run manually")
+public class AerospikeKeyBuilderBenchmark {
+    @Test
+    public void binaryKeyAllocatesLess() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final int recordCount = 1000000;
+        List<String> primaryKeys = Arrays.asList("tenant_id", "order_id");
+        List<Map<String, Object>> records = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            Map<String, Object> record = new HashMap<>();
+            record.put("tenant_id", "tenant_" + (i % 100));
+            record.put("order_id", 1000000000L + i);
+            records.add(record);
+        }
+        AerospikeKeyBuilder keyBuilder = new AerospikeKeyBuilder(primaryKeys);
+        //Warm up.
+        for (int i = 0; i < 10000; i++) {
+            new Key("test", "set", stringKey(records.get(i), primaryKeys));
+            keyBuilder.key("test", "set", records.get(i));
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+        long time = System.currentTimeMillis();
+        for (Map<String, Object> record : records) {
+            assertEquals(20, new Key("test", "set", stringKey(record, primaryKeys)).digest.length);
+        }
+        long stringTime = System.currentTimeMillis() - time;
+        long stringAllocated = (threadMXBean.getThreadAllocatedBytes(threadId) - allocated) / recordCount;
+
+        allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+        time = System.currentTimeMillis();
+        for (Map<String, Object> record : records) {
+            assertEquals(20, keyBuilder.key("test", "set", record).digest.length);
+        }
+        long binaryTime = System.currentTimeMillis() - time;
+        long binaryAllocated = (threadMXBean.getThreadAllocatedBytes(threadId) - allocated) / recordCount;
+        assertTrue(recordCount + " keys, string key takes " + stringTime + "ms and " + stringAllocated + " bytes per record, binary key takes " +
+                binaryTime + "ms and " + binaryAllocated + " bytes per record", binaryAllocated < stringAllocated);
+    }
+}
@@ -0,0 +1,156 @@
+package io.tapdata.connector.aerospike.utils;
+
+import com.aerospike.client.Key;
+import io.tapdata.entity.schema.value.DateTime;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class AerospikeKeyBuilderTest {
+    private final AerospikeKeyBuilder twoKeys = new AerospikeKeyBuilder(Arrays.asList("a", "b"));
+
+    private Map<String, Object> record(Object a, Object b) {
+        Map<String, Object> record = new HashMap<>();
+        record.put("a", a);
+        record.put("b", b);
+        return record;
+    }
+
+    /**
+     * Same as AerospikeConnector.generateASPrimaryKey, the key of the older versions.
+     */
+    static String stringKey(Map<String, Object> record, Collection<String> primaryKeys) {
+        StringBuilder builder = new StringBuilder();
+        for (String fieldName : primaryKeys) {
+            builder.append(fieldName).append('_').append(record.get(fieldName).toString()).append('_');
+        }
+        if (builder.length() != 0) builder.delete(builder.length() - 1, builder.length());
+        return builder.toString();
+    }
+
+    @Test
+    public void sameDigestAsClient() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            Map<String, Object> record = record(random.nextLong(), "name_" + random.nextInt() + "中");
+            String set = "set" + (i % 3);
+            Key key = twoKeys.key("test", set, record);
+            Key expected = new Key("test", set, twoKeys.build(record));
+            assertArrayEquals(expected.digest, key.digest);
+            assertEquals(expected, key);
+            assertArrayEquals((byte[]) expected.userKey.getObject(), (byte[]) key.userKey.getObject());
+        }
+    }
+
+    @Test
+    public void separatorInValues() {
+        Map<String, Object> first = record("x_b", "y");
+        Map<String, Object> second = record("x", "b_y");
+        //The string key can't tell them apart.
+        assertEquals(stringKey(first, Arrays.asList("a", "b")), stringKey(second, Arrays.asList("a", "b")));
+        assertFalse(Arrays.equals(twoKeys.build(first), twoKeys.build(second)));
+    }
+
+    @Test
+    public void adversarialValues() {
+        List<Object[]> pairs = new ArrayList<>();
+        pairs.add(new Object[]{"", "a"});
+        pairs.add(new Object[]{"a", ""});
+        pairs.add(new Object[]{"a", null});
+        pairs.add(new Object[]{null, "a"});
+        pairs.add(new Object[]{"null", "a"});
+        pairs.add(new Object[]{"1", "a"});
+        pairs.add(new Object[]{1, "a"});
+        pairs.add(new Object[]{1.5d, "a"});
+        pairs.add(new Object[]{"1.5", "a"});
+        pairs.add(new Object[]{new BigDecimal("1.5"), "a"});
+        pairs.add(new Object[]{true, "a"});
+        pairs.add(new Object[]{"true", "a"});
+        pairs.add(new Object[]{"a".getBytes(), "a"});
+        pairs.add(new Object[]{"a", "a".getBytes()});
+        //A string holding the bytes of a length prefix and a type tag.
+        pairs.add(new Object[]{"a\u0004\u0001", "b"});
+        pairs.add(new Object[]{"a", "\u0001b"});
+        pairs.add(new Object[]{"\u0004\u0001a", ""});
+        pairs.add(new Object[]{"中", "a"});
+        pairs.add(new Object[]{"ä¸­", "a"});
+        pairs.add(new Object[]{new Date(1000), "a"});
+        pairs.add(new Object[]{1000L, "a"});
+        Set<ByteBuffer> keys = new HashSet<>();
+        for (Object[] pair : pairs) {
+            assertTrue(Arrays.toString(pair), keys.add(ByteBuffer.wrap(twoKeys.build(record(pair[0], pair[1])))));
+        }
+    }
+
+    @Test
+    public void allSplitsOfStrings() {
+        //Every split of every string over an alphabet with the separator, the type tags and a length byte.
+        char[] alphabet = {'_', 'a', '\u0001', '\u0004', '\u0080'};
+        Set<ByteBuffer> keys = new HashSet<>();
+        int count = 0;
+        for (int length = 0; length <= 6; length++) {
+            int[] digits = new int[length];
+            while (true) {
+                char[] chars = new char[length];
+                for (int i = 0; i < length; i++) chars[i] = alphabet[digits[i]];
+                String value = new String(chars);
+                for (int split = 0; split <= length; split++) {
+                    assertTrue(value + " at " + split, keys.add(ByteBuffer.wrap(twoKeys.build(record(value.substring(0, split), value.substring(split))))));
+                    count++;
+                }
+                int i = length - 1;
+                while (i >= 0 && ++digits[i] == alphabet.length) digits[i--] = 0;
+                if (i < 0) break;
+            }
+        }
+        assertEquals(count, keys.size());
+    }
+
+    @Test
+    public void randomKeysNoDigestCollision() {
+        Random random = new Random(42);
+        AerospikeKeyBuilder keyBuilder = new AerospikeKeyBuilder(Arrays.asList("id", "name", "amount"));
+        Set<ByteBuffer> digests = new HashSet<>();
+        for (int i = 0; i < 1000000; i++) {
+            Map<String, Object> record = new HashMap<>();
+            //i makes the record unique, the others are random noise.
+            record.put("id", i);
+            record.put("name", random.nextBoolean() ? "_" + random.nextInt(10) : null);
+            record.put("amount", new BigDecimal(BigInteger.valueOf(random.nextInt(100)), random.nextInt(3)));
+            assertTrue(digests.add(ByteBuffer.wrap(keyBuilder.key("test", "set", record).digest)));
+        }
+    }
+
+    @Test
+    public void sameNumberSameKey() {
+        AerospikeKeyBuilder keyBuilder = new AerospikeKeyBuilder(Collections.singletonList("id"));
+        byte[] expected = keyBuilder.build(Collections.singletonMap("id", 5L));
+        for (Object value : new Object[]{5, (short) 5, (byte) 5, 5.0d, 5.0f, new BigDecimal("5.00"), new BigDecimal("5"), BigInteger.valueOf(5)}) {
+            assertArrayEquals(value.getClass().getSimpleName(), expected, keyBuilder.build(Collections.singletonMap("id", value)));
+        }
+        assertArrayEquals(keyBuilder.build(Collections.singletonMap("id", Long.MAX_VALUE)), keyBuilder.build(Collections.singletonMap("id", new BigDecimal(Long.MAX_VALUE))));
+        assertArrayEquals(keyBuilder.build(Collections.singletonMap("id", new BigDecimal("1.5"))), keyBuilder.build(Collections.singletonMap("id", new BigDecimal("1.500"))));
+        assertFalse(Arrays.equals(keyBuilder.build(Collections.singletonMap("id", 0.5d)), keyBuilder.build(Collections.singletonMap("id", 0))));
+
+        DateTime dateTime = new DateTime();
+        dateTime.setSeconds(1L);
+        dateTime.setNano(0L);
+        assertArrayEquals(keyBuilder.build(Collections.singletonMap("id", dateTime)), keyBuilder.build(Collections.singletonMap("id", new Date(1000))));
+        //Long values don't grow the key.
+        assertEquals(9, expected.length);
+    }
+
+    @Test
+    public void stringKeyByDefault() throws Exception {
+        //The sets written by the older versions are still found, binary key is opt-in.
+        assertTrue(AerospikeSinkConfig.load(new HashMap<>()).isStringPrimaryKey());
+        Map<String, Object> config = new HashMap<>();
+        config.put("primaryKeyFormat", "binary");
+        assertFalse(AerospikeSinkConfig.load(config).isStringPrimaryKey());
+    }
+}
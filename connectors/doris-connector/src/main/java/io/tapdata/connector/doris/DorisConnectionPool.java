@@ -0,0 +1,154 @@
+package io.tapdata.connector.doris;
+
+import io.tapdata.entity.logger.TapLogger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A small pool of JDBC connections, so that writes, queries and DDL of one connector don't serialize on one socket.
+ *
+ * The broken connection is discarded, the work is retried once on a new connection, unless the caller tells the work
+ * is not safe to run again.
+ */
+public class DorisConnectionPool {
+    private static final String TAG = DorisConnectionPool.class.getSimpleName();
+
+    public interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    public interface ConnectionFunction<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+
+    private final int maxSize;
+    private final ConnectionSupplier connectionSupplier;
+    private final Deque<Connection> idleConnections = new ArrayDeque<>();
+    private int size;
+    private boolean closed;
+
+    public DorisConnectionPool(int maxSize, ConnectionSupplier connectionSupplier) {
+        this.maxSize = Math.max(1, maxSize);
+        this.connectionSupplier = connectionSupplier;
+    }
+
+    /**
+     * Borrow a connection for the function and give it back after, retry once on a new connection if the connection is broken.
+     */
+    public <T> T execute(ConnectionFunction<T> function) throws SQLException {
+        return execute(function, true);
+    }
+
+    /**
+     * Borrow a connection for the function and give it back after.
+     * If retryOnBroken is false, the error of the broken connection is thrown without retry, for example the work which may
+     * have been partially applied and can not be applied twice.
+     */
+    public <T> T execute(ConnectionFunction<T> function, boolean retryOnBroken) throws SQLException {
+        Connection connection = borrow();
+        try {
+            T result = function.apply(connection);
+            giveBack(connection, false);
+            return result;
+        } catch (SQLException e) {
+            boolean broken = isBroken(connection, e);
+            giveBack(connection, broken);
+            if (!broken || !retryOnBroken)
+                throw e;
+            TapLogger.warn(TAG, "Connection is broken, {}, retry on a new connection", e.getMessage());
+        } catch (RuntimeException | Error e) {
+            giveBack(connection, isBroken(connection, null));
+            throw e;
+        }
+        connection = borrow();
+        try {
+            T result = function.apply(connection);
+            giveBack(connection, false);
+            return result;
+        } catch (SQLException | RuntimeException | Error e) {
+            giveBack(connection, isBroken(connection, e instanceof SQLException ? (SQLException) e : null));
+            throw e;
+        }
+    }
+
+    public synchronized Connection borrow() throws SQLException {
+        while (true) {
+            if (closed)
+                throw new SQLException("Connection pool is closed");
+            Connection connection = idleConnections.pollFirst();
+            if (connection != null) {
+                if (!connection.isClosed())
+                    return connection;
+                size--;
+                continue;
+            }
+            if (size < maxSize) {
+                size++;
+                try {
+                    return connectionSupplier.get();
+                } catch (SQLException | RuntimeException e) {
+                    size--;
+                    throw e;
+                }
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+        }
+    }
+
+    public synchronized void giveBack(Connection connection, boolean broken) {
+        if (broken || closed) {
+            size--;
+            closeQuietly(connection);
+        } else {
+            idleConnections.offerFirst(connection);
+        }
+        notifyAll();
+    }
+
+    public synchronized void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idleConnections.pollFirst()) != null) {
+            size--;
+            closeQuietly(connection);
+        }
+        notifyAll();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int idleSize() {
+        return idleConnections.size();
+    }
+
+    /**
+     * SQL state class 08 is connection exception.
+     */
+    private boolean isBroken(Connection connection, SQLException e) {
+        if (e != null && e.getSQLState() != null && e.getSQLState().startsWith("08"))
+            return true;
+        try {
+            return connection.isClosed();
+        } catch (SQLException closedException) {
+            return true;
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            TapLogger.debug(TAG, "Close connection failed, {}", e.getMessage());
+        }
+    }
+}
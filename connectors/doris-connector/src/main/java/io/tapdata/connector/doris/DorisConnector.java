@@ -26,6 +26,11 @@ import io.tapdata.pdk.apis.functions.ConnectorFunctions;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
@@ -33,8 +38,9 @@ import java.util.function.Consumer;
 public class DorisConnector extends ConnectorBase implements TapConnector {
     public static final String TAG = DorisConnector.class.getSimpleName();
     private DorisConfig dorisConfig;
-    private Connection conn;
-    private Statement stmt;
+    private DorisConnectionPool connectionPool;
+    //Write the sub-batches partitioned by primary key concurrently.
+    private ExecutorService writeExecutor;
     private static final String TABLE_COLUMN_NAME = "TABLE";
     private static final DorisDMLInstance DMLInstance = DorisDMLInstance.getInstance();
     private static final DorisDDLInstance DDLInstance = DorisDDLInstance.getInstance();
@@ -42,13 +48,24 @@ public class DorisConnector extends ConnectorBase implements TapConnector {
 
     private void initConnection(DataMap config) {
         try {
-            if (conn == null) {
+            if (connectionPool == null) {
                 if (dorisConfig == null) dorisConfig = DorisConfig.load(config);
                 String dbUrl = dorisConfig.getDatabaseUrl();
                 Class.forName(dorisConfig.getJdbcDriver());
-                conn = DriverManager.getConnection(dbUrl, dorisConfig.getUser(), dorisConfig.getPassword());
+                DorisConnectionPool pool = new DorisConnectionPool(dorisConfig.getPoolSize(),
+                        () -> DriverManager.getConnection(dbUrl, dorisConfig.getUser(), dorisConfig.getPassword()));
+                //Fail fast if the database can not be connected.
+                pool.execute(connection -> null);
+                connectionPool = pool;
+            }
+            if (writeExecutor == null && dorisConfig.getWriteThreads() > 1) {
+                AtomicInteger threadCount = new AtomicInteger();
+                writeExecutor = Executors.newFixedThreadPool(dorisConfig.getWriteThreads(), runnable -> {
+                    Thread thread = new Thread(runnable, "DorisWriter-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
             }
-            if (stmt == null) stmt = conn.createStatement();
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Create Connection Failed!");
@@ -73,20 +90,23 @@ public class DorisConnector extends ConnectorBase implements TapConnector {
     public void discoverSchema(TapConnectionContext connectionContext, Consumer<List<TapTable>> consumer) throws Throwable {
         initConnection(connectionContext.getConnectionConfig());
 
-        List<TapTable> tapTableList = new LinkedList<>();
-        DatabaseMetaData databaseMetaData = conn.getMetaData();
-        ResultSet tableResult = databaseMetaData.getTables(conn.getCatalog(), dorisConfig.getDatabase(), null, new String[]{TABLE_COLUMN_NAME});
-        while (tableResult.next()) {
-            String tableName = tableResult.getString("TABLE_NAME");
-            // TODO 暂时无法通过jdbc获取键信息
-            TapTable table = table(tableName);
-            ResultSet columnsResult = databaseMetaData.getColumns(conn.getCatalog(), dorisConfig.getDatabase(), tableName, null);
-            while (columnsResult.next()) {
-                TapField tapField = new DorisColumn(columnsResult).getTapField();
-                table.add(tapField);
+        List<TapTable> tapTableList = connectionPool.execute(conn -> {
+            List<TapTable> tables = new LinkedList<>();
+            DatabaseMetaData databaseMetaData = conn.getMetaData();
+            ResultSet tableResult = databaseMetaData.getTables(conn.getCatalog(), dorisConfig.getDatabase(), null, new String[]{TABLE_COLUMN_NAME});
+            while (tableResult.next()) {
+                String tableName = tableResult.getString("TABLE_NAME");
+                // TODO 暂时无法通过jdbc获取键信息
+                TapTable table = table(tableName);
+                ResultSet columnsResult = databaseMetaData.getColumns(conn.getCatalog(), dorisConfig.getDatabase(), tableName, null);
+                while (columnsResult.next()) {
+                    TapField tapField = new DorisColumn(columnsResult).getTapField();
+                    table.add(tapField);
+                }
+                tables.add(table);
             }
-            tapTableList.add(table);
-        }
+            return tables;
+        });
         consumer.accept(tapTableList);
     }
 
@@ -177,49 +197,82 @@ public class DorisConnector extends ConnectorBase implements TapConnector {
         });
     }
 
+    /**
+     * The filters with the same match fields are looked up together by SELECT ... WHERE (k1, k2) IN ((?, ?), ...),
+     * each statement carries at most queryBatchSize filters. The results are in the same order of the filters.
+     */
     private void queryByFilter(TapConnectorContext connectorContext, List<TapFilter> filters, Consumer<List<FilterResult>> listConsumer) {
         initConnection(connectorContext.getConnectionConfig());
         TapTable tapTable = connectorContext.getTable();
-        Set<String> columnNames = connectorContext.getTable().getNameFieldMap().keySet();
-        List<FilterResult> filterResults = new LinkedList<>();
-        for (TapFilter filter : filters) {
-            String sql = "SELECT * FROM " + tapTable.getName() + " WHERE " + DMLInstance.buildKeyAndValue(tapTable, filter.getMatch(), "AND");
-            FilterResult filterResult = new FilterResult();
-            try {
-                DataMap resultMap = new DataMap();
-                ResultSet resultSet = stmt.executeQuery(sql);
-                if (resultSet.next()) {
-                    for (String columnName : columnNames) {
-                        resultMap.put(columnName, resultSet.getObject(columnName));
+        Set<String> columnNames = tapTable.getNameFieldMap().keySet();
+        FilterResult[] filterResults = new FilterResult[filters.size()];
+        //Filter positions grouped by the match fields.
+        Map<List<String>, List<Integer>> keysFilterMap = new LinkedHashMap<>();
+        for (int i = 0; i < filters.size(); i++) {
+            TapFilter filter = filters.get(i);
+            filterResults[i] = new FilterResult().filter(filter);
+            if (filter.getMatch() == null || filter.getMatch().isEmpty()) {
+                filterResults[i].setError(new IllegalArgumentException("Filter without match fields"));
+                continue;
+            }
+            keysFilterMap.computeIfAbsent(new ArrayList<>(filter.getMatch().keySet()), keys -> new ArrayList<>()).add(i);
+        }
+        int queryBatchSize = Math.max(1, dorisConfig.getQueryBatchSize());
+        for (Map.Entry<List<String>, List<Integer>> entry : keysFilterMap.entrySet()) {
+            List<String> keys = entry.getKey();
+            List<Integer> positions = entry.getValue();
+            for (int from = 0; from < positions.size(); from += queryBatchSize) {
+                List<Integer> chunk = positions.subList(from, Math.min(from + queryBatchSize, positions.size()));
+                try {
+                    Map<List<Object>, DataMap> keyRowMap = connectionPool.execute(conn -> {
+                        Map<List<Object>, DataMap> rows = new HashMap<>();
+                        try (PreparedStatement preparedStatement = conn.prepareStatement(DMLInstance.buildKeyInSQL(tapTable, keys, chunk.size()))) {
+                            int pos = 1;
+                            for (Integer position : chunk) {
+                                Map<String, Object> match = filters.get(position).getMatch();
+                                for (String key : keys) {
+                                    preparedStatement.setObject(pos++, DMLInstance.getFieldOriginValue(tapTable.getNameFieldMap().get(key), match.get(key)));
+                                }
+                            }
+                            ResultSet resultSet = preparedStatement.executeQuery();
+                            while (resultSet.next()) {
+                                DataMap row = new DataMap();
+                                for (String columnName : columnNames) {
+                                    row.put(columnName, resultSet.getObject(columnName));
+                                }
+                                rows.putIfAbsent(DMLInstance.keyValues(keys, row), row);
+                            }
+                        }
+                        return rows;
+                    });
+                    for (Integer position : chunk) {
+                        //No result for the missing key.
+                        filterResults[position].setResult(keyRowMap.get(DMLInstance.keyValues(keys, filters.get(position).getMatch())));
+                    }
+                } catch (SQLException e) {
+                    for (Integer position : chunk) {
+                        filterResults[position].setError(e);
                     }
-                    filterResult.setResult(resultMap);
-                    break;
                 }
-            } catch (SQLException e) {
-//                e.printStackTrace();
-                filterResult.setError(e);
-            } finally {
-                filterResults.add(filterResult);
             }
         }
-        listConsumer.accept(filterResults);
-
+        listConsumer.accept(new ArrayList<>(Arrays.asList(filterResults)));
     }
 
 
     private void createTable(TapConnectorContext tapConnectorContext, TapCreateTableEvent tapCreateTableEvent) {
         initConnection(tapConnectorContext.getConnectionConfig());
         TapTable tapTable = tapConnectorContext.getTable();
-        Collection<String> primaryKeys = tapTable.primaryKeys();
-        String sql = "CREATE TABLE " + tapTable.getName() +
-                "(" + DDLInstance.buildColumnDefinition(tapTable) + ")" +
-                "UNIQUE KEY (" + DDLInstance.buildDistributedKey(primaryKeys) + " ) " +
-                "DISTRIBUTED BY HASH(" + DDLInstance.buildDistributedKey(primaryKeys) + " ) BUCKETS 10 " +
-                "PROPERTIES(\"replication_num\" = \"1\")";
+        //Row count hint from node config, for example the count of the source table.
+        Object expectedRowCount = tapConnectorContext.getNodeConfig() != null ? tapConnectorContext.getNodeConfig().get("expectedRowCount") : null;
+        String sql = DDLInstance.buildCreateTableSQL(tapTable, dorisConfig, expectedRowCount instanceof Number ? ((Number) expectedRowCount).longValue() : null);
 
         try {
-            stmt = conn.createStatement();
-            stmt.execute(sql);
+            connectionPool.execute(conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    return stmt.execute(sql);
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Create Table " + tapTable.getName() + " Failed! " + e.getMessage());
@@ -263,11 +316,16 @@ public class DorisConnector extends ConnectorBase implements TapConnector {
         initConnection(tapConnectorContext.getConnectionConfig());
         TapTable tapTable = tapClearTableEvent.getTable();
         try {
-            ResultSet table = conn.getMetaData().getTables(null, dorisConfig.getDatabase(), tapTable.getName(), new String[]{TABLE_COLUMN_NAME});
-            if (table.first()) {
-                String sql = "TRUNCATE TABLE " + tapTable.getName();
-                stmt.execute(sql);
-            }
+            connectionPool.execute(conn -> {
+                ResultSet table = conn.getMetaData().getTables(null, dorisConfig.getDatabase(), tapTable.getName(), new String[]{TABLE_COLUMN_NAME});
+                if (table.first()) {
+                    String sql = "TRUNCATE TABLE " + tapTable.getName();
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(sql);
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             throw new RuntimeException("TRUNCATE Table " + tapTable.getName() + " Failed! \n ");
         }
@@ -277,11 +335,16 @@ public class DorisConnector extends ConnectorBase implements TapConnector {
         initConnection(tapConnectorContext.getConnectionConfig());
         TapTable tapTable = tapConnectorContext.getTable();
         try {
-            ResultSet table = conn.getMetaData().getTables(null, dorisConfig.getDatabase(), tapTable.getName(), new String[]{});
-            if (table.first()) {
-                String sql = "DROP TABLE " + tapTable.getName();
-                stmt.execute(sql);
-            }
+            connectionPool.execute(conn -> {
+                ResultSet table = conn.getMetaData().getTables(null, dorisConfig.getDatabase(), tapTable.getName(), new String[]{});
+                if (table.first()) {
+                    String sql = "DROP TABLE " + tapTable.getName();
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(sql);
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Drop Table " + tapTable.getName() + " Failed! \n ");
@@ -289,69 +352,169 @@ public class DorisConnector extends ConnectorBase implements TapConnector {
     }
 
 
-    private void writeRecord(TapConnectorContext connectorContext, List<TapRecordEvent> tapRecordEvents, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws SQLException {
+    /**
+     * If a partition fails, the other partitions may be written already and the error is thrown for the whole batch,
+     * the write retry of flow engine (JobOptions.writeRetryTimes) writes the whole batch again.
+     * Only the table with primary keys is partitioned, it is in UNIQUE KEY model, the events written again give the same rows.
+     * Keep the write retry off for the table without primary keys, it is in DUPLICATE KEY model, the rows written again are duplicated.
+     */
+    private void writeRecord(TapConnectorContext connectorContext, List<TapRecordEvent> tapRecordEvents, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) throws Throwable {
         initConnection(connectorContext.getConnectionConfig());
-        //Below is sample code to print received events which suppose to write to database.
-        AtomicLong inserted = new AtomicLong(0); //insert count
-        AtomicLong updated = new AtomicLong(0); //update count
-        AtomicLong deleted = new AtomicLong(0); //delete count
-
-
         TapTable tapTable = connectorContext.getTable();
-        LinkedHashMap<String, TapField> nameFieldMap = tapTable.getNameFieldMap();
-        //TODO use Doris Driver
-        PreparedStatement preparedStatement = conn.prepareStatement(DorisDDLInstance.buildBatchInsertSQL(tapTable));
-        for (TapRecordEvent recordEvent : tapRecordEvents) {
+        connectionPool.execute(conn -> {
             ResultSet table = conn.getMetaData().getTables(null, dorisConfig.getDatabase(), tapTable.getName(), new String[]{TABLE_COLUMN_NAME});
             if (!table.first()) throw new RuntimeException("Table " + tapTable.getName() + " not exist!");
-            if (recordEvent instanceof TapInsertRecordEvent) {
-                TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) recordEvent;
-                Map<String, Object> after = insertRecordEvent.getAfter();
-                DMLInstance.addBatchInsertRecord(tapTable, after, preparedStatement);
-                inserted.incrementAndGet();
-            } else if (recordEvent instanceof TapUpdateRecordEvent) {
-                executeBatchInsert(preparedStatement);
-                TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) recordEvent;
-                Map<String, Object> after = updateRecordEvent.getAfter();
-                Map<String, Object> before = updateRecordEvent.getBefore();
-                for(Map.Entry<String, Object> entry : before.entrySet()) {
-                    after.remove(entry.getKey(), entry.getValue());
+            return null;
+        });
+
+        List<List<TapRecordEvent>> partitions = partitionByPrimaryKey(tapTable, tapRecordEvents);
+        //Need to tell flow engine the write result
+        WriteListResult<TapRecordEvent> writeListResult = writeListResult();
+        if (partitions.size() == 1) {
+            mergeWriteListResult(writeListResult, writePartition(tapTable, partitions.get(0)));
+        } else {
+            List<Future<WriteListResult<TapRecordEvent>>> futures = new ArrayList<>();
+            for (List<TapRecordEvent> partition : partitions) {
+                futures.add(writeExecutor.submit(() -> writePartition(tapTable, partition)));
+            }
+            Throwable error = null;
+            for (Future<WriteListResult<TapRecordEvent>> future : futures) {
+                try {
+                    mergeWriteListResult(writeListResult, future.get());
+                } catch (ExecutionException e) {
+                    if (error == null) error = e.getCause();
                 }
+            }
+            if (error != null) throw error;
+        }
+        writeListResultConsumer.accept(writeListResult);
+    }
 
-                String sql = "UPDATE " + tapTable.getName() +
-                        " SET " + DMLInstance.buildKeyAndValue(tapTable, after, ",") +
-                        " WHERE " + DMLInstance.buildKeyAndValue(tapTable, before, "AND");
-                stmt.execute(sql);
-                updated.incrementAndGet();
+    /**
+     * Events of the same primary key go to the same partition in their original order, different keys may be written concurrently.
+     * Not partitioned for small batches, tables without primary key, or the update which changes the primary key.
+     */
+    private List<List<TapRecordEvent>> partitionByPrimaryKey(TapTable tapTable, List<TapRecordEvent> tapRecordEvents) {
+        int partitionCount = dorisConfig.getWriteThreads();
+        Collection<String> primaryKeys = tapTable.primaryKeys();
+        if (writeExecutor == null || partitionCount <= 1 || tapRecordEvents.size() < dorisConfig.getParallelWriteThreshold() || primaryKeys.isEmpty())
+            return Collections.singletonList(tapRecordEvents);
+        List<List<TapRecordEvent>> partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<>(tapRecordEvents.size() / partitionCount + 1));
+        }
+        for (TapRecordEvent recordEvent : tapRecordEvents) {
+            Map<String, Object> before = null, after = null;
+            if (recordEvent instanceof TapInsertRecordEvent) {
+                after = ((TapInsertRecordEvent) recordEvent).getAfter();
+            } else if (recordEvent instanceof TapUpdateRecordEvent) {
+                before = ((TapUpdateRecordEvent) recordEvent).getBefore();
+                after = ((TapUpdateRecordEvent) recordEvent).getAfter();
             } else if (recordEvent instanceof TapDeleteRecordEvent) {
-                executeBatchInsert(preparedStatement);
-                TapDeleteRecordEvent deleteRecordEvent = (TapDeleteRecordEvent) recordEvent;
-                Map<String, Object> before = deleteRecordEvent.getBefore();
-                String sql = "DELETE FROM " + tapTable.getName() + " WHERE " + DMLInstance.buildKeyAndValue(tapTable, before, "AND");
-                stmt.execute(sql);
-                deleted.incrementAndGet();
+                before = ((TapDeleteRecordEvent) recordEvent).getBefore();
             }
+            Integer hash = primaryKeyHash(primaryKeys, after != null ? after : before);
+            if (hash == null || (before != null && after != null && !hash.equals(primaryKeyHash(primaryKeys, before))))
+                return Collections.singletonList(tapRecordEvents);
+            partitions.get(Math.floorMod(hash, partitionCount)).add(recordEvent);
         }
-        executeBatchInsert(preparedStatement);
-        //Need to tell flow engine the write result
-        preparedStatement.close();
-        writeListResultConsumer.accept(writeListResult()
-                .insertedCount(inserted.get())
-                .modifiedCount(updated.get())
-                .removedCount(deleted.get()));
+        partitions.removeIf(List::isEmpty);
+        return partitions;
     }
 
-    private void executeBatchInsert(PreparedStatement preparedStatement) {
-        try {
-            if (preparedStatement != null) {
-                preparedStatement.executeBatch();
-                preparedStatement.clearBatch();
+    private Integer primaryKeyHash(Collection<String> primaryKeys, Map<String, Object> record) {
+        if (record == null)
+            return null;
+        int hash = 1;
+        for (String primaryKey : primaryKeys) {
+            Object value = record.get(primaryKey);
+            if (value == null)
+                return null;
+            hash = 31 * hash + (value instanceof byte[] ? Arrays.hashCode((byte[]) value) : value.hashCode());
+        }
+        return hash;
+    }
+
+    private void mergeWriteListResult(WriteListResult<TapRecordEvent> writeListResult, WriteListResult<TapRecordEvent> partitionResult) {
+        writeListResult.insertedCount(writeListResult.getInsertedCount() + partitionResult.getInsertedCount())
+                .modifiedCount(writeListResult.getModifiedCount() + partitionResult.getModifiedCount())
+                .removedCount(writeListResult.getRemovedCount() + partitionResult.getRemovedCount());
+    }
+
+    /**
+     * Write the events in order on one connection.
+     * If the connection is broken, the partition resumes on a new connection from the first event whose statement didn't complete,
+     * the statement in flight may have been applied already, so the retry is only for the table with primary keys,
+     * which is created in UNIQUE KEY model and applying the statement again gives the same rows.
+     * The table without primary keys is in DUPLICATE KEY model, the error is thrown without retry, rows would be duplicated otherwise.
+     */
+    private WriteListResult<TapRecordEvent> writePartition(TapTable tapTable, List<TapRecordEvent> tapRecordEvents) throws SQLException {
+        WriteListResult<TapRecordEvent> writeListResult = new WriteListResult<>(0L, 0L, 0L);
+        //Events before this position are written.
+        AtomicInteger written = new AtomicInteger();
+        connectionPool.execute(conn -> {
+            writeEvents(conn, tapTable, tapRecordEvents, written, writeListResult);
+            return null;
+        }, !tapTable.primaryKeys().isEmpty());
+        return writeListResult;
+    }
+
+    private void writeEvents(Connection conn, TapTable tapTable, List<TapRecordEvent> tapRecordEvents, AtomicInteger written, WriteListResult<TapRecordEvent> writeListResult) throws SQLException {
+        long inserted = 0; //insert count in the pending batch
+        //TODO use Doris Driver
+        try (PreparedStatement preparedStatement = conn.prepareStatement(DorisDDLInstance.buildBatchInsertSQL(tapTable));
+             Statement stmt = conn.createStatement()) {
+            for (int i = written.get(); i < tapRecordEvents.size(); i++) {
+                TapRecordEvent recordEvent = tapRecordEvents.get(i);
+                if (recordEvent instanceof TapInsertRecordEvent) {
+                    TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) recordEvent;
+                    Map<String, Object> after = insertRecordEvent.getAfter();
+                    DMLInstance.addBatchInsertRecord(tapTable, after, preparedStatement);
+                    inserted++;
+                } else if (recordEvent instanceof TapUpdateRecordEvent) {
+                    inserted = executeBatchInsert(preparedStatement, inserted, i, written, writeListResult);
+                    TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) recordEvent;
+                    Map<String, Object> after = new LinkedHashMap<>(updateRecordEvent.getAfter());
+                    Map<String, Object> before = updateRecordEvent.getBefore();
+                    for (Map.Entry<String, Object> entry : before.entrySet()) {
+                        after.remove(entry.getKey(), entry.getValue());
+                    }
+
+                    String sql = "UPDATE " + tapTable.getName() +
+                            " SET " + DMLInstance.buildKeyAndValue(tapTable, after, ",") +
+                            " WHERE " + DMLInstance.buildKeyAndValue(tapTable, before, "AND");
+                    stmt.execute(sql);
+                    writeListResult.modifiedCount(writeListResult.getModifiedCount() + 1);
+                    written.set(i + 1);
+                } else if (recordEvent instanceof TapDeleteRecordEvent) {
+                    inserted = executeBatchInsert(preparedStatement, inserted, i, written, writeListResult);
+                    TapDeleteRecordEvent deleteRecordEvent = (TapDeleteRecordEvent) recordEvent;
+                    Map<String, Object> before = deleteRecordEvent.getBefore();
+                    String sql = "DELETE FROM " + tapTable.getName() + " WHERE " + DMLInstance.buildKeyAndValue(tapTable, before, "AND");
+                    stmt.execute(sql);
+                    writeListResult.removedCount(writeListResult.getRemovedCount() + 1);
+                    written.set(i + 1);
+                }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            executeBatchInsert(preparedStatement, inserted, tapRecordEvents.size(), written, writeListResult);
         }
     }
 
+    /**
+     * Execute the pending inserts, the events before position are written after it.
+     *
+     * @return the count of pending inserts, which is 0
+     */
+    private long executeBatchInsert(PreparedStatement preparedStatement, long inserted, int position, AtomicInteger written, WriteListResult<TapRecordEvent> writeListResult) throws SQLException {
+        if (inserted > 0) {
+            preparedStatement.executeBatch();
+            preparedStatement.clearBatch();
+            writeListResult.insertedCount(writeListResult.getInsertedCount() + inserted);
+        }
+        written.set(position);
+        return 0;
+    }
+
     /**
      * The method invocation life circle is below,
      * initiated -> sourceFunctions/targetFunctions -> destroy -> ended
@@ -362,17 +525,13 @@ public class DorisConnector extends ConnectorBase implements TapConnector {
      */
     @Override
     public void destroy() {
-        try {
-            if (stmt != null && !stmt.isClosed()) {
-                stmt.close();
-                stmt = null;
-            }
-            if (conn != null && !conn.isClosed()) {
-                conn.close();
-                conn = null;
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        if (writeExecutor != null) {
+            writeExecutor.shutdownNow();
+            writeExecutor = null;
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+            connectionPool = null;
         }
     }
 }
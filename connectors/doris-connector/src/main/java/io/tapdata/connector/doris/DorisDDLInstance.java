@@ -1,11 +1,15 @@
 package io.tapdata.connector.doris;
 
+import io.tapdata.connector.doris.bean.DorisConfig;
 import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 
-import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
 
 public class DorisDDLInstance {
     private static final DorisDDLInstance DDLInstance = new DorisDDLInstance();
@@ -24,10 +28,148 @@ public class DorisDDLInstance {
         return builder.toString();
     }
 
-    public String buildColumnDefinition(TapTable tapTable) {
+    /**
+     * CREATE TABLE with the layout from table keys and config,
+     * UNIQUE KEY model for the table with primary keys, otherwise DUPLICATE KEY model on the first column.
+     * Buckets are derived from the expected row count, range partitioned by a DATE or DATETIME column when partitionColumn is configured,
+     * with the explicit partitions around today, or the dynamic partitions if partitionRetention is opted in.
+     *
+     * @param expectedRowCount row count hint of the table, null if unknown
+     */
+    public String buildCreateTableSQL(TapTable tapTable, DorisConfig dorisConfig, Long expectedRowCount) {
+        return buildCreateTableSQL(tapTable, dorisConfig, expectedRowCount, LocalDate.now());
+    }
+
+    /**
+     * @param today the date the explicit range partitions are created around
+     */
+    public String buildCreateTableSQL(TapTable tapTable, DorisConfig dorisConfig, Long expectedRowCount, LocalDate today) {
+        List<String> keyColumns = new ArrayList<>(tapTable.primaryKeys());
+        boolean uniqueKey = !keyColumns.isEmpty();
+        if (!uniqueKey) {
+            for (TapField tapField : tapTable.getNameFieldMap().values()) {
+                if (tapField.getOriginType() == null) continue;
+                keyColumns.add(tapField.getName());
+                break;
+            }
+            if (keyColumns.isEmpty())
+                throw new RuntimeException("Create Table " + tapTable.getName() + " Failed! No column to be the key");
+        }
+        String partitionColumn = dorisConfig.getPartitionColumn();
+        TapField partitionField = null;
+        if (partitionColumn != null) {
+            partitionField = tapTable.getNameFieldMap().get(partitionColumn);
+            if (partitionField == null)
+                throw new RuntimeException("Create Table " + tapTable.getName() + " Failed! Partition column " + partitionColumn + " not exist");
+            if (partitionField.getOriginType() == null || !partitionField.getOriginType().toUpperCase().startsWith("DATE"))
+                throw new RuntimeException("Create Table " + tapTable.getName() + " Failed! Partition column " + partitionColumn + " must be DATE or DATETIME, but is " + partitionField.getOriginType());
+            if (partitionUnit(dorisConfig) == null)
+                throw new RuntimeException("Create Table " + tapTable.getName() + " Failed! Partition unit " + dorisConfig.getPartitionUnit() + " is not DAY, WEEK, MONTH or YEAR");
+            //Partition column must be a key column, append it for DUPLICATE KEY model where keys are only for sorting.
+            if (!keyColumns.contains(partitionColumn)) {
+                if (uniqueKey)
+                    throw new RuntimeException("Create Table " + tapTable.getName() + " Failed! Partition column " + partitionColumn + " must be one of the primary keys");
+                keyColumns.add(partitionColumn);
+            }
+        }
+        int buckets = bucketCount(dorisConfig, expectedRowCount);
+        String keys = buildDistributedKey(keyColumns);
+        String distributedKeys = buildDistributedKey(uniqueKey ? keyColumns : keyColumns.subList(0, 1));
+        StringBuilder builder = new StringBuilder("CREATE TABLE ").append(tapTable.getName())
+                .append("(").append(buildColumnDefinition(tapTable, keyColumns)).append(")")
+                .append(uniqueKey ? "UNIQUE KEY (" : "DUPLICATE KEY (").append(keys).append(" ) ");
+        if (partitionColumn != null) {
+            builder.append("PARTITION BY RANGE(").append(partitionColumn).append(") (");
+            if (!dorisConfig.isPartitionRetention())
+                builder.append(buildRangePartitions(partitionField, dorisConfig, today));
+            builder.append(") ");
+        }
+        builder.append("DISTRIBUTED BY HASH(").append(distributedKeys).append(" ) BUCKETS ").append(buckets).append(' ')
+                .append("PROPERTIES(\"replication_num\" = \"").append(dorisConfig.getReplicationNum()).append('"');
+        if (partitionColumn != null && dorisConfig.isPartitionRetention()) {
+            builder.append(", \"dynamic_partition.enable\" = \"true\"")
+                    .append(", \"dynamic_partition.time_unit\" = \"").append(dorisConfig.getPartitionUnit().toUpperCase()).append('"')
+                    .append(", \"dynamic_partition.start\" = \"-").append(dorisConfig.getPartitionHistory()).append('"')
+                    .append(", \"dynamic_partition.end\" = \"").append(dorisConfig.getPartitionFuture()).append('"')
+                    .append(", \"dynamic_partition.prefix\" = \"p\"")
+                    .append(", \"dynamic_partition.buckets\" = \"").append(buckets).append('"')
+                    .append(", \"dynamic_partition.replication_num\" = \"").append(dorisConfig.getReplicationNum()).append('"')
+                    .append(", \"dynamic_partition.create_history_partition\" = \"true\"");
+        }
+        return builder.append(")").toString();
+    }
+
+    /**
+     * Partitions of partitionUnit from partitionHistory units back to partitionFuture units ahead of today, named by their first date,
+     * and the catch-all partitions p_history and p_future at both ends, so that no row is rejected and no partition is dropped.
+     */
+    public String buildRangePartitions(TapField partitionField, DorisConfig dorisConfig, LocalDate today) {
+        ChronoUnit unit = partitionUnit(dorisConfig);
+        boolean datetime = partitionField.getOriginType().toUpperCase().startsWith("DATETIME");
+        LocalDate current = today;
+        if (unit == ChronoUnit.WEEKS)
+            current = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        else if (unit == ChronoUnit.MONTHS)
+            current = today.withDayOfMonth(1);
+        else if (unit == ChronoUnit.YEARS)
+            current = today.withDayOfYear(1);
+        LocalDate lower = current.minus(dorisConfig.getPartitionHistory(), unit);
+        LocalDate end = current.plus(dorisConfig.getPartitionFuture() + 1L, unit);
+        StringBuilder builder = new StringBuilder("PARTITION p_history VALUES LESS THAN (").append(partitionValue(lower, datetime)).append(')');
+        for (; lower.isBefore(end); lower = lower.plus(1, unit)) {
+            builder.append(", PARTITION p").append(lower.format(DateTimeFormatter.BASIC_ISO_DATE))
+                    .append(" VALUES LESS THAN (").append(partitionValue(lower.plus(1, unit), datetime)).append(')');
+        }
+        return builder.append(", PARTITION p_future VALUES LESS THAN (MAXVALUE)").toString();
+    }
+
+    private String partitionValue(LocalDate date, boolean datetime) {
+        return "\"" + date + (datetime ? " 00:00:00" : "") + "\"";
+    }
+
+    private ChronoUnit partitionUnit(DorisConfig dorisConfig) {
+        switch (dorisConfig.getPartitionUnit() != null ? dorisConfig.getPartitionUnit().toUpperCase() : "") {
+            case "DAY":
+                return ChronoUnit.DAYS;
+            case "WEEK":
+                return ChronoUnit.WEEKS;
+            case "MONTH":
+                return ChronoUnit.MONTHS;
+            case "YEAR":
+                return ChronoUnit.YEARS;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Configured bucketCount wins, otherwise one bucket per rowsPerBucket rows of the expected count, between minBuckets and maxBuckets.
+     * The partitioned table takes the count per partition, the rows are spread over the history partitions.
+     */
+    public int bucketCount(DorisConfig dorisConfig, Long expectedRowCount) {
+        if (dorisConfig.getBucketCount() > 0)
+            return dorisConfig.getBucketCount();
+        if (expectedRowCount == null || expectedRowCount <= 0)
+            return dorisConfig.getDefaultBucketCount();
+        long rows = expectedRowCount;
+        if (dorisConfig.getPartitionColumn() != null)
+            rows = rows / Math.max(1, dorisConfig.getPartitionHistory());
+        long buckets = (rows + dorisConfig.getRowsPerBucket() - 1) / Math.max(1, dorisConfig.getRowsPerBucket());
+        return (int) Math.max(dorisConfig.getMinBuckets(), Math.min(buckets, dorisConfig.getMaxBuckets()));
+    }
+
+    /**
+     * Key columns go first in key order, Doris requires the key columns to be the prefix of the schema.
+     */
+    public String buildColumnDefinition(TapTable tapTable, List<String> keyColumns) {
         LinkedHashMap<String, TapField> nameFieldMap = tapTable.getNameFieldMap();
-        StringBuilder builder = new StringBuilder();
+        List<String> columnNames = new ArrayList<>(keyColumns);
         for (String columnName : nameFieldMap.keySet()) {
+            if (!keyColumns.contains(columnName))
+                columnNames.add(columnName);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (String columnName : columnNames) {
             TapField tapField = nameFieldMap.get(columnName);
             if (tapField.getOriginType() == null) continue;
             builder.append(tapField.getName()).append(' ');
@@ -46,20 +188,19 @@ public class DorisDDLInstance {
         return builder.toString();
     }
 
+    /**
+     * The columns are listed in the order addBatchInsertRecord binds the values, which is not the order of the created table,
+     * the key columns go first there.
+     */
     public static String buildBatchInsertSQL(TapTable tapTable) {
         LinkedHashMap<String, TapField> nameFieldMap = tapTable.getNameFieldMap();
-        int fieldCount = 0;
-        for (Map.Entry<String, TapField> entry : nameFieldMap.entrySet()) {
-            TapField tapField = nameFieldMap.get(entry.getKey());
+        List<String> columnNames = new ArrayList<>();
+        for (TapField tapField : nameFieldMap.values()) {
             if (tapField.getOriginType() == null) continue;
-            fieldCount += 1;
-        }
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < fieldCount; i++) {
-            stringBuilder.append("?, ");
+            columnNames.add(tapField.getName());
         }
-        stringBuilder.delete(stringBuilder.length() - 2, stringBuilder.length());
-        return "INSERT INTO " + tapTable.getName() + " VALUES (" + stringBuilder + ")";
+        return "INSERT INTO " + tapTable.getName() + " (" + String.join(", ", columnNames) + ") VALUES (" +
+                String.join(", ", Collections.nCopies(columnNames.size(), "?")) + ")";
     }
 
 }
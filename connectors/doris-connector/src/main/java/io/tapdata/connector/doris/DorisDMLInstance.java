@@ -4,15 +4,16 @@ import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.schema.value.DateTime;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 
 public class DorisDMLInstance {
-    private final SimpleDateFormat tapDateTimeFormat = new SimpleDateFormat();
+    //Used by the concurrent writers, SimpleDateFormat is not thread safe.
+    private final ThreadLocal<SimpleDateFormat> tapDateTimeFormat = ThreadLocal.withInitial(SimpleDateFormat::new);
     private static final DorisDMLInstance DMLInstance = new DorisDMLInstance();
 
     public static DorisDMLInstance getInstance(){
@@ -21,13 +22,15 @@ public class DorisDMLInstance {
 
     private String formatTapDateTime(DateTime dateTime, String pattern) {
         if (dateTime.getTimeZone() != null) dateTime.setTimeZone(dateTime.getTimeZone());
-        tapDateTimeFormat.applyPattern(pattern);
-        return tapDateTimeFormat.format(new Date(dateTime.getSeconds() * 1000L));
+        SimpleDateFormat dateFormat = tapDateTimeFormat.get();
+        dateFormat.applyPattern(pattern);
+        return dateFormat.format(new Date(dateTime.getSeconds() * 1000L));
     }
 
     private String formatTapDateTime(Date date, String pattern) {
-        tapDateTimeFormat.applyPattern(pattern);
-        return tapDateTimeFormat.format(date);
+        SimpleDateFormat dateFormat = tapDateTimeFormat.get();
+        dateFormat.applyPattern(pattern);
+        return dateFormat.format(date);
     }
 
     public Object getFieldOriginValue(TapField tapField, Object tapValue) {
@@ -63,19 +66,7 @@ public class DorisDMLInstance {
     }
 
     public String buildBatchInsertSQL(TapTable tapTable) {
-        LinkedHashMap<String, TapField> nameFieldMap = tapTable.getNameFieldMap();
-        int fieldCount = 0;
-        for (Map.Entry<String, TapField> entry : nameFieldMap.entrySet()) {
-            TapField tapField = nameFieldMap.get(entry.getKey());
-            if (tapField.getOriginType() == null) continue;
-            fieldCount += 1;
-        }
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < fieldCount; i++) {
-            stringBuilder.append("?, ");
-        }
-        stringBuilder.delete(stringBuilder.length() - 2, stringBuilder.length());
-        return "INSERT INTO " + tapTable.getName() + " VALUES (" + stringBuilder + ")";
+        return DorisDDLInstance.buildBatchInsertSQL(tapTable);
     }
 
     public String buildKeyAndValue(TapTable tapTable, Map<String, Object> record, String splitSymbol) {
@@ -119,4 +110,48 @@ public class DorisDMLInstance {
         builder.delete(builder.length() - 1, builder.length());
         return builder.toString();
     }
+
+    /**
+     * SELECT * FROM table WHERE (k1, k2) IN ((?, ?), ...), or k1 IN (?, ...) for single key.
+     */
+    public String buildKeyInSQL(TapTable tapTable, List<String> keys, int count) {
+        StringBuilder builder = new StringBuilder("SELECT * FROM ").append(tapTable.getName()).append(" WHERE ");
+        String tuple;
+        if (keys.size() == 1) {
+            builder.append(keys.get(0));
+            tuple = "?";
+        } else {
+            builder.append('(').append(String.join(", ", keys)).append(')');
+            tuple = "(" + String.join(", ", Collections.nCopies(keys.size(), "?")) + ")";
+        }
+        builder.append(" IN (");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(tuple);
+        }
+        return builder.append(')').toString();
+    }
+
+    /**
+     * Values of the keys comparable between the filter and the row read back, 1 and 1L, 1.0 and BigDecimal 1 are the same.
+     * NaN and Infinity have no BigDecimal, they are compared as Double, NaN of float and double are the same.
+     */
+    public List<Object> keyValues(List<String> keys, Map<String, Object> record) {
+        List<Object> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Object value = record.get(key);
+            if ((value instanceof Double || value instanceof Float) && !Double.isFinite(((Number) value).doubleValue())) {
+                values.add(((Number) value).doubleValue());
+            } else if (value instanceof Number) {
+                values.add(new BigDecimal(value.toString()).stripTrailingZeros());
+            } else if (value instanceof DateTime || value instanceof Date) {
+                values.add(getFieldOriginValue(null, value));
+            } else if (value instanceof byte[]) {
+                values.add(ByteBuffer.wrap((byte[]) value));
+            } else {
+                values.add(value != null ? value.toString() : null);
+            }
+        }
+        return values;
+    }
 }
@@ -18,6 +18,59 @@ public class DorisConfig implements Serializable {
     private String user;
     private String password;
     private int insertBatchSize = 1000;
+    /**
+     * Max connections of the connector, shared by writes, queries and DDL.
+     */
+    private int poolSize = 5;
+    /**
+     * Threads to write the sub-batches partitioned by primary key, 1 to write in the caller thread.
+     */
+    private int writeThreads = 4;
+    /**
+     * The batch smaller than this is written in the caller thread without partitioning.
+     */
+    private int parallelWriteThreshold = 1000;
+    /**
+     * Replicas of each tablet.
+     */
+    private int replicationNum = 1;
+    /**
+     * Buckets of the created table, 0 to derive from the expected row count.
+     */
+    private int bucketCount = 0;
+    /**
+     * Buckets when the expected row count is unknown.
+     */
+    private int defaultBucketCount = 10;
+    /**
+     * Rows per bucket when deriving buckets from the expected row count.
+     */
+    private long rowsPerBucket = 10000000;
+    private int minBuckets = 1;
+    private int maxBuckets = 128;
+    /**
+     * Date column to range partition the created table by, null for no partition.
+     */
+    private String partitionColumn;
+    /**
+     * DAY, WEEK, MONTH or YEAR.
+     */
+    private String partitionUnit = "DAY";
+    /**
+     * History partitions to create back from now, and future partitions to create ahead.
+     * The rows before the history partitions and after the future partitions go to the catch-all partitions at both ends.
+     */
+    private int partitionHistory = 30;
+    private int partitionFuture = 3;
+    /**
+     * Opt-in dynamic partitioning, which drops the partitions older than partitionHistory and creates the future ones as time goes.
+     * Rows out of the partition window are rejected by Doris then.
+     */
+    private boolean partitionRetention = false;
+    /**
+     * Max filters looked up by one SELECT in queryByFilter.
+     */
+    private int queryBatchSize = 1000;
 
     public static DorisConfig load(String jsonFile) throws IOException {
         ObjectMapper mapper = new ObjectMapper(new JsonFactory());
@@ -96,4 +149,124 @@ public class DorisConfig implements Serializable {
     public void setInsertBatchSize(int insertBatchSize) {
         this.insertBatchSize = insertBatchSize;
     }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getWriteThreads() {
+        return writeThreads;
+    }
+
+    public void setWriteThreads(int writeThreads) {
+        this.writeThreads = writeThreads;
+    }
+
+    public int getParallelWriteThreshold() {
+        return parallelWriteThreshold;
+    }
+
+    public void setParallelWriteThreshold(int parallelWriteThreshold) {
+        this.parallelWriteThreshold = parallelWriteThreshold;
+    }
+
+    public int getQueryBatchSize() {
+        return queryBatchSize;
+    }
+
+    public void setQueryBatchSize(int queryBatchSize) {
+        this.queryBatchSize = queryBatchSize;
+    }
+
+    public int getReplicationNum() {
+        return replicationNum;
+    }
+
+    public void setReplicationNum(int replicationNum) {
+        this.replicationNum = replicationNum;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public void setBucketCount(int bucketCount) {
+        this.bucketCount = bucketCount;
+    }
+
+    public int getDefaultBucketCount() {
+        return defaultBucketCount;
+    }
+
+    public void setDefaultBucketCount(int defaultBucketCount) {
+        this.defaultBucketCount = defaultBucketCount;
+    }
+
+    public long getRowsPerBucket() {
+        return rowsPerBucket;
+    }
+
+    public void setRowsPerBucket(long rowsPerBucket) {
+        this.rowsPerBucket = rowsPerBucket;
+    }
+
+    public int getMinBuckets() {
+        return minBuckets;
+    }
+
+    public void setMinBuckets(int minBuckets) {
+        this.minBuckets = minBuckets;
+    }
+
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public void setMaxBuckets(int maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    public String getPartitionColumn() {
+        return partitionColumn;
+    }
+
+    public void setPartitionColumn(String partitionColumn) {
+        this.partitionColumn = partitionColumn;
+    }
+
+    public String getPartitionUnit() {
+        return partitionUnit;
+    }
+
+    public void setPartitionUnit(String partitionUnit) {
+        this.partitionUnit = partitionUnit;
+    }
+
+    public int getPartitionHistory() {
+        return partitionHistory;
+    }
+
+    public void setPartitionHistory(int partitionHistory) {
+        this.partitionHistory = partitionHistory;
+    }
+
+    public int getPartitionFuture() {
+        return partitionFuture;
+    }
+
+    public void setPartitionFuture(int partitionFuture) {
+        this.partitionFuture = partitionFuture;
+    }
+
+    public boolean isPartitionRetention() {
+        return partitionRetention;
+    }
+
+    public void setPartitionRetention(boolean partitionRetention) {
+        this.partitionRetention = partitionRetention;
+    }
 }
@@ -0,0 +1,135 @@
+package io.tapdata.connector.doris;
+
+import io.tapdata.entity.codec.TapCodecRegistry;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.FilterResult;
+import io.tapdata.pdk.apis.entity.TapFilter;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DorisConnectorQueryTest {
+    private final StandInDriver driver = StandInDriver.INSTANCE;
+    private final TapTable table = table("queryTable")
+            .add(field("id", "BIGINT").isPrimaryKey(true).primaryKeyPos(1))
+            .add(field("type", "VARCHAR(10)").isPrimaryKey(true).primaryKeyPos(2))
+            .add(field("value", "VARCHAR(50)"));
+    private final int chunkSize = 300;
+    private DorisConnector connector;
+    private ConnectorFunctions connectorFunctions;
+    private TapConnectorContext connectorContext;
+
+    @BeforeEach
+    void setup() {
+        driver.reset();
+        driver.executionMillis = 0;
+        //Rows of even ids exist, id comes back as Long.
+        driver.queryHandler = execution -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            boolean composite = execution.sql.contains("(id, type) IN");
+            int width = composite ? 2 : 1;
+            for (int i = 0; i < execution.parameters.size(); i += width) {
+                long id = ((Number) execution.parameters.get(i)).longValue();
+                if (id % 2 == 0) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("id", id);
+                    row.put("type", composite ? execution.parameters.get(i + 1) : "t");
+                    row.put("value", "value_" + id);
+                    rows.add(row);
+                }
+            }
+            //Database returns rows in any order.
+            Collections.reverse(rows);
+            return rows;
+        };
+        connector = new DorisConnector();
+        connectorFunctions = new ConnectorFunctions();
+        connector.registerCapabilities(connectorFunctions, new TapCodecRegistry());
+        DataMap config = new DataMap();
+        config.put("jdbcDriver", StandInDriver.class.getName());
+        config.put("databaseUrlPattern", StandInDriver.URL_PATTERN);
+        config.put("host", "localhost");
+        config.put("port", 9030);
+        config.put("database", "test");
+        config.put("queryBatchSize", chunkSize);
+        connectorContext = new TapConnectorContext(null, table, config, new DataMap());
+    }
+
+    @AfterEach
+    void tearDown() {
+        connector.destroy();
+    }
+
+    private List<FilterResult> query(List<TapFilter> filters) throws Throwable {
+        AtomicReference<List<FilterResult>> results = new AtomicReference<>();
+        connectorFunctions.getQueryByFilterFunction().query(connectorContext, filters, results::set);
+        return results.get();
+    }
+
+    private TapFilter filter(DataMap match) {
+        TapFilter filter = new TapFilter();
+        filter.setMatch(match);
+        return filter;
+    }
+
+    @Test
+    void lookupKeysInChunks() throws Throwable {
+        List<TapFilter> filters = new ArrayList<>();
+        for (int id = 0; id < 10000; id++) {
+            filters.add(filter(DataMap.create().kv("id", id).kv("type", "t")));
+        }
+        List<FilterResult> results = query(filters);
+
+        assertEquals((10000 + chunkSize - 1) / chunkSize, driver.executions("SELECT").size());
+        assertEquals(10000, results.size());
+        for (int id = 0; id < 10000; id++) {
+            FilterResult result = results.get(id);
+            assertSame(filters.get(id), result.getFilter());
+            assertNull(result.getError());
+            if (id % 2 == 0) {
+                assertNotNull(result.getResult(), "Key " + id + " should be found");
+                assertEquals("value_" + id, result.getResult().get("value"));
+            } else {
+                assertNull(result.getResult(), "Key " + id + " is missing");
+            }
+        }
+    }
+
+    @Test
+    void groupByMatchFields() throws Throwable {
+        List<TapFilter> filters = new ArrayList<>();
+        filters.add(filter(DataMap.create().kv("id", 2).kv("type", "a")));
+        filters.add(filter(DataMap.create().kv("id", 4)));
+        filters.add(filter(DataMap.create().kv("id", 3).kv("type", "a")));
+        filters.add(filter(DataMap.create().kv("id", 5)));
+        List<FilterResult> results = query(filters);
+
+        List<StandInDriver.Execution> selects = driver.executions("SELECT");
+        assertEquals(2, selects.size());
+        assertEquals("SELECT * FROM queryTable WHERE (id, type) IN ((?, ?), (?, ?))", selects.get(0).sql);
+        assertEquals("SELECT * FROM queryTable WHERE id IN (?, ?)", selects.get(1).sql);
+        assertEquals("a", results.get(0).getResult().get("type"));
+        assertEquals("value_4", results.get(1).getResult().get("value"));
+        assertNull(results.get(2).getResult());
+        assertNull(results.get(3).getResult());
+    }
+
+    @Test
+    void keyValuesOfNonFiniteNumbers() {
+        DorisDMLInstance dmlInstance = DorisDMLInstance.getInstance();
+        List<String> keys = Collections.singletonList("id");
+        assertEquals(dmlInstance.keyValues(keys, DataMap.create().kv("id", Double.NaN)), dmlInstance.keyValues(keys, DataMap.create().kv("id", Float.NaN)));
+        assertEquals(dmlInstance.keyValues(keys, DataMap.create().kv("id", Double.POSITIVE_INFINITY)), dmlInstance.keyValues(keys, DataMap.create().kv("id", Float.POSITIVE_INFINITY)));
+        assertNotEquals(dmlInstance.keyValues(keys, DataMap.create().kv("id", Double.POSITIVE_INFINITY)), dmlInstance.keyValues(keys, DataMap.create().kv("id", Double.NEGATIVE_INFINITY)));
+        assertEquals(dmlInstance.keyValues(keys, DataMap.create().kv("id", 1.0)), dmlInstance.keyValues(keys, DataMap.create().kv("id", 1L)));
+    }
+}
@@ -0,0 +1,186 @@
+package io.tapdata.connector.doris;
+
+import io.tapdata.entity.codec.TapCodecRegistry;
+import io.tapdata.entity.event.ddl.table.TapCreateTableEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.entity.WriteListResult;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DorisConnectorWriteTest {
+    private final StandInDriver driver = StandInDriver.INSTANCE;
+    private final TapTable table = table("writeTable")
+            .add(field("id", "INT").isPrimaryKey(true).primaryKeyPos(1))
+            .add(field("seq", "INT"));
+    private DorisConnector connector;
+    private ConnectorFunctions connectorFunctions;
+    private TapConnectorContext connectorContext;
+
+    @BeforeEach
+    void setup() {
+        driver.reset();
+        driver.tables.add(table.getName());
+        connector = new DorisConnector();
+        connectorFunctions = new ConnectorFunctions();
+        connector.registerCapabilities(connectorFunctions, new TapCodecRegistry());
+        DataMap config = new DataMap();
+        config.put("jdbcDriver", StandInDriver.class.getName());
+        config.put("databaseUrlPattern", StandInDriver.URL_PATTERN);
+        config.put("host", "localhost");
+        config.put("port", 9030);
+        config.put("database", "test");
+        config.put("poolSize", 5);
+        config.put("writeThreads", 4);
+        config.put("parallelWriteThreshold", 100);
+        connectorContext = new TapConnectorContext(null, table, config, new DataMap());
+    }
+
+    @AfterEach
+    void tearDown() {
+        connector.destroy();
+    }
+
+    private WriteListResult<TapRecordEvent> write(List<TapRecordEvent> events) throws Throwable {
+        AtomicReference<WriteListResult<TapRecordEvent>> result = new AtomicReference<>();
+        connectorFunctions.getWriteRecordFunction().writeDML(connectorContext, events, result::set);
+        return result.get();
+    }
+
+    private List<TapRecordEvent> events(int keyCount, int versions) {
+        List<TapRecordEvent> events = new ArrayList<>();
+        for (int version = 0; version < versions; version++) {
+            for (int id = 0; id < keyCount; id++) {
+                events.add(insertRecordEvent(map(entry("id", id), entry("seq", version)), table));
+            }
+        }
+        return events;
+    }
+
+    @Test
+    void writeConcurrentlyKeepingKeyOrder() throws Throwable {
+        WriteListResult<TapRecordEvent> result = write(events(200, 10));
+        assertEquals(2000, result.getInsertedCount());
+
+        List<StandInDriver.Execution> inserts = driver.executions("INSERT");
+        assertEquals(2000, inserts.size());
+        assertTrue(driver.maxActiveExecutions.get() > 1, "Sub-batches should be written concurrently");
+        Set<Integer> connections = new HashSet<>();
+        Map<Object, Integer> keyVersion = new HashMap<>();
+        Map<Object, Integer> keyConnection = new HashMap<>();
+        for (StandInDriver.Execution insert : inserts) {
+            connections.add(insert.connectionId);
+            Object id = insert.parameters.get(0);
+            int version = (Integer) insert.parameters.get(1);
+            assertEquals(keyVersion.getOrDefault(id, -1) + 1, version, "Events of key " + id + " are out of order");
+            keyVersion.put(id, version);
+            //Same key always goes to the same writer.
+            assertEquals(keyConnection.computeIfAbsent(id, k -> insert.connectionId), insert.connectionId);
+        }
+        assertTrue(connections.size() > 1);
+        assertTrue(driver.connectionCount.get() <= 5, "Pool creates " + driver.connectionCount.get() + " connections");
+    }
+
+    @Test
+    void smallBatchIsNotPartitioned() throws Throwable {
+        write(events(10, 2));
+        assertEquals(1, driver.maxActiveExecutions.get());
+        assertEquals(20, driver.executions("INSERT").size());
+    }
+
+    @Test
+    void reconnectAfterConnectionFailure() throws Throwable {
+        write(events(10, 1));
+        int connectionCount = driver.connectionCount.get();
+        driver.failNextExecutions.set(1);
+        WriteListResult<TapRecordEvent> result = write(events(10, 1));
+        assertEquals(10, result.getInsertedCount());
+        assertTrue(driver.connectionCount.get() > connectionCount, "Broken connection should be replaced");
+        assertEquals(20, driver.executions("INSERT").size());
+
+        //Still works after the failure.
+        driver.failNextExecutions.set(1);
+        write(events(200, 2));
+        assertEquals(420, driver.executions("INSERT").size());
+    }
+
+    @Test
+    void resumeFromUnfinishedEventAfterConnectionFailure() throws Throwable {
+        List<TapRecordEvent> events = events(5, 1);
+        events.add(updateDMLEvent(map(entry("id", 0), entry("seq", 0)), map(entry("id", 0), entry("seq", 1)), table));
+        for (int id = 5; id < 10; id++) {
+            events.add(insertRecordEvent(map(entry("id", id), entry("seq", 0)), table));
+        }
+        driver.failSqlPrefix = "UPDATE";
+        driver.failNextExecutions.set(1);
+        WriteListResult<TapRecordEvent> result = write(events);
+        assertEquals(10, result.getInsertedCount());
+        assertEquals(1, result.getModifiedCount());
+        //The inserts before the update are not written again.
+        assertEquals(10, driver.executions("INSERT").size());
+        assertEquals(1, driver.executions("UPDATE").size());
+        assertEquals(2, driver.connectionCount.get());
+    }
+
+    @Test
+    void noRetryForTableWithoutPrimaryKey() throws Throwable {
+        TapTable duplicateTable = table("duplicateTable")
+                .add(field("id", "INT"))
+                .add(field("seq", "INT"));
+        driver.tables.add(duplicateTable.getName());
+        connectorContext = new TapConnectorContext(null, duplicateTable, connectorContext.getConnectionConfig(), new DataMap());
+        List<TapRecordEvent> events = new ArrayList<>();
+        for (int id = 0; id < 10; id++) {
+            events.add(insertRecordEvent(map(entry("id", id), entry("seq", 0)), duplicateTable));
+        }
+        driver.failSqlPrefix = "INSERT";
+        driver.failNextExecutions.set(1);
+        SQLException error = assertThrows(SQLException.class, () -> write(events));
+        assertEquals("08S01", error.getSQLState());
+        assertEquals(0, driver.executions("INSERT").size());
+
+        //Broken connection is replaced for the next write.
+        WriteListResult<TapRecordEvent> result = write(events);
+        assertEquals(10, result.getInsertedCount());
+        assertEquals(10, driver.executions("INSERT").size());
+    }
+
+    @Test
+    void insertIntoTableCreatedWithKeysFirst() throws Throwable {
+        //Key columns are not the leading fields, the created table puts them first.
+        TapTable orders = table("orders")
+                .add(field("amount", "DECIMAL(10,2)"))
+                .add(field("created", "DATETIME"))
+                .add(field("orderId", "BIGINT").isPrimaryKey(true).primaryKeyPos(2).nullable(false))
+                .add(field("shopId", "INT").isPrimaryKey(true).primaryKeyPos(1).nullable(false));
+        connectorContext = new TapConnectorContext(null, orders, connectorContext.getConnectionConfig(), new DataMap());
+        connectorFunctions.getCreateTableFunction().createTable(connectorContext, new TapCreateTableEvent());
+        assertEquals(Arrays.asList("shopId", "orderId", "amount", "created"), driver.tableColumns.get("orders"));
+
+        List<TapRecordEvent> events = new ArrayList<>();
+        for (int id = 0; id < 10; id++) {
+            events.add(insertRecordEvent(map(entry("amount", id + 0.5), entry("created", "2022-01-0" + id), entry("orderId", 100L + id), entry("shopId", id)), orders));
+        }
+        assertEquals(10, write(events).getInsertedCount());
+        List<StandInDriver.Execution> inserts = driver.executions("INSERT");
+        assertEquals(10, inserts.size());
+        for (int id = 0; id < 10; id++) {
+            Map<String, Object> row = driver.insertedRow(inserts.get(id));
+            assertEquals(id, row.get("shopId"));
+            assertEquals(100L + id, row.get("orderId"));
+            assertEquals(id + 0.5, row.get("amount"));
+            assertEquals("2022-01-0" + id, row.get("created"));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.tapdata.connector.doris;
+
+import io.tapdata.connector.doris.bean.DorisConfig;
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DorisDDLInstanceTest {
+    private final DorisDDLInstance ddlInstance = DorisDDLInstance.getInstance();
+
+    private TapTable primaryKeyTable() {
+        return table("orders")
+                .add(field("amount", "DECIMAL(10,2)"))
+                .add(field("created", "DATETIME"))
+                .add(field("orderId", "BIGINT").isPrimaryKey(true).primaryKeyPos(2).nullable(false))
+                .add(field("shopId", "INT").isPrimaryKey(true).primaryKeyPos(1).nullable(false));
+    }
+
+    @Test
+    void uniqueKeyModelWithBucketsFromRowCount() {
+        DorisConfig config = new DorisConfig();
+        assertEquals("CREATE TABLE orders(shopId INT NOT NULL ,orderId BIGINT NOT NULL ,amount DECIMAL(10,2) NULL ,created DATETIME NULL )" +
+                        "UNIQUE KEY (shopId,orderId ) DISTRIBUTED BY HASH(shopId,orderId ) BUCKETS 10 PROPERTIES(\"replication_num\" = \"1\")",
+                ddlInstance.buildCreateTableSQL(primaryKeyTable(), config, null));
+
+        assertTrue(ddlInstance.buildCreateTableSQL(primaryKeyTable(), config, 1000L).contains(" BUCKETS 1 "));
+        assertTrue(ddlInstance.buildCreateTableSQL(primaryKeyTable(), config, 250_000_000L).contains(" BUCKETS 25 "));
+        assertTrue(ddlInstance.buildCreateTableSQL(primaryKeyTable(), config, 100_000_000_000L).contains(" BUCKETS 128 "));
+
+        config.setBucketCount(7);
+        config.setReplicationNum(3);
+        String sql = ddlInstance.buildCreateTableSQL(primaryKeyTable(), config, 100_000_000_000L);
+        assertTrue(sql.contains(" BUCKETS 7 "));
+        assertTrue(sql.endsWith("PROPERTIES(\"replication_num\" = \"3\")"));
+    }
+
+    @Test
+    void duplicateKeyModelWithoutPrimaryKeys() {
+        TapTable table = table("logs")
+                .add(field("ts", "DATETIME"))
+                .add(field("message", "VARCHAR(1024)"));
+        assertEquals("CREATE TABLE logs(ts DATETIME NULL ,message VARCHAR(1024) NULL )" +
+                        "DUPLICATE KEY (ts ) DISTRIBUTED BY HASH(ts ) BUCKETS 3 PROPERTIES(\"replication_num\" = \"1\")",
+                ddlInstance.buildCreateTableSQL(table, new DorisConfig(), 30_000_000L));
+    }
+
+    @Test
+    void partitionByDateColumn() {
+        DorisConfig config = new DorisConfig();
+        config.setPartitionColumn("created");
+        config.setPartitionUnit("month");
+        config.setPartitionHistory(2);
+        config.setPartitionFuture(1);
+        TapTable table = table("events")
+                .add(field("id", "BIGINT"))
+                .add(field("created", "DATETIME"));
+        assertEquals("CREATE TABLE events(id BIGINT NULL ,created DATETIME NULL )" +
+                        "DUPLICATE KEY (id,created ) PARTITION BY RANGE(created) (PARTITION p_history VALUES LESS THAN (\"2021-12-01 00:00:00\"), " +
+                        "PARTITION p20211201 VALUES LESS THAN (\"2022-01-01 00:00:00\"), PARTITION p20220101 VALUES LESS THAN (\"2022-02-01 00:00:00\"), " +
+                        "PARTITION p20220201 VALUES LESS THAN (\"2022-03-01 00:00:00\"), PARTITION p20220301 VALUES LESS THAN (\"2022-04-01 00:00:00\"), " +
+                        "PARTITION p_future VALUES LESS THAN (MAXVALUE)) DISTRIBUTED BY HASH(id ) BUCKETS 10 PROPERTIES(\"replication_num\" = \"1\")",
+                ddlInstance.buildCreateTableSQL(table, config, 200_000_000L, LocalDate.of(2022, 2, 15)));
+
+        config.setPartitionUnit("week");
+        config.setPartitionHistory(1);
+        config.setPartitionFuture(0);
+        //2022-02-16 is Wednesday, the week starts from Monday.
+        assertTrue(ddlInstance.buildCreateTableSQL(table, config, null, LocalDate.of(2022, 2, 16)).contains(
+                "(PARTITION p_history VALUES LESS THAN (\"2022-02-07 00:00:00\"), PARTITION p20220207 VALUES LESS THAN (\"2022-02-14 00:00:00\"), " +
+                        "PARTITION p20220214 VALUES LESS THAN (\"2022-02-21 00:00:00\"), PARTITION p_future VALUES LESS THAN (MAXVALUE))"));
+
+        config.setPartitionUnit("hour");
+        assertThrows(RuntimeException.class, () -> ddlInstance.buildCreateTableSQL(table, config, null));
+        //Partition column must be DATE or DATETIME.
+        config.setPartitionUnit("day");
+        config.setPartitionColumn("id");
+        assertThrows(RuntimeException.class, () -> ddlInstance.buildCreateTableSQL(table, config, null));
+    }
+
+    @Test
+    void dynamicPartitionWithRetention() {
+        DorisConfig config = new DorisConfig();
+        config.setPartitionColumn("created");
+        config.setPartitionUnit("month");
+        config.setPartitionHistory(12);
+        config.setPartitionRetention(true);
+        TapTable table = table("events")
+                .add(field("id", "BIGINT"))
+                .add(field("created", "DATE"));
+        assertEquals("CREATE TABLE events(id BIGINT NULL ,created DATE NULL )" +
+                        "DUPLICATE KEY (id,created ) PARTITION BY RANGE(created) () DISTRIBUTED BY HASH(id ) BUCKETS 10 " +
+                        "PROPERTIES(\"replication_num\" = \"1\", \"dynamic_partition.enable\" = \"true\", \"dynamic_partition.time_unit\" = \"MONTH\", " +
+                        "\"dynamic_partition.start\" = \"-12\", \"dynamic_partition.end\" = \"3\", \"dynamic_partition.prefix\" = \"p\", " +
+                        "\"dynamic_partition.buckets\" = \"10\", \"dynamic_partition.replication_num\" = \"1\", \"dynamic_partition.create_history_partition\" = \"true\")",
+                ddlInstance.buildCreateTableSQL(table, config, 1_200_000_000L));
+
+        //Partition column of UNIQUE KEY model must be a primary key.
+        assertThrows(RuntimeException.class, () -> ddlInstance.buildCreateTableSQL(primaryKeyTable(), config, null));
+        config.setPartitionColumn("notExist");
+        assertThrows(RuntimeException.class, () -> ddlInstance.buildCreateTableSQL(primaryKeyTable(), config, null));
+    }
+}
@@ -0,0 +1,311 @@
+package io.tapdata.connector.doris;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * In-process JDBC stand-in of Doris, records the executed statements and answers queries by a handler.
+ * Use jdbcDriver "io.tapdata.connector.doris.StandInDriver" and databaseUrlPattern "jdbc:standin://%s:%d/%s".
+ */
+public class StandInDriver implements Driver {
+    public static final String URL_PATTERN = "jdbc:standin://%s:%d/%s";
+    public static final StandInDriver INSTANCE = new StandInDriver();
+
+    static {
+        try {
+            DriverManager.registerDriver(INSTANCE);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Execution {
+        public final int connectionId;
+        public final String sql;
+        public final List<Object> parameters;
+
+        Execution(int connectionId, String sql, List<Object> parameters) {
+            this.connectionId = connectionId;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+
+    public final AtomicInteger connectionCount = new AtomicInteger();
+    public final AtomicInteger activeExecutions = new AtomicInteger();
+    public final AtomicInteger maxActiveExecutions = new AtomicInteger();
+    public final AtomicInteger failNextExecutions = new AtomicInteger();
+    //Only the executions of the SQL with this prefix fail if given.
+    public volatile String failSqlPrefix;
+    public final List<Execution> executions = Collections.synchronizedList(new ArrayList<>());
+    public final Set<String> tables = Collections.synchronizedSet(new HashSet<>());
+    //Columns of the tables created, in the order of CREATE TABLE.
+    public final Map<String, List<String>> tableColumns = new ConcurrentHashMap<>();
+    public volatile Function<Execution, List<Map<String, Object>>> queryHandler = execution -> new ArrayList<>();
+    public volatile long executionMillis = 1;
+
+    public void reset() {
+        connectionCount.set(0);
+        activeExecutions.set(0);
+        maxActiveExecutions.set(0);
+        failNextExecutions.set(0);
+        failSqlPrefix = null;
+        executions.clear();
+        tables.clear();
+        tableColumns.clear();
+        queryHandler = execution -> new ArrayList<>();
+        executionMillis = 1;
+    }
+
+    public List<Execution> executions(String sqlPrefix) {
+        List<Execution> list = new ArrayList<>();
+        synchronized (executions) {
+            for (Execution execution : executions) {
+                if (execution.sql.startsWith(sqlPrefix))
+                    list.add(execution);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * The row of an INSERT execution, the values go to the listed columns, or to the columns in the order of CREATE TABLE as Doris does without the list.
+     */
+    public Map<String, Object> insertedRow(Execution execution) {
+        String sql = execution.sql;
+        int valuesIndex = sql.indexOf(" VALUES ");
+        String target = sql.substring("INSERT INTO ".length(), valuesIndex);
+        List<String> columns;
+        int listIndex = target.indexOf(" (");
+        if (listIndex >= 0) {
+            columns = new ArrayList<>();
+            for (String column : target.substring(listIndex + 2, target.length() - 1).split(",")) {
+                columns.add(column.trim());
+            }
+        } else {
+            columns = tableColumns.get(target);
+            if (columns == null)
+                throw new IllegalStateException("Table " + target + " is not created");
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            row.put(columns.get(i), execution.parameters.get(i));
+        }
+        return row;
+    }
+
+    private void createTable(String sql) {
+        int nameEnd = sql.indexOf('(');
+        String table = sql.substring("CREATE TABLE ".length(), nameEnd).trim();
+        int keyIndex = sql.indexOf(")UNIQUE KEY");
+        if (keyIndex < 0)
+            keyIndex = sql.indexOf(")DUPLICATE KEY");
+        List<String> columns = new ArrayList<>();
+        //Column definitions are "name type NULL ," in the DDL of the connector.
+        for (String definition : sql.substring(nameEnd + 1, keyIndex).split(" ,")) {
+            columns.add(definition.trim().split(" ")[0]);
+        }
+        tableColumns.put(table, columns);
+        tables.add(table);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        if (!acceptsURL(url))
+            return null;
+        return proxy(Connection.class, new ConnectionHandler(connectionCount.incrementAndGet()));
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith("jdbc:standin:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> clazz, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StandInDriver.class.getClassLoader(), new Class[]{clazz}, (proxy, method, args) -> {
+            try {
+                return handler.invoke(proxy, method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        return null;
+    }
+
+    private List<Map<String, Object>> execute(ConnectionHandler connection, String sql, List<Object> parameters) throws SQLException {
+        if (connection.closed)
+            throw new SQLException("Connection is closed", "08003");
+        if ((failSqlPrefix == null || sql.startsWith(failSqlPrefix)) && failNextExecutions.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+            connection.closed = true;
+            throw new SQLException("Communications link failure", "08S01");
+        }
+        int active = activeExecutions.incrementAndGet();
+        maxActiveExecutions.accumulateAndGet(active, Math::max);
+        try {
+            if (executionMillis > 0)
+                Thread.sleep(executionMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeExecutions.decrementAndGet();
+        }
+        Execution execution = new Execution(connection.id, sql, parameters);
+        executions.add(execution);
+        if (sql.startsWith("CREATE TABLE "))
+            createTable(sql);
+        if (sql.startsWith("SELECT"))
+            return queryHandler.apply(execution);
+        return null;
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final int id;
+        private volatile boolean closed;
+
+        ConnectionHandler(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    return !closed;
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler(this, null));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler(this, (String) args[0]));
+                case "getMetaData":
+                    return proxy(DatabaseMetaData.class, (metaProxy, metaMethod, metaArgs) -> {
+                        if (metaMethod.getName().equals("getTables")) {
+                            List<Map<String, Object>> rows = new ArrayList<>();
+                            String tableName = (String) metaArgs[2];
+                            if (tableName != null && tables.contains(tableName))
+                                rows.add(Collections.singletonMap("TABLE_NAME", tableName));
+                            return resultSet(rows);
+                        }
+                        return defaultValue(metaMethod);
+                    });
+                default:
+                    return defaultValue(method);
+            }
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final ConnectionHandler connection;
+        private final String preparedSql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private final List<List<Object>> batch = new ArrayList<>();
+
+        StatementHandler(ConnectionHandler connection, String preparedSql) {
+            this.connection = connection;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "setObject":
+                case "setString":
+                case "setInt":
+                case "setLong":
+                    parameters.put((Integer) args[0], args[1]);
+                    return null;
+                case "clearParameters":
+                    parameters.clear();
+                    return null;
+                case "addBatch":
+                    batch.add(new ArrayList<>(parameters.values()));
+                    return null;
+                case "clearBatch":
+                    batch.clear();
+                    return null;
+                case "executeBatch":
+                    if (batch.isEmpty())
+                        return new int[0];
+                    for (List<Object> row : batch) {
+                        execute(connection, preparedSql, row);
+                    }
+                    int[] result = new int[batch.size()];
+                    Arrays.fill(result, 1);
+                    return result;
+                case "execute":
+                    execute(connection, args != null ? (String) args[0] : preparedSql, args != null ? Collections.emptyList() : new ArrayList<>(parameters.values()));
+                    return false;
+                case "executeQuery":
+                    return resultSet(execute(connection, args != null ? (String) args[0] : preparedSql, args != null ? Collections.emptyList() : new ArrayList<>(parameters.values())));
+                case "executeUpdate":
+                    execute(connection, args != null ? (String) args[0] : preparedSql, args != null ? Collections.emptyList() : new ArrayList<>(parameters.values()));
+                    return 1;
+                default:
+                    return defaultValue(method);
+            }
+        }
+    }
+
+    private static ResultSet resultSet(List<Map<String, Object>> rows) {
+        int[] cursor = {-1};
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++cursor[0] < rows.size();
+                case "first":
+                    cursor[0] = 0;
+                    return !rows.isEmpty();
+                case "getObject":
+                case "getString":
+                    Object value = args[0] instanceof String ? rows.get(cursor[0]).get(args[0]) : new ArrayList<>(rows.get(cursor[0]).values()).get((Integer) args[0] - 1);
+                    return method.getName().equals("getString") && value != null ? value.toString() : value;
+                default:
+                    return defaultValue(method);
+            }
+        });
+    }
+}
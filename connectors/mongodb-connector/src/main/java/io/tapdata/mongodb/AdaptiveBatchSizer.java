@@ -0,0 +1,89 @@
+package io.tapdata.mongodb;
+
+/**
+ * Size the batches by bytes instead of a fixed count, small documents make bigger batches and huge documents smaller ones.
+ *
+ * The pending batch is flushed when it reaches the count limit, the bytes budget, or stays longer than maxLatency.
+ * The cursor batch size is estimated from the average document size observed so far.
+ * Not thread safe, one sizer serves one reading loop.
+ */
+public class AdaptiveBatchSizer {
+    public static final int MIN_CURSOR_BATCH_SIZE = 1;
+    public static final int MAX_CURSOR_BATCH_SIZE = 50000;
+
+    private final long batchBytes;
+    private final long maxLatency;
+    private final int maxBatchCount;
+
+    private long observedBytes;
+    private long observedCount;
+
+    private long pendingBytes;
+    private int pendingCount;
+    private long pendingStartTime;
+
+    /**
+     * @param batchBytes the bytes budget of a batch
+     * @param maxLatency max milliseconds a document waits in the pending batch, 0 for no deadline
+     * @param maxBatchCount max count of documents in a batch
+     */
+    public AdaptiveBatchSizer(long batchBytes, long maxLatency, int maxBatchCount) {
+        this.batchBytes = Math.max(1, batchBytes);
+        this.maxLatency = maxLatency;
+        this.maxBatchCount = Math.max(1, maxBatchCount);
+    }
+
+    /**
+     * Take the average document size from collection statistics before any document is read.
+     */
+    public AdaptiveBatchSizer seed(long averageBytes) {
+        if(averageBytes > 0 && observedCount == 0) {
+            observedBytes = averageBytes;
+            observedCount = 1;
+        }
+        return this;
+    }
+
+    /**
+     * @param documentBytes the BSON size of the document just added into the pending batch
+     * @return true if the pending batch should be flushed now
+     */
+    public boolean add(long documentBytes) {
+        if(pendingCount == 0)
+            pendingStartTime = System.currentTimeMillis();
+        pendingCount++;
+        pendingBytes += documentBytes;
+        observedCount++;
+        observedBytes += documentBytes;
+        return pendingCount >= maxBatchCount || pendingBytes >= batchBytes ||
+                (maxLatency > 0 && System.currentTimeMillis() - pendingStartTime >= maxLatency);
+    }
+
+    public void flushed() {
+        pendingCount = 0;
+        pendingBytes = 0;
+    }
+
+    /**
+     * @return how many documents the cursor should fetch in one round trip to stay in the bytes budget.
+     */
+    public int cursorBatchSize() {
+        long averageBytes = averageBytes();
+        if(averageBytes <= 0)
+            return Math.min(maxBatchCount, MAX_CURSOR_BATCH_SIZE);
+        long size = batchBytes / averageBytes;
+        return (int) Math.max(MIN_CURSOR_BATCH_SIZE, Math.min(size, MAX_CURSOR_BATCH_SIZE));
+    }
+
+    public long averageBytes() {
+        return observedCount > 0 ? observedBytes / observedCount : 0;
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public int getPendingCount() {
+        return pendingCount;
+    }
+}
@@ -2,28 +2,142 @@ package io.tapdata.mongodb;
 
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
-import org.bson.codecs.configuration.CodecRegistries;
-import org.bson.codecs.configuration.CodecRegistry;
-import org.bson.codecs.pojo.PojoCodecProvider;
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.mongodb.bean.MongoDBConfig;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
-
-import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
-import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * MongoClient is heavy, it holds the connection pool and the monitor threads of the servers.
+ * The connectors with the same uri and pool settings share one client.
+ *
+ * Connector acquires the client in init and releases it in destroy.
+ * When nobody uses a client for idleClientTtl milliseconds, the client is closed.
+ */
 public class MongoClientFactory {
-    private static Map<ConnectionString, MongoClient> mongoClientMap = new ConcurrentHashMap<>();
-    public static MongoClient getMongoClient(String connectionString) {
-        return getMongoClient(new ConnectionString(connectionString));
+    private static final String TAG = MongoClientFactory.class.getSimpleName();
+    private static final Map<String, ClientHolder> clientMap = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService idleCheckExecutor;
+
+    private static class ClientHolder {
+        private final String key;
+        private final MongoClient mongoClient;
+        private int refCount;
+        private long idleTime;
+
+        private ClientHolder(String key, MongoClient mongoClient) {
+            this.key = key;
+            this.mongoClient = mongoClient;
+        }
     }
-    public static MongoClient getMongoClient(ConnectionString connectionString) {
-        return mongoClientMap.computeIfAbsent(connectionString, connectionString1 -> {
-            return MongoClients.create(connectionString1);
-        });
+
+    public static synchronized MongoClient acquire(MongoDBConfig config) {
+        String key = key(config);
+        ClientHolder holder = clientMap.get(key);
+        if(holder == null) {
+            holder = new ClientHolder(key, MongoClients.create(settings(config)));
+            clientMap.put(key, holder);
+            TapLogger.debug(TAG, "MongoClient created, {} clients in total", clientMap.size());
+        }
+        holder.refCount++;
+        return holder.mongoClient;
     }
 
+    public static synchronized void release(MongoClient mongoClient, MongoDBConfig config) {
+        ClientHolder holder = clientMap.get(key(config));
+        if(holder == null || holder.mongoClient != mongoClient) {
+            TapLogger.warn(TAG, "Release MongoClient which is not acquired from factory, close it directly");
+            mongoClient.close();
+            return;
+        }
+        if(--holder.refCount > 0)
+            return;
+        holder.idleTime = System.currentTimeMillis();
+        long idleClientTtl = config.getIdleClientTtl();
+        if(idleClientTtl <= 0) {
+            close(holder);
+        } else {
+            idleCheckExecutor().schedule(() -> closeIfIdle(holder, idleClientTtl), idleClientTtl, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return the count of clients which are not closed yet, include the idle ones.
+     */
+    public static int clientCount() {
+        return clientMap.size();
+    }
+
+    private static synchronized void closeIfIdle(ClientHolder holder, long idleClientTtl) {
+        //Acquired again, or released again later and the later check will close it.
+        if(holder.refCount > 0 || System.currentTimeMillis() - holder.idleTime < idleClientTtl)
+            return;
+        close(holder);
+    }
+
+    private static void close(ClientHolder holder) {
+        clientMap.remove(holder.key, holder);
+        holder.mongoClient.close();
+        TapLogger.debug(TAG, "MongoClient closed, {} clients left", clientMap.size());
+    }
+
+    private static ScheduledExecutorService idleCheckExecutor() {
+        if(idleCheckExecutor == null) {
+            idleCheckExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "MongoClientFactory idle check");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return idleCheckExecutor;
+    }
+
+    private static String key(MongoDBConfig config) {
+        return config.getUri() + "|" + config.getMaxPoolSize() + "|" + config.getMinPoolSize() + "|" + config.getMaxConnecting() + "|" +
+                config.getWaitQueueTimeout() + "|" + config.getCompressors();
+    }
+
+    private static MongoClientSettings settings(MongoDBConfig config) {
+        MongoClientSettings.Builder builder = MongoClientSettings.builder().applyConnectionString(new ConnectionString(config.getUri()));
+        //The options in config overwrite the ones in uri.
+        builder.applyToConnectionPoolSettings(poolBuilder -> {
+            if(config.getMaxPoolSize() != null)
+                poolBuilder.maxSize(config.getMaxPoolSize());
+            if(config.getMinPoolSize() != null)
+                poolBuilder.minSize(config.getMinPoolSize());
+            if(config.getMaxConnecting() != null)
+                poolBuilder.maxConnecting(config.getMaxConnecting());
+            if(config.getWaitQueueTimeout() != null)
+                poolBuilder.maxWaitTime(config.getWaitQueueTimeout(), TimeUnit.MILLISECONDS);
+        });
+        if(config.getCompressors() != null && !config.getCompressors().trim().isEmpty()) {
+            List<MongoCompressor> compressors = new ArrayList<>();
+            for(String compressor : config.getCompressors().split(",")) {
+                switch (compressor.trim().toLowerCase()) {
+                    case "zstd":
+                        compressors.add(MongoCompressor.createZstdCompressor());
+                        break;
+                    case "snappy":
+                        compressors.add(MongoCompressor.createSnappyCompressor());
+                        break;
+                    case "zlib":
+                        compressors.add(MongoCompressor.createZlibCompressor());
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported compressor " + compressor + ", expect zstd, snappy or zlib");
+                }
+            }
+            builder.compressorList(compressors);
+        }
+        return builder.build();
+    }
 }
@@ -1,12 +1,16 @@
 package io.tapdata.mongodb;
 
 import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoExecutionTimeoutException;
 import com.mongodb.client.*;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.changestream.ChangeStreamDocument;
 import com.mongodb.client.model.changestream.FullDocument;
 import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.InsertManyResult;
 import com.mongodb.client.result.UpdateResult;
@@ -34,6 +38,8 @@ import io.tapdata.pdk.apis.functions.ConnectorFunctions;
 import io.tapdata.entity.logger.TapLogger;
 import org.bson.*;
 
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.codecs.pojo.PojoCodecProvider;
 import org.bson.conversions.Bson;
@@ -48,6 +54,8 @@ import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
@@ -64,29 +72,55 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
     private MongoDBConfig mongoConfig;
     private MongoClient mongoClient;
     private MongoDatabase mongoDatabase;
-    private final int[] lock = new int[0];
-    MongoCollection<Document> mongoCollection;
+    //The connector may serve multiple tables, the engine switches the table in connector context.
+    private final Map<String, MongoCollection<Document>> collectionMap = new ConcurrentHashMap<>();
     private MongoOffset batchOffset = null;
     private Long documentCount = null;
     //TODO need replace, deleteEvent and insertEvent.
     private final List<Bson> pipeline = singletonList(match(in("operationType", asList("insert", "update", "delete"))));
     private BsonDocument resumeToken = null;
     private Collection<String> primaryKeys;
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private RawBsonRecordDecoder rawBsonRecordDecoder;
     private String firstPrimaryKey;
 
     MongoChangeStreamCursor<ChangeStreamDocument<Document>> streamCursor;
 
-    private void initConnection(DataMap config) throws IOException {
-        mongoConfig = MongoDBConfig.load(config);
+    /**
+     * @return true when the client is acquired by this call.
+     */
+    private boolean initConnection(DataMap config) throws IOException {
         if (mongoClient == null) {
-            //TODO watch database from MongoClientFactory.
-            mongoClient = MongoClientFactory.getMongoClient(mongoConfig.getUri());
+            mongoConfig = MongoDBConfig.load(config);
+            //Released in destroy.
+            mongoClient = MongoClientFactory.acquire(mongoConfig);
             CodecRegistry pojoCodecRegistry = fromRegistries(MongoClientSettings.getDefaultCodecRegistry(),
                     fromProviders(PojoCodecProvider.builder().automatic(true).build()));
             mongoDatabase = mongoClient.getDatabase(mongoConfig.getDatabase()).withCodecRegistry(pojoCodecRegistry);
+            rawBsonRecordDecoder = new RawBsonRecordDecoder(pojoCodecRegistry);
+            return true;
+        }
+        return false;
+    }
+
+    private void releaseConnection() {
+        if (mongoClient != null) {
+            MongoClientFactory.release(mongoClient, mongoConfig);
+            mongoClient = null;
+            mongoDatabase = null;
+            collectionMap.clear();
         }
     }
 
+    /**
+     * A connection which only tests or discovers schema may not be destroyed, release the client acquired for it at once.
+     * The connector of a node keeps the client for the reads and writes after, until destroy.
+     */
+    private void releaseConnectionOnly(TapConnectionContext connectionContext, boolean acquired) {
+        if(acquired && !(connectionContext instanceof TapConnectorContext))
+            releaseConnection();
+    }
+
     private Bson queryCondition(Object value) {
         return gte(firstPrimaryKey, value);
     }
@@ -105,14 +139,7 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
     }
 
     private MongoCollection<Document> getMongoCollection(TapTable table) {
-        if(mongoCollection == null) {
-            synchronized (lock) {
-                if(mongoCollection == null) {
-                    mongoCollection = mongoDatabase.getCollection(table.getName());
-                }
-            }
-        }
-        return mongoCollection;
+        return collectionMap.computeIfAbsent(table.getName(), name -> mongoDatabase.getCollection(name));
     }
     /**
      * The method invocation life circle is below,
@@ -129,16 +156,20 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
      */
     @Override
     public void discoverSchema(TapConnectionContext connectionContext, Consumer<List<TapTable>> consumer) throws Throwable {
-        initConnection(connectionContext.getConnectionConfig());
-        MongoIterable<String> collectionNames = mongoDatabase.listCollectionNames();
-        //List all the tables under the database.
-        List<TapTable> list = list();
-        for (String collectionName : collectionNames) {
-            //Mongodb is schema free. There is no way for incremental engine to know the default primary key. So need to specify the defaultPrimaryKeys.
-            TapTable table = table(collectionName).defaultPrimaryKeys(singletonList("_id"));
-            list.add(table);
+        boolean acquired = initConnection(connectionContext.getConnectionConfig());
+        try {
+            MongoIterable<String> collectionNames = mongoDatabase.listCollectionNames();
+            //List all the tables under the database.
+            List<TapTable> list = list();
+            for (String collectionName : collectionNames) {
+                //Mongodb is schema free. There is no way for incremental engine to know the default primary key. So need to specify the defaultPrimaryKeys.
+                TapTable table = table(collectionName).defaultPrimaryKeys(singletonList("_id"));
+                list.add(table);
+            }
+            consumer.accept(list);
+        } finally {
+            releaseConnectionOnly(connectionContext, acquired);
         }
-        consumer.accept(list);
     }
 
     /**
@@ -155,13 +186,15 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
      */
     @Override
     public void connectionTest(TapConnectionContext connectionContext, Consumer<TestItem> consumer) throws Throwable {
-        initConnection(connectionContext.getConnectionConfig());
+        boolean acquired = initConnection(connectionContext.getConnectionConfig());
         try {
             mongoDatabase.listCollectionNames();
             consumer.accept(testItem(TestItem.ITEM_CONNECTION, TestItem.RESULT_SUCCESSFULLY));
         } catch(Throwable throwable) {
             throwable.printStackTrace();
             consumer.accept(testItem(TestItem.ITEM_CONNECTION, TestItem.RESULT_FAILED, "Failed, " + throwable.getMessage()));
+        } finally {
+            releaseConnectionOnly(connectionContext, acquired);
         }
     }
 
@@ -199,6 +232,8 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
     @Override
     public void registerCapabilities(ConnectorFunctions connectorFunctions, TapCodecRegistry codecRegistry) {
         connectorFunctions.supportWriteRecord(this::writeRecord);
+        //Update events are written by $set and $unset, the after with only the updated fields is enough.
+        connectorFunctions.supportPartialUpdate(true);
         connectorFunctions.supportQueryByAdvanceFilter(this::queryByAdvanceFilter);
         connectorFunctions.supportDropTable(this::dropTable);
 
@@ -312,7 +347,18 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
                 Map<String, Object> before = updateRecordEvent.getBefore();
 
 
-                UpdateResult updateResult = collection.updateOne(new Document(before), new Document().append("$set", after), options);
+                Document update = new Document();
+                if(after != null && !after.isEmpty())
+                    update.append("$set", after);
+                List<String> removedFields = updateRecordEvent.getRemovedFields();
+                if(removedFields != null && !removedFields.isEmpty()) {
+                    Document unset = new Document();
+                    for(String removedField : removedFields) {
+                        unset.append(removedField, "");
+                    }
+                    update.append("$unset", unset);
+                }
+                UpdateResult updateResult = collection.updateOne(new Document(before), update, options);
                 if(updateResult.getModifiedCount() > 0)
                     updated.incrementAndGet();
                 else
@@ -389,7 +435,7 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
             else
                 query = and(bsonList.toArray(new Bson[0]));
 
-            FindIterable<Document> iterable = collection.find(query).limit(limit);
+            FindIterable<Document> iterable = collection.find(query).projection(projection(tapAdvanceFilter.getProjection())).limit(limit);
 
             Integer skip = tapAdvanceFilter.getSkip();
             if(skip != null) {
@@ -438,11 +484,17 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
         initFirstPrimaryKey(connectorContext.getTable());
 
         MongoCollection<Document> collection = getMongoCollection(connectorContext.getTable());
+        //countDocuments scans the whole collection, the count from collection metadata is good enough for the progress.
         if (offset == null) {
-            return collection.countDocuments();
+            return collection.estimatedDocumentCount();
         } else {
             MongoOffset mongoOffset = fromJson(offset, MongoOffset.class);
-            return collection.countDocuments(queryCondition(mongoOffset.value()));
+            try {
+                return collection.countDocuments(queryCondition(mongoOffset.value()), new CountOptions().maxTime(mongoConfig.getCountMaxTime(), TimeUnit.MILLISECONDS));
+            } catch (MongoExecutionTimeoutException e) {
+                TapLogger.warn(TAG, "Count documents from offset {} exceeded {} milliseconds, use estimated count of collection {} instead", offset, mongoConfig.getCountMaxTime(), collection.getNamespace().getCollectionName());
+                return collection.estimatedDocumentCount();
+            }
         }
     }
 
@@ -465,38 +517,47 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
      */
     private void batchRead(TapConnectorContext connectorContext, String offset, int eventBatchSize, Consumer<List<TapEvent>> tapReadOffsetConsumer) throws Throwable {
         initConnection(connectorContext.getConnectionConfig());
-        MongoCursor<Document> mongoCursor;
-        MongoCollection<Document> collection = getMongoCollection(connectorContext.getTable());
+        MongoCursor<RawBsonDocument> mongoCursor;
+        //Decode the raw bytes into the record directly, no org.bson.Document in between.
+        MongoCollection<RawBsonDocument> collection = getMongoCollection(connectorContext.getTable()).withDocumentClass(RawBsonDocument.class);
         initFirstPrimaryKey(connectorContext.getTable());
         //TODO sort multi primary keys, close to exactly once.
-        final int batchSize = 5000;
+        AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(mongoConfig.getBatchReadBytes(), mongoConfig.getBatchReadMaxLatency(), eventBatchSize)
+                .seed(averageDocumentSize(collection.getNamespace().getCollectionName()));
+        final int batchSize = batchSizer.cursorBatchSize();
+        //Only read the fields configured in the node's table.
+        Bson projection = projection(connectorContext.getProjection());
         if (offset == null) {
-            mongoCursor = collection.find().sort(Sorts.ascending(firstPrimaryKey)).batchSize(batchSize).iterator();
+            mongoCursor = collection.find().projection(projection).sort(Sorts.ascending(firstPrimaryKey)).batchSize(batchSize).iterator();
         } else {
             MongoOffset mongoOffset = fromJson(offset, MongoOffset.class);
             Object offsetValue = mongoOffset.value();
             if(offsetValue != null) {
-                mongoCursor = collection.find(queryCondition(offsetValue)).sort(Sorts.ascending(firstPrimaryKey))
+                mongoCursor = collection.find(queryCondition(offsetValue)).projection(projection).sort(Sorts.ascending(firstPrimaryKey))
                         .batchSize(batchSize).iterator();
             } else {
-                mongoCursor = collection.find().sort(Sorts.ascending(firstPrimaryKey)).batchSize(batchSize).iterator();
+                mongoCursor = collection.find().projection(projection).sort(Sorts.ascending(firstPrimaryKey)).batchSize(batchSize).iterator();
                 TapLogger.warn(TAG, "Offset format is illegal {}, no offset value has been found. Final offset will be null to do the batchRead", offset);
             }
         }
 
-        Document lastDocument = null;
+        TapTable table = connectorContext.getTable();
+        Map<String, Object> lastRecord = null;
         List<TapEvent> tapEvents = list();
         while (mongoCursor.hasNext()) {
-            lastDocument = mongoCursor.next();
-            tapEvents.add(insertRecordEvent(lastDocument, connectorContext.getTable()));
+            RawBsonDocument document = mongoCursor.next();
+            lastRecord = rawBsonRecordDecoder.decode(document, table);
+            tapEvents.add(insertRecordEvent(lastRecord, table));
 
-            if(tapEvents.size() == eventBatchSize) {
+            //Flush by count, bytes or latency, whichever comes first.
+            if(batchSizer.add(document.getByteBuffer().remaining())) {
                 if(firstPrimaryKey != null) {
-                    Object value = lastDocument.get(firstPrimaryKey);
+                    Object value = lastRecord.get(firstPrimaryKey);
                     batchOffset = new MongoOffset(firstPrimaryKey, value);
                 }
                 tapReadOffsetConsumer.accept(tapEvents);
                 tapEvents = list();
+                batchSizer.flushed();
             }
         }
         if(!tapEvents.isEmpty()) {
@@ -504,10 +565,38 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
         }
     }
 
+    /**
+     * @return average document size in bytes from collection statistics, 0 if not available.
+     */
+    private long averageDocumentSize(String collectionName) {
+        try {
+            Document stats = mongoDatabase.runCommand(new Document("collStats", collectionName));
+            Object avgObjSize = stats.get("avgObjSize");
+            return avgObjSize instanceof Number ? ((Number) avgObjSize).longValue() : 0;
+        } catch (Throwable throwable) {
+            TapLogger.debug(TAG, "Read collStats of collection {} failed, {}, batch size is adapted after reading", collectionName, throwable.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * @return null to read all the fields.
+     */
+    private Bson projection(Projection projection) {
+        if (projection == null || projection.isEmpty())
+            return null;
+        List<Bson> projections = new ArrayList<>();
+        if (projection.getIncludeFields() != null && !projection.getIncludeFields().isEmpty())
+            projections.add(Projections.include(projection.getIncludeFields()));
+        if (projection.getExcludeFields() != null && !projection.getExcludeFields().isEmpty())
+            projections.add(Projections.exclude(projection.getExcludeFields()));
+        return Projections.fields(projections);
+    }
+
     private String streamOffset(TapConnectorContext connectorContext, Long offsetStartTime) {
         if(offsetStartTime != null) {
             // Unix timestamp in seconds, with increment 1
-            ChangeStreamIterable<Document> changeStream = getMongoCollection(connectorContext.getTable()).watch(pipeline).fullDocument(FullDocument.UPDATE_LOOKUP);
+            ChangeStreamIterable<Document> changeStream = getMongoCollection(connectorContext.getTable()).watch(pipeline);
             changeStream = changeStream.startAtOperationTime(new BsonTimestamp((int) (offsetStartTime / 1000), 1));
             MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changeStream.cursor();
             BsonDocument theResumeToken = cursor.getResumeToken();
@@ -540,13 +629,17 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
      *                         //     * @param consumer
      */
     private void streamRead(TapConnectorContext connectorContext, String offset, int eventBatchSize, StreamReadConsumer consumer) {
+        boolean partialUpdate = partialUpdate(connectorContext);
+        TapLogger.info(TAG, "Stream read {} with {} update events", connectorContext.getTable().getName(), partialUpdate ? "partial" : "full document");
         while (!isShutDown.get()) {
             List<TapEvent> tapEvents = list();
-            ChangeStreamIterable<Document> changeStream;
+            ChangeStreamIterable<Document> changeStream = getMongoCollection(connectorContext.getTable()).watch(pipeline);
             if (offset != null) {
-                changeStream = getMongoCollection(connectorContext.getTable()).watch(pipeline).resumeAfter(BsonDocument.parse(offset)).fullDocument(FullDocument.UPDATE_LOOKUP);
-            } else {
-                changeStream = getMongoCollection(connectorContext.getTable()).watch(pipeline).fullDocument(FullDocument.UPDATE_LOOKUP);
+                changeStream = changeStream.resumeAfter(BsonDocument.parse(offset));
+            }
+            //Looking up the full document is an extra read on the server for every update event.
+            if (!partialUpdate) {
+                changeStream = changeStream.fullDocument(FullDocument.UPDATE_LOOKUP);
             }
 
             if(streamCursor != null) {
@@ -604,11 +697,15 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
                     DataMap before = new DataMap();
                     if (event.getDocumentKey() != null) {
                         before.put("_id", getIdValue(event.getDocumentKey().get("_id")));
-                        DataMap after = new DataMap();
-                        after.putAll(fullDocument);
-                        after.remove("_id");
-
-                        TapUpdateRecordEvent recordEvent = updateDMLEvent(before, after, connectorContext.getTable());
+                        TapUpdateRecordEvent recordEvent;
+                        if (partialUpdate) {
+                            recordEvent = partialUpdateEvent(before, event.getUpdateDescription(), connectorContext.getTable());
+                        } else {
+                            DataMap after = new DataMap();
+                            after.putAll(fullDocument);
+                            after.remove("_id");
+                            recordEvent = updateDMLEvent(before, after, connectorContext.getTable());
+                        }
                         tapEvents.add(recordEvent);
                     } else {
                         TapLogger.error(TAG, "Document key is null, failed to update. {}", event);
@@ -618,6 +715,27 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
         }
     }
 
+    private boolean partialUpdate(TapConnectorContext connectorContext) {
+        String fullDocument = mongoConfig.getFullDocument();
+        if (MongoDBConfig.FULL_DOCUMENT_UPDATE_DESCRIPTION.equals(fullDocument))
+            return true;
+        if (MongoDBConfig.FULL_DOCUMENT_UPDATE_LOOKUP.equals(fullDocument))
+            return false;
+        return connectorContext.isPartialUpdateAccepted();
+    }
+
+    private TapUpdateRecordEvent partialUpdateEvent(DataMap before, UpdateDescription updateDescription, TapTable table) {
+        DataMap after = new DataMap();
+        List<String> removedFields = null;
+        if (updateDescription != null) {
+            if (updateDescription.getUpdatedFields() != null) {
+                after.putAll(documentCodec.decode(new BsonDocumentReader(updateDescription.getUpdatedFields()), DecoderContext.builder().build()));
+            }
+            removedFields = updateDescription.getRemovedFields();
+        }
+        return updateDMLEvent(before, after, table).partial(true).removedFields(removedFields);
+    }
+
     private Object getIdValue(BsonValue id) {
         BsonType bsonType = id.getBsonType();
         if(bsonType == null)
@@ -686,12 +804,10 @@ public class MongodbConnector extends ConnectorBase implements TapConnector {
      */
     @Override
     public void destroy() {
-//        if (mongoClient != null) {
-//            mongoClient.close();
-//        }
         isShutDown.set(true);
         if(streamCursor != null) {
             streamCursor.close();
         }
+        releaseConnection();
     }
 }
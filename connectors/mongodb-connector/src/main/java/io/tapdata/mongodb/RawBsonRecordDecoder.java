@@ -0,0 +1,94 @@
+package io.tapdata.mongodb;
+
+import io.tapdata.entity.schema.TapFieldIndex;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.IndexedRecordMap;
+import org.bson.*;
+import org.bson.codecs.BsonTypeClassMap;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.ByteBufferBsonInput;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Decode the raw bytes of a document straight into the record of the engine, skip the intermediate org.bson.Document.
+ *
+ * The top level fields in the table are put by ordinal into IndexedRecordMap, the others are kept by name.
+ * The values are the same java types as DocumentCodec decodes, nested documents are still org.bson.Document,
+ * so the record is equal to the one converted from org.bson.Document.
+ */
+public class RawBsonRecordDecoder {
+    private final CodecRegistry codecRegistry;
+    private final BsonTypeClassMap bsonTypeClassMap = new BsonTypeClassMap();
+    private final DecoderContext decoderContext = DecoderContext.builder().build();
+
+    public RawBsonRecordDecoder(CodecRegistry codecRegistry) {
+        this.codecRegistry = codecRegistry;
+    }
+
+    public IndexedRecordMap decode(RawBsonDocument document, TapTable table) {
+        TapFieldIndex fieldIndex = table.fieldIndex();
+        IndexedRecordMap record = IndexedRecordMap.create(fieldIndex);
+        try (BsonBinaryReader reader = new BsonBinaryReader(new ByteBufferBsonInput(document.getByteBuffer()))) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String name = reader.readName();
+                int ordinal = fieldIndex.ordinal(name);
+                if (ordinal >= 0)
+                    record.putByOrdinal(ordinal, readValue(reader));
+                else
+                    record.put(name, readValue(reader));
+            }
+            reader.readEndDocument();
+        }
+        return record;
+    }
+
+    private Object readValue(BsonReader reader) {
+        BsonType bsonType = reader.getCurrentBsonType();
+        switch (bsonType) {
+            case NULL:
+                reader.readNull();
+                return null;
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return reader.readInt64();
+            case DOUBLE:
+                return reader.readDouble();
+            case STRING:
+                return reader.readString();
+            case BOOLEAN:
+                return reader.readBoolean();
+            case OBJECT_ID:
+                return reader.readObjectId();
+            case DATE_TIME:
+                return new Date(reader.readDateTime());
+            case DECIMAL128:
+                return reader.readDecimal128();
+            case DOCUMENT:
+                Document document = new Document();
+                reader.readStartDocument();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    String name = reader.readName();
+                    document.put(name, readValue(reader));
+                }
+                reader.readEndDocument();
+                return document;
+            case ARRAY:
+                List<Object> list = new ArrayList<>();
+                reader.readStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    list.add(readValue(reader));
+                }
+                reader.readEndArray();
+                return list;
+            default:
+                //Binary, timestamp, regular expression, code and the other rare types, same as DocumentCodec.
+                return codecRegistry.get(bsonTypeClassMap.get(bsonType)).decode(reader, decoderContext);
+        }
+    }
+}
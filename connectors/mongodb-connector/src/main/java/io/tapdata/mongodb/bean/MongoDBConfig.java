@@ -12,6 +12,48 @@ public class MongoDBConfig implements Serializable {
     private String database;
     private String collection;
     private String uri;
+    /**
+     * Max time in milliseconds for counting the documents from a batch offset, the estimated count is used when exceeded.
+     */
+    private long countMaxTime = 10000;
+    /**
+     * How change stream reads update events.
+     * auto, updateDescription when all the targets support partial update, otherwise updateLookup.
+     * updateLookup, the server looks up the full document for every update.
+     * updateDescription, send the updated and removed fields only, no extra read on the server.
+     */
+    private String fullDocument = FULL_DOCUMENT_AUTO;
+    public static final String FULL_DOCUMENT_AUTO = "auto";
+    public static final String FULL_DOCUMENT_UPDATE_LOOKUP = "updateLookup";
+    public static final String FULL_DOCUMENT_UPDATE_DESCRIPTION = "updateDescription";
+
+    /**
+     * Bytes budget of the batch sent to the engine in batchRead, also used to size the cursor batch.
+     */
+    private long batchReadBytes = 8 * 1024 * 1024;
+    /**
+     * Max milliseconds a read document waits for its batch to be full in batchRead.
+     */
+    private long batchReadMaxLatency = 1000;
+    /**
+     * Connection pool of the client, null to use the value in uri or the driver's default.
+     */
+    private Integer maxPoolSize;
+    private Integer minPoolSize;
+    private Integer maxConnecting;
+    /**
+     * Max time in milliseconds to wait for a connection from the pool.
+     */
+    private Long waitQueueTimeout;
+    /**
+     * Wire compressors in preference order, separated by comma, for example "zstd,snappy,zlib".
+     * The server picks the first one it supports. snappy needs snappy-java in classpath.
+     */
+    private String compressors;
+    /**
+     * Close the client after nobody uses it for this milliseconds, 0 to close once released.
+     */
+    private long idleClientTtl = 60000;
 
     public static MongoDBConfig load(String jsonFile) throws IOException {
         ObjectMapper mapper = new ObjectMapper(new JsonFactory());
@@ -39,6 +81,86 @@ public class MongoDBConfig implements Serializable {
         this.database = database;
     }
 
+    public long getCountMaxTime() {
+        return countMaxTime;
+    }
+
+    public void setCountMaxTime(long countMaxTime) {
+        this.countMaxTime = countMaxTime;
+    }
+
+    public String getFullDocument() {
+        return fullDocument;
+    }
+
+    public void setFullDocument(String fullDocument) {
+        this.fullDocument = fullDocument;
+    }
+
+    public long getBatchReadBytes() {
+        return batchReadBytes;
+    }
+
+    public void setBatchReadBytes(long batchReadBytes) {
+        this.batchReadBytes = batchReadBytes;
+    }
+
+    public long getBatchReadMaxLatency() {
+        return batchReadMaxLatency;
+    }
+
+    public void setBatchReadMaxLatency(long batchReadMaxLatency) {
+        this.batchReadMaxLatency = batchReadMaxLatency;
+    }
+
+    public Integer getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(Integer maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public Integer getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public void setMinPoolSize(Integer minPoolSize) {
+        this.minPoolSize = minPoolSize;
+    }
+
+    public Integer getMaxConnecting() {
+        return maxConnecting;
+    }
+
+    public void setMaxConnecting(Integer maxConnecting) {
+        this.maxConnecting = maxConnecting;
+    }
+
+    public Long getWaitQueueTimeout() {
+        return waitQueueTimeout;
+    }
+
+    public void setWaitQueueTimeout(Long waitQueueTimeout) {
+        this.waitQueueTimeout = waitQueueTimeout;
+    }
+
+    public String getCompressors() {
+        return compressors;
+    }
+
+    public void setCompressors(String compressors) {
+        this.compressors = compressors;
+    }
+
+    public long getIdleClientTtl() {
+        return idleClientTtl;
+    }
+
+    public void setIdleClientTtl(long idleClientTtl) {
+        this.idleClientTtl = idleClientTtl;
+    }
+
     public String getCollection() {
         return collection;
     }
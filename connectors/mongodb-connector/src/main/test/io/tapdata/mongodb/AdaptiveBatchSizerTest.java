@@ -0,0 +1,65 @@
+package io.tapdata.mongodb;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBatchSizerTest {
+    private static final long BUDGET = 8 * 1024 * 1024;
+    private static final int SMALL = 100;
+    private static final int LARGE = 1024 * 1024;
+
+    @Test
+    void mixedDocumentsStayInBudget() {
+        Random random = new Random(36);
+        AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(BUDGET, 0, 100000);
+        long maxBatchBytes = 0;
+        int batches = 0;
+        long totalBytes = 0;
+        for(int i = 0; i < 200000; i++) {
+            //1 percent of the documents are 1MB.
+            int size = random.nextInt(100) == 0 ? LARGE : SMALL;
+            totalBytes += size;
+            if(batchSizer.add(size)) {
+                maxBatchBytes = Math.max(maxBatchBytes, batchSizer.getPendingBytes());
+                batchSizer.flushed();
+                batches++;
+            }
+        }
+        //One document may cross the budget at most.
+        assertTrue(maxBatchBytes < BUDGET + LARGE, "Max batch bytes " + maxBatchBytes);
+        //The fixed count keeping the worst batch in budget is BUDGET / LARGE, adaptive batches are as full as the budget allows.
+        long fixedCountBatches = 200000 / (BUDGET / LARGE);
+        long bestBatches = totalBytes / BUDGET;
+        assertTrue(batches <= bestBatches * 1.1 + 1, "Adaptive batches " + batches + " best " + bestBatches);
+        assertTrue(batches < fixedCountBatches, "Adaptive batches " + batches + " fixed count in budget " + fixedCountBatches);
+    }
+
+    @Test
+    void cursorBatchSizeFollowsDocumentSize() {
+        AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(BUDGET, 0, 1000);
+        assertEquals(1000, batchSizer.cursorBatchSize());
+        assertEquals(AdaptiveBatchSizer.MAX_CURSOR_BATCH_SIZE, new AdaptiveBatchSizer(BUDGET, 0, 1000).seed(SMALL).cursorBatchSize());
+        assertEquals(8, new AdaptiveBatchSizer(BUDGET, 0, 1000).seed(LARGE).cursorBatchSize());
+        for(int i = 0; i < 10; i++)
+            batchSizer.add(LARGE * 4);
+        assertEquals(2, batchSizer.cursorBatchSize());
+    }
+
+    @Test
+    void flushByCountAndLatency() throws InterruptedException {
+        AdaptiveBatchSizer batchSizer = new AdaptiveBatchSizer(BUDGET, 0, 3);
+        assertFalse(batchSizer.add(SMALL));
+        assertFalse(batchSizer.add(SMALL));
+        assertTrue(batchSizer.add(SMALL));
+        batchSizer.flushed();
+        assertEquals(0, batchSizer.getPendingCount());
+
+        batchSizer = new AdaptiveBatchSizer(BUDGET, 100, 1000);
+        assertFalse(batchSizer.add(SMALL));
+        Thread.sleep(150);
+        assertTrue(batchSizer.add(SMALL));
+    }
+}
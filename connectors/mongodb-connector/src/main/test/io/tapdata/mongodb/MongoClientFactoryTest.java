@@ -0,0 +1,81 @@
+package io.tapdata.mongodb;
+
+import com.mongodb.client.MongoClient;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.mongodb.bean.MongoDBConfig;
+import io.tapdata.pdk.apis.context.TapConnectionContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The client starts its monitor threads without a reachable server, the thread count tells whether the clients are leaked.
+ */
+class MongoClientFactoryTest {
+    private MongoDBConfig config(String database, long idleClientTtl) {
+        MongoDBConfig config = new MongoDBConfig();
+        config.setUri("mongodb://127.0.0.1:27017/" + database);
+        config.setDatabase(database);
+        config.setMaxPoolSize(20);
+        config.setCompressors("zstd,zlib");
+        config.setIdleClientTtl(idleClientTtl);
+        return config;
+    }
+
+    @Test
+    void initDestroyCyclesDoNotLeakClients() throws InterruptedException {
+        MongoDBConfig config = config("cycles", 0);
+        int threadCount = Thread.activeCount();
+        for(int i = 0; i < 1000; i++) {
+            MongoClient mongoClient = MongoClientFactory.acquire(config);
+            MongoClientFactory.release(mongoClient, config);
+        }
+        assertEquals(0, MongoClientFactory.clientCount());
+        //Monitor threads exit asynchronously after close.
+        Thread.sleep(1000);
+        assertTrue(Thread.activeCount() - threadCount < 5, "Thread count grows from " + threadCount + " to " + Thread.activeCount());
+    }
+
+    @Test
+    void shareClientAndCloseAfterIdle() throws InterruptedException {
+        MongoDBConfig config = config("shared", 500);
+        MongoClient first = MongoClientFactory.acquire(config);
+        MongoClient second = MongoClientFactory.acquire(config);
+        assertSame(first, second);
+        MongoDBConfig otherConfig = config("other", 0);
+        MongoClient other = MongoClientFactory.acquire(otherConfig);
+        assertNotSame(first, other);
+        MongoClientFactory.release(other, otherConfig);
+        MongoClientFactory.release(first, config);
+        MongoClientFactory.release(second, config);
+
+        //Acquired again before ttl, the idle client is reused.
+        MongoClient third = MongoClientFactory.acquire(config);
+        assertSame(first, third);
+        MongoClientFactory.release(third, config);
+        Thread.sleep(1500);
+        MongoClient fourth = MongoClientFactory.acquire(config);
+        assertNotSame(first, fourth);
+        MongoClientFactory.release(fourth, config);
+        Thread.sleep(1500);
+        assertEquals(0, MongoClientFactory.clientCount());
+    }
+
+    @Test
+    void connectionOnlyReleasesClient() {
+        //Fail fast without a reachable server.
+        DataMap connectionConfig = DataMap.create().kv("uri", "mongodb://127.0.0.1:27017/connection?serverSelectionTimeoutMS=200")
+                .kv("database", "connection").kv("idleClientTtl", 0);
+        TapConnectionContext connectionContext = new TapConnectionContext(null, connectionConfig);
+        int clientCount = MongoClientFactory.clientCount();
+
+        MongodbConnector connector = new MongodbConnector();
+        assertDoesNotThrow(() -> connector.connectionTest(connectionContext, testItem -> {}));
+        assertEquals(clientCount, MongoClientFactory.clientCount());
+        assertThrows(Throwable.class, () -> connector.discoverSchema(connectionContext, tables -> {}));
+        assertEquals(clientCount, MongoClientFactory.clientCount());
+        //Destroy after is still fine.
+        connector.destroy();
+        assertEquals(clientCount, MongoClientFactory.clientCount());
+    }
+}
@@ -0,0 +1,84 @@
+package io.tapdata.mongodb;
+
+import com.mongodb.MongoClientSettings;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.IndexedRecordMap;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compare decoding raw bson into IndexedRecordMap with the Document path, 1M documents takes about 11 seconds, run it manually.
+ */
+@Tag("benchmark")
+@Disabled("Benchmark, run manually")
+class RawBsonRecordDecoderBenchmark {
+    private final CodecRegistry codecRegistry = MongoClientSettings.getDefaultCodecRegistry();
+    private final DocumentCodec documentCodec = new DocumentCodec(codecRegistry);
+    private final RawBsonRecordDecoder decoder = new RawBsonRecordDecoder(codecRegistry);
+
+    @Test
+    void rawBsonFasterThanDocument() {
+        final int fieldCount = 30;
+        final int documentCount = 1000000;
+        TapTable table = table("benchmark");
+        List<RawBsonDocument> rawBsonDocuments = new ArrayList<>();
+        Random random = new Random(34);
+        for(int i = 0; i < 1000; i++) {
+            Document document = new Document("_id", new ObjectId());
+            for(int j = 0; j < fieldCount; j++) {
+                if(i == 0)
+                    table.add(field("field" + j, "STRING"));
+                switch (j % 5) {
+                    case 0: document.append("field" + j, random.nextInt()); break;
+                    case 1: document.append("field" + j, random.nextLong()); break;
+                    case 2: document.append("field" + j, random.nextDouble()); break;
+                    case 3: document.append("field" + j, new Date(random.nextInt())); break;
+                    default: document.append("field" + j, "value " + random.nextInt()); break;
+                }
+            }
+            rawBsonDocuments.add(new RawBsonDocument(document, documentCodec));
+        }
+        DecoderContext decoderContext = DecoderContext.builder().build();
+        //Warm up
+        for(int i = 0; i < documentCount / 10; i++) {
+            RawBsonDocument rawBsonDocument = rawBsonDocuments.get(i % rawBsonDocuments.size());
+            decoder.decode(rawBsonDocument, table);
+            documentCodec.decode(new BsonBinaryReader(rawBsonDocument.getByteBuffer().asNIO()), decoderContext);
+        }
+
+        long documentFields = 0;
+        long time = System.currentTimeMillis();
+        for(int i = 0; i < documentCount; i++) {
+            RawBsonDocument rawBsonDocument = rawBsonDocuments.get(i % rawBsonDocuments.size());
+            //The Document path copies the Document into the record of the engine afterwards.
+            Document document = documentCodec.decode(new BsonBinaryReader(rawBsonDocument.getByteBuffer().asNIO()), decoderContext);
+            IndexedRecordMap record = IndexedRecordMap.create(table);
+            record.putAll(document);
+            documentFields += record.size();
+        }
+        long documentTime = System.currentTimeMillis() - time;
+
+        long rawFields = 0;
+        time = System.currentTimeMillis();
+        for(int i = 0; i < documentCount; i++) {
+            rawFields += decoder.decode(rawBsonDocuments.get(i % rawBsonDocuments.size()), table).size();
+        }
+        long rawTime = System.currentTimeMillis() - time;
+        assertEquals((long) documentCount * (fieldCount + 1), rawFields);
+        assertEquals(documentFields, rawFields);
+        assertTrue(rawTime < documentTime, documentCount + " documents with " + fieldCount + " fields, Document path takes " + documentTime + "ms, raw bson path takes " + rawTime + "ms");
+    }
+}
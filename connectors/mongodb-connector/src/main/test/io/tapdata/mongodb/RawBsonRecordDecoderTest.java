@@ -0,0 +1,67 @@
+package io.tapdata.mongodb;
+
+import com.mongodb.MongoClientSettings;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.IndexedRecordMap;
+import org.bson.*;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.types.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawBsonRecordDecoderTest {
+    private final CodecRegistry codecRegistry = MongoClientSettings.getDefaultCodecRegistry();
+    private final DocumentCodec documentCodec = new DocumentCodec(codecRegistry);
+    private final RawBsonRecordDecoder decoder = new RawBsonRecordDecoder(codecRegistry);
+
+    @Test
+    void sameAsDocumentForAllBsonTypes() {
+        Document document = new Document()
+                .append("_id", new ObjectId())
+                .append("double", 1.5d)
+                .append("string", "abc")
+                .append("document", new Document("a", 1).append("b", Arrays.asList(1L, "x", new Document("c", null))))
+                .append("array", Arrays.asList(1, 2.5d, "s", new Date(1000L), Arrays.asList(true, false)))
+                .append("binary", new Binary(new byte[]{1, 2, 3}))
+                .append("uuid", new Binary(BsonBinarySubType.UUID_STANDARD, new byte[16]))
+                .append("undefined", new BsonUndefined())
+                .append("boolean", true)
+                .append("date", new Date(1649302800000L))
+                .append("null", null)
+                .append("regex", new BsonRegularExpression("^a.*", "i"))
+                .append("dbPointer", new BsonDbPointer("ns", new ObjectId()))
+                .append("code", new Code("function() {}"))
+                .append("symbol", new Symbol("symbol"))
+                .append("codeWithScope", new CodeWithScope("function() {}", new Document("x", 1)))
+                .append("int32", 32)
+                .append("timestamp", new BsonTimestamp(1649302800, 1))
+                .append("int64", 64L)
+                .append("decimal128", Decimal128.parse("3.1415926"))
+                .append("minKey", new MinKey())
+                .append("maxKey", new MaxKey());
+        RawBsonDocument rawBsonDocument = new RawBsonDocument(document, documentCodec);
+        Document expected = documentCodec.decode(new BsonDocumentReader(rawBsonDocument), DecoderContext.builder().build());
+
+        //Part of the fields in the table, the others are not indexed.
+        TapTable table = table("allTypes")
+                .add(field("_id", "OBJECT_ID").isPrimaryKey(true).primaryKeyPos(1))
+                .add(field("int32", "INT32"))
+                .add(field("document", "OBJECT"))
+                .add(field("binary", "BINARY"))
+                .add(field("notInDocument", "STRING"));
+        IndexedRecordMap record = decoder.decode(rawBsonDocument, table);
+        assertEquals(new LinkedHashMap<>(expected), new LinkedHashMap<>(record));
+        assertEquals(expected.size(), record.size());
+        assertFalse(record.containsKey("notInDocument"));
+        assertSame(table.fieldIndex(), record.getFieldIndex());
+
+        //No schema at all, every field is kept by name.
+        assertEquals(new LinkedHashMap<>(expected), new LinkedHashMap<>(decoder.decode(rawBsonDocument, table("noFields"))));
+    }
+}
@@ -3,7 +3,6 @@ package io.tapdata.connector.tdd;
 import io.tapdata.base.ConnectorBase;
 import io.tapdata.entity.codec.TapCodecRegistry;
 import io.tapdata.entity.event.TapEvent;
-import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.schema.value.TapStringValue;
 import io.tapdata.pdk.apis.TapConnector;
@@ -15,14 +14,13 @@ import io.tapdata.pdk.apis.functions.ConnectorFunctions;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 @TapConnectorClass("sourceBenchmarkNoTableSpec.json")
 public class TDDBenchmarkNoTableSourceConnector extends ConnectorBase implements TapConnector {
     public static final String TAG = TDDBenchmarkNoTableSourceConnector.class.getSimpleName();
-    private final AtomicLong counter = new AtomicLong();
     private final AtomicBoolean isShutDown = new AtomicBoolean(false);
+    private TDDBenchmarkRecords benchmarkRecords;
 
     /**
      * The method invocation life circle is below,
@@ -156,8 +154,7 @@ public class TDDBenchmarkNoTableSourceConnector extends ConnectorBase implements
      * @return
      */
     private long batchCount(TapConnectorContext connectorContext, String offset) {
-        //TODO Count the batch size.
-        return 1L;
+        return benchmarkRecords(connectorContext).getRecordCount();
     }
 
     /**
@@ -178,24 +175,17 @@ public class TDDBenchmarkNoTableSourceConnector extends ConnectorBase implements
      * @param tapReadOffsetConsumer
      */
     private void batchRead(TapConnectorContext connectorContext, String offset, int batchSize, Consumer<List<TapEvent>> tapReadOffsetConsumer) {
-        //TODO batch read all records from database, use consumer#accept to send to flow engine.
-        //Below is sample code to generate records directly.
-        for (int j = 0; j < 1000; j++) {
-            List<TapEvent> tapEvents = list();
-            for (int i = 0; i < batchSize; i++) {
-                Map<String, Object> map = new HashMap<>();
-                for(int m = 0; m < 10; m++) {
-                    String key = String.valueOf(m);
-                    map.put(key, key);
-                }
-                TapInsertRecordEvent recordEvent = insertRecordEvent(map, connectorContext.getTable());
-                counter.incrementAndGet();
-                tapEvents.add(recordEvent);
-            }
+        //The records don't match the table, they are plain maps.
+        benchmarkRecords(connectorContext).read(connectorContext.getTable(), batchSize, tapReadOffsetConsumer, isShutDown::get);
+    }
 
-            tapReadOffsetConsumer.accept(tapEvents);
+    private TDDBenchmarkRecords benchmarkRecords(TapConnectionContext connectionContext) {
+        if(benchmarkRecords == null) {
+            //Same records as the fixed ones before, 1 million with 10 string fields.
+            benchmarkRecords = new TDDBenchmarkRecords(connectionContext.getConnectionConfig(), 1000000L, 10,
+                    Collections.singletonList(TDDBenchmarkRecords.TYPE_STRING));
         }
-        counter.set(counter.get() + 1000);
+        return benchmarkRecords;
     }
 
     /**
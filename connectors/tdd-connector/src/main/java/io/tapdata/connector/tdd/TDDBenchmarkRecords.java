@@ -0,0 +1,240 @@
+package io.tapdata.connector.tdd;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.entity.utils.IndexedRecordMap;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+
+/**
+ * Generate the records of the benchmark source from the connection config, the same config generates the same events.
+ *
+ * The config keys are below, all of them are optional,
+ * recordCount: count of the events, include the updates and deletes.
+ * fieldCount: count of the fields besides the primary key "id".
+ * valueTypes: the types of the fields in turn, string, int, long, double, decimal, boolean, date, dateTime or binary.
+ * updateRatio, deleteRatio: the part of the events which update or delete a record inserted before, 0 ~ 1.
+ * stringLength: length of the string values.
+ * seed: seed of the random values.
+ *
+ * The values are taken from a pool built once, so that generating the records costs little of the benchmark.
+ */
+public class TDDBenchmarkRecords {
+    public static final String RECORD_COUNT = "recordCount";
+    public static final String FIELD_COUNT = "fieldCount";
+    public static final String VALUE_TYPES = "valueTypes";
+    public static final String UPDATE_RATIO = "updateRatio";
+    public static final String DELETE_RATIO = "deleteRatio";
+    public static final String STRING_LENGTH = "stringLength";
+    public static final String SEED = "seed";
+
+    public static final String TYPE_STRING = "string";
+    public static final String TYPE_INT = "int";
+    public static final String TYPE_LONG = "long";
+    public static final String TYPE_DOUBLE = "double";
+    public static final String TYPE_DECIMAL = "decimal";
+    public static final String TYPE_BOOLEAN = "boolean";
+    public static final String TYPE_DATE = "date";
+    public static final String TYPE_DATE_TIME = "dateTime";
+    public static final String TYPE_BINARY = "binary";
+
+    private static final int VALUE_POOL_SIZE = 1024;
+    private static final String ID = "id";
+
+    private final long recordCount;
+    private final String[] fieldNames;
+    private final String[] fieldTypes;
+    private final double updateRatio;
+    private final double deleteRatio;
+    private final int stringLength;
+    private final long seed;
+    private final Object[][] valuePools;
+
+    public TDDBenchmarkRecords(DataMap config, long defaultRecordCount, int defaultFieldCount, List<String> defaultValueTypes) {
+        if(config == null)
+            config = new DataMap();
+        recordCount = number(config, RECORD_COUNT, defaultRecordCount).longValue();
+        int fieldCount = number(config, FIELD_COUNT, defaultFieldCount).intValue();
+        List<String> valueTypes = config.getValue(VALUE_TYPES, defaultValueTypes);
+        if(valueTypes.isEmpty())
+            valueTypes = defaultValueTypes;
+        updateRatio = number(config, UPDATE_RATIO, 0).doubleValue();
+        deleteRatio = number(config, DELETE_RATIO, 0).doubleValue();
+        if(updateRatio < 0 || deleteRatio < 0 || updateRatio + deleteRatio >= 1)
+            throw new IllegalArgumentException("updateRatio " + updateRatio + " and deleteRatio " + deleteRatio + " should be positive and less than 1 in total");
+        stringLength = number(config, STRING_LENGTH, 10).intValue();
+        seed = number(config, SEED, 42).longValue();
+
+        fieldNames = new String[fieldCount];
+        fieldTypes = new String[fieldCount];
+        valuePools = new Object[fieldCount][];
+        Random random = new Random(seed);
+        for(int i = 0; i < fieldCount; i++) {
+            fieldTypes[i] = valueTypes.get(i % valueTypes.size());
+            fieldNames[i] = fieldTypes[i] + "_" + i;
+            valuePools[i] = valuePool(fieldTypes[i], random);
+        }
+    }
+
+    private static Number number(DataMap config, String key, Number defaultValue) {
+        Object value = config.get(key);
+        if(value == null)
+            return defaultValue;
+        if(value instanceof Number)
+            return (Number) value;
+        return new BigDecimal(value.toString());
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * The table with the primary key "id" and the generated fields, origin types are the ones in the spec json.
+     */
+    public TapTable schema(String tableName) {
+        TapTable table = table(tableName).add(field(ID, "tapString(64)").isPrimaryKey(true).primaryKeyPos(1));
+        for(int i = 0; i < fieldNames.length; i++) {
+            table.add(field(fieldNames[i], originType(fieldTypes[i])));
+        }
+        return table;
+    }
+
+    private String originType(String type) {
+        switch (type) {
+            case TYPE_STRING:
+                return "tapString(" + stringLength + ")";
+            case TYPE_INT:
+                return "int(32)";
+            case TYPE_LONG:
+                return "tapNumber(19, 0)";
+            case TYPE_DOUBLE:
+                return "tapNumber(30, 10)";
+            case TYPE_DECIMAL:
+                return "tapNumber(20, 4)";
+            case TYPE_BOOLEAN:
+                return "tapBoolean";
+            case TYPE_DATE:
+                return "tapDate";
+            case TYPE_DATE_TIME:
+                return "tapDateTime";
+            case TYPE_BINARY:
+                return "tapBinary";
+            default:
+                throw new IllegalArgumentException("Unknown value type " + type + " for benchmark");
+        }
+    }
+
+    private Object[] valuePool(String type, Random random) {
+        Object[] pool = new Object[VALUE_POOL_SIZE];
+        for(int i = 0; i < pool.length; i++) {
+            switch (type) {
+                case TYPE_STRING:
+                    char[] chars = new char[stringLength];
+                    for(int j = 0; j < chars.length; j++)
+                        chars[j] = (char) ('a' + random.nextInt(26));
+                    pool[i] = new String(chars);
+                    break;
+                case TYPE_INT:
+                    pool[i] = random.nextInt();
+                    break;
+                case TYPE_LONG:
+                    pool[i] = random.nextLong();
+                    break;
+                case TYPE_DOUBLE:
+                    pool[i] = random.nextDouble() * 1000000;
+                    break;
+                case TYPE_DECIMAL:
+                    pool[i] = BigDecimal.valueOf(random.nextInt(100000000), 4);
+                    break;
+                case TYPE_BOOLEAN:
+                    pool[i] = random.nextBoolean();
+                    break;
+                case TYPE_DATE:
+                case TYPE_DATE_TIME:
+                    //Date is mutable, the pool keeps the time only.
+                    pool[i] = 1600000000000L + (long) random.nextInt(Integer.MAX_VALUE) * 100;
+                    break;
+                case TYPE_BINARY:
+                    byte[] bytes = new byte[stringLength];
+                    random.nextBytes(bytes);
+                    pool[i] = bytes;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown value type " + type + " for benchmark");
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * The record is indexed by the table when the table has the generated fields, otherwise a HashMap, as the source without table.
+     */
+    private boolean isIndexed(TapTable table) {
+        Map<String, ?> nameFieldMap = table.getNameFieldMap();
+        if(nameFieldMap == null || !nameFieldMap.containsKey(ID))
+            return false;
+        for(String fieldName : fieldNames) {
+            if(!nameFieldMap.containsKey(fieldName))
+                return false;
+        }
+        return true;
+    }
+
+    private Map<String, Object> record(TapTable table, boolean indexed, long id, int version) {
+        Map<String, Object> record = indexed ? IndexedRecordMap.create(table) : new HashMap<>();
+        record.put(ID, "id_" + id);
+        for(int i = 0; i < fieldNames.length; i++) {
+            Object value = valuePools[i][(int) ((id * 31 + i * 17 + version) & (VALUE_POOL_SIZE - 1))];
+            if(value instanceof Long && (TYPE_DATE.equals(fieldTypes[i]) || TYPE_DATE_TIME.equals(fieldTypes[i])))
+                value = new Date((Long) value);
+            else if(value instanceof byte[])
+                value = ((byte[]) value).clone();
+            record.put(fieldNames[i], value);
+        }
+        return record;
+    }
+
+    /**
+     * Read all the events in batches of batchSize.
+     * The updates and deletes pick a record inserted before, a deleted record may be updated or deleted again.
+     * The time of the events is the time the batch is accepted, so the latency doesn't count the generating.
+     */
+    public void read(TapTable table, int batchSize, Consumer<List<TapEvent>> consumer, BooleanSupplier shutDown) {
+        Random random = new Random(seed);
+        boolean indexed = isIndexed(table);
+        long inserted = 0;
+        List<TapEvent> events = new ArrayList<>(batchSize);
+        for(long i = 0; i < recordCount && !shutDown.getAsBoolean(); i++) {
+            double dice = inserted > 0 ? random.nextDouble() : 1;
+            if(dice < updateRatio) {
+                long id = (long) (random.nextDouble() * inserted);
+                events.add(updateDMLEvent(record(table, indexed, id, 0), record(table, indexed, id, (int) i), table));
+            } else if(dice < updateRatio + deleteRatio) {
+                long id = (long) (random.nextDouble() * inserted);
+                events.add(deleteDMLEvent(record(table, indexed, id, 0), table));
+            } else {
+                events.add(insertRecordEvent(record(table, indexed, inserted++, 0), table));
+            }
+            if(events.size() >= batchSize) {
+                accept(events, consumer);
+                events = new ArrayList<>(batchSize);
+            }
+        }
+        if(!events.isEmpty())
+            accept(events, consumer);
+    }
+
+    private void accept(List<TapEvent> events, Consumer<List<TapEvent>> consumer) {
+        long time = System.currentTimeMillis();
+        for(TapEvent event : events)
+            event.setTime(time);
+        consumer.accept(events);
+    }
+}
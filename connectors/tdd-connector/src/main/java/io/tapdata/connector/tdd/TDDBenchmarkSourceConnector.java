@@ -3,7 +3,6 @@ package io.tapdata.connector.tdd;
 import io.tapdata.base.ConnectorBase;
 import io.tapdata.entity.codec.TapCodecRegistry;
 import io.tapdata.entity.event.TapEvent;
-import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.schema.value.TapStringValue;
 import io.tapdata.pdk.apis.TapConnector;
@@ -13,17 +12,16 @@ import io.tapdata.pdk.apis.context.TapConnectorContext;
 import io.tapdata.pdk.apis.entity.TestItem;
 import io.tapdata.pdk.apis.functions.ConnectorFunctions;
 
-import java.util.Date;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 @TapConnectorClass("sourceBenchmarkSpec.json")
 public class TDDBenchmarkSourceConnector extends ConnectorBase implements TapConnector {
     public static final String TAG = TDDBenchmarkSourceConnector.class.getSimpleName();
-    private final AtomicLong counter = new AtomicLong();
     private final AtomicBoolean isShutDown = new AtomicBoolean(false);
+    private TDDBenchmarkRecords benchmarkRecords;
 
     /**
      * The method invocation life circle is below,
@@ -40,36 +38,18 @@ public class TDDBenchmarkSourceConnector extends ConnectorBase implements TapCon
      */
     @Override
     public void discoverSchema(TapConnectionContext connectionContext, Consumer<List<TapTable>> consumer) {
-        //TODO Load schema from database, connection information in connectionContext#getConnectionConfig
-        //Sample code shows how to define tables with specified fields.
-        //TODO originType最好使用标准列类型来表达， 避免混淆
-        consumer.accept(list(
-                //Define first table
-                table("tdd-table")
-                        //Define a field named "id", origin field type, whether is primary key and primary key position
-                        .add(field("id", "tapString").isPrimaryKey(true).primaryKeyPos(1))
-                        .add(field("tapString", "tapString").isPrimaryKey(true).primaryKeyPos(2))
-                        .add(field("tddUser", "tapString"))
-                        .add(field("tapString10", "tapString(10)"))
-                        .add(field("tapString10Fixed", "tapString(10) fixed"))
-                        .add(field("tapInt", "int"))
-                        .add(field("tapBoolean", "tapBoolean"))
-                        .add(field("tapDate", "tapDate"))
-                        .add(field("tapArrayString", "tapArray"))
-                        .add(field("tapArrayDouble", "tapArray"))
-                        .add(field("tapArrayTDDUser", "tapArray"))
-                        .add(field("tapRawTDDUser", "tapRaw"))
-                        .add(field("tapNumber", "tapNumber"))
-//                        .add(field("tapNumber8", "tapNumber(8)"))
-                        .add(field("tapNumber52", "tapNumber(5, 2)"))
-                        .add(field("tapBinary", "tapBinary"))
-                        .add(field("tapTime", "tapTime"))
-                        .add(field("tapMapStringString", "tapMap"))
-                        .add(field("tapMapStringDouble", "tapMap"))
-                        .add(field("tapMapStringTDDUser", "tapMap"))
-                        .add(field("tapDateTime", "tapDateTime"))
-                        .add(field("tapDateTimeTimeZone", "tapDateTime"))
-        ));
+        //The fields are generated from the benchmark options in connection config, see TDDBenchmarkRecords.
+        consumer.accept(list(benchmarkRecords(connectionContext).schema("tdd-table")));
+    }
+
+    private TDDBenchmarkRecords benchmarkRecords(TapConnectionContext connectionContext) {
+        if(benchmarkRecords == null) {
+            //Same records as the fixed ones before, 1 million with 6 fields.
+            benchmarkRecords = new TDDBenchmarkRecords(connectionContext.getConnectionConfig(), 1000000L, 6,
+                    Arrays.asList(TDDBenchmarkRecords.TYPE_STRING, TDDBenchmarkRecords.TYPE_STRING, TDDBenchmarkRecords.TYPE_INT,
+                            TDDBenchmarkRecords.TYPE_BOOLEAN, TDDBenchmarkRecords.TYPE_DOUBLE, TDDBenchmarkRecords.TYPE_DECIMAL));
+        }
+        return benchmarkRecords;
     }
 
     /**
@@ -157,8 +137,7 @@ public class TDDBenchmarkSourceConnector extends ConnectorBase implements TapCon
      * @return
      */
     private long batchCount(TapConnectorContext connectorContext, String offset) {
-        //TODO Count the batch size.
-        return 1L;
+        return benchmarkRecords(connectorContext).getRecordCount();
     }
 
     /**
@@ -178,45 +157,8 @@ public class TDDBenchmarkSourceConnector extends ConnectorBase implements TapCon
      * @param offset
      * @param tapReadOffsetConsumer
      */
-    private Date date = new Date();
     private void batchRead(TapConnectorContext connectorContext, String offset, int batchSize, Consumer<List<TapEvent>> tapReadOffsetConsumer) {
-        //TODO batch read all records from database, use consumer#accept to send to flow engine.
-
-        //Below is sample code to generate records directly.
-        for (int j = 0; j < 1000; j++) {
-            List<TapEvent> tapEvents = list();
-            for (int i = 0; i < batchSize; i++) {
-                TapInsertRecordEvent recordEvent = insertRecordEvent(map(
-                        entry("id", "id_" + counter.get()),
-                        entry("tapString", "123"),
-//                        entry("tddUser", new TDDUser("uid_" + counter.get(), "name_" + counter.get(), "desp_" + counter.get(), (int) counter.get(), TDDUser.GENDER_FEMALE)),
-                        entry("tapString10", "1234567890"),
-//                        entry("tapString10Fixed", "1"),
-                        entry("tapInt", 123123),
-                        entry("tapBoolean", true),
-//                        entry("tapDate", date),
-//                        entry("tapArrayString", list("1", "2", "3")),
-//                        entry("tapArrayDouble", list(1.1, 2.2, 3.3)),
-//                        entry("tapArrayTDDUser", list(new TDDUser("a", "n", "d", 1, TDDUser.GENDER_MALE), new TDDUser("b", "a", "b", 2, TDDUser.GENDER_FEMALE))),
-//                        entry("tapRawTDDUser", new TDDUser("a1", "n1", "d1", 11, TDDUser.GENDER_MALE)),
-                        entry("tapNumber", 123.0),
-//                        entry("tapNumber(8)", 1111),
-                        entry("tapNumber52", 343.22)
-//                        entry("tapBinary", new byte[]{123, 21, 3, 2}),
-//                        entry("tapTime", date),
-//                        entry("tapMapStringString", map(entry("a", "a"), entry("b", "b"))),
-//                        entry("tapMapStringDouble", map(entry("a", 1.0), entry("b", 2.0))),
-//                        entry("tapMapStringTDDUser", map(entry("a", new TDDUser("a1", "n1", "d1", 11, TDDUser.GENDER_MALE)))),
-//                        entry("tapDateTime", date),
-//                        entry("tapDateTimeTimeZone", date)
-                ), connectorContext.getTable());
-                counter.incrementAndGet();
-                tapEvents.add(recordEvent);
-            }
-
-            tapReadOffsetConsumer.accept(tapEvents);
-        }
-        counter.set(counter.get() + 1000);
+        benchmarkRecords(connectorContext).read(connectorContext.getTable(), batchSize, tapReadOffsetConsumer, isShutDown::get);
     }
 
     /**
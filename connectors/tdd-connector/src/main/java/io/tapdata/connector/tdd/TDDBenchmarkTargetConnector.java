@@ -124,6 +124,8 @@ public class TDDBenchmarkTargetConnector extends ConnectorBase implements TapCon
 //        connectorFunctions.supportStreamOffset(this::streamOffset);
 
         connectorFunctions.supportWriteRecord(this::writeRecord);
+        //WriteRecord only counts with local variables, safe for the parallel write workers.
+        connectorFunctions.supportParallelWrite(true);
 
         //Below capabilities, developer can decide to implement or not.
 //        connectorFunctions.supportCreateTable(this::createTable);
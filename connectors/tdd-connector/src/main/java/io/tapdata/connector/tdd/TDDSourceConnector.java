@@ -42,33 +42,44 @@ public class TDDSourceConnector extends ConnectorBase implements TapConnector {
         //TODO Load schema from database, connection information in connectionContext#getConnectionConfig
         //Sample code shows how to define tables with specified fields.
         //TODO originType最好使用标准列类型来表达， 避免混淆
-        consumer.accept(list(
-                //Define first table
-                table("tdd-table")
-                        //Define a field named "id", origin field type, whether is primary key and primary key position
-                        .add(field("id", "tapString").isPrimaryKey(true).primaryKeyPos(1))
-                        .add(field("tapString", "tapString").isPrimaryKey(true).primaryKeyPos(2))
-                        .add(field("tddUser", "tapString"))
-                        .add(field("tapString10", "tapString(10)"))
-                        .add(field("tapString10Fixed", "tapString(10) fixed"))
-                        .add(field("tapInt", "int"))
-                        .add(field("tapBoolean", "tapBoolean"))
-                        .add(field("tapDate", "tapDate"))
-                        .add(field("tapArrayString", "tapArray"))
-                        .add(field("tapArrayDouble", "tapArray"))
-                        .add(field("tapArrayTDDUser", "tapArray"))
-                        .add(field("tapRawTDDUser", "tapRaw"))
-                        .add(field("tapNumber", "tapNumber"))
-//                        .add(field("tapNumber8", "tapNumber(8)"))
-                        .add(field("tapNumber52", "tapNumber(5, 2)"))
-                        .add(field("tapBinary", "tapBinary"))
-                        .add(field("tapTime", "tapTime"))
-                        .add(field("tapMapStringString", "tapMap"))
-                        .add(field("tapMapStringDouble", "tapMap"))
-                        .add(field("tapMapStringTDDUser", "tapMap"))
-                        .add(field("tapDateTime", "tapDateTime"))
-                        .add(field("tapDateTimeTimeZone", "tapDateTime"))
-        ));
+        List<TapTable> tables = list();
+        //Define first table
+        tables.add(tddTable("tdd-table"));
+        //Synthetic tables for multiple tables test, named as tdd-table_0, tdd-table_1, ...
+        Number tableCount = connectionContext.getConnectionConfig() != null ? connectionContext.getConnectionConfig().getValue("tableCount", null) : null;
+        if(tableCount != null) {
+            for(int i = 0; i < tableCount.intValue(); i++) {
+                tables.add(tddTable("tdd-table_" + i));
+            }
+        }
+        consumer.accept(tables);
+    }
+
+    private TapTable tddTable(String name) {
+        return table(name)
+                //Define a field named "id", origin field type, whether is primary key and primary key position
+                .add(field("id", "tapString").isPrimaryKey(true).primaryKeyPos(1))
+                .add(field("tapString", "tapString").isPrimaryKey(true).primaryKeyPos(2))
+                .add(field("tddUser", "tapString"))
+                .add(field("tapString10", "tapString(10)"))
+                .add(field("tapString10Fixed", "tapString(10) fixed"))
+                .add(field("tapInt", "int"))
+                .add(field("tapBoolean", "tapBoolean"))
+                .add(field("tapDate", "tapDate"))
+                .add(field("tapArrayString", "tapArray"))
+                .add(field("tapArrayDouble", "tapArray"))
+                .add(field("tapArrayTDDUser", "tapArray"))
+                .add(field("tapRawTDDUser", "tapRaw"))
+                .add(field("tapNumber", "tapNumber"))
+//                .add(field("tapNumber8", "tapNumber(8)"))
+                .add(field("tapNumber52", "tapNumber(5, 2)"))
+                .add(field("tapBinary", "tapBinary"))
+                .add(field("tapTime", "tapTime"))
+                .add(field("tapMapStringString", "tapMap"))
+                .add(field("tapMapStringDouble", "tapMap"))
+                .add(field("tapMapStringTDDUser", "tapMap"))
+                .add(field("tapDateTime", "tapDateTime"))
+                .add(field("tapDateTimeTimeZone", "tapDateTime"));
     }
 
     /**
@@ -0,0 +1,70 @@
+package io.tapdata.connector.tdd;
+
+import io.tapdata.entity.codec.TapCodecRegistry;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.apis.annotations.TapConnectorClass;
+import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Same tables and batch read as tdd-source, plus one stream read serving all the tables of the node, like a database log does.
+ */
+@TapConnectorClass("sourceStreamSpec.json")
+public class TDDStreamSourceConnector extends TDDSourceConnector {
+    private final AtomicBoolean isShutDown = new AtomicBoolean(false);
+    private final AtomicBoolean streamed = new AtomicBoolean(false);
+
+    @Override
+    public void registerCapabilities(ConnectorFunctions connectorFunctions, TapCodecRegistry codecRegistry) {
+        super.registerCapabilities(connectorFunctions, codecRegistry);
+        connectorFunctions.supportStreamRead(this::streamRead);
+        connectorFunctions.supportMultipleTablesStreamRead(true);
+    }
+
+    /**
+     * The method invocation life circle is below,
+     * initiated ->
+     *  if(batchEnabled)
+     *      batchCount -> batchRead
+     *  if(streamEnabled)
+     *      streamRead
+     * -> destroy -> ended
+     *
+     * Sends "streamRecordCount" of connection config records into each table of the node once, then waits for changes until destroyed.
+     *
+     * @param connectorContext
+     * @param offset
+     * @param recordSize
+     * @param consumer
+     */
+    private void streamRead(TapConnectorContext connectorContext, String offset, int recordSize, StreamReadConsumer consumer) throws InterruptedException {
+        Number streamRecordCount = connectorContext.getConnectionConfig() != null ? connectorContext.getConnectionConfig().getValue("streamRecordCount", null) : null;
+        if(streamRecordCount != null && streamed.compareAndSet(false, true)) {
+            List<TapTable> tables = connectorContext.getTables() != null ? connectorContext.getTables() : list(connectorContext.getTable());
+            for(TapTable table : tables) {
+                List<TapEvent> tapEvents = list();
+                for(int i = 0; i < streamRecordCount.intValue(); i++) {
+                    tapEvents.add(insertRecordEvent(map(entry("id", "id_stream_" + i), entry("tapString", "123")), table));
+                }
+                consumer.accept(tapEvents);
+            }
+        }
+        //Marked after the records are sent, so the tests line up after them.
+        consumer.streamReadStarted();
+        while(!isShutDown.get()) {
+            Thread.sleep(100);
+        }
+        consumer.streamReadEnded();
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        isShutDown.set(true);
+    }
+}
@@ -38,6 +38,7 @@ public class TDDTargetConnector extends ConnectorBase implements TapConnector {
     private final AtomicBoolean isShutDown = new AtomicBoolean(false);
     private Map<String, Map<String, Object>> primaryKeyRecordMap = new ConcurrentHashMap<>();
     private List<List<TapRecordEvent>> batchList = new CopyOnWriteArrayList<>();
+    private Map<String, AtomicLong> tableCountMap = new ConcurrentHashMap<>();
 
     /**
      * The method invocation life circle is below,
@@ -171,6 +172,7 @@ public class TDDTargetConnector extends ConnectorBase implements TapConnector {
             Map<String, Object> map = new HashMap<>();
             map.put("primaryKeyRecordMap", primaryKeyRecordMap);
             map.put("batchList", batchList);
+            map.put("tableCountMap", tableCountMap);
             if (callback != null) callback.accept(map);
         }
 
@@ -221,6 +223,7 @@ public class TDDTargetConnector extends ConnectorBase implements TapConnector {
     private void writeRecord(TapConnectorContext connectorContext, List<TapRecordEvent> tapRecordEvents, Consumer<WriteListResult<TapRecordEvent>> writeListResultConsumer) {
         //TODO write records into database
         batchList.add(new ArrayList<>(tapRecordEvents));
+        tableCountMap.computeIfAbsent(connectorContext.getTable().getName(), name -> new AtomicLong()).addAndGet(tapRecordEvents.size());
         //Below is sample code to print received events which suppose to write to database.
         AtomicLong inserted = new AtomicLong(0); //insert count
         AtomicLong updated = new AtomicLong(0); //update count
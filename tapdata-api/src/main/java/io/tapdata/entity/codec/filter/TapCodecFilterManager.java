@@ -7,8 +7,10 @@ import io.tapdata.entity.codec.filter.impl.AllLayerMapIterator;
 import io.tapdata.entity.codec.filter.impl.FirstLayerMapIterator;
 import io.tapdata.entity.error.UnknownCodecException;
 import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapFieldIndex;
 import io.tapdata.entity.schema.type.TapType;
 import io.tapdata.entity.schema.value.TapValue;
+import io.tapdata.entity.utils.IndexedRecordMap;
 
 import java.util.Map;
 
@@ -29,50 +31,95 @@ public class TapCodecFilterManager {
     public void transformToTapValueMap(Map<String, Object> value, Map<String, TapField> nameFieldMap) {
         if(value == null)
             return;
+        if(value instanceof IndexedRecordMap && mapIterator instanceof FirstLayerMapIterator) {
+            transformToTapValueMap((IndexedRecordMap) value, nameFieldMap);
+            return;
+        }
         mapIterator.iterate(value, entry -> {
             Object theValue = entry.getValue();
             String fieldName = entry.getKey();
             if(theValue != null && fieldName != null) {
-                ToTapValueCodec<?> valueCodec = this.codecRegistry.getToTapValueCodec(theValue.getClass());
-//                if(valueCodec == null)
-//                    throw new UnknownCodecException("toTapValueMap codec not found for value class " + theValue.getClass());
-                if(valueCodec != null) {
-                    String originType = null;
-                    TapType typeFromSchema = null;
-                    if(nameFieldMap != null) {
-                        TapField field = nameFieldMap.get(fieldName);
-                        if(field != null) {
-                            originType = field.getOriginType();
-                            typeFromSchema = field.getTapType();
-                        }
-                    }
-                    TapValue tapValue = valueCodec.toTapValue(theValue);
-                    tapValue.setOriginType(originType);
-                    tapValue.setTapType(typeFromSchema);
-                    tapValue.setOriginValue(theValue);
+                TapValue<?, ?> tapValue = toTapValue(theValue, nameFieldMap != null ? nameFieldMap.get(fieldName) : null);
+                if(tapValue != null)
                     entry.setValue(tapValue);
-                }
             }
         });
     }
 
+    /**
+     * Iterate the value array by ordinal, no entry objects and no hash lookup when the record is indexed by the same nameFieldMap.
+     */
+    private void transformToTapValueMap(IndexedRecordMap recordMap, Map<String, TapField> nameFieldMap) {
+        TapFieldIndex fieldIndex = recordMap.getFieldIndex();
+        boolean sameSchema = nameFieldMap != null && fieldIndex.getNameFieldMap() == nameFieldMap;
+        for(int i = 0; i < fieldIndex.size(); i++) {
+            Object theValue = recordMap.getByOrdinal(i);
+            if(theValue != null) {
+                TapField field = null;
+                if(sameSchema)
+                    field = fieldIndex.field(i);
+                else if(nameFieldMap != null)
+                    field = nameFieldMap.get(fieldIndex.name(i));
+                TapValue<?, ?> tapValue = toTapValue(theValue, field);
+                if(tapValue != null)
+                    recordMap.putByOrdinal(i, tapValue);
+            }
+        }
+        Map<String, Object> extraMap = recordMap.getExtraMap();
+        if(extraMap != null)
+            transformToTapValueMap(extraMap, nameFieldMap);
+    }
+
+    private TapValue<?, ?> toTapValue(Object theValue, TapField field) {
+        ToTapValueCodec<?> valueCodec = this.codecRegistry.getToTapValueCodec(theValue.getClass());
+//        if(valueCodec == null)
+//            throw new UnknownCodecException("toTapValueMap codec not found for value class " + theValue.getClass());
+        if(valueCodec == null)
+            return null;
+        String originType = null;
+        TapType typeFromSchema = null;
+        if(field != null) {
+            originType = field.getOriginType();
+            typeFromSchema = field.getTapType();
+        }
+        TapValue tapValue = valueCodec.toTapValue(theValue);
+        tapValue.setOriginType(originType);
+        tapValue.setTapType(typeFromSchema);
+        tapValue.setOriginValue(theValue);
+        return tapValue;
+    }
+
     public void transformFromTapValueMap(Map<String, Object> tapValueMap) {
+        if(tapValueMap instanceof IndexedRecordMap && mapIterator instanceof FirstLayerMapIterator) {
+            IndexedRecordMap recordMap = (IndexedRecordMap) tapValueMap;
+            int size = recordMap.getFieldIndex().size();
+            for(int i = 0; i < size; i++) {
+                Object object = recordMap.getByOrdinal(i);
+                if(object instanceof TapValue)
+                    recordMap.putByOrdinal(i, fromTapValue((TapValue<?, ?>) object));
+            }
+            transformFromTapValueMap(recordMap.getExtraMap());
+            return;
+        }
         mapIterator.iterate(tapValueMap, stringTapValueEntry -> {
             Object object = stringTapValueEntry.getValue();
             if(object instanceof TapValue) {
                 TapValue<?, ?> theValue = (TapValue<?, ?>) object;
                 String fieldName = stringTapValueEntry.getKey();
                 if(fieldName != null) {
-                    FromTapValueCodec<TapValue<?, ?>> fromTapValueCodec = this.codecRegistry.getFromTapValueCodec((Class<TapValue<?, ?>>) theValue.getClass());
-                    if(fromTapValueCodec == null)
-                        throw new UnknownCodecException("fromTapValueMap codec not found for value class " + theValue.getClass());
-
-                    stringTapValueEntry.setValue(fromTapValueCodec.fromTapValue(theValue));
+                    stringTapValueEntry.setValue(fromTapValue(theValue));
                 }
             }
         });
     }
 
+    private Object fromTapValue(TapValue<?, ?> theValue) {
+        FromTapValueCodec<TapValue<?, ?>> fromTapValueCodec = this.codecRegistry.getFromTapValueCodec((Class<TapValue<?, ?>>) theValue.getClass());
+        if(fromTapValueCodec == null)
+            throw new UnknownCodecException("fromTapValueMap codec not found for value class " + theValue.getClass());
+        return fromTapValueCodec.fromTapValue(theValue);
+    }
+
     public String getOriginTypeByTapType(Class<? extends TapType> tapTypeClass) {
         return codecRegistry.getOriginTypeByTapType(tapTypeClass);
     }
@@ -15,6 +15,20 @@ public abstract class TapEvent implements Serializable {
 
     public Map<String, Object> traceMap;
 
+    /**
+     * System.nanoTime when the sampled event passed the stages of the engine, indexed by the stage.
+     * Null for the events which are not sampled, not serialized as nanoTime only makes sense in the same JVM.
+     */
+    protected transient long[] traceNanos;
+
+    public long[] getTraceNanos() {
+        return traceNanos;
+    }
+
+    public void setTraceNanos(long[] traceNanos) {
+        this.traceNanos = traceNanos;
+    }
+
     public Map<String, Object> getTraceMap() {
         return traceMap;
     }
@@ -70,6 +84,8 @@ public abstract class TapEvent implements Serializable {
             tapEvent.info = new ConcurrentHashMap<>(info);
         if(traceMap != null)
             tapEvent.traceMap = new ConcurrentHashMap<>(traceMap);
+        if(traceNanos != null)
+            tapEvent.traceNanos = traceNanos.clone();
     }
 
 }
@@ -6,7 +6,9 @@ import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.entity.utils.TapUtils;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class TapUpdateRecordEvent extends TapRecordEvent {
@@ -44,6 +46,25 @@ public class TapUpdateRecordEvent extends TapRecordEvent {
         return this;
     }
 
+    /**
+     * Partial update, after contains only the updated fields, the fields not in after are unchanged.
+     * Only sent to the target which supports partial update.
+     */
+    private boolean partial;
+    public TapUpdateRecordEvent partial(boolean partial) {
+        this.partial = partial;
+        return this;
+    }
+
+    /**
+     * The fields removed by the partial update.
+     */
+    private List<String> removedFields;
+    public TapUpdateRecordEvent removedFields(List<String> removedFields) {
+        this.removedFields = removedFields;
+        return this;
+    }
+
     @Override
     public void clone(TapEvent tapEvent) {
         super.clone(tapEvent);
@@ -53,6 +74,9 @@ public class TapUpdateRecordEvent extends TapRecordEvent {
                 updateRecordEvent.before = InstanceFactory.instance(TapUtils.class).cloneMap(before);
             if(after != null)
                 updateRecordEvent.after = InstanceFactory.instance(TapUtils.class).cloneMap(after);
+            updateRecordEvent.partial = partial;
+            if(removedFields != null)
+                updateRecordEvent.removedFields = new ArrayList<>(removedFields);
         }
     }
 
@@ -73,6 +97,22 @@ public class TapUpdateRecordEvent extends TapRecordEvent {
         this.before = before;
     }
 
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    public List<String> getRemovedFields() {
+        return removedFields;
+    }
+
+    public void setRemovedFields(List<String> removedFields) {
+        this.removedFields = removedFields;
+    }
+
     public void putAfterValue(String name, Object value) {
         if(this.after == null) {
             this.after = new LinkedHashMap<>();
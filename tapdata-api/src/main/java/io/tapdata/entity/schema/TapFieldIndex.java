@@ -0,0 +1,94 @@
+package io.tapdata.entity.schema;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable ordinal index over the fields of a table.
+ *
+ * Ordinal is the iteration position in TapTable#getNameFieldMap, start from 0.
+ * Use TapTable#fieldIndex to get the cached one instead of creating it for every record.
+ */
+public class TapFieldIndex {
+    private final LinkedHashMap<String, TapField> nameFieldMap;
+    private final String[] names;
+    private final TapField[] fields;
+    private final Map<String, Integer> nameOrdinalMap;
+    private final long fingerprint;
+
+    private TapFieldIndex(LinkedHashMap<String, TapField> nameFieldMap) {
+        this.nameFieldMap = nameFieldMap;
+        int size = nameFieldMap != null ? nameFieldMap.size() : 0;
+        names = new String[size];
+        fields = new TapField[size];
+        nameOrdinalMap = new HashMap<>(Math.max(16, size * 2));
+        if(nameFieldMap != null) {
+            int ordinal = 0;
+            for(Map.Entry<String, TapField> entry : nameFieldMap.entrySet()) {
+                names[ordinal] = entry.getKey();
+                fields[ordinal] = entry.getValue();
+                nameOrdinalMap.put(entry.getKey(), ordinal);
+                ordinal++;
+            }
+        }
+        fingerprint = fingerprint(names);
+    }
+
+    /**
+     * FNV-1a over the field names in ordinal order.
+     */
+    private static long fingerprint(String[] names) {
+        long hash = 0xcbf29ce484222325L;
+        for(String name : names) {
+            for(int i = 0; i < name.length(); i++) {
+                hash = (hash ^ name.charAt(i)) * 0x100000001b3L;
+            }
+            //Separator, so that "ab","c" differs from "a","bc".
+            hash = (hash ^ 0xFFFF) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public static TapFieldIndex create(LinkedHashMap<String, TapField> nameFieldMap) {
+        return new TapFieldIndex(nameFieldMap);
+    }
+
+    /**
+     * @param name field name
+     * @return ordinal of the field, -1 if the field is not in the index.
+     */
+    public int ordinal(String name) {
+        if(name == null)
+            return -1;
+        Integer ordinal = nameOrdinalMap.get(name);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String name(int ordinal) {
+        return names[ordinal];
+    }
+
+    public TapField field(int ordinal) {
+        return fields[ordinal];
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Hash of the field names in ordinal order, the ordinals of two indexes with the same fingerprint map to the same names.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * The nameFieldMap this index is built from.
+     * Compare by reference to know whether a record is indexed by the same schema.
+     */
+    public LinkedHashMap<String, TapField> getNameFieldMap() {
+        return nameFieldMap;
+    }
+}
@@ -19,6 +19,11 @@ public class TapTable extends TapItem<TapField> {
      */
     private LinkedHashMap<String, TapField> nameFieldMap;
 
+    /**
+     * Cached ordinal index of nameFieldMap, reset when fields changed.
+     */
+    private transient volatile TapFieldIndex fieldIndex;
+
     /**
      * For the database which don't need create table before insert records.
      *
@@ -70,6 +75,7 @@ public class TapTable extends TapItem<TapField> {
         if(field.getPos() == null) {
             field.pos(nameFieldMap.size());
         }
+        fieldIndex = null;
         return this;
     }
 
@@ -128,6 +134,22 @@ public class TapTable extends TapItem<TapField> {
 
     public void setNameFieldMap(LinkedHashMap<String, TapField> nameFieldMap) {
         this.nameFieldMap = nameFieldMap;
+        fieldIndex = null;
+    }
+
+    /**
+     * Ordinal index of the fields, used by IndexedRecordMap to store values in an array.
+     * Not a getter by purpose, so json serializer will ignore it.
+     */
+    public TapFieldIndex fieldIndex() {
+        TapFieldIndex theFieldIndex = fieldIndex;
+        LinkedHashMap<String, TapField> nameFieldMapCopyRef = this.nameFieldMap;
+        if(theFieldIndex == null || theFieldIndex.getNameFieldMap() != nameFieldMapCopyRef ||
+                theFieldIndex.size() != (nameFieldMapCopyRef != null ? nameFieldMapCopyRef.size() : 0)) {
+            theFieldIndex = TapFieldIndex.create(nameFieldMapCopyRef);
+            fieldIndex = theFieldIndex;
+        }
+        return theFieldIndex;
     }
 
     public String getStorageEngine() {
@@ -118,6 +118,20 @@ public class TapSimplify {
         return map;
     }
 
+    /**
+     * Compact record backed by an array indexed by the field ordinal of the table, it is still a Map.
+     */
+    public static IndexedRecordMap indexedMap(TapTable tapTable, Entry... entries) {
+        IndexedRecordMap map = IndexedRecordMap.create(tapTable);
+        if(entries != null) {
+            for(Entry entry : entries) {
+                if(entry.getKey() != null && entry.getValue() != null)
+                    map.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return map;
+    }
+
     public static TapInsertRecordEvent insertRecordEvent(Map<String, Object> after, TapTable tapTable) {
         return new TapInsertRecordEvent().init().after(after).table(tapTable);
     }
@@ -0,0 +1,289 @@
+package io.tapdata.entity.utils;
+
+import io.tapdata.entity.schema.TapFieldIndex;
+import io.tapdata.entity.schema.TapTable;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Compact record, values are stored in an Object[] indexed by the field ordinal of TapFieldIndex.
+ *
+ * It is a normal Map for the code which only knows Map, equals and hashCode follow the Map contract,
+ * so it is equal to a LinkedHashMap with the same key values.
+ * The only difference is the iteration order, which is the field order of the table instead of the insertion order.
+ * Keys which are not in the table are kept in an extra LinkedHashMap and iterated after the indexed fields.
+ *
+ * Not thread safe, the same as LinkedHashMap. Not Serializable, the field index holds TapType which is not, use the binary codec to persist it.
+ */
+public class IndexedRecordMap extends AbstractMap<String, Object> {
+    /**
+     * Mark the slot which is never put or has been removed, to distinguish from the null value.
+     */
+    private enum Absent {
+        INSTANCE
+    }
+    private static final Object ABSENT = Absent.INSTANCE;
+
+    private final TapFieldIndex fieldIndex;
+    private final Object[] fieldValues;
+    private int indexedSize;
+    private LinkedHashMap<String, Object> extraMap;
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    public IndexedRecordMap(TapFieldIndex fieldIndex) {
+        if(fieldIndex == null)
+            throw new IllegalArgumentException("fieldIndex is null for IndexedRecordMap");
+        this.fieldIndex = fieldIndex;
+        fieldValues = new Object[fieldIndex.size()];
+        Arrays.fill(fieldValues, ABSENT);
+    }
+
+    public static IndexedRecordMap create(TapTable table) {
+        return new IndexedRecordMap(table.fieldIndex());
+    }
+
+    public static IndexedRecordMap create(TapFieldIndex fieldIndex) {
+        return new IndexedRecordMap(fieldIndex);
+    }
+
+    public IndexedRecordMap kv(String key, Object value) {
+        put(key, value);
+        return this;
+    }
+
+    public TapFieldIndex getFieldIndex() {
+        return fieldIndex;
+    }
+
+    /**
+     * Keys which are not defined in the field index, null if there is no such key.
+     */
+    public Map<String, Object> getExtraMap() {
+        return extraMap;
+    }
+
+    public boolean containsOrdinal(int ordinal) {
+        return fieldValues[ordinal] != ABSENT;
+    }
+
+    /**
+     * @return the value of the ordinal, null if it is absent.
+     */
+    public Object getByOrdinal(int ordinal) {
+        Object value = fieldValues[ordinal];
+        return value == ABSENT ? null : value;
+    }
+
+    public Object putByOrdinal(int ordinal, Object value) {
+        Object old = fieldValues[ordinal];
+        fieldValues[ordinal] = value;
+        if(old == ABSENT) {
+            indexedSize++;
+            return null;
+        }
+        return old;
+    }
+
+    public Object removeByOrdinal(int ordinal) {
+        Object old = fieldValues[ordinal];
+        if(old == ABSENT)
+            return null;
+        fieldValues[ordinal] = ABSENT;
+        indexedSize--;
+        return old;
+    }
+
+    /**
+     * Copy into a new IndexedRecordMap sharing the same field index.
+     *
+     * @param valueCloner clone each value, the value will be shared if null.
+     */
+    public IndexedRecordMap copy(Function<Object, Object> valueCloner) {
+        IndexedRecordMap newMap = new IndexedRecordMap(fieldIndex);
+        for(int i = 0; i < fieldValues.length; i++) {
+            Object value = fieldValues[i];
+            if(value != ABSENT && value != null && valueCloner != null)
+                value = valueCloner.apply(value);
+            newMap.fieldValues[i] = value;
+        }
+        newMap.indexedSize = indexedSize;
+        if(extraMap != null) {
+            newMap.extraMap = new LinkedHashMap<>();
+            for(Map.Entry<String, Object> entry : extraMap.entrySet()) {
+                Object value = entry.getValue();
+                newMap.extraMap.put(entry.getKey(), value != null && valueCloner != null ? valueCloner.apply(value) : value);
+            }
+        }
+        return newMap;
+    }
+
+    @Override
+    public int size() {
+        return indexedSize + (extraMap != null ? extraMap.size() : 0);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if(!(key instanceof String))
+            return false;
+        int ordinal = fieldIndex.ordinal((String) key);
+        if(ordinal >= 0)
+            return fieldValues[ordinal] != ABSENT;
+        return extraMap != null && extraMap.containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if(!(key instanceof String))
+            return null;
+        int ordinal = fieldIndex.ordinal((String) key);
+        if(ordinal >= 0)
+            return getByOrdinal(ordinal);
+        return extraMap != null ? extraMap.get(key) : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int ordinal = fieldIndex.ordinal(key);
+        if(ordinal >= 0)
+            return putByOrdinal(ordinal, value);
+        if(extraMap == null)
+            extraMap = new LinkedHashMap<>();
+        return extraMap.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if(!(key instanceof String))
+            return null;
+        int ordinal = fieldIndex.ordinal((String) key);
+        if(ordinal >= 0)
+            return removeByOrdinal(ordinal);
+        return extraMap != null ? extraMap.remove(key) : null;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(fieldValues, ABSENT);
+        indexedSize = 0;
+        extraMap = null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if(entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return IndexedRecordMap.this.size();
+                }
+
+                @Override
+                public void clear() {
+                    IndexedRecordMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private class IndexedEntry implements Map.Entry<String, Object> {
+        private final int ordinal;
+
+        IndexedEntry(int ordinal) {
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public String getKey() {
+            return fieldIndex.name(ordinal);
+        }
+
+        @Override
+        public Object getValue() {
+            return getByOrdinal(ordinal);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return putByOrdinal(ordinal, value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return Objects.equals(getKey(), entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+        private int nextOrdinal = -1;
+        private int lastOrdinal = -1;
+        private Iterator<Map.Entry<String, Object>> extraIterator;
+
+        EntryIterator() {
+            nextOrdinal = findNext(0);
+        }
+
+        private int findNext(int from) {
+            for(int i = from; i < fieldValues.length; i++) {
+                if(fieldValues[i] != ABSENT)
+                    return i;
+            }
+            return -1;
+        }
+
+        private Iterator<Map.Entry<String, Object>> extraIterator() {
+            if(extraIterator == null)
+                extraIterator = extraMap != null ? extraMap.entrySet().iterator() : Collections.emptyIterator();
+            return extraIterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextOrdinal >= 0 || extraIterator().hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if(nextOrdinal >= 0) {
+                lastOrdinal = nextOrdinal;
+                nextOrdinal = findNext(nextOrdinal + 1);
+                return new IndexedEntry(lastOrdinal);
+            }
+            lastOrdinal = -1;
+            return extraIterator().next();
+        }
+
+        @Override
+        public void remove() {
+            if(lastOrdinal >= 0) {
+                if(fieldValues[lastOrdinal] == ABSENT)
+                    throw new IllegalStateException();
+                removeByOrdinal(lastOrdinal);
+            } else if(extraIterator != null) {
+                extraIterator.remove();
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+}
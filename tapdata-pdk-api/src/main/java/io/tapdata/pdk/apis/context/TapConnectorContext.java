@@ -4,11 +4,19 @@ import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.DataMap;
 import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.entity.utils.JsonParser;
+import io.tapdata.pdk.apis.entity.Projection;
 import io.tapdata.pdk.apis.spec.TapNodeSpecification;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class TapConnectorContext extends TapConnectionContext {
     protected DataMap nodeConfig;
     private TapTable table;
+    private List<TapTable> tables;
+    private boolean partialUpdateAccepted;
+    private Map<String, Projection> tableProjectionMap;
     public TapConnectorContext(TapNodeSpecification specification, TapTable table, DataMap connectionConfig, DataMap nodeConfig) {
         super(specification, connectionConfig);
         this.table = table;
@@ -31,6 +39,51 @@ public class TapConnectorContext extends TapConnectionContext {
         this.table = table;
     }
 
+    /**
+     * All the tables of the node, the node may read or write multiple tables with one connector instance.
+     * The engine switches table to the one which is batch reading or writing.
+     * The connector which reads one change stream for all the tables should read the tables here in streamRead, and set the table of each event.
+     *
+     * @return tables of the node, contains table only for single table node.
+     */
+    public List<TapTable> getTables() {
+        return tables;
+    }
+
+    public void setTables(List<TapTable> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Set by flow engine for the source, true when all the targets downstream support partial update.
+     * The source may send TapUpdateRecordEvent with only the updated fields instead of the full record.
+     */
+    public boolean isPartialUpdateAccepted() {
+        return partialUpdateAccepted;
+    }
+
+    public void setPartialUpdateAccepted(boolean partialUpdateAccepted) {
+        this.partialUpdateAccepted = partialUpdateAccepted;
+    }
+
+    /**
+     * Fields to read for the current table, the source should push it down into batch read.
+     * Set by flow engine when the node's table is configured with fields.
+     *
+     * @return null to read all the fields.
+     */
+    public Projection getProjection() {
+        if(table == null || tableProjectionMap == null)
+            return null;
+        return tableProjectionMap.get(table.getName());
+    }
+
+    public void putProjection(String tableName, Projection projection) {
+        if(tableProjectionMap == null)
+            tableProjectionMap = new ConcurrentHashMap<>();
+        tableProjectionMap.put(tableName, projection);
+    }
+
     public String toString() {
         return "TapConnectorContext table: " + (table != null ? table.getName() : "") + " connectionConfig: " + (connectionConfig != null ? InstanceFactory.instance(JsonParser.class).toJson(connectionConfig) : "") + " nodeConfig: " + (nodeConfig != null ? InstanceFactory.instance(JsonParser.class).toJson(nodeConfig) : "") + " spec: " + specification;
     }
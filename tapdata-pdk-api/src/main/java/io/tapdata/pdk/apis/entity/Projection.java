@@ -0,0 +1,55 @@
+package io.tapdata.pdk.apis.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fields to read, pushed down to the database to avoid reading the fields nobody needs.
+ * Use include or exclude, not both.
+ */
+public class Projection {
+    private List<String> includeFields;
+    private List<String> excludeFields;
+
+    public static Projection create() {
+        return new Projection();
+    }
+
+    public Projection include(String field) {
+        if(includeFields == null) {
+            includeFields = new ArrayList<>();
+        }
+        if(!includeFields.contains(field))
+            includeFields.add(field);
+        return this;
+    }
+
+    public Projection exclude(String field) {
+        if(excludeFields == null) {
+            excludeFields = new ArrayList<>();
+        }
+        if(!excludeFields.contains(field))
+            excludeFields.add(field);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return (includeFields == null || includeFields.isEmpty()) && (excludeFields == null || excludeFields.isEmpty());
+    }
+
+    public List<String> getIncludeFields() {
+        return includeFields;
+    }
+
+    public void setIncludeFields(List<String> includeFields) {
+        this.includeFields = includeFields;
+    }
+
+    public List<String> getExcludeFields() {
+        return excludeFields;
+    }
+
+    public void setExcludeFields(List<String> excludeFields) {
+        this.excludeFields = excludeFields;
+    }
+}
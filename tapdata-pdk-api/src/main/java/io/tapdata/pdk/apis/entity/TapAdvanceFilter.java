@@ -14,6 +14,7 @@ public class TapAdvanceFilter extends TapFilter {
     private Integer limit;
     private List<QueryOperator> operators;
     private List<SortOn> sortOnList;
+    private Projection projection;
 
     public static TapAdvanceFilter create() {
         return new TapAdvanceFilter();
@@ -50,6 +51,11 @@ public class TapAdvanceFilter extends TapFilter {
         return this;
     }
 
+    public TapAdvanceFilter projection(Projection projection) {
+        this.projection = projection;
+        return this;
+    }
+
     public List<QueryOperator> getOperators() {
         return operators;
     }
@@ -74,6 +80,14 @@ public class TapAdvanceFilter extends TapFilter {
         this.sortOnList = sortOnList;
     }
 
+    public Projection getProjection() {
+        return projection;
+    }
+
+    public void setProjection(Projection projection) {
+        this.projection = projection;
+    }
+
     public Integer getSkip() {
         return skip;
     }
@@ -18,6 +18,9 @@ public class ConnectorFunctions extends CommonFunctions<ConnectorFunctions> {
     private ClearTableFunction clearTableFunction;
     private DropTableFunction dropTableFunction;
     private ControlFunction controlFunction;
+    private boolean partialUpdate;
+    private boolean multipleTablesStreamRead;
+    private boolean parallelWrite;
     /**
      * Flow engine may get current batch offset at any time.
      * To continue batch read for the batch offset when job resumed from pause or stopped accidentally.
@@ -99,6 +102,42 @@ public class ConnectorFunctions extends CommonFunctions<ConnectorFunctions> {
         return this;
     }
 
+    /**
+     * Target can write the partial TapUpdateRecordEvent, the after contains only the updated fields and removedFields lists the unset fields.
+     * Flow engine tells the sources by TapConnectorContext#isPartialUpdateAccepted, the source can skip looking up the full record for updates.
+     *
+     * @param partialUpdate
+     * @return
+     */
+    public ConnectorFunctions supportPartialUpdate(boolean partialUpdate) {
+        this.partialUpdate = partialUpdate;
+        return this;
+    }
+
+    /**
+     * One stream read serves all the tables of TapConnectorContext#getTables, the events are given with the table they belong to.
+     * Otherwise the stream read only serves TapConnectorContext#getTable, Flow engine refuses to stream read a node with multiple tables.
+     *
+     * @param multipleTablesStreamRead
+     * @return
+     */
+    public ConnectorFunctions supportMultipleTablesStreamRead(boolean multipleTablesStreamRead) {
+        this.multipleTablesStreamRead = multipleTablesStreamRead;
+        return this;
+    }
+
+    /**
+     * WriteRecord is thread safe and the calls for the events of different primary keys can run at the same time.
+     * Otherwise Flow engine writes the events of a target node in one thread whatever JobOptions#writeWorkers is.
+     *
+     * @param parallelWrite
+     * @return
+     */
+    public ConnectorFunctions supportParallelWrite(boolean parallelWrite) {
+        this.parallelWrite = parallelWrite;
+        return this;
+    }
+
     public ConnectorFunctions supportQueryByFilter(QueryByFilterFunction function) {
         this.queryByFilterFunction = function;
         return this;
@@ -164,4 +203,16 @@ public class ConnectorFunctions extends CommonFunctions<ConnectorFunctions> {
     public ControlFunction getControlFunction() {
         return controlFunction;
     }
+
+    public boolean isSupportPartialUpdate() {
+        return partialUpdate;
+    }
+
+    public boolean isSupportMultipleTablesStreamRead() {
+        return multipleTablesStreamRead;
+    }
+
+    public boolean isSupportParallelWrite() {
+        return parallelWrite;
+    }
 }
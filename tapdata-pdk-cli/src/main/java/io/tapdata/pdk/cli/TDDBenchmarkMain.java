@@ -11,15 +11,17 @@ import picocli.CommandLine;
 public class TDDBenchmarkMain {
     //
     public static void main(String... args) {
-        args = new String[]{
-                "test", "-c", "B:\\code\\tapdata\\idaas-pdk\\tapdata-pdk-cli\\src\\main\\resources\\config\\aerospike.json",
-//                "test", "-c", "B:\\code\\tapdata\\idaas-pdk\\tapdata-pdk-cli\\src\\main\\resources\\config\\emptyBenchmark.json",
-                "-t", "io.tapdata.pdk.tdd.tests.target.benchmark.BenchmarkTest",
-                "B:\\code\\tapdata\\idaas-pdk\\dist\\aerospike-connector-v1.0-SNAPSHOT.jar",
-//                "B:\\code\\tapdata\\idaas-pdk\\dist\\doris-connector-v1.0-SNAPSHOT.jar",
-//                "B:\\code\\tapdata\\idaas-pdk\\dist\\empty-connector-v1.1-SNAPSHOT.jar",
-
-        };
+        //Run from the root directory of the project, or pass the arguments of "test" command, the scenario is the "benchmark" of test config.
+        if(args == null || args.length == 0) {
+            args = new String[]{
+                    "test", "-c", "tapdata-pdk-cli/src/main/resources/config/tddBenchmark.json",
+//                    "test", "-c", "tapdata-pdk-cli/src/main/resources/config/aerospike.json",
+                    "-t", "io.tapdata.pdk.tdd.tests.target.benchmark.BenchmarkTest",
+                    "connectors/tdd-connector",
+//                    "dist/aerospike-connector-v1.0-SNAPSHOT.jar",
+//                    "dist/doris-connector-v1.0-SNAPSHOT.jar",
+            };
+        }
 
         Main.registerCommands().parseWithHandler(new CommandLine.RunLast(), args);
     }
@@ -180,6 +180,10 @@ public class PDKTestBase {
         completed(false);
     }
 
+    public boolean isCompleted() {
+        return completed.get();
+    }
+
     public void completed(boolean withError) {
         if (completed.compareAndSet(false, true)) {
             finishSuccessfully = !withError;
@@ -0,0 +1,186 @@
+package io.tapdata.pdk.tdd.tests.source;
+
+import io.tapdata.entity.event.control.PatrolEvent;
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.pdk.cli.entity.DAGDescriber;
+import io.tapdata.pdk.core.dag.TapDAGNode;
+import io.tapdata.pdk.core.workflow.engine.DataFlowEngine;
+import io.tapdata.pdk.core.workflow.engine.DataFlowWorker;
+import io.tapdata.pdk.core.workflow.engine.JobOptions;
+import io.tapdata.pdk.core.workflow.engine.TapDAGNodeEx;
+import io.tapdata.pdk.core.workflow.engine.driver.SourceNodeDriver;
+import io.tapdata.pdk.tdd.core.PDKTestBase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 1, start DAG tdd-source -> tdd-target, each node serves 200 tables with one connector instance.
+ * 2, tdd-source batch reads one record for each table.
+ * 3, verify tdd-target received the record of each table into the table with the same name.
+ * 4, verify the DAG still has 2 nodes and the thread count doesn't grow with the table count.
+ * 5, start DAG tdd-stream-source -> tdd-target, verify the stream read sends the records of every table, not only the first one.
+ * 6, start DAG tdd-source -> tdd-target with the batch offset of a table in the middle, verify only this table and the tables after it are read.
+ */
+@DisplayName("Tests for multiple tables per node")
+public class MultiTableTest extends PDKTestBase {
+    private static final String TAG = MultiTableTest.class.getSimpleName();
+    String sourceNodeId = "s1";
+    String targetNodeId = "t2";
+    int tableCount = 200;
+    int threadCount;
+
+    @Test
+    @DisplayName("Test 200 tables in one source node and one target node")
+    void multiTableTest() throws Throwable {
+        DataFlowEngine dataFlowEngine = DataFlowEngine.getInstance();
+        List<TapTable> targetTables = tables();
+        DAGDescriber dataFlowDescriber = dagDescriber("MultiTableTest_tddSourceToTddTarget",
+                new TapDAGNodeEx().id(sourceNodeId).pdkId("tdd-source").group("io.tapdata.connector").type(TapDAGNode.TYPE_SOURCE).version("1.0-SNAPSHOT").
+                        tables(tables()).connectionConfig(DataMap.create().kv("tableCount", tableCount)), targetTables);
+        dag = dataFlowDescriber.toDag();
+
+        if(dag != null) {
+            dataFlowEngine.startDataFlow(dag, dataFlowDescriber.getJobOptions(), (fromState, toState, dataFlowWorker) -> {
+                if (toState.equals(DataFlowWorker.STATE_INITIALIZING)) {
+                    threadCount = Thread.activeCount();
+                } else if (toState.equals(DataFlowWorker.STATE_INITIALIZED)) {
+                    $(() -> assertEquals(2, dag.getNodeMap().size(), "One source node and one target node should serve all the tables"));
+                    //Line up after batch read
+                    verifyTableCounts(tableCountMap -> {
+                        assertEquals(tableCount, tableCountMap.size(), "Records should be written into " + tableCount + " tables");
+                        for(TapTable table : targetTables) {
+                            AtomicLong count = tableCountMap.get(table.getName());
+                            assertNotNull(count, "Table " + table.getName() + " received no record");
+                            assertEquals(1, count.get(), "Table " + table.getName() + " should receive 1 record");
+                        }
+                        int currentThreadCount = Thread.activeCount();
+                        TapLogger.info(TAG, "Thread count {} before start, {} after {} tables are replicated", threadCount, currentThreadCount, tableCount);
+                        assertTrue(currentThreadCount - threadCount < 10, "Thread count grows from " + threadCount + " to " + currentThreadCount);
+                    });
+                }
+            });
+        }
+        waitCompleted(60);
+    }
+
+    @Test
+    @DisplayName("Test stream read of a source node with 200 tables")
+    void multiTableStreamReadTest() throws Throwable {
+        DataFlowEngine dataFlowEngine = DataFlowEngine.getInstance();
+        List<TapTable> targetTables = tables();
+        DAGDescriber dataFlowDescriber = dagDescriber("MultiTableTest_tddStreamSourceToTddTarget",
+                new TapDAGNodeEx().id(sourceNodeId).pdkId("tdd-stream-source").group("io.tapdata.connector").type(TapDAGNode.TYPE_SOURCE).version("1.0-SNAPSHOT").
+                        tables(tables()).connectionConfig(DataMap.create().kv("tableCount", tableCount).kv("streamRecordCount", 1)), targetTables);
+        dag = dataFlowDescriber.toDag();
+
+        if(dag != null) {
+            dataFlowEngine.startDataFlow(dag, dataFlowDescriber.getJobOptions(), (fromState, toState, dataFlowWorker) -> {
+                if (toState.equals(DataFlowWorker.STATE_INITIALIZING)) {
+                    //The state machine runs the stream read, initialized is never reached, line up after stream read started instead.
+                    dataFlowWorker.setSourceStateListener(state -> {
+                        if(state == SourceNodeDriver.STATE_STREAM_STARTED) {
+                            verifyTableCounts(tableCountMap -> {
+                                assertEquals(tableCount, tableCountMap.size(), "Records should be written into " + tableCount + " tables");
+                                for(TapTable table : targetTables) {
+                                    AtomicLong count = tableCountMap.get(table.getName());
+                                    assertNotNull(count, "Table " + table.getName() + " received no record");
+                                    assertEquals(2, count.get(), "Table " + table.getName() + " should receive 1 record from batch read and 1 from stream read");
+                                }
+                            });
+                        }
+                    });
+                }
+            });
+        }
+        waitCompleted(60);
+    }
+
+    @Test
+    @DisplayName("Test batch read of 200 tables resumes from the table of batch offset")
+    void multiTableResumeTest() throws Throwable {
+        DataFlowEngine dataFlowEngine = DataFlowEngine.getInstance();
+        int resumeIndex = 150;
+        List<TapTable> targetTables = tables();
+        DAGDescriber dataFlowDescriber = dagDescriber("MultiTableTest_tddSourceResumeToTddTarget",
+                new TapDAGNodeEx().id(sourceNodeId).pdkId("tdd-source").group("io.tapdata.connector").type(TapDAGNode.TYPE_SOURCE).version("1.0-SNAPSHOT").
+                        tables(tables()).connectionConfig(DataMap.create().kv("tableCount", tableCount)).
+                        batchOffset(toJson(map(entry("tableId", "tdd-table_" + resumeIndex)))), targetTables);
+        dag = dataFlowDescriber.toDag();
+
+        if(dag != null) {
+            dataFlowEngine.startDataFlow(dag, dataFlowDescriber.getJobOptions(), (fromState, toState, dataFlowWorker) -> {
+                if (toState.equals(DataFlowWorker.STATE_INITIALIZED)) {
+                    //Line up after batch read
+                    verifyTableCounts(tableCountMap -> {
+                        assertEquals(tableCount - resumeIndex, tableCountMap.size(), "Records should be written into " + (tableCount - resumeIndex) + " tables");
+                        for(int i = 0; i < tableCount; i++) {
+                            AtomicLong count = tableCountMap.get(targetTables.get(i).getName());
+                            if(i < resumeIndex) {
+                                assertNull(count, "Table " + targetTables.get(i).getName() + " is before the table of batch offset, should not be read again");
+                            } else {
+                                assertNotNull(count, "Table " + targetTables.get(i).getName() + " received no record");
+                                assertEquals(1, count.get(), "Table " + targetTables.get(i).getName() + " should receive 1 record");
+                            }
+                        }
+                        String batchOffset = dataFlowWorker.getSourceNodeDriver(sourceNodeId).getBatchOffset();
+                        assertNotNull(batchOffset, "Batch offset should be given after batch read");
+                        assertEquals("tdd-table_" + (tableCount - 1), fromJson(batchOffset).get("tableId"), "Batch offset should be of the last table after batch read, but is " + batchOffset);
+                    });
+                }
+            });
+        }
+        waitCompleted(60);
+    }
+
+    private List<TapTable> tables() {
+        List<TapTable> tables = new ArrayList<>();
+        for(int i = 0; i < tableCount; i++) {
+            tables.add(new TapTable("tdd-table_" + i));
+        }
+        return tables;
+    }
+
+    private DAGDescriber dagDescriber(String id, TapDAGNodeEx sourceNode, List<TapTable> targetTables) {
+        DAGDescriber dataFlowDescriber = new DAGDescriber();
+        dataFlowDescriber.setId(id);
+        dataFlowDescriber.setNodes(Arrays.asList(
+                sourceNode,
+                new TapDAGNodeEx().id(targetNodeId).pdkId("tdd-target").group("io.tapdata.connector").type(TapDAGNode.TYPE_TARGET).version("1.0-SNAPSHOT").
+                        tables(targetTables).connectionConfig(new DataMap())
+        ));
+        dataFlowDescriber.setDag(Collections.singletonList(Arrays.asList(sourceNodeId, targetNodeId)));
+        dataFlowDescriber.setJobOptions(new JobOptions().actionsBeforeStart(Arrays.asList(JobOptions.ACTION_DROP_TABLE, JobOptions.ACTION_CREATE_TABLE)));
+        return dataFlowDescriber;
+    }
+
+    /**
+     * Patrol through the DAG after the records sent, then verify the record count of each table tdd-target received.
+     */
+    private void verifyTableCounts(Consumer<Map<String, AtomicLong>> verifier) {
+        DataFlowEngine dataFlowEngine = DataFlowEngine.getInstance();
+        PatrolEvent patrolEvent = new PatrolEvent().patrolListener((nodeId, state) -> {
+            if (nodeId.equals(targetNodeId) && state == PatrolEvent.STATE_LEAVE) {
+                PatrolEvent callbackPatrol = new PatrolEvent();
+                callbackPatrol.addInfo("connectorCallback", (Consumer<Map<String, Object>>) stringObjectMap -> {
+                    Map<String, AtomicLong> tableCountMap = (Map<String, AtomicLong>) stringObjectMap.get("tableCountMap");
+                    $(() -> {
+                        assertNotNull(tableCountMap, "tdd-target should count the records of each table");
+                        verifier.accept(tableCountMap);
+                    });
+                    completed();
+                });
+                dataFlowEngine.sendExternalTapEvent(dag.getId(), callbackPatrol);
+            }
+        });
+        dataFlowEngine.sendExternalTapEvent(dag.getId(), patrolEvent);
+    }
+}
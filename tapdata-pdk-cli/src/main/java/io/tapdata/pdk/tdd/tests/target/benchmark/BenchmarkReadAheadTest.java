@@ -0,0 +1,179 @@
+package io.tapdata.pdk.tdd.tests.target.benchmark;
+
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import io.tapdata.pdk.apis.functions.connector.source.BatchReadFunction;
+import io.tapdata.pdk.apis.functions.connector.target.WriteRecordFunction;
+import io.tapdata.pdk.apis.spec.TapNodeSpecification;
+import io.tapdata.pdk.cli.entity.DAGDescriber;
+import io.tapdata.pdk.core.dag.TapDAGNode;
+import io.tapdata.pdk.core.tapnode.TapNodeInfo;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import io.tapdata.pdk.core.workflow.engine.DataFlowEngine;
+import io.tapdata.pdk.core.workflow.engine.DataFlowWorker;
+import io.tapdata.pdk.core.workflow.engine.JobOptions;
+import io.tapdata.pdk.core.workflow.engine.TapDAGNodeEx;
+import io.tapdata.pdk.tdd.core.PDKTestBase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Run the records of a stand-in of the tdd benchmark source, which sleeps readLatencyMillis before giving every batch,
+ * into the target with the batch read ahead of the source node in turn, the throughput with read ahead should be higher
+ * as the events are converted while the source waits for the next batch.
+ *
+ * The keys of the "benchmark" object in the "test" section are the same as BenchmarkTest, besides,
+ * batchReadAhead: the list of the read ahead batches to run, default is [0, 2], 0 converts on the reading thread.
+ * readLatencyMillis: the latency of every batch of the stand-in, default is 5.
+ * minSpeedup: the throughput of the most read ahead divided by the one of the least read ahead should be no less than it, default is 1.1.
+ * recordCount is 100000 by default for this test.
+ */
+@DisplayName("Read the benchmark records from a high latency source with batch read ahead")
+public class BenchmarkReadAheadTest extends PDKTestBase {
+    private static final String TAG = BenchmarkReadAheadTest.class.getSimpleName();
+    private static final String SOURCE_NODE_ID = "s1";
+    private static final String TARGET_NODE_ID = "t2";
+
+    @Test
+    @DisplayName("Throughput of a high latency source is higher with read ahead")
+    void readAheadTest() throws Throwable {
+        consumeQualifiedTapNodeInfo(nodeInfo -> {
+            try {
+                runReadAhead(nodeInfo);
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
+                CommonUtils.logError(TAG, "Read ahead test failed", throwable);
+                if (throwable instanceof AssertionFailedError) {
+                    $(() -> {
+                        throw ((AssertionFailedError) throwable);
+                    });
+                } else {
+                    $(() -> Assertions.fail("Unknown error " + throwable.getMessage()));
+                }
+            }
+        });
+        waitCompleted(5);
+    }
+
+    private void runReadAhead(TapNodeInfo nodeInfo) throws Throwable {
+        DataMap benchmarkOptions = new DataMap();
+        Object options = testOptions != null ? testOptions.get("benchmark") : null;
+        if (options instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) options).entrySet()) {
+                benchmarkOptions.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        long recordCount = option(benchmarkOptions, "recordCount", 100000).longValue();
+        benchmarkOptions.put("recordCount", recordCount);
+        List<Integer> batchReadAheads = new ArrayList<>();
+        for (Object batchReadAhead : benchmarkOptions.getValue("batchReadAhead", Arrays.<Object>asList(0, 2))) {
+            batchReadAheads.add(Integer.parseInt(String.valueOf(batchReadAhead)));
+        }
+        Collections.sort(batchReadAheads);
+        Assertions.assertTrue(batchReadAheads.size() > 1, "batchReadAhead should have two values at least to compare");
+
+        Map<Integer, Double> readAheadThroughput = new LinkedHashMap<>();
+        for (int batchReadAhead : batchReadAheads) {
+            double throughput = runReadAhead(nodeInfo, benchmarkOptions, recordCount, batchReadAhead);
+            readAheadThroughput.put(batchReadAhead, throughput);
+            TapLogger.info(TAG, "{} batches read ahead, throughput {} events per second", batchReadAhead, throughput);
+        }
+        TapLogger.info(TAG, "Throughput of the batches read ahead {}", readAheadThroughput);
+
+        int leastReadAhead = batchReadAheads.get(0);
+        int mostReadAhead = batchReadAheads.get(batchReadAheads.size() - 1);
+        double speedup = readAheadThroughput.get(mostReadAhead) / readAheadThroughput.get(leastReadAhead);
+        double minSpeedup = option(benchmarkOptions, "minSpeedup", 1.1).doubleValue();
+        Assertions.assertTrue(speedup >= minSpeedup, "Throughput of " + mostReadAhead + " batches read ahead is " + speedup + " times of " + leastReadAhead + ", expect " + minSpeedup + " at least, " + readAheadThroughput);
+        completed();
+    }
+
+    /**
+     * @return events written per second since the first batch is read.
+     */
+    private double runReadAhead(TapNodeInfo nodeInfo, DataMap benchmarkOptions, long recordCount, int batchReadAhead) throws Throwable {
+        long readLatencyMillis = option(benchmarkOptions, "readLatencyMillis", 5).longValue();
+        long timeoutSeconds = option(benchmarkOptions, "timeoutSeconds", 600).longValue();
+
+        TapNodeSpecification spec = nodeInfo.getTapNodeSpecification();
+        DAGDescriber dataFlowDescriber = new DAGDescriber();
+        dataFlowDescriber.setId("benchmarkReadAheadTest->" + spec.getId() + "_" + batchReadAhead);
+        String tableId = testTableName(dataFlowDescriber.getId());
+        List<TapDAGNodeEx> nodes = new ArrayList<>();
+        nodes.add(new TapDAGNodeEx().id(SOURCE_NODE_ID).pdkId("tdd-benchmark-source").group("io.tapdata.connector").type(TapDAGNode.TYPE_SOURCE).version("1.0-SNAPSHOT").
+                table(new TapTable("tdd-table")).connectionConfig(benchmarkOptions));
+        nodes.add(new TapDAGNodeEx().id(TARGET_NODE_ID).pdkId(spec.getId()).group(spec.getGroup()).type(TapDAGNode.TYPE_TARGET).version(spec.getVersion()).
+                table(new TapTable(tableId)).connectionConfig(connectionOptions));
+        dataFlowDescriber.setNodes(nodes);
+        dataFlowDescriber.setDag(Arrays.asList(Arrays.asList(SOURCE_NODE_ID, TARGET_NODE_ID)));
+        dataFlowDescriber.setJobOptions(new JobOptions()
+                .actionsBeforeStart(Arrays.asList(JobOptions.ACTION_DROP_TABLE, JobOptions.ACTION_CREATE_TABLE))
+                .eventBatchSize(option(benchmarkOptions, "eventBatchSize", 1000).intValue())
+                .queueSize(option(benchmarkOptions, "queueSize", 20).intValue())
+                .queueBatchSize(option(benchmarkOptions, "queueBatchSize", 10).intValue())
+                .batchReadAhead(batchReadAhead)
+                .coalesceRecordEvents(false));
+
+        dag = dataFlowDescriber.toDag();
+        Assertions.assertNotNull(dag, "DAG is not generated for read ahead test");
+        AtomicLong written = new AtomicLong();
+        AtomicLong firstReadTime = new AtomicLong();
+        AtomicLong lastWriteTime = new AtomicLong();
+        CountDownLatch finished = new CountDownLatch(1);
+        DataFlowEngine.getInstance().startDataFlow(dag, dataFlowDescriber.getJobOptions(), (fromState, toState, dataFlowWorker) -> {
+            if (toState.equals(DataFlowWorker.STATE_INITIALIZING)) {
+                //The stand-in of a remote source, the latency is per batch, like fetching the next page of a cursor.
+                ConnectorFunctions sourceFunctions = dataFlowWorker.getSourceNodeDriver(SOURCE_NODE_ID).getSourceNode().getConnectorFunctions();
+                BatchReadFunction batchReadFunction = sourceFunctions.getBatchReadFunction();
+                sourceFunctions.supportBatchRead((connectorContext, offsetState, eventBatchSize, consumer) ->
+                        batchReadFunction.batchRead(connectorContext, offsetState, eventBatchSize, events -> {
+                            firstReadTime.compareAndSet(0, System.nanoTime());
+                            try {
+                                Thread.sleep(readLatencyMillis);
+                            } catch (InterruptedException interruptedException) {
+                                Thread.currentThread().interrupt();
+                            }
+                            consumer.accept(events);
+                        }));
+                ConnectorFunctions targetFunctions = dataFlowWorker.getTargetNodeDriver(TARGET_NODE_ID).getTargetNode().getConnectorFunctions();
+                WriteRecordFunction writeRecordFunction = targetFunctions.getWriteRecordFunction();
+                $(() -> Assertions.assertNotNull(writeRecordFunction, "WriteRecord is a must to implement a Target"));
+                if (writeRecordFunction == null)
+                    return;
+                targetFunctions.supportWriteRecord((connectorContext, recordEvents, consumer) -> {
+                    writeRecordFunction.writeDML(connectorContext, recordEvents, consumer);
+                    lastWriteTime.set(System.nanoTime());
+                    if (written.addAndGet(recordEvents.size()) >= recordCount)
+                        finished.countDown();
+                });
+            }
+        });
+
+        boolean done = finished.await(timeoutSeconds, TimeUnit.SECONDS);
+        DataFlowEngine.getInstance().stopDataFlow(dag.getId());
+        if (!done)
+            throw new TimeoutException(batchReadAhead + " batches read ahead are not finished in " + timeoutSeconds + " seconds, written " + written.get() + " of " + recordCount + " events");
+        Assertions.assertEquals(recordCount, written.get(), "Every event should be written once");
+        long nanos = Math.max(1, lastWriteTime.get() - firstReadTime.get());
+        return written.get() * 1000000000.0 / nanos;
+    }
+
+    private Number option(DataMap benchmarkOptions, String key, Number defaultValue) {
+        Object value = benchmarkOptions.get(key);
+        if (value instanceof Number)
+            return (Number) value;
+        if (value != null)
+            return Double.valueOf(value.toString());
+        return defaultValue;
+    }
+}
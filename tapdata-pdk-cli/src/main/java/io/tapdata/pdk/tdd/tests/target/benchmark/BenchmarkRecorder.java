@@ -0,0 +1,113 @@
+package io.tapdata.pdk.tdd.tests.target.benchmark;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Count the events written by one target, and the latency from the time the source offered the event to the time writeRecord returned.
+ *
+ * The time of TapEvent is in milliseconds, so the histogram keeps one slot per millisecond and the percentiles are exact,
+ * the latency longer than the last slot is counted in the last slot, the max is still exact.
+ */
+public class BenchmarkRecorder {
+    private static final int MAX_LATENCY_SLOT = 65535;
+
+    private final long expectedCount;
+    private final long[] latencyCounts = new long[MAX_LATENCY_SLOT + 1];
+    private long written;
+    private long inserted;
+    private long updated;
+    private long deleted;
+    private long latencySum;
+    private long maxLatency;
+
+    public BenchmarkRecorder(long expectedCount) {
+        this.expectedCount = expectedCount;
+    }
+
+    /**
+     * @return true when the written events reach the expected count by this call, only once.
+     */
+    public synchronized boolean record(List<TapRecordEvent> events, long now) {
+        long before = written;
+        for(TapRecordEvent event : events) {
+            if(event instanceof TapInsertRecordEvent)
+                inserted++;
+            else if(event instanceof TapUpdateRecordEvent)
+                updated++;
+            else if(event instanceof TapDeleteRecordEvent)
+                deleted++;
+            if(event.getTime() != null)
+                recordLatency(Math.max(0, now - event.getTime()));
+            written++;
+        }
+        return before < expectedCount && written >= expectedCount;
+    }
+
+    private void recordLatency(long latency) {
+        latencyCounts[(int) Math.min(latency, MAX_LATENCY_SLOT)]++;
+        latencySum += latency;
+        if(latency > maxLatency)
+            maxLatency = latency;
+    }
+
+    public synchronized void merge(BenchmarkRecorder recorder) {
+        synchronized (recorder) {
+            for(int i = 0; i < latencyCounts.length; i++)
+                latencyCounts[i] += recorder.latencyCounts[i];
+            written += recorder.written;
+            inserted += recorder.inserted;
+            updated += recorder.updated;
+            deleted += recorder.deleted;
+            latencySum += recorder.latencySum;
+            maxLatency = Math.max(maxLatency, recorder.maxLatency);
+        }
+    }
+
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    /**
+     * @param percent 0 ~ 100
+     * @return the latency in milliseconds which the percent of the events are not longer than.
+     */
+    public synchronized long percentile(double percent) {
+        long total = 0;
+        for(long count : latencyCounts)
+            total += count;
+        if(total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percent / 100));
+        long seen = 0;
+        for(int i = 0; i < latencyCounts.length; i++) {
+            seen += latencyCounts[i];
+            if(seen >= rank)
+                return i == MAX_LATENCY_SLOT ? maxLatency : i;
+        }
+        return maxLatency;
+    }
+
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("written", written);
+        map.put("inserted", inserted);
+        map.put("updated", updated);
+        map.put("deleted", deleted);
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("mean", written > 0 ? (double) latencySum / written : 0);
+        latency.put("p50", percentile(50));
+        latency.put("p90", percentile(90));
+        latency.put("p99", percentile(99));
+        latency.put("p999", percentile(99.9));
+        latency.put("max", maxLatency);
+        map.put("latencyMillis", latency);
+        return map;
+    }
+}
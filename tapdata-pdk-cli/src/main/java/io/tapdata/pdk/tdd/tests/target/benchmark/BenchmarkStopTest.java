@@ -0,0 +1,162 @@
+package io.tapdata.pdk.tdd.tests.target.benchmark;
+
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import io.tapdata.pdk.apis.functions.connector.source.BatchReadFunction;
+import io.tapdata.pdk.apis.functions.connector.target.WriteRecordFunction;
+import io.tapdata.pdk.apis.spec.TapNodeSpecification;
+import io.tapdata.pdk.cli.entity.DAGDescriber;
+import io.tapdata.pdk.core.dag.TapDAGNode;
+import io.tapdata.pdk.core.tapnode.TapNodeInfo;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import io.tapdata.pdk.core.workflow.engine.DataFlowEngine;
+import io.tapdata.pdk.core.workflow.engine.DataFlowWorker;
+import io.tapdata.pdk.core.workflow.engine.JobOptions;
+import io.tapdata.pdk.core.workflow.engine.TapDAGNodeEx;
+import io.tapdata.pdk.core.workflow.engine.driver.SourceNodeDriver;
+import io.tapdata.pdk.tdd.core.PDKTestBase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stop the data flow from the tdd benchmark source to the target in the middle of the batch read,
+ * every event the source offered before the stop should be written to the target before the nodes are destroyed.
+ *
+ * The keys of the "benchmark" object in the "test" section are the same as BenchmarkTest, besides,
+ * stopAfterRecords: stop after the target has written so many events, default is 1/10 of recordCount.
+ */
+@DisplayName("Stop the benchmark data flow in the middle, the events read are all written")
+public class BenchmarkStopTest extends PDKTestBase {
+    private static final String TAG = BenchmarkStopTest.class.getSimpleName();
+    private static final String SOURCE_NODE_ID = "s1";
+    private static final String TARGET_NODE_ID = "t2";
+
+    @Test
+    @DisplayName("Stop the data flow after some events are written")
+    void stopTest() throws Throwable {
+        consumeQualifiedTapNodeInfo(nodeInfo -> {
+            try {
+                runStop(nodeInfo);
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
+                CommonUtils.logError(TAG, "Stop test failed", throwable);
+                if (throwable instanceof AssertionFailedError) {
+                    $(() -> {
+                        throw ((AssertionFailedError) throwable);
+                    });
+                } else {
+                    $(() -> Assertions.fail("Unknown error " + throwable.getMessage()));
+                }
+            }
+        });
+        waitCompleted(5);
+    }
+
+    private void runStop(TapNodeInfo nodeInfo) throws Throwable {
+        DataMap benchmarkOptions = new DataMap();
+        Object options = testOptions != null ? testOptions.get("benchmark") : null;
+        if (options instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) options).entrySet()) {
+                benchmarkOptions.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        long recordCount = option(benchmarkOptions, "recordCount", 1000000).longValue();
+        benchmarkOptions.put("recordCount", recordCount);
+        long stopAfterRecords = option(benchmarkOptions, "stopAfterRecords", Math.max(1, recordCount / 10)).longValue();
+        long timeoutSeconds = option(benchmarkOptions, "timeoutSeconds", 600).longValue();
+
+        TapNodeSpecification spec = nodeInfo.getTapNodeSpecification();
+        DAGDescriber dataFlowDescriber = new DAGDescriber();
+        dataFlowDescriber.setId("benchmarkStopTest->" + spec.getId());
+        String tableId = testTableName(dataFlowDescriber.getId());
+        List<TapDAGNodeEx> nodes = new ArrayList<>();
+        nodes.add(new TapDAGNodeEx().id(SOURCE_NODE_ID).pdkId("tdd-benchmark-source").group("io.tapdata.connector").type(TapDAGNode.TYPE_SOURCE).version("1.0-SNAPSHOT").
+                table(new TapTable("tdd-table")).connectionConfig(benchmarkOptions));
+        nodes.add(new TapDAGNodeEx().id(TARGET_NODE_ID).pdkId(spec.getId()).group(spec.getGroup()).type(TapDAGNode.TYPE_TARGET).version(spec.getVersion()).
+                table(new TapTable(tableId)).connectionConfig(connectionOptions));
+        dataFlowDescriber.setNodes(nodes);
+        dataFlowDescriber.setDag(Arrays.asList(Arrays.asList(SOURCE_NODE_ID, TARGET_NODE_ID)));
+        dataFlowDescriber.setJobOptions(new JobOptions()
+                .actionsBeforeStart(Arrays.asList(JobOptions.ACTION_DROP_TABLE, JobOptions.ACTION_CREATE_TABLE))
+                .eventBatchSize(option(benchmarkOptions, "eventBatchSize", 1000).intValue())
+                .queueSize(option(benchmarkOptions, "queueSize", 20).intValue())
+                .queueBatchSize(option(benchmarkOptions, "queueBatchSize", 10).intValue())
+                .stopDrainTimeoutMillis(TimeUnit.SECONDS.toMillis(timeoutSeconds))
+                .coalesceRecordEvents(false));
+
+        dag = dataFlowDescriber.toDag();
+        Assertions.assertNotNull(dag, "DAG is not generated for stop test");
+        AtomicLong read = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        CountDownLatch stopAfter = new CountDownLatch(1);
+        CountDownLatch drained = new CountDownLatch(1);
+        DataFlowEngine.getInstance().startDataFlow(dag, dataFlowDescriber.getJobOptions(), (fromState, toState, dataFlowWorker) -> {
+            if (toState.equals(DataFlowWorker.STATE_INITIALIZING)) {
+                ConnectorFunctions sourceFunctions = dataFlowWorker.getSourceNodeDriver(SOURCE_NODE_ID).getSourceNode().getConnectorFunctions();
+                BatchReadFunction batchReadFunction = sourceFunctions.getBatchReadFunction();
+                //The events are read when the consumer accepted them, the ones rejected after the stop are not.
+                //Counted before accepting, the target may write them before accept returns.
+                sourceFunctions.supportBatchRead((connectorContext, offsetState, eventBatchSize, consumer) ->
+                        batchReadFunction.batchRead(connectorContext, offsetState, eventBatchSize, events -> {
+                            read.addAndGet(events.size());
+                            try {
+                                consumer.accept(events);
+                            } catch (Throwable throwable) {
+                                read.addAndGet(-events.size());
+                                throw throwable;
+                            }
+                        }));
+                ConnectorFunctions targetFunctions = dataFlowWorker.getTargetNodeDriver(TARGET_NODE_ID).getTargetNode().getConnectorFunctions();
+                WriteRecordFunction writeRecordFunction = targetFunctions.getWriteRecordFunction();
+                $(() -> Assertions.assertNotNull(writeRecordFunction, "WriteRecord is a must to implement a Target"));
+                if (writeRecordFunction == null)
+                    return;
+                targetFunctions.supportWriteRecord((connectorContext, recordEvents, consumer) -> {
+                    writeRecordFunction.writeDML(connectorContext, recordEvents, consumer);
+                    if (written.addAndGet(recordEvents.size()) >= stopAfterRecords)
+                        stopAfter.countDown();
+                });
+                dataFlowWorker.setSourceStateListener(state -> {
+                    if (state == SourceNodeDriver.STATE_DRAINED)
+                        drained.countDown();
+                });
+            }
+        });
+
+        if (!stopAfter.await(timeoutSeconds, TimeUnit.SECONDS)) {
+            DataFlowEngine.getInstance().stopDataFlow(dag.getId());
+            Assertions.fail("Target has written " + written.get() + " events in " + timeoutSeconds + " seconds, less than stopAfterRecords " + stopAfterRecords);
+        }
+        long readAtStop = read.get();
+        long writtenAtStop = written.get();
+        DataFlowEngine.getInstance().stopDataFlow(dag.getId());
+        TapLogger.info(TAG, "Stopped with {} events read and {} written, {} events in flight are drained, {} read and {} written after the stop",
+                readAtStop, writtenAtStop, readAtStop - writtenAtStop, read.get(), written.get());
+
+        Assertions.assertEquals(0, drained.getCount(), "The source is not notified of drained, the offsets can not be committed");
+        Assertions.assertTrue(read.get() < recordCount, "The source has read all the " + recordCount + " events before stopped, increase recordCount");
+        Assertions.assertEquals(read.get(), written.get(), "Every event read before the stop should be written");
+        completed();
+    }
+
+    private Number option(DataMap benchmarkOptions, String key, Number defaultValue) {
+        Object value = benchmarkOptions.get(key);
+        if (value instanceof Number)
+            return (Number) value;
+        if (value != null)
+            return Double.valueOf(value.toString());
+        return defaultValue;
+    }
+}
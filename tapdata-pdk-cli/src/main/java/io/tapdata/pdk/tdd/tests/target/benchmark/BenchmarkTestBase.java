@@ -0,0 +1,326 @@
+package io.tapdata.pdk.tdd.tests.target.benchmark;
+
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.JsonParser;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import io.tapdata.pdk.apis.functions.connector.target.WriteRecordFunction;
+import io.tapdata.pdk.apis.spec.TapNodeSpecification;
+import io.tapdata.pdk.cli.entity.DAGDescriber;
+import io.tapdata.pdk.core.api.TargetNode;
+import io.tapdata.pdk.core.dag.TapDAGNode;
+import io.tapdata.pdk.core.monitor.EventTracer;
+import io.tapdata.pdk.core.tapnode.TapNodeInfo;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import io.tapdata.pdk.core.workflow.engine.DataFlowEngine;
+import io.tapdata.pdk.core.workflow.engine.DataFlowWorker;
+import io.tapdata.pdk.core.workflow.engine.JobOptions;
+import io.tapdata.pdk.core.workflow.engine.TapDAGNodeEx;
+import io.tapdata.pdk.tdd.core.PDKTestBase;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Benchmark the target with the records generated by a tdd benchmark source.
+ *
+ * The scenario is the "benchmark" object in the "test" section of the test config, all the keys are optional,
+ * recordCount, fieldCount, valueTypes, updateRatio, deleteRatio, stringLength and seed are given to the source connector, see TDDBenchmarkRecords.
+ * targetCount: count of the target nodes, the source fans out the same records to every target, each one writes its own table.
+ * eventBatchSize, queueSize, queueBatchSize, queueBatchEvents, queueBatchBytes, queueLingerMillis, traceSampleInterval: the job options of the data flow, the stage latency of the traced events is in the report.
+ * warmupIterations, iterations: the data flow runs warmupIterations + iterations times, the warmup ones are not in the summary.
+ * timeoutSeconds: timeout of one iteration.
+ * reportFile: the JSON report to write, default is tdd-benchmark-report.json in the working directory.
+ *
+ * One iteration is finished when every target has written recordCount events, the events are not coalesced.
+ * The latency of an event is from the time the source offered it to the time writeRecord of the target returned.
+ * GC and allocation are of the whole JVM, the allocation is summed from the threads alive at the end of the iteration.
+ */
+public abstract class BenchmarkTestBase extends PDKTestBase {
+    private static final String TAG = BenchmarkTestBase.class.getSimpleName();
+    private static final String PERFORMANCE_TAG = "[PERFORMANCE_TEST_FINISH]";
+    private static final String SOURCE_NODE_ID = "s1";
+
+    protected DataMap benchmarkOptions;
+    protected long recordCount;
+    protected int targetCount;
+    protected int warmupIterations;
+    protected int iterations;
+    protected long timeoutSeconds;
+
+    /**
+     * @return the pdkId of the tdd benchmark source, which generates the records.
+     */
+    protected abstract String sourcePdkId();
+
+    @Test
+    @DisplayName("Benchmark writeRecord of the target")
+    void benchmarkTest() throws Throwable {
+        consumeQualifiedTapNodeInfo(nodeInfo -> {
+            try {
+                runBenchmark(nodeInfo);
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
+                CommonUtils.logError(TAG, "Benchmark failed", throwable);
+                if (throwable instanceof AssertionFailedError) {
+                    $(() -> {
+                        throw ((AssertionFailedError) throwable);
+                    });
+                } else {
+                    $(() -> Assertions.fail("Unknown error " + throwable.getMessage()));
+                }
+            }
+        });
+        waitCompleted(5);
+    }
+
+    private void readBenchmarkOptions() {
+        benchmarkOptions = new DataMap();
+        Object options = testOptions != null ? testOptions.get("benchmark") : null;
+        if (options instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) options).entrySet()) {
+                benchmarkOptions.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        recordCount = option("recordCount", 1000000).longValue();
+        //The source reads the same key, make sure both sides use the same count.
+        benchmarkOptions.put("recordCount", recordCount);
+        targetCount = option("targetCount", 1).intValue();
+        warmupIterations = option("warmupIterations", 1).intValue();
+        iterations = option("iterations", 3).intValue();
+        timeoutSeconds = option("timeoutSeconds", 600).longValue();
+        Assertions.assertTrue(recordCount > 0, "recordCount should be positive");
+        Assertions.assertTrue(targetCount > 0, "targetCount should be positive");
+        Assertions.assertTrue(iterations > 0, "iterations should be positive");
+    }
+
+    private Number option(String key, Number defaultValue) {
+        Object value = benchmarkOptions.get(key);
+        if (value instanceof Number)
+            return (Number) value;
+        if (value != null)
+            return Double.valueOf(value.toString());
+        return defaultValue;
+    }
+
+    private void runBenchmark(TapNodeInfo nodeInfo) throws Throwable {
+        readBenchmarkOptions();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("pdkId", nodeInfo.getTapNodeSpecification().getId());
+        report.put("sourcePdkId", sourcePdkId());
+        report.put("testClass", getClass().getName());
+        report.put("startTime", new Date().toInstant().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("maxMemory", Runtime.getRuntime().maxMemory());
+        report.put("options", benchmarkOptions);
+
+        List<Map<String, Object>> iterationResults = new ArrayList<>();
+        List<BenchmarkRecorder> measuredRecorders = new ArrayList<>();
+        List<Double> throughputs = new ArrayList<>();
+        long gcMillis = 0;
+        long allocatedBytes = 0;
+        long millis = 0;
+        for (int i = 0; i < warmupIterations + iterations; i++) {
+            boolean warmup = i < warmupIterations;
+            BenchmarkRecorder recorder = new BenchmarkRecorder(recordCount * targetCount);
+            Map<String, Object> result = runIteration(nodeInfo, i, recorder);
+            if (result == null)
+                return;
+            result.put("warmup", warmup);
+            iterationResults.add(result);
+            TapLogger.info(PERFORMANCE_TAG, "Iteration {}{}: {}", i, warmup ? " (warmup)" : "", result);
+            if (!warmup) {
+                measuredRecorders.add(recorder);
+                throughputs.add((Double) result.get("throughput"));
+                gcMillis += (Long) result.get("gcMillis");
+                allocatedBytes += (Long) result.get("allocatedBytes");
+                millis += (Long) result.get("millis");
+            }
+        }
+        report.put("iterations", iterationResults);
+
+        BenchmarkRecorder total = new BenchmarkRecorder(0);
+        for (BenchmarkRecorder recorder : measuredRecorders)
+            total.merge(recorder);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        double mean = 0;
+        for (double throughput : throughputs)
+            mean += throughput / throughputs.size();
+        summary.put("throughputMean", mean);
+        summary.put("throughputMin", Collections.min(throughputs));
+        summary.put("throughputMax", Collections.max(throughputs));
+        summary.putAll(total.toMap());
+        summary.put("gcMillis", gcMillis);
+        summary.put("gcTimeRatio", millis > 0 ? (double) gcMillis / millis : 0);
+        summary.put("allocationRateMBPerSecond", millis > 0 ? allocatedBytes / 1048576.0 / millis * 1000 : 0);
+        report.put("summary", summary);
+        TapLogger.info(PERFORMANCE_TAG, "Summary of {} iterations: {}", iterations, summary);
+
+        writeReport(report);
+        completed();
+    }
+
+    /**
+     * Run the data flow from the benchmark source to targetCount targets until every target has written all the events.
+     *
+     * @return the result of the iteration, null if the test failed.
+     */
+    private Map<String, Object> runIteration(TapNodeInfo nodeInfo, int iteration, BenchmarkRecorder recorder) throws Throwable {
+        TapNodeSpecification spec = nodeInfo.getTapNodeSpecification();
+        DAGDescriber dataFlowDescriber = new DAGDescriber();
+        dataFlowDescriber.setId("benchmarkTest->" + spec.getId() + "_" + iteration);
+        String tableId = testTableName(dataFlowDescriber.getId());
+
+        List<TapDAGNodeEx> nodes = new ArrayList<>();
+        nodes.add(new TapDAGNodeEx().id(SOURCE_NODE_ID).pdkId(sourcePdkId()).group("io.tapdata.connector").type(TapDAGNode.TYPE_SOURCE).version("1.0-SNAPSHOT").
+                table(new TapTable("tdd-table")).connectionConfig(benchmarkOptions));
+        List<List<String>> edges = new ArrayList<>();
+        List<String> targetNodeIds = new ArrayList<>();
+        for (int t = 0; t < targetCount; t++) {
+            String targetNodeId = "t" + (t + 2);
+            targetNodeIds.add(targetNodeId);
+            nodes.add(new TapDAGNodeEx().id(targetNodeId).pdkId(spec.getId()).group(spec.getGroup()).type(TapDAGNode.TYPE_TARGET).version(spec.getVersion()).
+                    table(new TapTable(targetCount == 1 ? tableId : tableId + "_" + t)).connectionConfig(connectionOptions));
+            edges.add(Arrays.asList(SOURCE_NODE_ID, targetNodeId));
+        }
+        dataFlowDescriber.setNodes(nodes);
+        dataFlowDescriber.setDag(edges);
+        dataFlowDescriber.setJobOptions(new JobOptions()
+                .actionsBeforeStart(Arrays.asList(JobOptions.ACTION_DROP_TABLE, JobOptions.ACTION_CREATE_TABLE))
+                .eventBatchSize(option("eventBatchSize", 1000).intValue())
+                .queueSize(option("queueSize", 20).intValue())
+                .queueBatchSize(option("queueBatchSize", 10).intValue())
+                .queueBatchEvents(option("queueBatchEvents", 0).intValue())
+                .queueBatchBytes(option("queueBatchBytes", 0).longValue())
+                .queueLingerMillis(option("queueLingerMillis", 0).longValue())
+                .traceSampleInterval(option("traceSampleInterval", 1000).intValue())
+                .coalesceRecordEvents(false));
+
+        dag = dataFlowDescriber.toDag();
+        Assertions.assertNotNull(dag, "DAG is not generated for benchmark");
+        CountDownLatch finished = new CountDownLatch(1);
+        JvmSnapshot[] start = new JvmSnapshot[1];
+        long[] startTime = new long[1];
+        EventTracer[] eventTracer = new EventTracer[1];
+        DataFlowEngine.getInstance().startDataFlow(dag, dataFlowDescriber.getJobOptions(), (fromState, toState, dataFlowWorker) -> {
+            if (toState.equals(DataFlowWorker.STATE_INITIALIZING)) {
+                //The source starts reading after initialized, so every write goes through the recorder.
+                for (String targetNodeId : targetNodeIds) {
+                    TargetNode targetNode = dataFlowWorker.getTargetNodeDriver(targetNodeId).getTargetNode();
+                    ConnectorFunctions connectorFunctions = targetNode.getConnectorFunctions();
+                    WriteRecordFunction writeRecordFunction = connectorFunctions.getWriteRecordFunction();
+                    $(() -> Assertions.assertNotNull(writeRecordFunction, "WriteRecord is a must to implement a Target"));
+                    if (writeRecordFunction == null)
+                        return;
+                    connectorFunctions.supportWriteRecord((connectorContext, recordEvents, consumer) -> {
+                        writeRecordFunction.writeDML(connectorContext, recordEvents, consumer);
+                        if (recorder.record(recordEvents, System.currentTimeMillis()))
+                            finished.countDown();
+                    });
+                }
+                eventTracer[0] = dataFlowWorker.getEventTracer();
+                start[0] = JvmSnapshot.take();
+                startTime[0] = System.nanoTime();
+            }
+        });
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (!finished.await(1, TimeUnit.SECONDS)) {
+            if (isCompleted()) {
+                DataFlowEngine.getInstance().stopDataFlow(dag.getId());
+                return null;
+            }
+            if (System.nanoTime() > deadline) {
+                DataFlowEngine.getInstance().stopDataFlow(dag.getId());
+                throw new TimeoutException("Benchmark iteration " + iteration + " is not finished in " + timeoutSeconds + " seconds, written " + recorder.getWritten() + " of " + recordCount * targetCount + " events");
+            }
+        }
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime[0]));
+        JvmSnapshot end = JvmSnapshot.take();
+        DataFlowEngine.getInstance().stopDataFlow(dag.getId());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("iteration", iteration);
+        result.put("millis", millis);
+        result.put("throughput", recorder.getWritten() * 1000.0 / millis);
+        result.put("throughputPerTarget", recorder.getWritten() * 1000.0 / millis / targetCount);
+        result.putAll(recorder.toMap());
+        result.put("gcCount", end.gcCount - start[0].gcCount);
+        result.put("gcMillis", end.gcMillis - start[0].gcMillis);
+        long allocatedBytes = end.allocatedSince(start[0]);
+        result.put("allocatedBytes", allocatedBytes);
+        result.put("allocationRateMBPerSecond", allocatedBytes >= 0 ? allocatedBytes / 1048576.0 / millis * 1000 : -1);
+        if (eventTracer[0] != null)
+            result.put("stageLatency", eventTracer[0].toMap());
+        return result;
+    }
+
+    private void writeReport(Map<String, Object> report) {
+        String json = InstanceFactory.instance(JsonParser.class).toJson(report);
+        String reportFile = benchmarkOptions.getValue("reportFile", "tdd-benchmark-report.json");
+        try {
+            FileUtils.writeStringToFile(new File(reportFile), json, StandardCharsets.UTF_8);
+            TapLogger.info(PERFORMANCE_TAG, "Benchmark report is written to {}", new File(reportFile).getAbsolutePath());
+        } catch (Throwable throwable) {
+            TapLogger.error(TAG, "Write benchmark report to {} failed, {}, report {}", reportFile, throwable.getMessage(), json);
+        }
+    }
+
+    /**
+     * GC count and time of all the collectors, and the allocated bytes of every thread at a moment.
+     */
+    private static class JvmSnapshot {
+        long gcCount;
+        long gcMillis;
+        Map<Long, Long> threadAllocatedBytes = new HashMap<>();
+
+        static JvmSnapshot take() {
+            JvmSnapshot snapshot = new JvmSnapshot();
+            for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                snapshot.gcCount += Math.max(0, gcBean.getCollectionCount());
+                snapshot.gcMillis += Math.max(0, gcBean.getCollectionTime());
+            }
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                    long[] threadIds = sunThreadMXBean.getAllThreadIds();
+                    long[] allocatedBytes = sunThreadMXBean.getThreadAllocatedBytes(threadIds);
+                    for (int i = 0; i < threadIds.length; i++) {
+                        if (allocatedBytes[i] >= 0)
+                            snapshot.threadAllocatedBytes.put(threadIds[i], allocatedBytes[i]);
+                    }
+                }
+            }
+            return snapshot;
+        }
+
+        /**
+         * @return the bytes allocated by the threads alive now since the start snapshot, -1 if not supported by the JVM.
+         */
+        long allocatedSince(JvmSnapshot start) {
+            if (threadAllocatedBytes.isEmpty())
+                return -1;
+            long allocated = 0;
+            for (Map.Entry<Long, Long> entry : threadAllocatedBytes.entrySet()) {
+                allocated += entry.getValue() - start.threadAllocatedBytes.getOrDefault(entry.getKey(), 0L);
+            }
+            return allocated;
+        }
+    }
+}
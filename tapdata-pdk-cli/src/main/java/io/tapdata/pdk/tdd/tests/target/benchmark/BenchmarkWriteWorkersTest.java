@@ -0,0 +1,208 @@
+package io.tapdata.pdk.tdd.tests.target.benchmark;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.DataMap;
+import io.tapdata.pdk.apis.functions.ConnectorFunctions;
+import io.tapdata.pdk.apis.functions.connector.source.BatchReadFunction;
+import io.tapdata.pdk.apis.spec.TapNodeSpecification;
+import io.tapdata.pdk.cli.entity.DAGDescriber;
+import io.tapdata.pdk.core.dag.TapDAGNode;
+import io.tapdata.pdk.core.tapnode.TapNodeInfo;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import io.tapdata.pdk.core.workflow.engine.DataFlowEngine;
+import io.tapdata.pdk.core.workflow.engine.DataFlowWorker;
+import io.tapdata.pdk.core.workflow.engine.JobOptions;
+import io.tapdata.pdk.core.workflow.engine.TapDAGNodeEx;
+import io.tapdata.pdk.tdd.core.PDKTestBase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Run the records of the tdd benchmark source into a stand-in of the target, which sleeps writeLatencyMillis for every writeRecord call,
+ * with the write workers of the target node in turn, the throughput should scale with the workers and the events of a key are written in order.
+ *
+ * The keys of the "benchmark" object in the "test" section are the same as BenchmarkTest, besides,
+ * writeWorkers: the list of the worker counts to run, default is [1, 2, 4, 8].
+ * writeLatencyMillis: the latency of one writeRecord call of the stand-in, default is 10.
+ * minScaling: the throughput of the most workers divided by the one of the least workers should be no less than it, default is 0.6 of the ratio of the worker counts.
+ * recordCount is 50000 by default for this test.
+ * The target which doesn't declare ConnectorFunctions#supportParallelWrite is written in one thread, the scaling is not verified for it.
+ */
+@DisplayName("Write the benchmark records with parallel write workers of a high latency target")
+public class BenchmarkWriteWorkersTest extends PDKTestBase {
+    private static final String TAG = BenchmarkWriteWorkersTest.class.getSimpleName();
+    private static final String SOURCE_NODE_ID = "s1";
+    private static final String TARGET_NODE_ID = "t2";
+    private static final String SEQUENCE = "benchmarkSequence";
+    private volatile boolean parallelWrite;
+
+    @Test
+    @DisplayName("Throughput scales with the write workers and the order of a key is kept")
+    void writeWorkersTest() throws Throwable {
+        consumeQualifiedTapNodeInfo(nodeInfo -> {
+            try {
+                runWorkers(nodeInfo);
+            } catch (Throwable throwable) {
+                throwable.printStackTrace();
+                CommonUtils.logError(TAG, "Write workers test failed", throwable);
+                if (throwable instanceof AssertionFailedError) {
+                    $(() -> {
+                        throw ((AssertionFailedError) throwable);
+                    });
+                } else {
+                    $(() -> Assertions.fail("Unknown error " + throwable.getMessage()));
+                }
+            }
+        });
+        waitCompleted(5);
+    }
+
+    private void runWorkers(TapNodeInfo nodeInfo) throws Throwable {
+        DataMap benchmarkOptions = new DataMap();
+        Object options = testOptions != null ? testOptions.get("benchmark") : null;
+        if (options instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) options).entrySet()) {
+                benchmarkOptions.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        long recordCount = option(benchmarkOptions, "recordCount", 50000).longValue();
+        benchmarkOptions.put("recordCount", recordCount);
+        List<Integer> writeWorkers = new ArrayList<>();
+        for (Object workers : benchmarkOptions.getValue("writeWorkers", Arrays.<Object>asList(1, 2, 4, 8))) {
+            writeWorkers.add(Integer.parseInt(String.valueOf(workers)));
+        }
+        Collections.sort(writeWorkers);
+        Assertions.assertFalse(writeWorkers.isEmpty(), "writeWorkers should not be empty");
+
+        Map<Integer, Double> workersThroughput = new LinkedHashMap<>();
+        for (int workers : writeWorkers) {
+            double throughput = runWorkers(nodeInfo, benchmarkOptions, recordCount, workers);
+            workersThroughput.put(workers, throughput);
+            TapLogger.info(TAG, "{} write workers, throughput {} events per second", workers, throughput);
+            if (!parallelWrite) {
+                TapLogger.info(TAG, "Target {} doesn't support parallel write, the write workers fall back to 1, scaling is not verified", nodeInfo.getTapNodeSpecification().getId());
+                completed();
+                return;
+            }
+        }
+        TapLogger.info(TAG, "Throughput of the write workers {}", workersThroughput);
+
+        int leastWorkers = writeWorkers.get(0);
+        int mostWorkers = writeWorkers.get(writeWorkers.size() - 1);
+        double scaling = workersThroughput.get(mostWorkers) / workersThroughput.get(leastWorkers);
+        double minScaling = option(benchmarkOptions, "minScaling", 0.6 * mostWorkers / leastWorkers).doubleValue();
+        Assertions.assertTrue(scaling >= minScaling, "Throughput of " + mostWorkers + " workers is " + scaling + " times of " + leastWorkers + " workers, expect " + minScaling + " at least, " + workersThroughput);
+        completed();
+    }
+
+    /**
+     * @return events written per second.
+     */
+    private double runWorkers(TapNodeInfo nodeInfo, DataMap benchmarkOptions, long recordCount, int workers) throws Throwable {
+        long writeLatencyMillis = option(benchmarkOptions, "writeLatencyMillis", 10).longValue();
+        long timeoutSeconds = option(benchmarkOptions, "timeoutSeconds", 600).longValue();
+
+        TapNodeSpecification spec = nodeInfo.getTapNodeSpecification();
+        DAGDescriber dataFlowDescriber = new DAGDescriber();
+        dataFlowDescriber.setId("benchmarkWriteWorkersTest->" + spec.getId() + "_" + workers);
+        String tableId = testTableName(dataFlowDescriber.getId());
+        List<TapDAGNodeEx> nodes = new ArrayList<>();
+        nodes.add(new TapDAGNodeEx().id(SOURCE_NODE_ID).pdkId("tdd-benchmark-source").group("io.tapdata.connector").type(TapDAGNode.TYPE_SOURCE).version("1.0-SNAPSHOT").
+                table(new TapTable("tdd-table")).connectionConfig(benchmarkOptions));
+        nodes.add(new TapDAGNodeEx().id(TARGET_NODE_ID).pdkId(spec.getId()).group(spec.getGroup()).type(TapDAGNode.TYPE_TARGET).version(spec.getVersion()).
+                table(new TapTable(tableId)).connectionConfig(connectionOptions));
+        dataFlowDescriber.setNodes(nodes);
+        dataFlowDescriber.setDag(Arrays.asList(Arrays.asList(SOURCE_NODE_ID, TARGET_NODE_ID)));
+        dataFlowDescriber.setJobOptions(new JobOptions()
+                .actionsBeforeStart(Arrays.asList(JobOptions.ACTION_DROP_TABLE, JobOptions.ACTION_CREATE_TABLE))
+                .eventBatchSize(option(benchmarkOptions, "eventBatchSize", 100).intValue())
+                .queueSize(option(benchmarkOptions, "queueSize", 20).intValue())
+                .queueBatchSize(option(benchmarkOptions, "queueBatchSize", 1).intValue())
+                .writeWorkers(workers)
+                .coalesceRecordEvents(false));
+
+        dag = dataFlowDescriber.toDag();
+        Assertions.assertNotNull(dag, "DAG is not generated for write workers test");
+        AtomicLong sequence = new AtomicLong();
+        AtomicLong written = new AtomicLong();
+        AtomicLong firstWriteTime = new AtomicLong();
+        AtomicLong lastWriteTime = new AtomicLong();
+        Map<Object, Long> keySequenceMap = new ConcurrentHashMap<>();
+        List<String> outOfOrders = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch finished = new CountDownLatch(1);
+        DataFlowEngine.getInstance().startDataFlow(dag, dataFlowDescriber.getJobOptions(), (fromState, toState, dataFlowWorker) -> {
+            if (toState.equals(DataFlowWorker.STATE_INITIALIZING)) {
+                //The sequence of reading, the events of a key should be written in the sequence.
+                ConnectorFunctions sourceFunctions = dataFlowWorker.getSourceNodeDriver(SOURCE_NODE_ID).getSourceNode().getConnectorFunctions();
+                BatchReadFunction batchReadFunction = sourceFunctions.getBatchReadFunction();
+                sourceFunctions.supportBatchRead((connectorContext, offsetState, eventBatchSize, consumer) ->
+                        batchReadFunction.batchRead(connectorContext, offsetState, eventBatchSize, events -> {
+                            for (TapEvent event : events)
+                                event.addInfo(SEQUENCE, sequence.incrementAndGet());
+                            consumer.accept(events);
+                        }));
+                //The stand-in of a remote target, the latency is per call and the calls can run in parallel.
+                ConnectorFunctions targetFunctions = dataFlowWorker.getTargetNodeDriver(TARGET_NODE_ID).getTargetNode().getConnectorFunctions();
+                parallelWrite = targetFunctions.isSupportParallelWrite();
+                targetFunctions.supportWriteRecord((connectorContext, recordEvents, consumer) -> {
+                    firstWriteTime.compareAndSet(0, System.nanoTime());
+                    Thread.sleep(writeLatencyMillis);
+                    for (TapRecordEvent recordEvent : recordEvents) {
+                        Object key = key(recordEvent);
+                        Long eventSequence = (Long) recordEvent.getInfo(SEQUENCE);
+                        Long last = keySequenceMap.put(key, eventSequence);
+                        if (last != null && last >= eventSequence && outOfOrders.size() < 10)
+                            outOfOrders.add("key " + key + " sequence " + eventSequence + " is written after " + last);
+                    }
+                    lastWriteTime.set(System.nanoTime());
+                    if (written.addAndGet(recordEvents.size()) >= recordCount)
+                        finished.countDown();
+                });
+            }
+        });
+
+        boolean done = finished.await(timeoutSeconds, TimeUnit.SECONDS);
+        DataFlowEngine.getInstance().stopDataFlow(dag.getId());
+        if (!done)
+            throw new TimeoutException(workers + " write workers are not finished in " + timeoutSeconds + " seconds, written " + written.get() + " of " + recordCount + " events");
+        Assertions.assertEquals(recordCount, written.get(), "Every event should be written once");
+        Assertions.assertTrue(outOfOrders.isEmpty(), "The events of a key are written out of order with " + workers + " workers, " + outOfOrders);
+        long nanos = Math.max(1, lastWriteTime.get() - firstWriteTime.get());
+        return written.get() * 1000000000.0 / nanos;
+    }
+
+    private static Object key(TapRecordEvent recordEvent) {
+        Map<String, Object> image = null;
+        if (recordEvent instanceof TapInsertRecordEvent)
+            image = ((TapInsertRecordEvent) recordEvent).getAfter();
+        else if (recordEvent instanceof TapUpdateRecordEvent)
+            image = ((TapUpdateRecordEvent) recordEvent).getAfter();
+        else if (recordEvent instanceof TapDeleteRecordEvent)
+            image = ((TapDeleteRecordEvent) recordEvent).getBefore();
+        return image != null ? image.get("id") : null;
+    }
+
+    private Number option(DataMap benchmarkOptions, String key, Number defaultValue) {
+        Object value = benchmarkOptions.get(key);
+        if (value instanceof Number)
+            return (Number) value;
+        if (value != null)
+            return Double.valueOf(value.toString());
+        return defaultValue;
+    }
+}
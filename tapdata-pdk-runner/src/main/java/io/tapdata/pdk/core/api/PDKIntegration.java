@@ -21,6 +21,8 @@ import io.tapdata.pdk.core.monitor.PDKMethod;
 import io.tapdata.pdk.core.tapnode.TapNodeInstance;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PDKIntegration {
     private static TapConnectorManager tapConnectorManager;
@@ -182,6 +184,7 @@ public class PDKIntegration {
 
     public abstract static class ConnectorBuilder<T extends Node> {
         protected TapTable table;
+        protected List<TapTable> tables;
         protected DataMap nodeConfig;
         protected String dagId;
         protected String associateId;
@@ -242,7 +245,9 @@ public class PDKIntegration {
             this.version = node.getVersion();
             this.connectionConfig = node.getConnectionConfig();
             this.associateId = node.getId();
-            this.table = node.getTable();
+            List<TapTable> allTables = node.allTables();
+            this.table = node.getTable() != null ? node.getTable() : (allTables.isEmpty() ? null : allTables.get(0));
+            this.tables = node.getTables();
             this.nodeConfig = node.getNodeConfig();
             return this;
         }
@@ -256,6 +261,27 @@ public class PDKIntegration {
             return this;
         }
 
+        /**
+         * Multiple tables served by one connector instance, the first one will be the table if table is not specified.
+         */
+        public ConnectorBuilder<T> withTables(List<TapTable> tables) {
+            this.tables = tables;
+            if(table == null && tables != null && !tables.isEmpty())
+                this.table = tables.get(0);
+            return this;
+        }
+
+        protected TapConnectorContext createConnectorContext(TapNodeInstance nodeInstance) {
+            TapConnectorContext connectorContext = new TapConnectorContext(nodeInstance.getTapNodeInfo().getTapNodeSpecification(), table, connectionConfig, nodeConfig);
+            List<TapTable> contextTables = new ArrayList<>();
+            if(tables != null && !tables.isEmpty())
+                contextTables.addAll(tables);
+            else
+                contextTables.add(table);
+            connectorContext.setTables(contextTables);
+            return connectorContext;
+        }
+
         public ConnectorBuilder<T> withNodeConfig(DataMap nodeConfig) {
             this.nodeConfig = nodeConfig;
             return this;
@@ -296,7 +322,7 @@ public class PDKIntegration {
             sourceNode.dagId = dagId;
             sourceNode.associateId = associateId;
             sourceNode.tapNodeInfo = nodeInstance.getTapNodeInfo();
-            sourceNode.connectorContext = new TapConnectorContext(nodeInstance.getTapNodeInfo().getTapNodeSpecification(), table, connectionConfig, nodeConfig);
+            sourceNode.connectorContext = createConnectorContext(nodeInstance);
 
             PDKInvocationMonitor.getInstance().invokePDKMethod(PDKMethod.REGISTER_CAPABILITIES,
                     sourceNode::registerCapabilities,
@@ -316,7 +342,7 @@ public class PDKIntegration {
             targetNode.associateId = associateId;
             targetNode.init((TapConnector) nodeInstance.getTapNode());
             targetNode.tapNodeInfo = nodeInstance.getTapNodeInfo();
-            targetNode.connectorContext = new TapConnectorContext(nodeInstance.getTapNodeInfo().getTapNodeSpecification(), table, connectionConfig, nodeConfig);
+            targetNode.connectorContext = createConnectorContext(nodeInstance);
 
             PDKInvocationMonitor.getInstance().invokePDKMethod(PDKMethod.REGISTER_CAPABILITIES,
                     targetNode::registerCapabilities,
@@ -352,7 +378,7 @@ public class PDKIntegration {
             if(nodeInstance == null)
                 throw new CoreException(ErrorCodes.PDK_PROCESSOR_NOTFOUND, MessageFormat.format("SourceAndTarget not found for pdkId {0} group {1} version {2} for associateId {3}", pdkId, group, version, associateId));
 
-            TapConnectorContext nodeContext = new TapConnectorContext(nodeInstance.getTapNodeInfo().getTapNodeSpecification(), table, connectionConfig, nodeConfig);
+            TapConnectorContext nodeContext = createConnectorContext(nodeInstance);
 
             ConnectorFunctions connectorFunctions = new ConnectorFunctions();
             TapCodecRegistry codecRegistry = new TapCodecRegistry();
@@ -5,6 +5,7 @@ import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.DataMap;
+import io.tapdata.entity.utils.IndexedRecordMap;
 import io.tapdata.entity.utils.TapUtils;
 import io.tapdata.entity.annotations.Implementation;
 import io.tapdata.pdk.core.dag.TapDAGNode;
@@ -32,7 +33,10 @@ public class TapUtilsImpl implements TapUtils {
     }
 
     public Object clone(Object obj) {
-        if(obj instanceof Map) {
+        if(obj instanceof IndexedRecordMap) {
+            //Keep the compact array layout for the cloned record
+            return ((IndexedRecordMap) obj).copy(this::clone);
+        } else if(obj instanceof Map) {
             Map<?, ?> map = (Map<?, ?>) obj;
             Map<Object, Object> cloneMap = new LinkedHashMap<>();
             for (Map.Entry<?, ?> entry : map.entrySet()) {
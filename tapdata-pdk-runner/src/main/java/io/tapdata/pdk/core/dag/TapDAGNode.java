@@ -4,6 +4,7 @@ import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.DataMap;
 import io.tapdata.pdk.core.tapnode.TapNodeInfo;
 
+import java.util.Collections;
 import java.util.List;
 
 public class TapDAGNode {
@@ -19,12 +20,21 @@ public class TapDAGNode {
     public static final String TYPE_SOURCE_TARGET = TapNodeInfo.NODE_TYPE_SOURCE_TARGET;
     protected String type;
     protected TapTable table;
+    /**
+     * Multiple tables for one node, share one connector instance. Either table or tables is required for source and target.
+     */
+    protected List<TapTable> tables;
+    /**
+     * Offsets of the source node to resume from, given by SourceNodeDriver#getBatchOffset and SourceNodeDriver#getStreamOffset when the data flow stopped.
+     */
+    protected String batchOffset;
+    protected String streamOffset;
     protected List<String> parentNodeIds;
     protected List<String> childNodeIds;
 
     @Override
     public String toString() {
-        return type + " " + id + ": " + (table != null ? table.getName() + " on " : "") + pdkId + "@" + group + "-v" + version;
+        return type + " " + id + ": " + (table != null ? table.getName() + " on " : "") + (tables != null ? tables.size() + " tables on " : "") + pdkId + "@" + group + "-v" + version;
     }
 
     public String verify() {
@@ -38,13 +48,30 @@ public class TapDAGNode {
             return "missing type";
         if(version == null)
             return "missing version";
-        if(!type.equals(TYPE_PROCESSOR) && table == null)
-            return "missing table";
-        if(!type.equals(TYPE_PROCESSOR) && table.getName() == null)
-            return "missing table name";
+        if(!type.equals(TYPE_PROCESSOR)) {
+            if(table == null && (tables == null || tables.isEmpty()))
+                return "missing table";
+            if(table != null && table.getName() == null)
+                return "missing table name";
+            if(tables != null) {
+                for(TapTable theTable : tables) {
+                    if(theTable == null || theTable.getName() == null)
+                        return "missing table name in tables";
+                }
+            }
+        }
         return null;
     }
 
+    /**
+     * @return tables if specified, otherwise table in a list.
+     */
+    public List<TapTable> allTables() {
+        if(tables != null && !tables.isEmpty())
+            return tables;
+        return table != null ? Collections.singletonList(table) : Collections.emptyList();
+    }
+
     public TapTable getTable() {
         return table;
     }
@@ -53,6 +80,30 @@ public class TapDAGNode {
         this.table = table;
     }
 
+    public List<TapTable> getTables() {
+        return tables;
+    }
+
+    public void setTables(List<TapTable> tables) {
+        this.tables = tables;
+    }
+
+    public String getBatchOffset() {
+        return batchOffset;
+    }
+
+    public void setBatchOffset(String batchOffset) {
+        this.batchOffset = batchOffset;
+    }
+
+    public String getStreamOffset() {
+        return streamOffset;
+    }
+
+    public void setStreamOffset(String streamOffset) {
+        this.streamOffset = streamOffset;
+    }
+
     public String getGroup() {
         return group;
     }
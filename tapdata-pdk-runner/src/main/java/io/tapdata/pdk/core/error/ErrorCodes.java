@@ -5,6 +5,9 @@ public interface ErrorCodes {
     int COMMON_UNKNOWN = 10001;
     int COMMON_SINGLE_THREAD_QUEUE_STOPPED = 10002;
     int COMMON_SINGLE_THREAD_BLOCKING_QUEUE_NO_EXECUTOR = 10003;
+    int COMMON_BINARY_SERIALIZE_FAILED = 10004;
+    int COMMON_BINARY_DESERIALIZE_FAILED = 10005;
+    int COMMON_QUEUE_OVERFLOW_FAILED = 10006;
 
     int MAIN_DAG_IS_ILLEGAL = 20000;
     int MAIN_CONNECTOR_CLASS_INITIATE_FAILED = 20001;
@@ -51,4 +54,7 @@ public interface ErrorCodes {
     int SOURCE_EXCEEDED_BATCH_SIZE = 80001;
     int SOURCE_TABLE_FIELD_TYPES_GENERATOR_NOT_FOUND = 80002;
     int SOURCE_TARGET_TYPES_GENERATOR_NOT_FOUND = 80003;
+    int SOURCE_READ_STOPPED = 80004;
+    int SOURCE_BATCH_OFFSET_TABLE_NOT_FOUND = 80005;
+    int SOURCE_MULTIPLE_TABLES_STREAM_READ_NOT_SUPPORTED = 80006;
 }
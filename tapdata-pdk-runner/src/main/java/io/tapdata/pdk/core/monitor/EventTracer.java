@@ -0,0 +1,149 @@
+package io.tapdata.pdk.core.monitor;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.pdk.core.utils.queue.QueueTracer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trace the latency of the sampled events through the stages of a data flow.
+ *
+ * The source samples one of every sampleInterval events and stamps the read time into TapEvent#traceNanos,
+ * every stage after stamps its time and records the latency since the previous stamp into the histogram of "scope/stage",
+ * the scope is the node id for the stages of the drivers, or the queue name for the stages of the queues (edges).
+ * The written stage records the latency since read into "scope/endToEnd" too.
+ */
+public class EventTracer {
+    public static final int STAGE_READ = 0;
+    public static final int STAGE_ENQUEUED = 1;
+    public static final int STAGE_DEQUEUED = 2;
+    public static final int STAGE_PROCESSED = 3;
+    public static final int STAGE_CONVERTED = 4;
+    public static final int STAGE_WRITTEN = 5;
+    private static final String[] STAGE_NAMES = {"read", "enqueued", "dequeued", "processed", "converted", "written"};
+    /**
+     * The slot keeps the latest stamp, an event may pass the same stage more than once, like the queues after a processor.
+     */
+    private static final int SLOT_LAST = STAGE_NAMES.length;
+    private static final String END_TO_END = "endToEnd";
+
+    private final int sampleInterval;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, StageRecorder> stageRecorders = new ConcurrentHashMap<>();
+
+    /**
+     * @param sampleInterval trace one of every sampleInterval events, 1 traces all the events.
+     */
+    public EventTracer(int sampleInterval) {
+        if(sampleInterval <= 0)
+            throw new IllegalArgumentException("sampleInterval should be positive, actual " + sampleInterval);
+        this.sampleInterval = sampleInterval;
+    }
+
+    public class StageRecorder {
+        private final int stage;
+        private final LatencyHistogram histogram;
+        private final LatencyHistogram endToEndHistogram;
+
+        StageRecorder(String scope, int stage) {
+            this.stage = stage;
+            histogram = histogram(scope, STAGE_NAMES[stage]);
+            endToEndHistogram = stage == STAGE_WRITTEN ? histogram(scope, END_TO_END) : null;
+        }
+
+        public void stamp(TapEvent event) {
+            long[] traceNanos = event.getTraceNanos();
+            if(traceNanos == null)
+                return;
+            long now = System.nanoTime();
+            histogram.record(now - traceNanos[SLOT_LAST]);
+            traceNanos[stage] = now;
+            traceNanos[SLOT_LAST] = now;
+            if(endToEndHistogram != null)
+                endToEndHistogram.record(now - traceNanos[STAGE_READ]);
+        }
+
+        public void stamp(List<? extends TapEvent> events) {
+            for(TapEvent event : events) {
+                stamp(event);
+            }
+        }
+    }
+
+    /**
+     * Sample the events just read by the source, the histogram of the read stage only counts the sampled events.
+     */
+    public void sample(List<TapEvent> events, String sourceNodeId) {
+        LatencyHistogram histogram = null;
+        for(TapEvent event : events) {
+            if(sequence.getAndIncrement() % sampleInterval != 0)
+                continue;
+            long now = System.nanoTime();
+            long[] traceNanos = new long[SLOT_LAST + 1];
+            traceNanos[STAGE_READ] = now;
+            traceNanos[SLOT_LAST] = now;
+            event.setTraceNanos(traceNanos);
+            if(histogram == null)
+                histogram = histogram(sourceNodeId, STAGE_NAMES[STAGE_READ]);
+            histogram.record(0);
+        }
+    }
+
+    public StageRecorder stage(String scope, int stage) {
+        return stageRecorders.computeIfAbsent(scope + "/" + STAGE_NAMES[stage], key -> new StageRecorder(scope, stage));
+    }
+
+    /**
+     * Stamp the enqueued and dequeued stages of the events passing the queue.
+     */
+    public QueueTracer<List<TapEvent>> queueTracer(String queueName) {
+        StageRecorder enqueued = stage(queueName, STAGE_ENQUEUED);
+        StageRecorder dequeued = stage(queueName, STAGE_DEQUEUED);
+        return new QueueTracer<List<TapEvent>>() {
+            @Override
+            public void enqueued(List<TapEvent> events) {
+                enqueued.stamp(events);
+            }
+
+            @Override
+            public void dequeued(List<TapEvent> events) {
+                dequeued.stamp(events);
+            }
+        };
+    }
+
+    private LatencyHistogram histogram(String scope, String stageName) {
+        return histograms.computeIfAbsent(scope + "/" + stageName, key -> new LatencyHistogram());
+    }
+
+    /**
+     * @return the histogram of "scope/stage", null if no recorder is created for it.
+     */
+    public LatencyHistogram getHistogram(String scope, int stage) {
+        return histograms.get(scope + "/" + STAGE_NAMES[stage]);
+    }
+
+    public LatencyHistogram getEndToEndHistogram(String scope) {
+        return histograms.get(scope + "/" + END_TO_END);
+    }
+
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * "scope/stage" to the histogram in map, sorted by the key.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new TreeMap<>();
+        for(Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().toMap());
+        }
+        return map;
+    }
+}
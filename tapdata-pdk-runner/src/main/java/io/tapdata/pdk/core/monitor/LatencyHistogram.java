@@ -0,0 +1,102 @@
+package io.tapdata.pdk.core.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram in nanoseconds, safe to record from multiple threads without lock.
+ *
+ * Buckets are log-linear, every power of two is split into 16 sub-buckets, so a percentile is at most 1/16 larger than the exact value.
+ * The values less than 32 nanoseconds are exact.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    static int bucketIndex(long value) {
+        if(value < SUB_BUCKET_COUNT)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return the largest value of the bucket.
+     */
+    static long bucketValue(int index) {
+        if(index < SUB_BUCKET_COUNT)
+            return index;
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    public void record(long nanos) {
+        if(nanos < 0)
+            nanos = 0;
+        buckets.incrementAndGet(bucketIndex(nanos));
+        count.increment();
+        sum.add(nanos);
+        long currentMax = max.get();
+        while(nanos > currentMax && !max.compareAndSet(currentMax, nanos)) {
+            currentMax = max.get();
+        }
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long theCount = count.sum();
+        return theCount > 0 ? (double) sum.sum() / theCount : 0;
+    }
+
+    /**
+     * @param percent 0 ~ 100
+     * @return the latency in nanoseconds which the percent of the records are not longer than.
+     */
+    public long percentile(double percent) {
+        long total = 0;
+        for(int i = 0; i < buckets.length(); i++)
+            total += buckets.get(i);
+        if(total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percent / 100));
+        long seen = 0;
+        for(int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if(seen >= rank)
+                return Math.min(bucketValue(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Count and the latency in microseconds, for the reports.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", count());
+        map.put("meanMicros", mean() / 1000);
+        map.put("p50Micros", percentile(50) / 1000);
+        map.put("p90Micros", percentile(90) / 1000);
+        map.put("p99Micros", percentile(99) / 1000);
+        map.put("maxMicros", max() / 1000);
+        return map;
+    }
+}
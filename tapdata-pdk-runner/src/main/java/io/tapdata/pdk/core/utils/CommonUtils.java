@@ -6,12 +6,25 @@ import io.tapdata.pdk.core.error.ErrorCodes;
 import io.tapdata.pdk.core.error.QuiteException;
 import io.tapdata.pdk.core.executor.ExecutorsManager;
 
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 public class CommonUtils {
+    private static final Set<Integer> NON_TRANSIENT_ERROR_CODES = new HashSet<>(Arrays.asList(
+            ErrorCodes.COMMON_ILLEGAL_PARAMETERS,
+            ErrorCodes.COMMON_BINARY_SERIALIZE_FAILED,
+            ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED,
+            ErrorCodes.PDK_ILLEGAL_PARAMETER,
+            ErrorCodes.SOURCE_MISSING_FIELDS_IN_TABLE));
+
     public static String uuid() {
         return UUID.randomUUID().toString().replace("-", "");
     }
@@ -47,6 +60,67 @@ public class CommonUtils {
         }
     }
 
+    /**
+     * Run in the current thread, retry up to times when it fails, the interval doubles after every retry until maxIntervalMillis.
+     * The error of the last retry is thrown, as CoreException.
+     */
+    public static void autoRetry(AnyError runnable, String tag, String message, long times, long intervalMillis, long maxIntervalMillis) {
+        autoRetry(runnable, tag, message, times, intervalMillis, maxIntervalMillis, throwable -> true);
+    }
+
+    /**
+     * Same as above, only the errors accepted by retryable are retried, the others are thrown at once.
+     */
+    public static void autoRetry(AnyError runnable, String tag, String message, long times, long intervalMillis, long maxIntervalMillis, Predicate<Throwable> retryable) {
+        long retried = 0;
+        long interval = intervalMillis;
+        while(true) {
+            try {
+                runnable.run();
+                return;
+            } catch(Throwable throwable) {
+                if(retried >= times || !retryable.test(throwable)) {
+                    if(throwable instanceof CoreException) {
+                        throw (CoreException) throwable;
+                    }
+                    throw new CoreException(ErrorCodes.COMMON_UNKNOWN, message + " execute failed, " + throwable.getMessage(), throwable);
+                }
+                retried++;
+                TapLogger.warn(tag, "AutoRetry error {}, execute message {}, retry {} of {} after {} milliseconds", throwable.getMessage(), message, retried, times, interval);
+                try {
+                    Thread.sleep(interval);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new CoreException(ErrorCodes.COMMON_UNKNOWN, message + " is interrupted while waiting for retry, " + throwable.getMessage(), throwable);
+                }
+                interval = Math.min(interval * 2, maxIntervalMillis);
+            }
+        }
+    }
+
+    /**
+     * The error is transient unless itself or any of its causes is known to fail again for the same input,
+     * like a constraint violation or a syntax error of the database, or an illegal parameter.
+     */
+    public static boolean isTransientError(Throwable throwable) {
+        int depth = 0;
+        for(Throwable error = throwable; error != null && depth < 16; error = error.getCause(), depth++) {
+            if(error instanceof CoreException && NON_TRANSIENT_ERROR_CODES.contains(((CoreException) error).getCode()))
+                return false;
+            if(error instanceof SQLNonTransientException)
+                return false;
+            if(error instanceof SQLException) {
+                String sqlState = ((SQLException) error).getSQLState();
+                //Class 22 data exception, 23 integrity constraint violation, 42 syntax error or access rule violation.
+                if(sqlState != null && (sqlState.startsWith("22") || sqlState.startsWith("23") || sqlState.startsWith("42")))
+                    return false;
+            }
+            if(error instanceof IllegalArgumentException || error instanceof UnsupportedOperationException || error instanceof ClassCastException)
+                return false;
+        }
+        return true;
+    }
+
     public static void ignoreAnyError(AnyError runnable, String tag) {
         try {
             runnable.run();
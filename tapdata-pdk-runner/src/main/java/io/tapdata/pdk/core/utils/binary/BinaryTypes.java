@@ -0,0 +1,67 @@
+package io.tapdata.pdk.core.utils.binary;
+
+/**
+ * Tags of the binary event format, written as varint before each event and each value.
+ *
+ * Never change the existing numbers, the spilled files and replay logs depend on them.
+ */
+public interface BinaryTypes {
+    int EVENT_INSERT = 1;
+    int EVENT_UPDATE = 2;
+    int EVENT_DELETE = 3;
+    int EVENT_CREATE_TABLE = 10;
+    int EVENT_ALTER_TABLE = 11;
+    int EVENT_CLEAR_TABLE = 12;
+    int EVENT_DROP_TABLE = 13;
+    int EVENT_CREATE_INDEX = 14;
+    int EVENT_DELETE_INDEX = 15;
+
+    int RECORD_NULL = 0;
+    int RECORD_MAP = 1;
+    int RECORD_INDEXED_MAP = 2;
+
+    int VALUE_NULL = 0;
+    int VALUE_TRUE = 1;
+    int VALUE_FALSE = 2;
+    int VALUE_INT = 3;
+    int VALUE_LONG = 4;
+    int VALUE_DOUBLE = 5;
+    int VALUE_FLOAT = 6;
+    int VALUE_STRING = 7;
+    int VALUE_BYTES = 8;
+    int VALUE_BIG_DECIMAL = 9;
+    int VALUE_BIG_INTEGER = 10;
+    int VALUE_DATE = 11;
+    int VALUE_DATE_TIME = 12;
+    int VALUE_MAP = 13;
+    int VALUE_LIST = 14;
+    int VALUE_SHORT = 15;
+    int VALUE_BYTE = 16;
+    int VALUE_TIMESTAMP = 17;
+
+    int VALUE_TAP_STRING = 20;
+    int VALUE_TAP_NUMBER = 21;
+    int VALUE_TAP_BOOLEAN = 22;
+    int VALUE_TAP_BINARY = 23;
+    int VALUE_TAP_DATE = 24;
+    int VALUE_TAP_DATE_TIME = 25;
+    int VALUE_TAP_TIME = 26;
+    int VALUE_TAP_YEAR = 27;
+    int VALUE_TAP_ARRAY = 28;
+    int VALUE_TAP_MAP = 29;
+    int VALUE_TAP_RAW = 30;
+
+    /**
+     * Fallback for the value which implements Serializable but is not listed above.
+     */
+    int VALUE_JAVA_SERIALIZED = 40;
+
+    /**
+     * Field key written as ordinal + 1 of TapFieldIndex, 0 means the key name follows.
+     */
+    int FIELD_BY_NAME = 0;
+
+    int TAP_TYPE_NULL = 0;
+    int TAP_TYPE_FROM_SCHEMA = 1;
+    int TAP_TYPE_JSON = 2;
+}
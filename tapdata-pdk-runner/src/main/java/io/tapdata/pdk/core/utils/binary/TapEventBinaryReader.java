@@ -0,0 +1,513 @@
+package io.tapdata.pdk.core.utils.binary;
+
+import io.tapdata.entity.event.TapBaseEvent;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.ddl.index.TapCreateIndexEvent;
+import io.tapdata.entity.event.ddl.index.TapDeleteIndexEvent;
+import io.tapdata.entity.event.ddl.index.TapIndexEvent;
+import io.tapdata.entity.event.ddl.table.*;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapFieldIndex;
+import io.tapdata.entity.schema.TapIndex;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.type.TapType;
+import io.tapdata.entity.schema.value.*;
+import io.tapdata.entity.utils.IndexedRecordMap;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.JsonParser;
+import io.tapdata.pdk.core.error.CoreException;
+import io.tapdata.pdk.core.error.ErrorCodes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.Function;
+
+import static io.tapdata.pdk.core.utils.binary.BinaryTypes.*;
+
+/**
+ * Read TapEvents written by TapEventBinaryWriter from a ByteBuffer, from the buffer's position to its limit.
+ *
+ * Tables are resolved by table id with tableResolver, the resolved table must have the same fields as the one used for writing,
+ * otherwise the field ordinals can not be mapped back to names, reading the record fails by the fingerprint of the field names.
+ * If tableResolver is null or return null, a table with only id and name will be set to the event,
+ * and reading a record keyed by ordinal will fail.
+ */
+public class TapEventBinaryReader {
+    private final ByteBuffer buffer;
+    private final Function<String, TapTable> tableResolver;
+    private final Map<String, TapTable> tableCache = new HashMap<>();
+
+    public TapEventBinaryReader(ByteBuffer buffer, Function<String, TapTable> tableResolver) {
+        this.buffer = buffer;
+        this.tableResolver = tableResolver;
+    }
+
+    public boolean hasNext() {
+        return buffer.hasRemaining();
+    }
+
+    /**
+     * Read a batch written by TapEventBinaryWriter#writeList
+     */
+    public List<TapEvent> nextList() {
+        int size = readVarInt();
+        List<TapEvent> events = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            events.add(next());
+        }
+        return events;
+    }
+
+    public TapEvent next() {
+        int type = readVarInt();
+        switch (type) {
+            case EVENT_INSERT:
+                TapInsertRecordEvent insertRecordEvent = new TapInsertRecordEvent();
+                readRecordEventHeader(insertRecordEvent);
+                insertRecordEvent.setAfter(readRecord(insertRecordEvent.getTable()));
+                return insertRecordEvent;
+            case EVENT_UPDATE:
+                TapUpdateRecordEvent updateRecordEvent = new TapUpdateRecordEvent();
+                readRecordEventHeader(updateRecordEvent);
+                updateRecordEvent.setBefore(readRecord(updateRecordEvent.getTable()));
+                updateRecordEvent.setAfter(readRecord(updateRecordEvent.getTable()));
+                updateRecordEvent.setPartial(readBoolean());
+                int removedSize = readVarInt();
+                if(removedSize > 0) {
+                    List<String> removedFields = new ArrayList<>();
+                    for(int i = 0; i < removedSize - 1; i++) {
+                        removedFields.add(readString());
+                    }
+                    updateRecordEvent.setRemovedFields(removedFields);
+                }
+                return updateRecordEvent;
+            case EVENT_DELETE:
+                TapDeleteRecordEvent deleteRecordEvent = new TapDeleteRecordEvent();
+                readRecordEventHeader(deleteRecordEvent);
+                deleteRecordEvent.setBefore(readRecord(deleteRecordEvent.getTable()));
+                return deleteRecordEvent;
+            case EVENT_CREATE_TABLE:
+                return readBaseEventHeader(new TapCreateTableEvent());
+            case EVENT_ALTER_TABLE:
+                TapAlterTableEvent alterTableEvent = readBaseEventHeader(new TapAlterTableEvent());
+                readAlterTable(alterTableEvent);
+                return alterTableEvent;
+            case EVENT_CLEAR_TABLE:
+                return readBaseEventHeader(new TapClearTableEvent());
+            case EVENT_DROP_TABLE:
+                return readBaseEventHeader(new TapDropTableEvent());
+            case EVENT_CREATE_INDEX:
+            case EVENT_DELETE_INDEX:
+                TapIndexEvent indexEvent = readBaseEventHeader(type == EVENT_CREATE_INDEX ? new TapCreateIndexEvent() : new TapDeleteIndexEvent());
+                int indexSize = readVarInt();
+                if(indexSize > 0) {
+                    List<TapIndex> indexList = new ArrayList<>();
+                    for(int i = 0; i < indexSize - 1; i++) {
+                        indexList.add(readIndex());
+                    }
+                    indexEvent.setIndexList(indexList);
+                }
+                return indexEvent;
+            default:
+                throw new CoreException(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, "Unknown event type " + type + " at position " + buffer.position());
+        }
+    }
+
+    private <T extends TapBaseEvent> T readBaseEventHeader(T event) {
+        event.setTime(readNullableLong());
+        event.setReferenceTime(readNullableLong());
+        if(readBoolean()) {
+            String id = readString();
+            String name = readString();
+            event.setTable(resolveTable(id, name));
+        }
+        event.setInfo(readMap());
+        event.setTraceMap(readMap());
+        return event;
+    }
+
+    private void readRecordEventHeader(TapRecordEvent event) {
+        readBaseEventHeader(event);
+        event.setConnector(readString());
+        event.setConnectorVersion(readString());
+    }
+
+    private TapTable resolveTable(String id, String name) {
+        TapTable table = tableCache.get(id);
+        if(table == null) {
+            if(tableResolver != null)
+                table = tableResolver.apply(id);
+            if(table == null)
+                table = new TapTable(id, name);
+            tableCache.put(id, table);
+        }
+        return table;
+    }
+
+    private Map<String, Object> readRecord(TapTable table) {
+        int recordType = readVarInt();
+        if(recordType == RECORD_NULL)
+            return null;
+        TapFieldIndex fieldIndex = table != null ? table.fieldIndex() : null;
+        Map<String, Object> record;
+        int size = readVarInt();
+        if(readBoolean())
+            checkFingerprint(buffer.getLong(), fieldIndex, table);
+        if(recordType == RECORD_INDEXED_MAP && fieldIndex != null) {
+            IndexedRecordMap indexedRecordMap = new IndexedRecordMap(fieldIndex);
+            for(int i = 0; i < size; i++) {
+                int key = readVarInt();
+                if(key == FIELD_BY_NAME) {
+                    indexedRecordMap.put(readNonNullString(), readValue(null));
+                } else {
+                    int ordinal = checkOrdinal(key - 1, fieldIndex, table);
+                    indexedRecordMap.putByOrdinal(ordinal, readValue(fieldIndex.field(ordinal)));
+                }
+            }
+            return indexedRecordMap;
+        }
+        record = new LinkedHashMap<>();
+        for(int i = 0; i < size; i++) {
+            int key = readVarInt();
+            if(key == FIELD_BY_NAME) {
+                record.put(readNonNullString(), readValue(null));
+            } else {
+                int ordinal = checkOrdinal(key - 1, fieldIndex, table);
+                record.put(fieldIndex.name(ordinal), readValue(fieldIndex.field(ordinal)));
+            }
+        }
+        return record;
+    }
+
+    private void checkFingerprint(long fingerprint, TapFieldIndex fieldIndex, TapTable table) {
+        if(fieldIndex == null || fieldIndex.fingerprint() != fingerprint)
+            throw new CoreException(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, "Record of table " + (table != null ? table.getId() : null) + " is written with different fields from the table's " +
+                    (fieldIndex != null ? fieldIndex.size() : 0) + " fields, the field ordinals can not be resolved");
+    }
+
+    private int checkOrdinal(int ordinal, TapFieldIndex fieldIndex, TapTable table) {
+        if(fieldIndex == null || ordinal >= fieldIndex.size())
+            throw new CoreException(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, "Field ordinal " + ordinal + " can not be resolved by table " + (table != null ? table.getId() : null) + ", the table fields are different from the writer's");
+        return ordinal;
+    }
+
+    private void readAlterTable(TapAlterTableEvent alterTableEvent) {
+        alterTableEvent.setName(readString());
+        alterTableEvent.setStorageEngine(readString());
+        alterTableEvent.setCharset(readString());
+        int changedSize = readVarInt();
+        if(changedSize > 0) {
+            Map<String, TapField> changedNameFields = new LinkedHashMap<>();
+            for(int i = 0; i < changedSize - 1; i++) {
+                changedNameFields.put(readString(), readField());
+            }
+            alterTableEvent.setChangedNameFields(changedNameFields);
+        }
+        int insertSize = readVarInt();
+        if(insertSize > 0) {
+            List<TapField> insertFields = new ArrayList<>();
+            for(int i = 0; i < insertSize - 1; i++) {
+                insertFields.add(readField());
+            }
+            alterTableEvent.setInsertFields(insertFields);
+        }
+        int deleteSize = readVarInt();
+        if(deleteSize > 0) {
+            List<String> deleteFields = new ArrayList<>();
+            for(int i = 0; i < deleteSize - 1; i++) {
+                deleteFields.add(readString());
+            }
+            alterTableEvent.setDeleteFields(deleteFields);
+        }
+    }
+
+    private TapField readField() {
+        if(!readBoolean())
+            return null;
+        TapField field = new TapField();
+        field.setName(readString());
+        field.setOriginType(readString());
+        field.setNullable(readNullableBoolean());
+        field.setPrimaryKey(readNullableBoolean());
+        field.setPartitionKey(readNullableBoolean());
+        field.setPartitionKeyPos(toInteger(readNullableLong()));
+        field.setPos(toInteger(readNullableLong()));
+        field.setPrimaryKeyPos(toInteger(readNullableLong()));
+        field.setForeignKeyTable(readString());
+        field.setForeignKeyField(readString());
+        field.setDefaultValue(readValue(null));
+        field.setAutoInc(readNullableBoolean());
+        field.setAutoIncStartValue(readNullableLong());
+        field.setCheck(readString());
+        field.setComment(readString());
+        field.setConstraint(readString());
+        field.setTapType(readTapType(null));
+        return field;
+    }
+
+    private TapIndex readIndex() {
+        TapIndex index = new TapIndex();
+        index.setName(readString());
+        index.setUnique(readBoolean());
+        int fieldSize = readVarInt();
+        if(fieldSize > 0) {
+            List<String> fields = new ArrayList<>();
+            for(int i = 0; i < fieldSize - 1; i++) {
+                fields.add(readString());
+            }
+            index.setFields(fields);
+        }
+        int ascSize = readVarInt();
+        if(ascSize > 0) {
+            List<Boolean> fieldAscList = new ArrayList<>();
+            for(int i = 0; i < ascSize - 1; i++) {
+                fieldAscList.add(readNullableBoolean());
+            }
+            index.setFieldAscList(fieldAscList);
+        }
+        return index;
+    }
+
+    private Map<String, Object> readMap() {
+        int size = readVarInt();
+        if(size == 0)
+            return null;
+        Map<String, Object> map = new LinkedHashMap<>();
+        for(int i = 0; i < size - 1; i++) {
+            Object key = readValue(null);
+            map.put(key != null ? key.toString() : null, readValue(null));
+        }
+        return map;
+    }
+
+    public Object readValue(TapField field) {
+        int tag = readVarInt();
+        switch (tag) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_INT:
+                return unzigzag(readVarInt());
+            case VALUE_LONG:
+                return unzigzag(readVarLong());
+            case VALUE_DOUBLE:
+                return buffer.getDouble();
+            case VALUE_FLOAT:
+                return buffer.getFloat();
+            case VALUE_SHORT:
+                return (short) unzigzag(readVarInt());
+            case VALUE_BYTE:
+                return buffer.get();
+            case VALUE_STRING:
+                return readNonNullString();
+            case VALUE_BYTES:
+                return readBytes();
+            case VALUE_BIG_DECIMAL:
+                int scale = unzigzag(readVarInt());
+                return new BigDecimal(new BigInteger(readBytes()), scale);
+            case VALUE_BIG_INTEGER:
+                return new BigInteger(readBytes());
+            case VALUE_TIMESTAMP:
+                Timestamp timestamp = new Timestamp(unzigzag(readVarLong()));
+                timestamp.setNanos(readVarInt());
+                return timestamp;
+            case VALUE_DATE:
+                return new Date(unzigzag(readVarLong()));
+            case VALUE_DATE_TIME:
+                return readDateTime();
+            case VALUE_MAP:
+                int mapSize = readVarInt();
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for(int i = 0; i < mapSize; i++) {
+                    map.put(readValue(null), readValue(null));
+                }
+                return map;
+            case VALUE_LIST:
+                int listSize = readVarInt();
+                List<Object> list = new ArrayList<>(listSize);
+                for(int i = 0; i < listSize; i++) {
+                    list.add(readValue(null));
+                }
+                return list;
+            case VALUE_TAP_STRING:
+                return readTapValue(new TapStringValue(), field);
+            case VALUE_TAP_NUMBER:
+                return readTapValue(new TapNumberValue(), field);
+            case VALUE_TAP_BOOLEAN:
+                return readTapValue(new TapBooleanValue(), field);
+            case VALUE_TAP_BINARY:
+                return readTapValue(new TapBinaryValue(), field);
+            case VALUE_TAP_DATE:
+                return readTapValue(new TapDateValue(), field);
+            case VALUE_TAP_DATE_TIME:
+                return readTapValue(new TapDateTimeValue(), field);
+            case VALUE_TAP_TIME:
+                return readTapValue(new TapTimeValue(), field);
+            case VALUE_TAP_YEAR:
+                return readTapValue(new TapYearValue(), field);
+            case VALUE_TAP_ARRAY:
+                return readTapValue(new TapArrayValue(), field);
+            case VALUE_TAP_MAP:
+                return readTapValue(new TapMapValue(), field);
+            case VALUE_TAP_RAW:
+                return readTapValue(new TapRawValue(), field);
+            case VALUE_JAVA_SERIALIZED:
+                return javaDeserialize(readBytes());
+            default:
+                throw new CoreException(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, "Unknown value type " + tag + " at position " + buffer.position());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private TapValue<?, ?> readTapValue(TapValue<?, ?> tapValue, TapField field) {
+        Object value = readValue(null);
+        ((TapValue<Object, ?>) tapValue).setValue(value);
+        tapValue.setOriginType(readString());
+        if(readBoolean())
+            tapValue.setOriginValue(value);
+        else
+            tapValue.setOriginValue(readValue(null));
+        ((TapValue<?, TapType>) tapValue).setTapType(readTapType(field));
+        return tapValue;
+    }
+
+    private TapType readTapType(TapField field) {
+        int type = readVarInt();
+        switch (type) {
+            case TAP_TYPE_NULL:
+                return null;
+            case TAP_TYPE_FROM_SCHEMA:
+                if(field == null)
+                    throw new CoreException(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, "TapType is from schema but the field is not found");
+                return field.getTapType();
+            case TAP_TYPE_JSON:
+                String className = readNonNullString();
+                String json = readNonNullString();
+                try {
+                    Class<?> tapTypeClass = Class.forName(className, true, TapType.class.getClassLoader());
+                    return (TapType) InstanceFactory.instance(JsonParser.class).fromJson(json, tapTypeClass);
+                } catch (ClassNotFoundException e) {
+                    throw new CoreException(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, "TapType class " + className + " not found");
+                }
+            default:
+                throw new CoreException(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, "Unknown TapType flag " + type + " at position " + buffer.position());
+        }
+    }
+
+    private DateTime readDateTime() {
+        DateTime dateTime = new DateTime();
+        dateTime.setSeconds(readNullableLong());
+        dateTime.setNano(readNullableLong());
+        String timeZoneId = readString();
+        if(timeZoneId != null)
+            dateTime.setTimeZone(TimeZone.getTimeZone(timeZoneId));
+        return dateTime;
+    }
+
+    private Object javaDeserialize(byte[] bytes) {
+        try(ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        } catch (Throwable throwable) {
+            throw new CoreException(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, "Java deserialize failed, " + throwable.getMessage());
+        }
+    }
+
+    private static Integer toInteger(Long value) {
+        return value != null ? value.intValue() : null;
+    }
+
+    private boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    private Boolean readNullableBoolean() {
+        byte value = buffer.get();
+        return value == 0 ? null : value == 1;
+    }
+
+    private Long readNullableLong() {
+        if(!readBoolean())
+            return null;
+        return unzigzag(readVarLong());
+    }
+
+    private String readString() {
+        int length = readVarInt();
+        if(length == 0)
+            return null;
+        return readUtf8(length - 1);
+    }
+
+    private String readNonNullString() {
+        return readUtf8(readVarInt());
+    }
+
+    private String readUtf8(int length) {
+        String value;
+        if(buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            ((Buffer) buffer).position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private byte[] readBytes() {
+        byte[] bytes = new byte[readVarInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if(shift > 28)
+                throw new CoreException(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, "Malformed varint at position " + buffer.position());
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if(shift > 63)
+                throw new CoreException(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, "Malformed varlong at position " + buffer.position());
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+}
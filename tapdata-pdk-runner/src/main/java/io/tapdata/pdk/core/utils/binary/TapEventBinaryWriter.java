@@ -0,0 +1,538 @@
+package io.tapdata.pdk.core.utils.binary;
+
+import io.tapdata.entity.event.TapBaseEvent;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.ddl.index.TapCreateIndexEvent;
+import io.tapdata.entity.event.ddl.index.TapDeleteIndexEvent;
+import io.tapdata.entity.event.ddl.index.TapIndexEvent;
+import io.tapdata.entity.event.ddl.table.*;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapFieldIndex;
+import io.tapdata.entity.schema.TapIndex;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.type.TapType;
+import io.tapdata.entity.schema.value.*;
+import io.tapdata.entity.utils.IndexedRecordMap;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.JsonParser;
+import io.tapdata.pdk.core.error.CoreException;
+import io.tapdata.pdk.core.error.ErrorCodes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static io.tapdata.pdk.core.utils.binary.BinaryTypes.*;
+
+/**
+ * Write TapEvents into a compact binary format, the counterpart of TapEventBinaryReader.
+ *
+ * Numbers are varint encoded, every value has a type tag, so Date, BigDecimal, byte[] and TapValues keep their types after read back.
+ * Record keys which are fields of the event's table are written as field ordinals instead of names,
+ * the reader need the same TapTable to resolve them, the fingerprint of the field names is written with the record to verify it.
+ *
+ * The buffer grows automatically. Not thread safe, use one writer per thread.
+ * flip/clear are called through Buffer, the covariant ByteBuffer overrides of JDK 9+ don't exist on Java 8.
+ */
+public class TapEventBinaryWriter {
+    private ByteBuffer buffer;
+
+    public TapEventBinaryWriter() {
+        this(4096);
+    }
+
+    public TapEventBinaryWriter(int initialCapacity) {
+        buffer = ByteBuffer.allocate(Math.max(16, initialCapacity));
+    }
+
+    /**
+     * Write a batch of events, read back by TapEventBinaryReader#nextList.
+     */
+    public TapEventBinaryWriter writeList(List<TapEvent> events) {
+        writeVarInt(events.size());
+        for(TapEvent event : events) {
+            write(event);
+        }
+        return this;
+    }
+
+    public TapEventBinaryWriter write(TapEvent event) {
+        if(event instanceof TapInsertRecordEvent) {
+            TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) event;
+            writeVarInt(EVENT_INSERT);
+            writeRecordEventHeader(insertRecordEvent);
+            writeRecord(insertRecordEvent.getAfter(), insertRecordEvent.getTable());
+        } else if(event instanceof TapUpdateRecordEvent) {
+            TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) event;
+            writeVarInt(EVENT_UPDATE);
+            writeRecordEventHeader(updateRecordEvent);
+            writeRecord(updateRecordEvent.getBefore(), updateRecordEvent.getTable());
+            writeRecord(updateRecordEvent.getAfter(), updateRecordEvent.getTable());
+            writeBoolean(updateRecordEvent.isPartial());
+            List<String> removedFields = updateRecordEvent.getRemovedFields();
+            writeVarInt(removedFields != null ? removedFields.size() + 1 : 0);
+            if(removedFields != null) {
+                for(String field : removedFields) {
+                    writeString(field);
+                }
+            }
+        } else if(event instanceof TapDeleteRecordEvent) {
+            TapDeleteRecordEvent deleteRecordEvent = (TapDeleteRecordEvent) event;
+            writeVarInt(EVENT_DELETE);
+            writeRecordEventHeader(deleteRecordEvent);
+            writeRecord(deleteRecordEvent.getBefore(), deleteRecordEvent.getTable());
+        } else if(event instanceof TapCreateTableEvent) {
+            writeVarInt(EVENT_CREATE_TABLE);
+            writeBaseEventHeader((TapBaseEvent) event);
+        } else if(event instanceof TapAlterTableEvent) {
+            TapAlterTableEvent alterTableEvent = (TapAlterTableEvent) event;
+            writeVarInt(EVENT_ALTER_TABLE);
+            writeBaseEventHeader(alterTableEvent);
+            writeAlterTable(alterTableEvent);
+        } else if(event instanceof TapClearTableEvent) {
+            writeVarInt(EVENT_CLEAR_TABLE);
+            writeBaseEventHeader((TapBaseEvent) event);
+        } else if(event instanceof TapDropTableEvent) {
+            writeVarInt(EVENT_DROP_TABLE);
+            writeBaseEventHeader((TapBaseEvent) event);
+        } else if(event instanceof TapCreateIndexEvent || event instanceof TapDeleteIndexEvent) {
+            TapIndexEvent indexEvent = (TapIndexEvent) event;
+            writeVarInt(event instanceof TapCreateIndexEvent ? EVENT_CREATE_INDEX : EVENT_DELETE_INDEX);
+            writeBaseEventHeader(indexEvent);
+            List<TapIndex> indexList = indexEvent.getIndexList();
+            writeVarInt(indexList != null ? indexList.size() + 1 : 0);
+            if(indexList != null) {
+                for(TapIndex index : indexList) {
+                    writeIndex(index);
+                }
+            }
+        } else {
+            throw new CoreException(ErrorCodes.COMMON_BINARY_SERIALIZE_FAILED, "Binary format doesn't support event " + (event != null ? event.getClass() : null));
+        }
+        return this;
+    }
+
+    private void writeBaseEventHeader(TapBaseEvent event) {
+        writeNullableLong(event.getTime());
+        writeNullableLong(event.getReferenceTime());
+        TapTable table = event.getTable();
+        if(table != null) {
+            writeBoolean(true);
+            writeString(table.getId());
+            writeString(table.getName());
+        } else {
+            writeBoolean(false);
+        }
+        writeMap(event.getInfo());
+        writeMap(event.getTraceMap());
+    }
+
+    private void writeRecordEventHeader(TapRecordEvent event) {
+        writeBaseEventHeader(event);
+        writeString(event.getConnector());
+        writeString(event.getConnectorVersion());
+    }
+
+    private void writeRecord(Map<String, Object> record, TapTable table) {
+        if(record == null) {
+            writeVarInt(RECORD_NULL);
+            return;
+        }
+        TapFieldIndex fieldIndex;
+        if(record instanceof IndexedRecordMap) {
+            //The reader resolves the ordinals by the event's table.
+            if(table == null)
+                throw new CoreException(ErrorCodes.COMMON_BINARY_SERIALIZE_FAILED, "IndexedRecordMap of an event without table can not be read back");
+            writeVarInt(RECORD_INDEXED_MAP);
+            fieldIndex = ((IndexedRecordMap) record).getFieldIndex();
+        } else {
+            writeVarInt(RECORD_MAP);
+            fieldIndex = table != null ? table.fieldIndex() : null;
+        }
+        writeVarInt(record.size());
+        if(fieldIndex != null) {
+            writeBoolean(true);
+            ensureCapacity(8);
+            buffer.putLong(fieldIndex.fingerprint());
+        } else {
+            writeBoolean(false);
+        }
+        for(Map.Entry<String, Object> entry : record.entrySet()) {
+            int ordinal = fieldIndex != null ? fieldIndex.ordinal(entry.getKey()) : -1;
+            TapField field = null;
+            if(ordinal >= 0) {
+                writeVarInt(ordinal + 1);
+                field = fieldIndex.field(ordinal);
+            } else {
+                writeVarInt(FIELD_BY_NAME);
+                writeNonNullString(entry.getKey());
+            }
+            writeValue(entry.getValue(), field);
+        }
+    }
+
+    private void writeAlterTable(TapAlterTableEvent alterTableEvent) {
+        writeString(alterTableEvent.getName());
+        writeString(alterTableEvent.getStorageEngine());
+        writeString(alterTableEvent.getCharset());
+        Map<String, TapField> changedNameFields = alterTableEvent.getChangedNameFields();
+        writeVarInt(changedNameFields != null ? changedNameFields.size() + 1 : 0);
+        if(changedNameFields != null) {
+            for(Map.Entry<String, TapField> entry : changedNameFields.entrySet()) {
+                writeString(entry.getKey());
+                writeField(entry.getValue());
+            }
+        }
+        List<TapField> insertFields = alterTableEvent.getInsertFields();
+        writeVarInt(insertFields != null ? insertFields.size() + 1 : 0);
+        if(insertFields != null) {
+            for(TapField field : insertFields) {
+                writeField(field);
+            }
+        }
+        List<String> deleteFields = alterTableEvent.getDeleteFields();
+        writeVarInt(deleteFields != null ? deleteFields.size() + 1 : 0);
+        if(deleteFields != null) {
+            for(String field : deleteFields) {
+                writeString(field);
+            }
+        }
+    }
+
+    private void writeField(TapField field) {
+        if(field == null) {
+            writeBoolean(false);
+            return;
+        }
+        writeBoolean(true);
+        writeString(field.getName());
+        writeString(field.getOriginType());
+        writeNullableBoolean(field.getNullable());
+        writeNullableBoolean(field.getPrimaryKey());
+        writeNullableBoolean(field.getPartitionKey());
+        writeNullableLong(field.getPartitionKeyPos() != null ? (long) field.getPartitionKeyPos() : null);
+        writeNullableLong(field.getPos() != null ? (long) field.getPos() : null);
+        writeNullableLong(field.getPrimaryKeyPos() != null ? (long) field.getPrimaryKeyPos() : null);
+        writeString(field.getForeignKeyTable());
+        writeString(field.getForeignKeyField());
+        writeValue(field.getDefaultValue(), null);
+        writeNullableBoolean(field.getAutoInc());
+        writeNullableLong(field.getAutoIncStartValue());
+        writeString(field.getCheck());
+        writeString(field.getComment());
+        writeString(field.getConstraint());
+        writeTapType(field.getTapType(), null);
+    }
+
+    private void writeIndex(TapIndex index) {
+        writeString(index.getName());
+        writeBoolean(index.isUnique());
+        List<String> fields = index.getFields();
+        writeVarInt(fields != null ? fields.size() + 1 : 0);
+        if(fields != null) {
+            for(String field : fields) {
+                writeString(field);
+            }
+        }
+        List<Boolean> fieldAscList = index.getFieldAscList();
+        writeVarInt(fieldAscList != null ? fieldAscList.size() + 1 : 0);
+        if(fieldAscList != null) {
+            for(Boolean asc : fieldAscList) {
+                writeNullableBoolean(asc);
+            }
+        }
+    }
+
+    private void writeMap(Map<?, ?> map) {
+        if(map == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(map.size() + 1);
+        for(Map.Entry<?, ?> entry : map.entrySet()) {
+            writeValue(entry.getKey(), null);
+            writeValue(entry.getValue(), null);
+        }
+    }
+
+    /**
+     * @param field the field of the value, TapValue's tapType will not be written if it is the same as the field's.
+     */
+    public void writeValue(Object value, TapField field) {
+        if(value == null) {
+            writeVarInt(VALUE_NULL);
+        } else if(value instanceof String) {
+            writeVarInt(VALUE_STRING);
+            writeNonNullString((String) value);
+        } else if(value instanceof Integer) {
+            writeVarInt(VALUE_INT);
+            writeVarInt(zigzag((Integer) value));
+        } else if(value instanceof Long) {
+            writeVarInt(VALUE_LONG);
+            writeVarLong(zigzag((Long) value));
+        } else if(value instanceof Double) {
+            writeVarInt(VALUE_DOUBLE);
+            ensureCapacity(8);
+            buffer.putDouble((Double) value);
+        } else if(value instanceof Boolean) {
+            writeVarInt((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+        } else if(value instanceof TapValue) {
+            writeTapValue((TapValue<?, ?>) value, field);
+        } else if(value instanceof Float) {
+            writeVarInt(VALUE_FLOAT);
+            ensureCapacity(4);
+            buffer.putFloat((Float) value);
+        } else if(value instanceof Short) {
+            writeVarInt(VALUE_SHORT);
+            writeVarInt(zigzag((Short) value));
+        } else if(value instanceof Byte) {
+            writeVarInt(VALUE_BYTE);
+            ensureCapacity(1);
+            buffer.put((Byte) value);
+        } else if(value instanceof byte[]) {
+            writeVarInt(VALUE_BYTES);
+            writeBytes((byte[]) value);
+        } else if(value instanceof BigDecimal) {
+            BigDecimal bigDecimal = (BigDecimal) value;
+            writeVarInt(VALUE_BIG_DECIMAL);
+            writeVarInt(zigzag(bigDecimal.scale()));
+            writeBytes(bigDecimal.unscaledValue().toByteArray());
+        } else if(value instanceof BigInteger) {
+            writeVarInt(VALUE_BIG_INTEGER);
+            writeBytes(((BigInteger) value).toByteArray());
+        } else if(value instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) value;
+            writeVarInt(VALUE_TIMESTAMP);
+            writeVarLong(zigzag(timestamp.getTime()));
+            writeVarInt(timestamp.getNanos());
+        } else if(value.getClass().equals(Date.class)) {
+            writeVarInt(VALUE_DATE);
+            writeVarLong(zigzag(((Date) value).getTime()));
+        } else if(value instanceof DateTime) {
+            writeVarInt(VALUE_DATE_TIME);
+            writeDateTime((DateTime) value);
+        } else if(value instanceof Map) {
+            writeVarInt(VALUE_MAP);
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeVarInt(map.size());
+            for(Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey(), null);
+                writeValue(entry.getValue(), null);
+            }
+        } else if(value instanceof Collection) {
+            writeVarInt(VALUE_LIST);
+            Collection<?> collection = (Collection<?>) value;
+            writeVarInt(collection.size());
+            for(Object item : collection) {
+                writeValue(item, null);
+            }
+        } else if(value instanceof Serializable) {
+            writeVarInt(VALUE_JAVA_SERIALIZED);
+            writeBytes(javaSerialize((Serializable) value));
+        } else {
+            throw new CoreException(ErrorCodes.COMMON_BINARY_SERIALIZE_FAILED, "Binary format doesn't support value class " + value.getClass());
+        }
+    }
+
+    private void writeTapValue(TapValue<?, ?> tapValue, TapField field) {
+        int tag;
+        if(tapValue instanceof TapStringValue)
+            tag = VALUE_TAP_STRING;
+        else if(tapValue instanceof TapNumberValue)
+            tag = VALUE_TAP_NUMBER;
+        else if(tapValue instanceof TapBooleanValue)
+            tag = VALUE_TAP_BOOLEAN;
+        else if(tapValue instanceof TapBinaryValue)
+            tag = VALUE_TAP_BINARY;
+        else if(tapValue instanceof TapDateValue)
+            tag = VALUE_TAP_DATE;
+        else if(tapValue instanceof TapDateTimeValue)
+            tag = VALUE_TAP_DATE_TIME;
+        else if(tapValue instanceof TapTimeValue)
+            tag = VALUE_TAP_TIME;
+        else if(tapValue instanceof TapYearValue)
+            tag = VALUE_TAP_YEAR;
+        else if(tapValue instanceof TapArrayValue)
+            tag = VALUE_TAP_ARRAY;
+        else if(tapValue instanceof TapMapValue)
+            tag = VALUE_TAP_MAP;
+        else if(tapValue instanceof TapRawValue)
+            tag = VALUE_TAP_RAW;
+        else
+            throw new CoreException(ErrorCodes.COMMON_BINARY_SERIALIZE_FAILED, "Binary format doesn't support TapValue class " + tapValue.getClass());
+        writeVarInt(tag);
+        writeValue(tapValue.getValue(), null);
+        writeString(tapValue.getOriginType());
+        //Most of the time originValue is the value itself, don't write it twice.
+        Object originValue = tapValue.getOriginValue();
+        if(originValue != null && originValue == tapValue.getValue()) {
+            writeBoolean(true);
+        } else {
+            writeBoolean(false);
+            writeValue(originValue, null);
+        }
+        writeTapType(tapValue.getTapType(), field);
+    }
+
+    private void writeTapType(TapType tapType, TapField field) {
+        if(tapType == null) {
+            writeVarInt(TAP_TYPE_NULL);
+        } else if(field != null && field.getTapType() == tapType) {
+            writeVarInt(TAP_TYPE_FROM_SCHEMA);
+        } else {
+            writeVarInt(TAP_TYPE_JSON);
+            writeNonNullString(tapType.getClass().getName());
+            writeNonNullString(InstanceFactory.instance(JsonParser.class).toJson(tapType));
+        }
+    }
+
+    private void writeDateTime(DateTime dateTime) {
+        writeNullableLong(dateTime.getSeconds());
+        writeNullableLong(dateTime.getNano());
+        writeString(dateTime.getTimeZone() != null ? dateTime.getTimeZone().getID() : null);
+    }
+
+    private byte[] javaSerialize(Serializable value) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try(ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                oos.writeObject(value);
+            }
+            return bos.toByteArray();
+        } catch (Throwable throwable) {
+            throw new CoreException(ErrorCodes.COMMON_BINARY_SERIALIZE_FAILED, "Java serialize value class " + value.getClass() + " failed, " + throwable.getMessage());
+        }
+    }
+
+    private void writeBoolean(boolean value) {
+        ensureCapacity(1);
+        buffer.put(value ? (byte) 1 : (byte) 0);
+    }
+
+    private void writeNullableBoolean(Boolean value) {
+        ensureCapacity(1);
+        buffer.put(value == null ? (byte) 0 : (value ? (byte) 1 : (byte) 2));
+    }
+
+    private void writeNullableLong(Long value) {
+        if(value == null) {
+            writeBoolean(false);
+        } else {
+            writeBoolean(true);
+            writeVarLong(zigzag(value));
+        }
+    }
+
+    /**
+     * Length + 1 as varint, 0 means null.
+     */
+    private void writeString(String value) {
+        if(value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void writeNonNullString(String value) {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) {
+        writeVarInt(bytes.length);
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    public void writeVarInt(int value) {
+        ensureCapacity(5);
+        while((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+        while((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void ensureCapacity(int length) {
+        if(buffer.remaining() < length) {
+            int newCapacity = Math.max(buffer.capacity() * 2, buffer.position() + length);
+            ByteBuffer newBuffer = ByteBuffer.allocate(newCapacity);
+            ((Buffer) buffer).flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+        }
+    }
+
+    /**
+     * @return bytes written so far
+     */
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * Read only view of the written bytes, from 0 to size.
+     * The view is invalid once the writer writes more.
+     */
+    public ByteBuffer toByteBuffer() {
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).flip();
+        return view.asReadOnlyBuffer();
+    }
+
+    /**
+     * Copy the written bytes into target, for example a MappedByteBuffer of a file.
+     */
+    public void writeTo(ByteBuffer target) {
+        ByteBuffer view = buffer.duplicate();
+        ((Buffer) view).flip();
+        target.put(view);
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[buffer.position()];
+        System.arraycopy(buffer.array(), 0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Reuse the buffer for the next batch.
+     */
+    public void reset() {
+        ((Buffer) buffer).clear();
+    }
+}
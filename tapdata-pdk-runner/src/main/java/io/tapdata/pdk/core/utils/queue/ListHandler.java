@@ -3,5 +3,8 @@ package io.tapdata.pdk.core.utils.queue;
 import java.util.List;
 
 public interface ListHandler<T>{
+    /**
+     * The list is reused by the queue after this method returns, copy the items out if they are needed later.
+     */
     void execute(List<T> list) throws Throwable;
 }
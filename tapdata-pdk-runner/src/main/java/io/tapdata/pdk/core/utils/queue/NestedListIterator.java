@@ -0,0 +1,53 @@
+package io.tapdata.pdk.core.utils.queue;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterate the items of the nested lists drained by SingleThreadBlockingQueue as one sequence, without copying them into a new list.
+ *
+ * Reset it for every drain and keep one instance per handler, so iterating allocates nothing.
+ * Not thread safe, for the consumer thread of a queue only.
+ */
+public class NestedListIterator<T> implements Iterator<T>, Iterable<T> {
+    private List<? extends List<T>> lists;
+    private List<T> current;
+    private int listIndex;
+    private int itemIndex;
+
+    public NestedListIterator<T> reset(List<? extends List<T>> lists) {
+        this.lists = lists;
+        current = null;
+        listIndex = 0;
+        itemIndex = 0;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while(current == null || itemIndex >= current.size()) {
+            if(lists == null || listIndex >= lists.size()) {
+                //Release the drained items, the lists are reused by the queue.
+                lists = null;
+                current = null;
+                return false;
+            }
+            current = lists.get(listIndex++);
+            itemIndex = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if(!hasNext())
+            throw new NoSuchElementException();
+        return current.get(itemIndex++);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this;
+    }
+}
@@ -0,0 +1,32 @@
+package io.tapdata.pdk.core.utils.queue;
+
+/**
+ * Secondary storage for SingleThreadBlockingQueue, takes the items when the in-memory queue is full.
+ *
+ * Items must be polled in the same order as they are spilled.
+ * Methods changing the items (spill, poll and close) are called under both locks of the queue, the other methods under at least one of them,
+ * so implementations don't need to be thread safe.
+ */
+public interface QueueOverflow<T> {
+    /**
+     * Store the item at the tail.
+     */
+    void spill(T t);
+
+    /**
+     * @return the head item, null if empty.
+     */
+    T poll();
+
+    boolean isEmpty();
+
+    /**
+     * @return true when the overflow reaches its cap, the queue will block the producer until items are polled.
+     */
+    boolean isFull();
+
+    /**
+     * Drop all the items and release the resources.
+     */
+    void close();
+}
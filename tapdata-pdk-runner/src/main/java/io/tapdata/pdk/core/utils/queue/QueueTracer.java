@@ -0,0 +1,16 @@
+package io.tapdata.pdk.core.utils.queue;
+
+/**
+ * Observe the items passing SingleThreadBlockingQueue, used for tracing the latency.
+ */
+public interface QueueTracer<T> {
+    /**
+     * Called by the producer thread before the item is put into the queue, includes the time blocked by the full queue.
+     */
+    void enqueued(T t);
+
+    /**
+     * Called by the consumer thread before the item is handled.
+     */
+    void dequeued(T t);
+}
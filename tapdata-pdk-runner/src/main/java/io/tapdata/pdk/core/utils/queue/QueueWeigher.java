@@ -0,0 +1,16 @@
+package io.tapdata.pdk.core.utils.queue;
+
+/**
+ * Weigh the items of SingleThreadBlockingQueue for the batch limits of the consumer, called by the consumer thread only.
+ */
+public interface QueueWeigher<T> {
+    /**
+     * @return count of the records in the item, like the events in a batch.
+     */
+    int count(T t);
+
+    /**
+     * @return estimated bytes of the item, only called when the bytes limit is set.
+     */
+    long bytes(T t);
+}
@@ -14,6 +14,7 @@ import java.util.Queue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -33,11 +34,23 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
     private ListHandler<T> listHandler;
     private ListErrorHandler<T> listErrorHandler;
     private int handleSize = 20;
-//    private List<T> handleList = new ArrayList<>();
+    /**
+     * Reused by every drain, only touched by the consumer thread. Handlers are called synchronously and must not keep the list.
+     */
+    private ArrayList<T> handleList;
     protected String name;
     private LongAdder counter = new LongAdder();
     private int notifySize;
     private LongAdder notifyCounter = new LongAdder();
+    private QueueOverflow<T> overflow;
+    private QueueTracer<T> tracer;
+    private QueueWeigher<T> weigher;
+    private int handleCount;
+    private long handleBytes;
+    private long lingerMillis;
+    //Weight of the batch being collected by the consumer thread.
+    private long batchCount;
+    private long batchBytes;
 
 
 //    private SingleThreadQueue<T> ensureSingleThreadInputQueue;
@@ -61,6 +74,53 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
         return this;
     }
 
+    /**
+     * Weigh the items for the count and bytes limits of the batch.
+     *
+     * @param weigher
+     * @return
+     */
+    public SingleThreadBlockingQueue<T> withWeigher(QueueWeigher<T> weigher) {
+        this.weigher = weigher;
+        return this;
+    }
+
+    /**
+     * The batch is handed off when the records weighed reach the count, 0 means no limit.
+     * Items are not split, so the batch may exceed it by the last item.
+     *
+     * @param count
+     * @return
+     */
+    public SingleThreadBlockingQueue<T> withHandleCount(int count) {
+        handleCount = count;
+        return this;
+    }
+
+    /**
+     * The batch is handed off when the estimated bytes reach the bytes, 0 means no limit.
+     * Items are not split, so the batch may exceed it by the last item.
+     *
+     * @param bytes
+     * @return
+     */
+    public SingleThreadBlockingQueue<T> withHandleBytes(long bytes) {
+        handleBytes = bytes;
+        return this;
+    }
+
+    /**
+     * When the items available are less than a batch, wait up to lingerMillis for more items before handing off,
+     * the latency added to an item is at most lingerMillis. 0 hands off whatever is available at once.
+     *
+     * @param lingerMillis
+     * @return
+     */
+    public SingleThreadBlockingQueue<T> withLinger(long lingerMillis) {
+        this.lingerMillis = lingerMillis;
+        return this;
+    }
+
     /**
      * The batch handler for consuming data.
      *
@@ -74,6 +134,8 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
 
     /**
      * The batch handler when error occurred.
+     * The queue fails fast, it is stopped before calling the error handler, the pending items are discarded and the producer gets an error on offering.
+     * The list is reused by the queue after the error handler returns.
      *
      * @param listErrorHandler
      * @return
@@ -94,6 +156,28 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
         this.maxSize = maxSize;
         return this;
     }
+
+    /**
+     * Secondary storage when the queue is full, the enqueue thread will be blocked only when the overflow is full too.
+     *
+     * @param overflow
+     * @return
+     */
+    public SingleThreadBlockingQueue<T> withOverflow(QueueOverflow<T> overflow) {
+        this.overflow = overflow;
+        return this;
+    }
+
+    /**
+     * Observe the items when they are enqueued and dequeued.
+     *
+     * @param tracer
+     * @return
+     */
+    public SingleThreadBlockingQueue<T> withTracer(QueueTracer<T> tracer) {
+        this.tracer = tracer;
+        return this;
+    }
     private void startPrivate(){
         if(isStopping.get())
             throw new CoreException(ErrorCodes.COMMON_SINGLE_THREAD_QUEUE_STOPPED, "SingleThreadBlockingQueue is stopped");
@@ -110,6 +194,7 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
         if(queue == null) {
             queue = new LinkedBlockingQueue<>(maxSize);
             notifySize = maxSize / 2;
+            handleList = new ArrayList<>(Math.min(Math.max(handleSize, 1), 1024));
         }
         startPrivate();
         return this;
@@ -118,38 +203,107 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
     public void run() {
         boolean end = false;
         while (!end && !isStopping.get()) {
-            if(queue.isEmpty()) {
+            if(isEmpty()) {
                 synchronized (lock) {
-                    if(queue.isEmpty()) {
+                    if(isEmpty()) {
                         isRunning.compareAndSet(true, false);
                         end = true;
+                        //Wake up the threads waiting for idle.
+                        lock.notifyAll();
                     }
                 }
             } else {
                 try {
-                    List<T> handleList = new ArrayList<>();
+                    batchCount = 0;
+                    batchBytes = 0;
+                    boolean full;
                     synchronized (this) {
-                        T t = queue.poll();
-                        while(t != null) {
-                            handleList.add(t);
-                            consumed(t);
-                            if(handleList.size() >= handleSize)
-                                break;
-                            t = queue.poll();
-                            if(t == null)
-                                break;
-                        }
+                        full = drain(handleList);
                     }
+                    if(!full && lingerMillis > 0)
+                        linger(handleList);
                     if(!isStopping.get() && !handleList.isEmpty()) {
+                        if(tracer != null) {
+                            for(int i = 0; i < handleList.size(); i++)
+                                tracer.dequeued(handleList.get(i));
+                        }
                         execute(handleList);
                     }
-//                    handleList.clear();
                 }  catch(Throwable throwable) {
                     throwable.printStackTrace();
                     TapLogger.error(TAG, "{} occurred unknown error, {}", name, throwable.getMessage());
+                } finally {
+                    handleList.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Poll the available items into the batch without blocking, must be called with the lock of this queue.
+     *
+     * @return true when the batch is full.
+     */
+    private boolean drain(List<T> handleList) {
+        boolean full = isBatchFull(handleList);
+        T t;
+        while(!full && (t = queue.poll()) != null) {
+            full = addToBatch(handleList, t);
+        }
+        //Items in overflow are always newer than the ones in queue, poll them after queue is drained.
+        if(overflow != null) {
+            synchronized (lock) {
+                while(!full && (t = overflow.poll()) != null) {
+                    full = addToBatch(handleList, t);
                 }
             }
         }
+        return full;
+    }
+
+    /**
+     * Wait for more items until the batch is full or the linger deadline since the batch is started.
+     * The overflow is drained before lingering, new items go into the queue until it is full, so waiting on the queue is enough.
+     */
+    private void linger(List<T> handleList) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        boolean full = false;
+        while(!full && !isStopping.get()) {
+            long remaining = deadline - System.nanoTime();
+            if(remaining <= 0)
+                break;
+            T t;
+            try {
+                t = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if(t == null)
+                break;
+            synchronized (this) {
+                full = addToBatch(handleList, t) || drain(handleList);
+            }
+        }
+    }
+
+    private boolean addToBatch(List<T> handleList, T t) {
+        handleList.add(t);
+        consumed(t);
+        if(weigher != null) {
+            batchCount += weigher.count(t);
+            if(handleBytes > 0)
+                batchBytes += weigher.bytes(t);
+        }
+        return isBatchFull(handleList);
+    }
+
+    private boolean isBatchFull(List<T> handleList) {
+        if(handleList.isEmpty())
+            return false;
+        return handleList.size() >= handleSize ||
+                (handleCount > 0 && batchCount >= handleCount) ||
+                (handleBytes > 0 && batchBytes >= handleBytes);
     }
 
     private void execute(List<T> t) {
@@ -158,6 +312,9 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
             this.listHandler.execute(t);
         } catch (Throwable e) {
             e.printStackTrace();
+            TapLogger.error(TAG, "{} handler failed, {}, the queue is stopped, {} pending items{} are discarded", name, e.getMessage(), queue.size(),
+                    !isOverflowEmpty() ? " and the spilled items" : "");
+            stop();
             if(listErrorHandler != null) {
                 CommonUtils.ignoreAnyError(() -> {
                     this.listErrorHandler.error(t, e);
@@ -167,7 +324,64 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
     }
 
 
+    private boolean isEmpty() {
+        return queue.isEmpty() && isOverflowEmpty();
+    }
+
+    private boolean isOverflowEmpty() {
+        if(overflow == null)
+            return true;
+        synchronized (lock) {
+            return overflow.isEmpty();
+        }
+    }
+
+    /**
+     * @return true when no item is queued and the handler is not running, all the items offered before are handled.
+     */
+    public boolean isIdle() {
+        synchronized (lock) {
+            return !isRunning.get() && isEmpty();
+        }
+    }
+
+    /**
+     * Wait until all the items offered before are handled, the caller should stop offering first, otherwise the queue may never be idle.
+     *
+     * @param timeoutMillis
+     * @return false when timeout, or the queue is stopped and the items are discarded.
+     */
+    public boolean waitIdle(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (lock) {
+            while(isRunning.get() || !isEmpty()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if(isStopping.get() || remaining <= 0)
+                    return false;
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return !isStopping.get();
+    }
+
     private synchronized void input(T t) {
+        if(overflow != null && (!overflow.isEmpty() || queue.remainingCapacity() == 0)) {
+            if(!overflow.isFull()) {
+                synchronized (lock) {
+                    overflow.spill(t);
+                }
+            } else {
+                isFull.set(true);
+                waitWhileFull();
+                input(t);
+            }
+            return;
+        }
         try {
             if(queue.isEmpty()){
                 synchronized (lock){
@@ -180,22 +394,30 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
             if(e.getMessage().contains("full")) {
                 isFull.set(true);
 //                logger.debug("{} queue is full, wait polling to add more {}", name, queue.size());
-                while(isFull.get()) {
-                    try {
-                        this.wait(120000);
-                    } catch (InterruptedException interruptedException) {
-                        interruptedException.printStackTrace();
-                        TapLogger.error(TAG, "{} is interrupted, {}", name, interruptedException.getMessage());
-                        Thread.currentThread().interrupt();
-                    }
-                }
+                waitWhileFull();
 //                    logger.debug("wake up to add {}", t);
-                offer(t);
+                //The caller offer(t) starts the consumer after input, the item is enqueued only once for the tracer.
+                input(t);
 //                    logger.debug("wake up to added {}", t);
             }
         }
     }
 
+    private void waitWhileFull() {
+        while(isFull.get() && !isStopping.get()) {
+            try {
+                this.wait(120000);
+            } catch (InterruptedException interruptedException) {
+                //Keep the interrupt for the caller, waiting again would throw at once.
+                Thread.currentThread().interrupt();
+                TapLogger.error(TAG, "{} is interrupted while waiting to enqueue, {}", name, interruptedException.getMessage());
+                throw new CoreException(ErrorCodes.COMMON_SINGLE_THREAD_QUEUE_STOPPED, "SingleThreadBlockingQueue " + name + " is interrupted while waiting to enqueue");
+            }
+        }
+        if(isStopping.get())
+            throw new CoreException(ErrorCodes.COMMON_SINGLE_THREAD_QUEUE_STOPPED, "SingleThreadBlockingQueue " + name + " is stopped while waiting to enqueue");
+    }
+
     public void add(T t) {
         offer(t);
     }
@@ -207,6 +429,8 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
             throw new CoreException(ErrorCodes.COMMON_SINGLE_THREAD_QUEUE_STOPPED, "SingleThreadQueue is stopped");
 
 //        ensureSingleThreadInputQueue.offerAndStart(t);
+        if(tracer != null)
+            tracer.enqueued(t);
         input(t);
         startPrivate();
     }
@@ -214,17 +438,39 @@ public class SingleThreadBlockingQueue<T> implements Runnable {
     public void stop() {
         if(isStopping.compareAndSet(false, true)) {
             clear();
+            //Wake up the producers waiting for the full queue, they get the stopped error.
+            synchronized (this) {
+                this.notifyAll();
+            }
+            synchronized (lock) {
+                lock.notifyAll();
+            }
         }
     }
 
     public void clear() {
         queue.clear();
+        if(overflow != null) {
+            synchronized (this) {
+                synchronized (lock) {
+                    overflow.close();
+                }
+            }
+        }
+    }
+
+    public boolean isStopped() {
+        return isStopping.get();
     }
 
     public ListHandler<T> getHandler() {
         return listHandler;
     }
 
+    public QueueOverflow<T> getOverflow() {
+        return overflow;
+    }
+
     public Queue<T> getQueue() {
         return queue;
     }
@@ -0,0 +1,259 @@
+package io.tapdata.pdk.core.utils.queue;
+
+import io.tapdata.entity.event.TapBaseEvent;
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.entity.schema.TapFieldIndex;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.core.error.CoreException;
+import io.tapdata.pdk.core.error.ErrorCodes;
+import io.tapdata.pdk.core.utils.CommonUtils;
+import io.tapdata.pdk.core.utils.binary.TapEventBinaryReader;
+import io.tapdata.pdk.core.utils.binary.TapEventBinaryWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spill event batches of a DAG edge into memory mapped segment files, used when the target is slower than the source.
+ *
+ * Each batch is written by TapEventBinaryWriter as a length prefixed block, segments are read and deleted in order.
+ * The tables of the spilled events are kept in memory with each segment, so the records can be read back with field ordinals.
+ * A new segment is started when the fields of a table change, the batches spilled before a DDL are read back with the fields they are written with.
+ */
+public class TapEventDiskOverflow implements QueueOverflow<List<TapEvent>> {
+    private static final String TAG = TapEventDiskOverflow.class.getSimpleName();
+
+    private final File directory;
+    private final int segmentSize;
+    private final long maxDiskSize;
+    private final TapEventBinaryWriter writer = new TapEventBinaryWriter(64 * 1024);
+    private final LinkedList<Segment> segments = new LinkedList<>();
+    private int segmentSequence;
+    private long pendingBytes;
+    private long pendingCount;
+    private long totalSpilled;
+
+    private static class Segment {
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private int readPosition;
+        /**
+         * Versions of the tables of the batches in this segment by table id, one version of a table in a segment.
+         */
+        private final Map<String, TableVersion> tableMap = new HashMap<>();
+
+        private Segment(File file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        private int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+
+        private boolean hasVersions(Map<String, TapTable> tables) {
+            for(Map.Entry<String, TapTable> entry : tables.entrySet()) {
+                TableVersion tableVersion = tableMap.get(entry.getKey());
+                if(tableVersion != null && tableVersion.fieldIndex != entry.getValue().fieldIndex())
+                    return false;
+            }
+            return true;
+        }
+
+        private void addVersions(Map<String, TapTable> tables) {
+            for(Map.Entry<String, TapTable> entry : tables.entrySet()) {
+                tableMap.computeIfAbsent(entry.getKey(), id -> new TableVersion(entry.getValue()));
+            }
+        }
+
+        private TapTable table(String id) {
+            TableVersion tableVersion = tableMap.get(id);
+            return tableVersion != null ? tableVersion.table() : null;
+        }
+    }
+
+    /**
+     * The table with the fields at the time of spilling.
+     */
+    private static class TableVersion {
+        private final TapTable table;
+        private final TapFieldIndex fieldIndex;
+        private final TapTable snapshot;
+
+        private TableVersion(TapTable table) {
+            this.table = table;
+            fieldIndex = table.fieldIndex();
+            snapshot = new TapTable(table.getId(), table.getName());
+            if(table.getNameFieldMap() != null)
+                snapshot.setNameFieldMap(new LinkedHashMap<>(table.getNameFieldMap()));
+            if(table.getIndexList() != null)
+                snapshot.setIndexList(new ArrayList<>(table.getIndexList()));
+            if(table.getDefaultPrimaryKeys() != null)
+                snapshot.setDefaultPrimaryKeys(new ArrayList<>(table.getDefaultPrimaryKeys()));
+            snapshot.setStorageEngine(table.getStorageEngine());
+            snapshot.setCharset(table.getCharset());
+        }
+
+        /**
+         * The table itself if its fields are not changed since spilling, so the events keep the same table instance as not spilled.
+         */
+        private TapTable table() {
+            return table.fieldIndex() == fieldIndex ? table : snapshot;
+        }
+    }
+
+    /**
+     * @param directory the segment files directory, will be created if not exists and deleted when close.
+     * @param segmentSize the size of each segment file, a batch larger than it will get a segment of its own size.
+     * @param maxDiskSize when the unread bytes reach it, the overflow is full. May be exceeded by one batch.
+     */
+    public TapEventDiskOverflow(File directory, int segmentSize, long maxDiskSize) {
+        if(segmentSize <= 0 || maxDiskSize <= 0)
+            throw new CoreException(ErrorCodes.COMMON_ILLEGAL_PARAMETERS, "Illegal segmentSize " + segmentSize + " or maxDiskSize " + maxDiskSize);
+        if(!directory.isDirectory() && !directory.mkdirs())
+            throw new CoreException(ErrorCodes.COMMON_QUEUE_OVERFLOW_FAILED, "Create overflow directory " + directory.getAbsolutePath() + " failed");
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxDiskSize = maxDiskSize;
+    }
+
+    @Override
+    public void spill(List<TapEvent> events) {
+        Map<String, TapTable> tables = new HashMap<>();
+        for(TapEvent event : events) {
+            if(event instanceof TapBaseEvent) {
+                TapTable table = ((TapBaseEvent) event).getTable();
+                if(table != null && table.getId() != null)
+                    tables.put(table.getId(), table);
+            }
+        }
+        writer.reset();
+        writer.writeList(events);
+        int length = writer.size();
+
+        Segment tail = segments.peekLast();
+        if(tail == null || tail.remaining() < length + 4 || !tail.hasVersions(tables)) {
+            tail = newSegment(Math.max(segmentSize, length + 4));
+            segments.add(tail);
+        }
+        tail.addVersions(tables);
+        tail.buffer.putInt(tail.writePosition, length);
+        ByteBuffer target = tail.buffer.duplicate();
+        ((Buffer) target).position(tail.writePosition + 4);
+        writer.writeTo(target);
+        tail.writePosition += length + 4;
+
+        pendingBytes += length + 4;
+        pendingCount++;
+        if(totalSpilled++ == 0)
+            TapLogger.info(TAG, "Queue is full, start spilling events into {}", directory.getAbsolutePath());
+    }
+
+    @Override
+    public List<TapEvent> poll() {
+        while(!segments.isEmpty()) {
+            Segment head = segments.peekFirst();
+            if(head.readPosition < head.writePosition) {
+                int length = head.buffer.getInt(head.readPosition);
+                ByteBuffer block = head.buffer.duplicate();
+                ((Buffer) block).position(head.readPosition + 4);
+                ((Buffer) block).limit(head.readPosition + 4 + length);
+                List<TapEvent> events = new TapEventBinaryReader(block.slice(), head::table).nextList();
+                head.readPosition += length + 4;
+                pendingBytes -= length + 4;
+                pendingCount--;
+                return events;
+            }
+            if(segments.size() == 1) {
+                //Reuse the only segment from the beginning, avoid creating files when spilling and polling at the same pace.
+                head.readPosition = head.writePosition = 0;
+                head.tableMap.clear();
+                return null;
+            }
+            release(segments.removeFirst());
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pendingCount == 0;
+    }
+
+    @Override
+    public boolean isFull() {
+        return pendingBytes >= maxDiskSize;
+    }
+
+    @Override
+    public void close() {
+        while(!segments.isEmpty()) {
+            release(segments.removeFirst());
+        }
+        pendingBytes = 0;
+        pendingCount = 0;
+        if(!directory.delete())
+            TapLogger.debug(TAG, "Overflow directory {} is not deleted", directory.getAbsolutePath());
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public long getPendingCount() {
+        return pendingCount;
+    }
+
+    public long getTotalSpilled() {
+        return totalSpilled;
+    }
+
+    private Segment newSegment(int size) {
+        //The directory is deleted when close, the queue may be cleared and used again.
+        if(!directory.isDirectory() && !directory.mkdirs())
+            throw new CoreException(ErrorCodes.COMMON_QUEUE_OVERFLOW_FAILED, "Create overflow directory " + directory.getAbsolutePath() + " failed");
+        File file = new File(directory, "segment_" + (segmentSequence++) + ".spill");
+        try(RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            //The mapping stays valid after the channel is closed.
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new Segment(file, buffer);
+        } catch (IOException e) {
+            throw new CoreException(ErrorCodes.COMMON_QUEUE_OVERFLOW_FAILED, "Create overflow segment " + file.getAbsolutePath() + " failed, " + e.getMessage());
+        }
+    }
+
+    private void release(Segment segment) {
+        unmap(segment.buffer);
+        if(!segment.file.delete())
+            TapLogger.warn(TAG, "Delete overflow segment {} failed", segment.file.getAbsolutePath());
+    }
+
+    /**
+     * Release the mapped memory immediately instead of waiting for GC, only available on java 8.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if(CommonUtils.getJavaVersion() > 8)
+            return;
+        CommonUtils.ignoreAnyError(() -> {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if(cleaner != null)
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+        }, TAG);
+    }
+}
@@ -0,0 +1,78 @@
+package io.tapdata.pdk.core.utils.queue;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.value.TapValue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weigh the batches of events by the count of events and the rough in-memory size of the records.
+ *
+ * The size is estimated by walking the values, cheap enough to call for every batch, not accurate to the byte.
+ */
+public class TapEventsWeigher implements QueueWeigher<List<TapEvent>> {
+    private static final int EVENT_OVERHEAD = 64;
+    private static final int ENTRY_OVERHEAD = 32;
+    private static final int VALUE_OVERHEAD = 16;
+
+    @Override
+    public int count(List<TapEvent> events) {
+        return events.size();
+    }
+
+    @Override
+    public long bytes(List<TapEvent> events) {
+        long bytes = 0;
+        for(TapEvent event : events) {
+            bytes += EVENT_OVERHEAD;
+            if(event instanceof TapInsertRecordEvent) {
+                bytes += recordBytes(((TapInsertRecordEvent) event).getAfter());
+            } else if(event instanceof TapUpdateRecordEvent) {
+                bytes += recordBytes(((TapUpdateRecordEvent) event).getBefore());
+                bytes += recordBytes(((TapUpdateRecordEvent) event).getAfter());
+            } else if(event instanceof TapDeleteRecordEvent) {
+                bytes += recordBytes(((TapDeleteRecordEvent) event).getBefore());
+            }
+        }
+        return bytes;
+    }
+
+    private static long recordBytes(Map<String, Object> record) {
+        if(record == null)
+            return 0;
+        long bytes = 0;
+        for(Map.Entry<String, Object> entry : record.entrySet()) {
+            bytes += ENTRY_OVERHEAD + valueBytes(entry.getValue());
+        }
+        return bytes;
+    }
+
+    private static long valueBytes(Object value) {
+        if(value instanceof TapValue)
+            value = ((TapValue<?, ?>) value).getValue();
+        if(value == null)
+            return 0;
+        if(value instanceof String)
+            return VALUE_OVERHEAD + 2L * ((String) value).length();
+        if(value instanceof byte[])
+            return VALUE_OVERHEAD + ((byte[]) value).length;
+        if(value instanceof Map) {
+            long bytes = VALUE_OVERHEAD;
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+                bytes += ENTRY_OVERHEAD + valueBytes(entry.getValue());
+            return bytes;
+        }
+        if(value instanceof Collection) {
+            long bytes = VALUE_OVERHEAD;
+            for(Object item : (Collection<?>) value)
+                bytes += valueBytes(item);
+            return bytes;
+        }
+        return VALUE_OVERHEAD + 8;
+    }
+}
@@ -6,17 +6,23 @@ import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.pdk.core.api.PDKIntegration;
 import io.tapdata.pdk.core.error.CoreException;
 import io.tapdata.pdk.core.error.ErrorCodes;
+import io.tapdata.pdk.core.monitor.EventTracer;
 import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.pdk.core.utils.Validator;
 import io.tapdata.pdk.core.utils.state.StateListener;
 import io.tapdata.pdk.core.utils.state.StateMachine;
+import io.tapdata.pdk.core.workflow.engine.driver.Driver;
 import io.tapdata.pdk.core.workflow.engine.driver.ProcessorNodeDriver;
 import io.tapdata.pdk.core.workflow.engine.driver.SourceNodeDriver;
 import io.tapdata.pdk.core.workflow.engine.driver.SourceStateListener;
 import io.tapdata.pdk.core.workflow.engine.driver.TargetNodeDriver;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -32,12 +38,19 @@ public class DataFlowWorker {
     public static final String STATE_INITIALIZE_FAILED = "Initialize failed";
     public static final String STATE_RECORDS_SENT = "Records sent";
     public static final String STATE_TERMINATED = "Terminated";
+    /**
+     * A node failed after the data flow started, the sources are stopped reading, see LastError for the cause.
+     */
+    public static final String STATE_FAILED = "Failed";
     private StateMachine<String, DataFlowWorker> stateMachine;
     private AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicBoolean failed = new AtomicBoolean(false);
+    private final AtomicBoolean stopping = new AtomicBoolean(false);
     private LastError lastError;
 //    private SingleThreadQueue<Runnable> singleThreadQueue;
     private ExecutorService workerThread;
     private SourceStateListener sourceStateListener;
+    private EventTracer eventTracer;
 
     public static class LastError {
         private CoreException coreException;
@@ -87,8 +100,9 @@ public class DataFlowWorker {
             stateMachine.configState(STATE_NONE, stateMachine.execute().nextStates(STATE_INITIALIZING, STATE_TERMINATED))
                     .configState(STATE_INITIALIZING, stateMachine.execute(this::handleInitializing).nextStates(STATE_RECORDS_SENT, STATE_INITIALIZED, STATE_TERMINATED, STATE_INITIALIZE_FAILED))
                     .configState(STATE_INITIALIZE_FAILED, stateMachine.execute(this::handleInitializeFailed).nextStates(STATE_INITIALIZING, STATE_TERMINATED))
-                    .configState(STATE_RECORDS_SENT, stateMachine.execute(this::handleRecordsSent).nextStates(STATE_INITIALIZED, STATE_TERMINATED))
-                    .configState(STATE_INITIALIZED, stateMachine.execute(this::handleInitialized).nextStates(STATE_RECORDS_SENT, STATE_TERMINATED))
+                    .configState(STATE_RECORDS_SENT, stateMachine.execute(this::handleRecordsSent).nextStates(STATE_INITIALIZED, STATE_FAILED, STATE_TERMINATED))
+                    .configState(STATE_INITIALIZED, stateMachine.execute(this::handleInitialized).nextStates(STATE_RECORDS_SENT, STATE_FAILED, STATE_TERMINATED))
+                    .configState(STATE_FAILED, stateMachine.execute(this::handleFailed).nextStates(STATE_TERMINATED))
                     .configState(STATE_TERMINATED, stateMachine.execute(this::handleTerminated).nextStates(STATE_INITIALIZING, STATE_NONE))
                     .errorOccurred(this::handleError);
             stateMachine.enableAsync(Executors.newSingleThreadExecutor()); //Use one thread for a worker
@@ -102,6 +116,9 @@ public class DataFlowWorker {
     private void handleInitializeFailed(DataFlowWorker dataFlowWorker, StateMachine<String, DataFlowWorker> stringDataFlowWorkerStateMachine) {
     }
 
+    private void handleFailed(DataFlowWorker dataFlowWorker, StateMachine<String, DataFlowWorker> stringDataFlowWorkerStateMachine) {
+    }
+
     private void handleTerminated(DataFlowWorker dataFlowWorker, StateMachine<String, DataFlowWorker> integerDataFlowWorkerStateMachine) {
     }
 
@@ -165,18 +182,48 @@ public class DataFlowWorker {
     }
 
     private void handleInitializing(DataFlowWorker dataFlowWorker, StateMachine<String, DataFlowWorker> integerDataFlowWorkerStateMachine) {
+        //Initialized again after terminated, the failure and the stop of the last run don't apply to this one, LastError is kept until the next failure.
+        failed.set(false);
+        stopping.set(false);
         List<String> headNodeIds = dag.getHeadNodeIds();
         checkAllNodesInDAG(dag);
 
         //Setup all nodes, build path for nodes. s
         for(String nodeId : headNodeIds) {
             TapDAGNodeEx nodeWorker = dag.getNodeMap().get(nodeId);
-            nodeWorker.setup(dag, jobOptions);
+            nodeWorker.setup(dag, jobOptions, eventTracer);
+        }
+        for(String nodeId : headNodeIds) {
+            TapDAGNodeEx nodeWorker = dag.getNodeMap().get(nodeId);
+            if(nodeWorker.sourceNodeDriver != null) {
+                nodeWorker.sourceNodeDriver.getSourceNode().getConnectorContext().setPartialUpdateAccepted(acceptPartialUpdate(nodeWorker));
+            }
+        }
+        for(TapDAGNodeEx nodeWorker : dag.getNodeMap().values()) {
+            for(Driver driver : drivers(nodeWorker)) {
+                driver.setQueueErrorHandler((events, throwable) -> fail(throwable, "Node " + nodeWorker.getId() + " failed to handle " + events.size() + " batches of events"));
+            }
         }
 
         stateMachine.gotoState(STATE_INITIALIZED, "DataFlow " + dag.getId() + " init successfully");
     }
 
+    /**
+     * Partial update can only be sent when all the children are targets which support partial update.
+     * Processors handle the full record.
+     */
+    private boolean acceptPartialUpdate(TapDAGNodeEx nodeWorker) {
+        List<String> childNodeIds = nodeWorker.getChildNodeIds();
+        if(childNodeIds == null || childNodeIds.isEmpty())
+            return false;
+        for(String childNodeId : childNodeIds) {
+            TapDAGNodeEx child = dag.getNodeMap().get(childNodeId);
+            if(child == null || child.targetNodeDriver == null || !child.targetNodeDriver.getTargetNode().getConnectorFunctions().isSupportPartialUpdate())
+                return false;
+        }
+        return true;
+    }
+
     private void checkAllNodesInDAG(TapDAG dagNodes) {
         //TODO check all node information are correct, PDK can be found correctly.
         //If startNodes not source, or tail nodes not target, remove them.
@@ -218,11 +265,67 @@ public class DataFlowWorker {
     }
 
     private void handleError(Throwable throwable, String fromState, String toState, DataFlowWorker dataFlowWorker, StateMachine<String, DataFlowWorker> stateMachine) {
+        if(failed.get()) {
+            //Keep the error which failed the data flow, the later ones are mostly caused by stopping.
+            TapLogger.debug(TAG, "DataFlow {} has failed, error {} from state {} to {} is ignored", dag.getId(), throwable.getMessage(), fromState, toState);
+            return;
+        }
+        if(stopping.get()) {
+            //The sources get errors on offering after read stopped.
+            TapLogger.debug(TAG, "DataFlow {} is stopping, error {} from state {} to {} is ignored", dag.getId(), throwable.getMessage(), fromState, toState);
+            return;
+        }
         lastError = new LastError(CommonUtils.generateCoreException(throwable), fromState, toState);
     }
 
+    /**
+     * Fail the data flow at the first error, stop the sources reading and the queues between the nodes at once,
+     * then go to the failed state, which waits for the source thread as the state machine runs the sources.
+     */
+    void fail(Throwable throwable, String reason) {
+        if(!failed.compareAndSet(false, true))
+            return;
+        String fromState = getCurrentState();
+        lastError = new LastError(CommonUtils.generateCoreException(throwable), fromState, STATE_FAILED);
+        TapLogger.error(TAG, "DataFlow {} failed, {}, error {}", dag.getId(), reason, throwable.getMessage());
+        for(TapDAGNodeEx nodeWorker : dag.getNodeMap().values()) {
+            if(nodeWorker.sourceNodeDriver != null)
+                nodeWorker.sourceNodeDriver.stopRead();
+            for(Driver driver : drivers(nodeWorker)) {
+                CommonUtils.ignoreAnyError(driver::stopQueues, TAG);
+            }
+        }
+        stateMachine.gotoState(STATE_FAILED, reason);
+    }
+
+    private List<Driver> drivers(TapDAGNodeEx nodeWorker) {
+        List<Driver> drivers = new ArrayList<>();
+        if(nodeWorker.sourceNodeDriver != null)
+            drivers.add(nodeWorker.sourceNodeDriver);
+        if(nodeWorker.processorNodeDriver != null)
+            drivers.add(nodeWorker.processorNodeDriver);
+        if(nodeWorker.targetNodeDriver != null)
+            drivers.add(nodeWorker.targetNodeDriver);
+        return drivers;
+    }
+
+    public LastError getLastError() {
+        return lastError;
+    }
+
+    public boolean isFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Stop in two phases, drain the events read before the stop into the targets in JobOptions#stopDrainTimeoutMillis, then destroy the nodes.
+     * The data flow failed doesn't drain, its queues are stopped already.
+     */
     public synchronized void stop() {
         if(dag != null) {
+            if(stopping.compareAndSet(false, true) && !failed.get() && jobOptions != null && jobOptions.getStopDrainTimeoutMillis() > 0) {
+                drain(jobOptions.getStopDrainTimeoutMillis());
+            }
             List<String> headNodeIds = dag.getHeadNodeIds();
             for(String nodeId : headNodeIds) {
                 TapDAGNodeEx nodeWorker = dag.getNodeMap().get(nodeId);
@@ -231,6 +334,76 @@ public class DataFlowWorker {
         }
     }
 
+    /**
+     * Stop the sources reading and wait for the events being offered, then wait for the queues to be idle from the heads to the tails,
+     * a node's queues are waited after its upstream queues are idle, so no more events come into them.
+     * The sources are notified to commit the offsets when all the queues are drained.
+     *
+     * @return false when timeout or any node failed, the events queued are discarded when the nodes are destroyed.
+     */
+    boolean drain(long timeoutMillis) {
+        long time = System.currentTimeMillis();
+        long deadline = time + timeoutMillis;
+        List<TapDAGNodeEx> nodeWorkers = sortedNodes();
+        boolean drained = true;
+        for(TapDAGNodeEx nodeWorker : nodeWorkers) {
+            if(nodeWorker.sourceNodeDriver != null && !nodeWorker.sourceNodeDriver.stopReadAndWait(Math.max(0, deadline - System.currentTimeMillis()))) {
+                TapLogger.warn(TAG, "DataFlow {} source {} doesn't stop offering in {} milliseconds", dag.getId(), nodeWorker.getId(), timeoutMillis);
+                drained = false;
+            }
+        }
+        if(drained) {
+            for(TapDAGNodeEx nodeWorker : nodeWorkers) {
+                for(Driver driver : drivers(nodeWorker)) {
+                    if(!driver.drainQueues(Math.max(0, deadline - System.currentTimeMillis()))) {
+                        TapLogger.warn(TAG, "DataFlow {} node {} doesn't drain its queues in {} milliseconds or failed", dag.getId(), nodeWorker.getId(), timeoutMillis);
+                        drained = false;
+                        break;
+                    }
+                }
+                if(!drained)
+                    break;
+            }
+        }
+        if(drained && !failed.get()) {
+            for(TapDAGNodeEx nodeWorker : nodeWorkers) {
+                if(nodeWorker.sourceNodeDriver != null)
+                    nodeWorker.sourceNodeDriver.drained();
+            }
+            TapLogger.info(TAG, "DataFlow {} drained in {} milliseconds", dag.getId(), System.currentTimeMillis() - time);
+            return true;
+        }
+        TapLogger.warn(TAG, "DataFlow {} stops without draining, the events queued are discarded", dag.getId());
+        return false;
+    }
+
+    /**
+     * Nodes in topological order, the reversed post order of the depth first search from the heads.
+     */
+    private List<TapDAGNodeEx> sortedNodes() {
+        LinkedList<TapDAGNodeEx> sorted = new LinkedList<>();
+        Set<String> visited = new HashSet<>();
+        for(String nodeId : dag.getHeadNodeIds()) {
+            sortNode(nodeId, visited, sorted);
+        }
+        return sorted;
+    }
+
+    private void sortNode(String nodeId, Set<String> visited, LinkedList<TapDAGNodeEx> sorted) {
+        if(!visited.add(nodeId))
+            return;
+        TapDAGNodeEx nodeWorker = dag.getNodeMap().get(nodeId);
+        if(nodeWorker == null)
+            return;
+        List<String> childNodeIds = nodeWorker.getChildNodeIds();
+        if(childNodeIds != null) {
+            for(String childNodeId : childNodeIds) {
+                sortNode(childNodeId, visited, sorted);
+            }
+        }
+        sorted.addFirst(nodeWorker);
+    }
+
     private void destroyNode(TapDAGNodeEx nodeWorker) {
         if(nodeWorker == null) return;
         List<String> childNodeIds = nodeWorker.getChildNodeIds();
@@ -267,9 +440,18 @@ public class DataFlowWorker {
             jobOptions = new JobOptions();
 
         this.jobOptions = jobOptions;
+        if(jobOptions.getTraceSampleInterval() > 0)
+            eventTracer = new EventTracer(jobOptions.getTraceSampleInterval());
         initStateMachine();
     }
 
+    /**
+     * @return the latency of the sampled events through the stages, null when the tracing is disabled.
+     */
+    public EventTracer getEventTracer() {
+        return eventTracer;
+    }
+
     public String getCurrentState() {
         if(stateMachine != null) {
             return stateMachine.getCurrentState();
@@ -19,6 +19,114 @@ public class JobOptions {
         this.queueBatchSize = queueBatchSize;
         return this;
     }
+    /**
+     * The consumer of a queue hands off the batches to the next node when the events reach it, 0 means no limit besides queueBatchSize.
+     */
+    protected int queueBatchEvents = 0;
+    public JobOptions queueBatchEvents(int queueBatchEvents) {
+        this.queueBatchEvents = queueBatchEvents;
+        return this;
+    }
+    /**
+     * The consumer of a queue hands off the batches to the next node when the estimated bytes of the events reach it, 0 means no limit.
+     */
+    protected long queueBatchBytes = 0;
+    public JobOptions queueBatchBytes(long queueBatchBytes) {
+        this.queueBatchBytes = queueBatchBytes;
+        return this;
+    }
+    /**
+     * The consumer of a queue waits up to queueLingerMillis for a full batch, avoids tiny writes from a trickling source, 0 means no waiting.
+     */
+    protected long queueLingerMillis = 0;
+    public JobOptions queueLingerMillis(long queueLingerMillis) {
+        this.queueLingerMillis = queueLingerMillis;
+        return this;
+    }
+    /**
+     * Spill the batches into this directory when the queue is full, null means blocking the source instead.
+     */
+    protected String overflowDirectory;
+    public JobOptions overflowDirectory(String overflowDirectory) {
+        this.overflowDirectory = overflowDirectory;
+        return this;
+    }
+    protected int overflowSegmentSize = 64 * 1024 * 1024;
+    public JobOptions overflowSegmentSize(int overflowSegmentSize) {
+        this.overflowSegmentSize = overflowSegmentSize;
+        return this;
+    }
+    /**
+     * When the spilled bytes of a queue reach it, the source will be blocked.
+     */
+    protected long overflowMaxDiskSize = 1024L * 1024 * 1024;
+    public JobOptions overflowMaxDiskSize(long overflowMaxDiskSize) {
+        this.overflowMaxDiskSize = overflowMaxDiskSize;
+        return this;
+    }
+    /**
+     * Merge the record events of the same primary key in a batch before writing to target, for hot rows.
+     */
+    protected boolean coalesceRecordEvents = false;
+    public JobOptions coalesceRecordEvents(boolean coalesceRecordEvents) {
+        this.coalesceRecordEvents = coalesceRecordEvents;
+        return this;
+    }
+    /**
+     * Trace the latency through the stages for one of every traceSampleInterval events, 0 disables the tracing.
+     */
+    protected int traceSampleInterval = 0;
+    public JobOptions traceSampleInterval(int traceSampleInterval) {
+        this.traceSampleInterval = traceSampleInterval;
+        return this;
+    }
+    /**
+     * Retry times of a failed write to target before failing the data flow, the interval starts from writeRetryIntervalMillis and doubles
+     * until writeRetryMaxIntervalMillis. The connector should be idempotent for the retried events.
+     */
+    protected int writeRetryTimes = 0;
+    public JobOptions writeRetryTimes(int writeRetryTimes) {
+        this.writeRetryTimes = writeRetryTimes;
+        return this;
+    }
+    protected long writeRetryIntervalMillis = 1000;
+    public JobOptions writeRetryIntervalMillis(long writeRetryIntervalMillis) {
+        this.writeRetryIntervalMillis = writeRetryIntervalMillis;
+        return this;
+    }
+    protected long writeRetryMaxIntervalMillis = 30000;
+    public JobOptions writeRetryMaxIntervalMillis(long writeRetryMaxIntervalMillis) {
+        this.writeRetryMaxIntervalMillis = writeRetryMaxIntervalMillis;
+        return this;
+    }
+    /**
+     * Count of the workers writing the record events of a target node in parallel, the events are partitioned by the primary key,
+     * so the events of the same key are written in order. DDL and control events, and the events without primary key are written after all the workers are idle.
+     * Only for the target connector declaring ConnectorFunctions#supportParallelWrite, which has a thread safe writeRecord, the others write in one thread.
+     */
+    protected int writeWorkers = 1;
+    public JobOptions writeWorkers(int writeWorkers) {
+        this.writeWorkers = writeWorkers;
+        return this;
+    }
+    /**
+     * Batches the source connector reads ahead while the batches read are converted and offered to the queues by another thread, 0 does both on the reading thread.
+     * It helps the source with the latency of fetching a batch when there is a spare core, the extra thread costs more than it saves on a single core.
+     */
+    protected int batchReadAhead = 0;
+    public JobOptions batchReadAhead(int batchReadAhead) {
+        this.batchReadAhead = batchReadAhead;
+        return this;
+    }
+    /**
+     * On stop, wait up to stopDrainTimeoutMillis for the events read before the stop to be written to the targets,
+     * before the nodes are destroyed. 0 destroys the nodes at once and discards the queued events.
+     */
+    protected long stopDrainTimeoutMillis = 30000;
+    public JobOptions stopDrainTimeoutMillis(long stopDrainTimeoutMillis) {
+        this.stopDrainTimeoutMillis = stopDrainTimeoutMillis;
+        return this;
+    }
     public static final String ACTION_DROP_TABLE = "dropTable";
     public static final String ACTION_CREATE_TABLE = "createTable";
     public static final String ACTION_CLEAR_TABLE = "clearTable";
@@ -81,6 +189,38 @@ public class JobOptions {
         this.actionsBeforeStart = actionsBeforeStart;
     }
 
+    public String getOverflowDirectory() {
+        return overflowDirectory;
+    }
+
+    public void setOverflowDirectory(String overflowDirectory) {
+        this.overflowDirectory = overflowDirectory;
+    }
+
+    public int getOverflowSegmentSize() {
+        return overflowSegmentSize;
+    }
+
+    public void setOverflowSegmentSize(int overflowSegmentSize) {
+        this.overflowSegmentSize = overflowSegmentSize;
+    }
+
+    public long getOverflowMaxDiskSize() {
+        return overflowMaxDiskSize;
+    }
+
+    public void setOverflowMaxDiskSize(long overflowMaxDiskSize) {
+        this.overflowMaxDiskSize = overflowMaxDiskSize;
+    }
+
+    public boolean isCoalesceRecordEvents() {
+        return coalesceRecordEvents;
+    }
+
+    public void setCoalesceRecordEvents(boolean coalesceRecordEvents) {
+        this.coalesceRecordEvents = coalesceRecordEvents;
+    }
+
     public int getEventBatchSize() {
         return eventBatchSize;
     }
@@ -88,4 +228,84 @@ public class JobOptions {
     public void setEventBatchSize(int eventBatchSize) {
         this.eventBatchSize = eventBatchSize;
     }
+
+    public int getTraceSampleInterval() {
+        return traceSampleInterval;
+    }
+
+    public void setTraceSampleInterval(int traceSampleInterval) {
+        this.traceSampleInterval = traceSampleInterval;
+    }
+
+    public int getQueueBatchEvents() {
+        return queueBatchEvents;
+    }
+
+    public void setQueueBatchEvents(int queueBatchEvents) {
+        this.queueBatchEvents = queueBatchEvents;
+    }
+
+    public long getQueueBatchBytes() {
+        return queueBatchBytes;
+    }
+
+    public void setQueueBatchBytes(long queueBatchBytes) {
+        this.queueBatchBytes = queueBatchBytes;
+    }
+
+    public long getQueueLingerMillis() {
+        return queueLingerMillis;
+    }
+
+    public void setQueueLingerMillis(long queueLingerMillis) {
+        this.queueLingerMillis = queueLingerMillis;
+    }
+
+    public int getWriteRetryTimes() {
+        return writeRetryTimes;
+    }
+
+    public void setWriteRetryTimes(int writeRetryTimes) {
+        this.writeRetryTimes = writeRetryTimes;
+    }
+
+    public long getWriteRetryIntervalMillis() {
+        return writeRetryIntervalMillis;
+    }
+
+    public void setWriteRetryIntervalMillis(long writeRetryIntervalMillis) {
+        this.writeRetryIntervalMillis = writeRetryIntervalMillis;
+    }
+
+    public long getWriteRetryMaxIntervalMillis() {
+        return writeRetryMaxIntervalMillis;
+    }
+
+    public void setWriteRetryMaxIntervalMillis(long writeRetryMaxIntervalMillis) {
+        this.writeRetryMaxIntervalMillis = writeRetryMaxIntervalMillis;
+    }
+
+    public long getStopDrainTimeoutMillis() {
+        return stopDrainTimeoutMillis;
+    }
+
+    public void setStopDrainTimeoutMillis(long stopDrainTimeoutMillis) {
+        this.stopDrainTimeoutMillis = stopDrainTimeoutMillis;
+    }
+
+    public int getWriteWorkers() {
+        return writeWorkers;
+    }
+
+    public void setWriteWorkers(int writeWorkers) {
+        this.writeWorkers = writeWorkers;
+    }
+
+    public int getBatchReadAhead() {
+        return batchReadAhead;
+    }
+
+    public void setBatchReadAhead(int batchReadAhead) {
+        this.batchReadAhead = batchReadAhead;
+    }
 }
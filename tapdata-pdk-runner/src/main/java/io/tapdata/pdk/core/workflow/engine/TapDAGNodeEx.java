@@ -9,13 +9,18 @@ import io.tapdata.pdk.core.api.PDKIntegration;
 import io.tapdata.pdk.core.api.SourceAndTargetNode;
 import io.tapdata.pdk.core.dag.TapDAGNode;
 import io.tapdata.pdk.core.executor.ExecutorsManager;
+import io.tapdata.pdk.core.monitor.EventTracer;
+import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.pdk.core.utils.queue.ListHandler;
 import io.tapdata.pdk.core.utils.queue.SingleThreadBlockingQueue;
+import io.tapdata.pdk.core.utils.queue.TapEventDiskOverflow;
+import io.tapdata.pdk.core.utils.queue.TapEventsWeigher;
 import io.tapdata.pdk.core.workflow.engine.driver.Driver;
 import io.tapdata.pdk.core.workflow.engine.driver.ProcessorNodeDriver;
 import io.tapdata.pdk.core.workflow.engine.driver.SourceNodeDriver;
 import io.tapdata.pdk.core.workflow.engine.driver.TargetNodeDriver;
 
+import java.io.File;
 import java.util.List;
 
 public class TapDAGNodeEx extends TapDAGNode {
@@ -53,6 +58,18 @@ public class TapDAGNodeEx extends TapDAGNode {
         this.table = table;
         return this;
     }
+    public TapDAGNodeEx tables(List<TapTable> tables) {
+        this.tables = tables;
+        return this;
+    }
+    public TapDAGNodeEx batchOffset(String batchOffset) {
+        this.batchOffset = batchOffset;
+        return this;
+    }
+    public TapDAGNodeEx streamOffset(String streamOffset) {
+        this.streamOffset = streamOffset;
+        return this;
+    }
     public TapDAGNodeEx parentNodeIds(List<String> parentNodeIds) {
         this.parentNodeIds = parentNodeIds;
         return this;
@@ -66,7 +83,10 @@ public class TapDAGNodeEx extends TapDAGNode {
     SourceNodeDriver sourceNodeDriver;
     TargetNodeDriver targetNodeDriver;
 
-    public void setup(TapDAG dag, JobOptions jobOptions) {
+    /**
+     * @param eventTracer null when the tracing is disabled.
+     */
+    public void setup(TapDAG dag, JobOptions jobOptions, EventTracer eventTracer) {
         switch (type) {
             case TapDAGNode.TYPE_SOURCE:
                 if(sourceNodeDriver == null) {
@@ -125,12 +145,20 @@ public class TapDAGNodeEx extends TapDAGNode {
                 configTargetNodeDriver(targetNodeDriver, jobOptions);
                 break;
         }
+        if(eventTracer != null) {
+            if(sourceNodeDriver != null)
+                sourceNodeDriver.setEventTracer(eventTracer, id);
+            if(processorNodeDriver != null)
+                processorNodeDriver.setEventTracer(eventTracer, id);
+            if(targetNodeDriver != null)
+                targetNodeDriver.setEventTracer(eventTracer, id);
+        }
         if(childNodeIds != null) {
             for(String childNodeId : childNodeIds) {
                 TapDAGNodeEx nodeWorker = dag.getNodeMap().get(childNodeId);
                 if(nodeWorker != null) {
-                    nodeWorker.setup(dag, jobOptions);
-                    buildPath(this, nodeWorker, jobOptions);
+                    nodeWorker.setup(dag, jobOptions, eventTracer);
+                    buildPath(this, nodeWorker, jobOptions, eventTracer);
                 }
             }
         }
@@ -138,42 +166,58 @@ public class TapDAGNodeEx extends TapDAGNode {
 
     private void configTargetNodeDriver(TargetNodeDriver targetNodeDriver, JobOptions jobOptions) {
         targetNodeDriver.setActionsBeforeStart(jobOptions.actionsBeforeStart);
+        targetNodeDriver.setCoalesceRecordEvents(jobOptions.coalesceRecordEvents);
+        targetNodeDriver.setWriteRetry(jobOptions.writeRetryTimes, jobOptions.writeRetryIntervalMillis, jobOptions.writeRetryMaxIntervalMillis);
+        targetNodeDriver.setWriteWorkers(jobOptions.writeWorkers, jobOptions.getQueueSize(), jobOptions.eventBatchSize);
     }
 
     private void configSourceNodeDriver(SourceNodeDriver sourceNodeDriver, JobOptions jobOptions) {
         sourceNodeDriver.setBatchLimit(jobOptions.eventBatchSize);
         sourceNodeDriver.setEnableBatchRead(jobOptions.enableBatchRead);
         sourceNodeDriver.setEnableStreamRead(jobOptions.enableStreamRead);
+        sourceNodeDriver.setBatchReadAhead(jobOptions.batchReadAhead);
+        sourceNodeDriver.setBatchOffset(batchOffset);
+        sourceNodeDriver.setStreamOffset(streamOffset);
     }
 
-    private void buildPath(TapDAGNodeEx parent, TapDAGNodeEx child, JobOptions jobOptions) {
+    private void buildPath(TapDAGNodeEx parent, TapDAGNodeEx child, JobOptions jobOptions, EventTracer eventTracer) {
         String queueName = parent.id + " pdk " + TapNodeSpecification.idAndGroup(parent.pdkId, parent.group, parent.version);
         if(parent.sourceNodeDriver != null) {
             if(child.processorNodeDriver != null || child.targetNodeDriver != null) {
-                connect(parent.sourceNodeDriver, child.processorNodeDriver, jobOptions, "Source queue " + queueName + " to processor " + child.id);
-                connect(parent.sourceNodeDriver, child.targetNodeDriver, jobOptions, "Source queue " + queueName + " to target " + child.id);
+                connect(parent.sourceNodeDriver, child.processorNodeDriver, jobOptions, eventTracer, "Source queue " + queueName + " to processor " + child.id);
+                connect(parent.sourceNodeDriver, child.targetNodeDriver, jobOptions, eventTracer, "Source queue " + queueName + " to target " + child.id);
             } else {
                 TapLogger.error(TAG, "Source build path failed, child's processorNodeDriver or targetNodeDriver not found, nodeId {} type {} pdkId {} pdkGroup {} pdkVersion {}", child.id, child.type, child.pdkId, child.group, child.version);
             }
         }
         if(parent.processorNodeDriver != null) {
             if(child.processorNodeDriver != null || child.targetNodeDriver != null) {
-                connect(parent.processorNodeDriver, child.processorNodeDriver, jobOptions, "Processor queue " + queueName + " to processor " + child.id);
-                connect(parent.processorNodeDriver, child.targetNodeDriver, jobOptions, "Processor queue " + queueName + " to target " + child.id);
+                connect(parent.processorNodeDriver, child.processorNodeDriver, jobOptions, eventTracer, "Processor queue " + queueName + " to processor " + child.id);
+                connect(parent.processorNodeDriver, child.targetNodeDriver, jobOptions, eventTracer, "Processor queue " + queueName + " to target " + child.id);
             } else {
                 TapLogger.error(TAG, "Processor build path failed, child's processorNodeDriver or targetNodeDriver not found, nodeId {} type {} pdkId {} pdkGroup {} pdkVersion {}", child.id, child.type, child.pdkId, child.group, child.version);
             }
         }
     }
 
-    private void connect(Driver driver, ListHandler<List<TapEvent>> queueReceiver, JobOptions jobOptions, String queueName) {
+    private void connect(Driver driver, ListHandler<List<TapEvent>> queueReceiver, JobOptions jobOptions, EventTracer eventTracer, String queueName) {
         if(driver != null && queueReceiver != null) {
             SingleThreadBlockingQueue<List<TapEvent>> queue = new SingleThreadBlockingQueue<List<TapEvent>>(queueName)
                     .withMaxSize(jobOptions.getQueueSize())
                     .withHandleSize(jobOptions.getQueueBatchSize())
+                    .withWeigher(new TapEventsWeigher())
+                    .withHandleCount(jobOptions.getQueueBatchEvents())
+                    .withHandleBytes(jobOptions.getQueueBatchBytes())
+                    .withLinger(jobOptions.getQueueLingerMillis())
                     .withExecutorService(ExecutorsManager.getInstance().getExecutorService())
-                    .withHandler(queueReceiver)
-                    .start();
+                    .withHandler(queueReceiver);
+            if(jobOptions.getOverflowDirectory() != null) {
+                File overflowDirectory = new File(jobOptions.getOverflowDirectory(), CommonUtils.processUniqueId());
+                queue.withOverflow(new TapEventDiskOverflow(overflowDirectory, jobOptions.getOverflowSegmentSize(), jobOptions.getOverflowMaxDiskSize()));
+            }
+            if(eventTracer != null)
+                queue.withTracer(eventTracer.queueTracer(queueName));
+            queue.start();
             driver.registerQueue(queue);
         }
     }
@@ -2,13 +2,28 @@ package io.tapdata.pdk.core.workflow.engine.driver;
 
 import io.tapdata.entity.codec.filter.Replacer;
 import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.logger.TapLogger;
+import io.tapdata.pdk.core.monitor.EventTracer;
+import io.tapdata.pdk.core.utils.queue.ListErrorHandler;
 import io.tapdata.pdk.core.utils.queue.SingleThreadBlockingQueue;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 public abstract class Driver {
+    private static final String TAG = Driver.class.getSimpleName();
     private List<SingleThreadBlockingQueue<List<TapEvent>>> queues = new CopyOnWriteArrayList<>();
+    protected EventTracer eventTracer;
+    protected String traceNodeId;
+
+    /**
+     * Stamp the stages of this driver into the sampled events, the histograms are scoped by the node id.
+     */
+    public void setEventTracer(EventTracer eventTracer, String nodeId) {
+        this.eventTracer = eventTracer;
+        this.traceNodeId = nodeId;
+    }
 
     public void registerQueue(SingleThreadBlockingQueue<List<TapEvent>> queue) {
         if(!queues.contains(queue))
@@ -29,5 +44,58 @@ public abstract class Driver {
         }
     }
 
-    public void destroy() {}
+    /**
+     * Replacer of offer for the events which are already converted, each queue gets its own copy when there are more than one.
+     */
+    public List<TapEvent> cloneEvents(List<TapEvent> events, boolean needClone) {
+        if(!needClone)
+            return events;
+        List<TapEvent> newEvents = new ArrayList<>(events.size());
+        for(TapEvent tapEvent : events) {
+            try {
+                TapEvent newTapEvent = tapEvent.getClass().getConstructor().newInstance();
+                tapEvent.clone(newTapEvent);
+                newEvents.add(newTapEvent);
+            } catch (Throwable e) {
+                TapLogger.error(TAG, "New instance for {} failed, {}. TapEvent {} will be ignored", tapEvent.getClass(), e.getMessage(), tapEvent);
+            }
+        }
+        return newEvents;
+    }
+
+    /**
+     * Called when the consumer of a queue to this driver's downstream fails, after the queue is stopped.
+     */
+    public void setQueueErrorHandler(ListErrorHandler<List<TapEvent>> queueErrorHandler) {
+        for(SingleThreadBlockingQueue<List<TapEvent>> queue : queues) {
+            queue.withErrorHandler(queueErrorHandler);
+        }
+    }
+
+    /**
+     * Stop the queues to this driver's downstream, release the spilled files if any.
+     */
+    public void stopQueues() {
+        for(SingleThreadBlockingQueue<List<TapEvent>> queue : queues) {
+            queue.stop();
+        }
+    }
+
+    /**
+     * Wait until the queues to this driver's downstream handled all the events offered before, the upstream should stop offering first.
+     *
+     * @return false when timeout or any queue is stopped.
+     */
+    public boolean drainQueues(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for(SingleThreadBlockingQueue<List<TapEvent>> queue : queues) {
+            if(!queue.waitIdle(Math.max(0, deadline - System.currentTimeMillis())))
+                return false;
+        }
+        return true;
+    }
+
+    public void destroy() {
+        stopQueues();
+    }
 }
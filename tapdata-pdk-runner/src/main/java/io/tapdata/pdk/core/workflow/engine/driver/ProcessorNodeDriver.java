@@ -5,6 +5,7 @@ import io.tapdata.entity.event.dml.TapInsertRecordEvent;
 import io.tapdata.pdk.apis.functions.processor.ProcessRecordFunction;
 import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.pdk.core.api.ProcessorNode;
+import io.tapdata.pdk.core.monitor.EventTracer;
 import io.tapdata.pdk.core.monitor.PDKInvocationMonitor;
 import io.tapdata.pdk.core.monitor.PDKMethod;
 import io.tapdata.pdk.core.utils.LoggerUtils;
@@ -19,6 +20,7 @@ public class ProcessorNodeDriver extends Driver implements ListHandler<List<TapE
 
     private ProcessorNode processorNode;
     private SingleThreadBlockingQueue<List<TapEvent>> queue;
+    private EventTracer.StageRecorder processedRecorder;
 
     @Override
     public void execute(List<List<TapEvent>> list) throws Throwable {
@@ -35,10 +37,13 @@ public class ProcessorNodeDriver extends Driver implements ListHandler<List<TapE
             if(processRecordFunction != null) {
                 TapLogger.debug(TAG, "Process {} of record events, {}", recordEvents.size(), LoggerUtils.processorNodeMessage(processorNode));
                 pdkInvocationMonitor.invokePDKMethod(PDKMethod.PROCESSOR_PROCESS_RECORD, () -> {
-                    processRecordFunction.process(processorNode.getProcessorContext(), recordEvents, (event) -> {
+                    processRecordFunction.process(processorNode.getProcessorContext(), recordEvents, (processedEvents) -> {
                         TapLogger.debug(TAG, "Processed {} of record events, {}", recordEvents.size(), LoggerUtils.processorNodeMessage(processorNode));
-                        //TODO not sure how to do this for processor, do it later.
-//                        offer(recordEvents);
+                        if(processedEvents == null || processedEvents.isEmpty())
+                            return;
+                        if(processedRecorder != null)
+                            processedRecorder.stamp(processedEvents);
+                        offer(processedEvents, this::cloneEvents);
 //                        offer(events, (theEvents) -> PDKIntegration.filterEvents(sourceNode, theEvents));
                     });
                 }, "insert " + LoggerUtils.processorNodeMessage(processorNode), TAG);
@@ -46,6 +51,12 @@ public class ProcessorNodeDriver extends Driver implements ListHandler<List<TapE
         }
     }
 
+    @Override
+    public void setEventTracer(EventTracer eventTracer, String nodeId) {
+        super.setEventTracer(eventTracer, nodeId);
+        processedRecorder = eventTracer != null ? eventTracer.stage(nodeId, EventTracer.STAGE_PROCESSED) : null;
+    }
+
     public ProcessorNode getProcessorNode() {
         return processorNode;
     }
@@ -0,0 +1,212 @@
+package io.tapdata.pdk.core.workflow.engine.driver;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.IndexedRecordMap;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Merge the record events of the same primary key in a batch, reduce the writes of hot rows.
+ *
+ * insert + update becomes insert with the merged image, update + update becomes update, update + delete becomes delete,
+ * insert + delete is dropped. Other sequences of the same key are kept as they are.
+ * Events of the same key keep their order, events of different keys are grouped by the first appearance of the key.
+ *
+ * The event without primary key values, or the update changing the primary key, is a barrier,
+ * the events before it are never merged with the events after it.
+ * The partial update with nested paths, like "a.b" or "arr.3" from a Mongo update description, is never merged with the events before or after it,
+ * the paths can not be applied to a flat image, and the paths of different levels conflict in one update.
+ * The caller should not pass DDL events, the record events before and after a DDL should be coalesced separately.
+ */
+public class RecordEventCoalescer {
+    private final Map<TapTable, String[]> tablePrimaryKeys = new IdentityHashMap<>();
+
+    public List<TapRecordEvent> coalesce(List<TapRecordEvent> recordEvents) {
+        if(recordEvents.size() <= 1)
+            return recordEvents;
+        List<TapRecordEvent> result = new ArrayList<>(recordEvents.size());
+        LinkedHashMap<List<Object>, LinkedList<TapRecordEvent>> keyEventsMap = new LinkedHashMap<>();
+        //Images which are copied already, can be merged in place.
+        Set<Map<String, Object>> ownedImages = Collections.newSetFromMap(new IdentityHashMap<>());
+        for(TapRecordEvent recordEvent : recordEvents) {
+            List<Object> key = key(recordEvent);
+            if(key == null) {
+                flush(keyEventsMap, result);
+                result.add(recordEvent);
+                continue;
+            }
+            LinkedList<TapRecordEvent> keyEvents = keyEventsMap.get(key);
+            if(keyEvents == null) {
+                keyEvents = new LinkedList<>();
+                keyEvents.add(recordEvent);
+                keyEventsMap.put(key, keyEvents);
+            } else {
+                merge(keyEvents, recordEvent, ownedImages);
+            }
+        }
+        flush(keyEventsMap, result);
+        tablePrimaryKeys.clear();
+        return result;
+    }
+
+    private void merge(LinkedList<TapRecordEvent> keyEvents, TapRecordEvent recordEvent, Set<Map<String, Object>> ownedImages) {
+        TapRecordEvent last = keyEvents.peekLast();
+        if(recordEvent instanceof TapUpdateRecordEvent) {
+            TapUpdateRecordEvent newUpdateRecordEvent = (TapUpdateRecordEvent) recordEvent;
+            Map<String, Object> after = newUpdateRecordEvent.getAfter();
+            List<String> removedFields = newUpdateRecordEvent.getRemovedFields();
+            if(hasNestedPaths(newUpdateRecordEvent) || (last instanceof TapUpdateRecordEvent && hasNestedPaths((TapUpdateRecordEvent) last))) {
+                keyEvents.add(recordEvent);
+                return;
+            }
+            if(last instanceof TapInsertRecordEvent && after != null) {
+                TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) last;
+                insertRecordEvent.setAfter(mergeImage(insertRecordEvent.getAfter(), after, removedFields, ownedImages));
+                insertRecordEvent.setReferenceTime(recordEvent.getReferenceTime());
+                return;
+            }
+            if(last instanceof TapUpdateRecordEvent && after != null) {
+                TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) last;
+                updateRecordEvent.setAfter(mergeImage(updateRecordEvent.getAfter(), after, removedFields, ownedImages));
+                updateRecordEvent.setRemovedFields(mergeRemovedFields(updateRecordEvent.getRemovedFields(), after, removedFields));
+                //Partial only when both are partial, a full image merged with a partial update is still a full image.
+                updateRecordEvent.setPartial(updateRecordEvent.isPartial() && newUpdateRecordEvent.isPartial());
+                updateRecordEvent.setReferenceTime(recordEvent.getReferenceTime());
+                return;
+            }
+        } else if(recordEvent instanceof TapDeleteRecordEvent) {
+            if(last instanceof TapInsertRecordEvent) {
+                keyEvents.removeLast();
+                return;
+            }
+            if(last instanceof TapUpdateRecordEvent) {
+                keyEvents.removeLast();
+                keyEvents.add(recordEvent);
+                return;
+            }
+        }
+        keyEvents.add(recordEvent);
+    }
+
+    private boolean hasNestedPaths(TapUpdateRecordEvent updateRecordEvent) {
+        if(!updateRecordEvent.isPartial())
+            return false;
+        if(updateRecordEvent.getAfter() != null) {
+            for(String field : updateRecordEvent.getAfter().keySet()) {
+                if(field.indexOf('.') >= 0)
+                    return true;
+            }
+        }
+        if(updateRecordEvent.getRemovedFields() != null) {
+            for(String field : updateRecordEvent.getRemovedFields()) {
+                if(field.indexOf('.') >= 0)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<String, Object> mergeImage(Map<String, Object> image, Map<String, Object> after, List<String> removedFields, Set<Map<String, Object>> ownedImages) {
+        if(image == null && (removedFields == null || removedFields.isEmpty()))
+            return after;
+        if(image == null) {
+            image = after;
+        } else {
+            if(!ownedImages.contains(image)) {
+                image = image instanceof IndexedRecordMap ? ((IndexedRecordMap) image).copy(value -> value) : new LinkedHashMap<>(image);
+                ownedImages.add(image);
+            }
+            image.putAll(after);
+        }
+        if(removedFields != null) {
+            if(!ownedImages.contains(image)) {
+                image = new LinkedHashMap<>(image);
+                ownedImages.add(image);
+            }
+            for(String removedField : removedFields) {
+                image.remove(removedField);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * The fields removed by the former update and set again by the latter one are not removed any more.
+     */
+    private List<String> mergeRemovedFields(List<String> lastRemovedFields, Map<String, Object> after, List<String> removedFields) {
+        if(lastRemovedFields == null)
+            return removedFields;
+        List<String> merged = new ArrayList<>();
+        for(String field : lastRemovedFields) {
+            if(!after.containsKey(field))
+                merged.add(field);
+        }
+        if(removedFields != null) {
+            for(String field : removedFields) {
+                if(!merged.contains(field))
+                    merged.add(field);
+            }
+        }
+        return merged;
+    }
+
+    private void flush(LinkedHashMap<List<Object>, LinkedList<TapRecordEvent>> keyEventsMap, List<TapRecordEvent> result) {
+        for(LinkedList<TapRecordEvent> keyEvents : keyEventsMap.values()) {
+            result.addAll(keyEvents);
+        }
+        keyEventsMap.clear();
+    }
+
+    /**
+     * @return table id followed by primary key values, null if the event can not be coalesced.
+     */
+    private List<Object> key(TapRecordEvent recordEvent) {
+        TapTable table = recordEvent.getTable();
+        if(table == null)
+            return null;
+        String[] primaryKeys = tablePrimaryKeys.computeIfAbsent(table, this::primaryKeys);
+        if(primaryKeys.length == 0)
+            return null;
+        if(recordEvent instanceof TapInsertRecordEvent) {
+            return key(table, primaryKeys, ((TapInsertRecordEvent) recordEvent).getAfter());
+        } else if(recordEvent instanceof TapDeleteRecordEvent) {
+            return key(table, primaryKeys, ((TapDeleteRecordEvent) recordEvent).getBefore());
+        } else if(recordEvent instanceof TapUpdateRecordEvent) {
+            TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) recordEvent;
+            List<Object> afterKey = key(table, primaryKeys, updateRecordEvent.getAfter());
+            List<Object> beforeKey = key(table, primaryKeys, updateRecordEvent.getBefore());
+            if(afterKey == null)
+                return beforeKey;
+            if(beforeKey != null && !beforeKey.equals(afterKey))
+                return null;
+            return afterKey;
+        }
+        return null;
+    }
+
+    private List<Object> key(TapTable table, String[] primaryKeys, Map<String, Object> image) {
+        if(image == null)
+            return null;
+        List<Object> key = new ArrayList<>(primaryKeys.length + 1);
+        key.add(table.getId());
+        for(String primaryKey : primaryKeys) {
+            Object value = image.get(primaryKey);
+            if(value == null)
+                return null;
+            key.add(value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value);
+        }
+        return key;
+    }
+
+    private String[] primaryKeys(TapTable table) {
+        Collection<String> primaryKeys = table.primaryKeys();
+        if(primaryKeys.isEmpty() && table.getDefaultPrimaryKeys() != null)
+            primaryKeys = table.getDefaultPrimaryKeys();
+        return primaryKeys.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,95 @@
+package io.tapdata.pdk.core.workflow.engine.driver;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+
+import java.util.*;
+
+/**
+ * Partition the record events by the hash of the primary key values, the events of the same key are always in the same partition.
+ *
+ * The event without primary key values, or the update changing the primary key, has no partition,
+ * the caller should write it after the events before it are written, like the barrier of RecordEventCoalescer.
+ */
+public class RecordEventPartitioner {
+    public static final int NO_PARTITION = -1;
+    private final Map<TapTable, String[]> tablePrimaryKeys = new IdentityHashMap<>();
+
+    /**
+     * @return 0 ~ partitions - 1, or NO_PARTITION.
+     */
+    public int partition(TapRecordEvent recordEvent, int partitions) {
+        TapTable table = recordEvent.getTable();
+        if(table == null)
+            return NO_PARTITION;
+        String[] primaryKeys = tablePrimaryKeys.computeIfAbsent(table, this::primaryKeys);
+        if(primaryKeys.length == 0)
+            return NO_PARTITION;
+        Map<String, Object> image = null;
+        if(recordEvent instanceof TapInsertRecordEvent) {
+            image = ((TapInsertRecordEvent) recordEvent).getAfter();
+        } else if(recordEvent instanceof TapDeleteRecordEvent) {
+            image = ((TapDeleteRecordEvent) recordEvent).getBefore();
+        } else if(recordEvent instanceof TapUpdateRecordEvent) {
+            TapUpdateRecordEvent updateRecordEvent = (TapUpdateRecordEvent) recordEvent;
+            Map<String, Object> after = updateRecordEvent.getAfter();
+            Map<String, Object> before = updateRecordEvent.getBefore();
+            if(!hasKey(primaryKeys, after)) {
+                image = before;
+            } else {
+                if(hasKey(primaryKeys, before) && !sameKey(primaryKeys, before, after))
+                    return NO_PARTITION;
+                image = after;
+            }
+        }
+        if(!hasKey(primaryKeys, image))
+            return NO_PARTITION;
+        int hash = 1;
+        for(String primaryKey : primaryKeys) {
+            Object value = image.get(primaryKey);
+            hash = 31 * hash + (value instanceof byte[] ? Arrays.hashCode((byte[]) value) : value.hashCode());
+        }
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % partitions;
+    }
+
+    /**
+     * Forget the primary keys of the tables, the tables may be altered by DDL.
+     */
+    public void clear() {
+        tablePrimaryKeys.clear();
+    }
+
+    private boolean hasKey(String[] primaryKeys, Map<String, Object> image) {
+        if(image == null)
+            return false;
+        for(String primaryKey : primaryKeys) {
+            if(image.get(primaryKey) == null)
+                return false;
+        }
+        return true;
+    }
+
+    private boolean sameKey(String[] primaryKeys, Map<String, Object> before, Map<String, Object> after) {
+        for(String primaryKey : primaryKeys) {
+            Object beforeValue = before.get(primaryKey);
+            Object afterValue = after.get(primaryKey);
+            if(beforeValue instanceof byte[] && afterValue instanceof byte[]) {
+                if(!Arrays.equals((byte[]) beforeValue, (byte[]) afterValue))
+                    return false;
+            } else if(!beforeValue.equals(afterValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String[] primaryKeys(TapTable table) {
+        Collection<String> primaryKeys = table.primaryKeys();
+        if(primaryKeys.isEmpty() && table.getDefaultPrimaryKeys() != null)
+            primaryKeys = table.getDefaultPrimaryKeys();
+        return primaryKeys.toArray(new String[0]);
+    }
+}
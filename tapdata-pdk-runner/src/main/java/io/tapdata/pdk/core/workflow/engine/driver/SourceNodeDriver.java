@@ -15,8 +15,10 @@ import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.schema.type.TapType;
 import io.tapdata.entity.schema.value.TapValue;
+import io.tapdata.entity.utils.DataMap;
 import io.tapdata.entity.utils.InstanceFactory;
 import io.tapdata.pdk.apis.consumer.StreamReadConsumer;
+import io.tapdata.pdk.apis.entity.Projection;
 import io.tapdata.pdk.apis.entity.TapAdvanceFilter;
 import io.tapdata.pdk.apis.functions.connector.source.*;
 import io.tapdata.pdk.apis.functions.connector.target.ControlFunction;
@@ -25,31 +27,70 @@ import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.pdk.core.api.SourceNode;
 import io.tapdata.pdk.core.error.CoreException;
 import io.tapdata.pdk.core.error.ErrorCodes;
+import io.tapdata.pdk.core.executor.ExecutorsManager;
 import io.tapdata.pdk.core.monitor.PDKInvocationMonitor;
 import io.tapdata.pdk.core.monitor.PDKMethod;
 import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.pdk.core.utils.LoggerUtils;
+import io.tapdata.pdk.core.utils.queue.SingleThreadBlockingQueue;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static io.tapdata.entity.simplify.TapSimplify.fromJson;
+import static io.tapdata.entity.simplify.TapSimplify.toJson;
 
 public class SourceNodeDriver extends Driver {
     private static final String TAG = SourceNodeDriver.class.getSimpleName();
+    private static final String BATCH_OFFSET_TABLE_ID = "tableId";
+    private static final String BATCH_OFFSET_OFFSET = "offset";
 
     private SourceNode sourceNode;
 
     private String streamOffsetStr;
+    /**
+     * Json of the table being batch read and the connector's batch offset of it, the tables before are read completely.
+     */
     private String batchOffsetStr;
     private SourceStateListener sourceStateListener;
 
     private boolean enableBatchRead = true;
     private boolean enableStreamRead = true;
     private int batchLimit = 1000;
+    /**
+     * Estimated count of the initial records, connector may return the count from metadata instead of counting all the records.
+     */
     private Long batchCount;
+    private final AtomicLong batchReadCount = new AtomicLong();
     private boolean batchCompleted = false;
     private final Object streamLock = new int[0];
     private final AtomicBoolean firstBatchRecordsOffered = new AtomicBoolean(false);
     private final AtomicBoolean shutDown = new AtomicBoolean(false);
+    /**
+     * Held while offering the events and updating the offset of them, so that stopping can wait for the events being offered.
+     */
+    private final ReentrantLock offerLock = new ReentrantLock();
+    /**
+     * Batches read ahead by the connector, the events are converted and offered by the thread of the queue while the connector reads the next batch.
+     * Null when the events are converted and offered by the reading thread.
+     */
+    private SingleThreadBlockingQueue<ReadAheadBatch> readAheadQueue;
+    private ExecutorService readAheadExecutor;
+    /**
+     * Held while handing a batch to the read ahead queue, so that stopping can wait for the batch being handed.
+     */
+    private final ReentrantLock readAheadLock = new ReentrantLock();
+    private volatile Throwable readAheadError;
+    /**
+     * Tables of this node by name, for multiple tables node to find the table of stream events.
+     */
+    private final Map<String, TapTable> nameTableMap = new ConcurrentHashMap<>();
 
     public SourceNode getSourceNode() {
         return sourceNode;
@@ -72,6 +113,10 @@ public class SourceNodeDriver extends Driver {
     public static final int STATE_BATCH_ENDED = 20;
     public static final int STATE_STREAM_STARTED = 30;
     public static final int STATE_STREAM_ENDED = 40;
+    /**
+     * Read is stopped and the events offered are all written, getBatchOffset and getStreamOffset are the offsets to resume from.
+     */
+    public static final int STATE_DRAINED = 90;
     public static final int STATE_ENDED = 100;
     public void start() {
         start(null);
@@ -85,29 +130,34 @@ public class SourceNodeDriver extends Driver {
         TapLogger.info(TAG, "SourceNodeDriver started, {}", LoggerUtils.sourceNodeMessage(sourceNode));
         PDKInvocationMonitor pdkInvocationMonitor = PDKInvocationMonitor.getInstance();
 
-        //Fill the discovered table back into connector context
-        //The table user input has to be one in the discovered tables. Otherwise we need create table logic which currently we don't have.
+        //Fill the discovered tables back into connector context
+        //The tables user input has to be in the discovered tables. Otherwise we need create table logic which currently we don't have.
+        List<TapTable> nodeTables = new ArrayList<>(nodeTables());
+        Map<String, Integer> nameIndexMap = new HashMap<>();
+        for(int i = 0; i < nodeTables.size(); i++) {
+            nameIndexMap.put(nodeTables.get(i).getName(), i);
+        }
         pdkInvocationMonitor.invokePDKMethod(PDKMethod.DISCOVER_SCHEMA, () -> {
             sourceNode.getConnector().discoverSchema(sourceNode.getConnectorContext(), (tables) -> {
                 if(tables == null) return;
                 for(TapTable table : tables) {
-                    if(table == null) continue;
-                    TapTable targetTable = sourceNode.getConnectorContext().getTable();
-                    if(targetTable != null && targetTable.getName() != null && targetTable.getName().equals(table.getName())) {
+                    if(table == null || table.getName() == null) continue;
+                    Integer index = nameIndexMap.get(table.getName());
+                    if(index != null) {
+                        selectFields(table, nodeTables.get(index));
                         analyzeTableFields(table);
-                        break;
+                        nodeTables.set(index, table);
                     }
                 }
             });
         }, "Discover schema " + LoggerUtils.sourceNodeMessage(sourceNode), TAG);
-
-
-        BatchCountFunction batchCountFunction = sourceNode.getConnectorFunctions().getBatchCountFunction();
-        if (enableBatchRead && batchCountFunction != null) {
-            pdkInvocationMonitor.invokePDKMethod(PDKMethod.SOURCE_BATCH_COUNT, () -> {
-                batchCount = batchCountFunction.count(sourceNode.getConnectorContext(), null);
-            }, "Batch count " + LoggerUtils.sourceNodeMessage(sourceNode), TAG);
+        sourceNode.getConnectorContext().setTables(nodeTables);
+        sourceNode.getConnectorContext().setTable(nodeTables.get(0));
+        for(TapTable table : nodeTables) {
+            nameTableMap.put(table.getName(), table);
         }
+        if(nodeTables.size() > 1 && enableStreamRead && sourceNode.getConnectorFunctions().getStreamReadFunction() != null && !sourceNode.getConnectorFunctions().isSupportMultipleTablesStreamRead())
+            throw new CoreException(ErrorCodes.SOURCE_MULTIPLE_TABLES_STREAM_READ_NOT_SUPPORTED, "Stream read of the connector serves only one table, but the node has " + nodeTables.size() + " tables, " + LoggerUtils.sourceNodeMessage(sourceNode));
 
 //        StreamReadFunction streamReadFunction = sourceNode.getConnectorFunctions().getStreamReadFunction();
 //        if (streamReadFunction != null) {
@@ -148,6 +198,7 @@ public class SourceNodeDriver extends Driver {
 //            }, "connect " + LoggerUtils.sourceNodeMessage(sourceNode), TAG, null, true, Long.MAX_VALUE, 5);
 //        }
 
+        BatchCountFunction batchCountFunction = sourceNode.getConnectorFunctions().getBatchCountFunction();
         BatchReadFunction batchReadFunction = sourceNode.getConnectorFunctions().getBatchReadFunction();
         if (enableBatchRead && batchReadFunction != null) {
 
@@ -155,57 +206,193 @@ public class SourceNodeDriver extends Driver {
                 if(sourceStateListener != null)
                     sourceStateListener.stateChanged(STATE_BATCH_STARTED);
             }, TAG);
-            pdkInvocationMonitor.invokePDKMethod(PDKMethod.SOURCE_BATCH_READ,
-                    () -> batchReadFunction.batchRead(sourceNode.getConnectorContext(), batchOffsetStr, batchLimit, (events) -> {
-                        if (events != null && !events.isEmpty()) {
-                            if(events.size() > batchLimit)
-                                throw new CoreException(ErrorCodes.SOURCE_EXCEEDED_BATCH_SIZE, "Batch read exceeded eventBatchSize " + batchLimit + " actual is " + events.size());
-                            TapLogger.debug(TAG, "Batch read {} of events, {}", events.size(), LoggerUtils.sourceNodeMessage(sourceNode));
-//                            offer(events, (theEvents) -> filterEvents(theEvents));
-                            offerToQueue(events);
-
-//                            List<TapEvent> externalEvents = sourceNode.pullAllExternalEventsInList(this::filterExternalEvent);
-//                            if(externalEvents != null) {
-//                                PDKLogger.debug(TAG, "Batch read external {} of events, {}", externalEvents.size(), LoggerUtils.sourceNodeMessage(sourceNode));
-//                                offer(externalEvents);
-//                            }
-
-                            BatchOffsetFunction batchOffsetFunction = sourceNode.getConnectorFunctions().getBatchOffsetFunction();
-                            if(batchOffsetFunction != null) {
-                                pdkInvocationMonitor.invokePDKMethod(PDKMethod.SOURCE_BATCH_OFFSET, () -> {
-                                    String offsetState = batchOffsetFunction.batchOffset(getSourceNode().getConnectorContext());
-                                    if(offsetState != null) {
-                                        TapLogger.debug(TAG, "Batch read update offset from {} to {}", this.batchOffsetStr, offsetState);
-                                        batchOffsetStr = offsetState;
-                                    }
-                                }, "Batch offset " + LoggerUtils.sourceNodeMessage(sourceNode), TAG);
-                            }
-                        }
-                    }), "Batch read " + LoggerUtils.sourceNodeMessage(sourceNode), TAG);
+            //Read the tables one by one with the same connector instance, resume from the table of the batch offset.
+            DataMap resumeOffset = batchOffsetStr != null ? fromJson(batchOffsetStr) : null;
+            int resumeIndex = resumeTableIndex(nodeTables, resumeOffset);
+            for(int i = resumeIndex; i < nodeTables.size(); i++) {
+                if(shutDown.get())
+                    break;
+                TapTable table = nodeTables.get(i);
+                String tableOffset = i == resumeIndex && resumeOffset != null ? resumeOffset.getValue(BATCH_OFFSET_OFFSET, null) : null;
+                sourceNode.getConnectorContext().setTable(table);
+                //The events of the tables before are all offered.
+                updateBatchOffset(table.getName(), tableOffset);
+                if(batchCountFunction != null) {
+                    pdkInvocationMonitor.invokePDKMethod(PDKMethod.SOURCE_BATCH_COUNT, () -> {
+                        long count = batchCountFunction.count(sourceNode.getConnectorContext(), tableOffset);
+                        batchCount = batchCount != null ? batchCount + count : count;
+                    }, "Batch count " + LoggerUtils.sourceNodeMessage(sourceNode), TAG);
+                }
+                batchRead(batchReadFunction, table.getName(), tableOffset);
+            }
+            sourceNode.getConnectorContext().setTable(nodeTables.get(0));
             if (!batchCompleted) {
                 synchronized (streamLock) {
                     if (!batchCompleted) {
+                        //The estimated count is replaced by the actual count.
+                        batchCount = batchReadCount.get();
                         batchCompleted = true;
                         CommonUtils.ignoreAnyError(() -> {
                             if(sourceStateListener != null)
                                 sourceStateListener.stateChanged(STATE_BATCH_ENDED);
                         }, TAG);
-                        TapLogger.debug(TAG, "Batch read accomplished, {}", LoggerUtils.sourceNodeMessage(sourceNode));
+                        TapLogger.debug(TAG, "Batch read accomplished, {} records, {}", batchCount, LoggerUtils.sourceNodeMessage(sourceNode));
+                    }
+                }
+            }
+        }
+        streamRead();
+    }
+
+    /**
+     * @return index of the table of the batch offset, the tables before it are read completely.
+     */
+    private int resumeTableIndex(List<TapTable> nodeTables, DataMap resumeOffset) {
+        String tableId = resumeOffset != null ? resumeOffset.getValue(BATCH_OFFSET_TABLE_ID, null) : null;
+        if(tableId == null)
+            return 0;
+        for(int i = 0; i < nodeTables.size(); i++) {
+            if(tableId.equals(nodeTables.get(i).getName()))
+                return i;
+        }
+        throw new CoreException(ErrorCodes.SOURCE_BATCH_OFFSET_TABLE_NOT_FOUND, "Table " + tableId + " of batch offset is not one of the node's tables, " + LoggerUtils.sourceNodeMessage(sourceNode));
+    }
+
+    /**
+     * Updated with the events offered, so it is never ahead of them.
+     */
+    private void updateBatchOffset(String tableId, String tableOffset) {
+        offerLock.lock();
+        try {
+            if(shutDown.get())
+                return;
+            String offsetState = toJson(DataMap.create().kv(BATCH_OFFSET_TABLE_ID, tableId).kv(BATCH_OFFSET_OFFSET, tableOffset));
+            TapLogger.debug(TAG, "Batch read update offset from {} to {}", this.batchOffsetStr, offsetState);
+            batchOffsetStr = offsetState;
+        } finally {
+            offerLock.unlock();
+        }
+    }
+
+    private void batchRead(BatchReadFunction batchReadFunction, String tableId, String tableOffset) {
+        PDKInvocationMonitor pdkInvocationMonitor = PDKInvocationMonitor.getInstance();
+        AtomicReference<CoreException> readStopped = new AtomicReference<>();
+        pdkInvocationMonitor.invokePDKMethod(PDKMethod.SOURCE_BATCH_READ,
+                readStoppable(() -> batchReadFunction.batchRead(sourceNode.getConnectorContext(), tableOffset, batchLimit, (events) -> {
+                    if (events != null && !events.isEmpty()) {
+                        if(events.size() > batchLimit)
+                            throw new CoreException(ErrorCodes.SOURCE_EXCEEDED_BATCH_SIZE, "Batch read exceeded eventBatchSize " + batchLimit + " actual is " + events.size());
+                        TapLogger.debug(TAG, "Batch read {} of events, {}", events.size(), LoggerUtils.sourceNodeMessage(sourceNode));
+                        //The offset is of the connector's position after this batch, take it on the reading thread before the connector moves on.
+                        String offsetState = batchOffset();
+                        int count = events.size();
+                        Runnable offsetUpdater = () -> {
+                            batchReadCount.addAndGet(count);
+                            if(offsetState != null) {
+                                String nodeOffsetState = toJson(DataMap.create().kv(BATCH_OFFSET_TABLE_ID, tableId).kv(BATCH_OFFSET_OFFSET, offsetState));
+                                TapLogger.debug(TAG, "Batch read update offset from {} to {}", this.batchOffsetStr, nodeOffsetState);
+                                batchOffsetStr = nodeOffsetState;
+                            }
+                        };
+//                            offer(events, (theEvents) -> filterEvents(theEvents));
+                        if(readAheadQueue != null)
+                            readAhead(events, offsetUpdater);
+                        else
+                            offerToQueue(events, offsetUpdater);
+
+//                            List<TapEvent> externalEvents = sourceNode.pullAllExternalEventsInList(this::filterExternalEvent);
+//                            if(externalEvents != null) {
+//                                PDKLogger.debug(TAG, "Batch read external {} of events, {}", externalEvents.size(), LoggerUtils.sourceNodeMessage(sourceNode));
+//                                offer(externalEvents);
+//                            }
                     }
+                }), readStopped), "Batch read " + LoggerUtils.sourceNodeMessage(sourceNode), TAG);
+        //Thrown out of the invocation, the batch read is not completed.
+        if(readStopped.get() != null)
+            throw readStopped.get();
+        //The table of the connector context is switched after this, the batches of this table are converted with it.
+        waitReadAhead();
+    }
+
+    private String batchOffset() {
+        BatchOffsetFunction batchOffsetFunction = sourceNode.getConnectorFunctions().getBatchOffsetFunction();
+        if(batchOffsetFunction == null)
+            return null;
+        AtomicReference<String> offsetState = new AtomicReference<>();
+        PDKInvocationMonitor.getInstance().invokePDKMethod(PDKMethod.SOURCE_BATCH_OFFSET, () -> {
+            offsetState.set(batchOffsetFunction.batchOffset(getSourceNode().getConnectorContext()));
+        }, "Batch offset " + LoggerUtils.sourceNodeMessage(sourceNode), TAG);
+        return offsetState.get();
+    }
+
+    /**
+     * Hand the batch to the read ahead queue, blocks when the queue is full, so the connector reads at most the size of the queue ahead.
+     */
+    private void readAhead(List<TapEvent> events, Runnable offsetUpdater) {
+        readAheadLock.lock();
+        try {
+            if(shutDown.get())
+                throw new CoreException(ErrorCodes.SOURCE_READ_STOPPED, "Source read is stopped, " + events.size() + " events are not offered, " + LoggerUtils.sourceNodeMessage(sourceNode));
+            if(readAheadError != null)
+                throw CommonUtils.generateCoreException(readAheadError);
+            if(eventTracer != null)
+                eventTracer.sample(events, traceNodeId);
+            //The connector may reuse the list after the consumer returns.
+            readAheadQueue.offer(new ReadAheadBatch(new ArrayList<>(events), offsetUpdater));
+        } finally {
+            readAheadLock.unlock();
+        }
+    }
+
+    /**
+     * Handler of the read ahead queue, convert and offer the batches in the order they are read.
+     * The batches handed before read is stopped are still offered, stopReadAndWait waits for them.
+     */
+    private void offerReadAheadBatches(List<ReadAheadBatch> batches) {
+        try {
+            for(ReadAheadBatch batch : batches) {
+                offerLock.lock();
+                try {
+                    offer(batch.events, this::filterEvents);
+                    batch.offsetUpdater.run();
+                } finally {
+                    offerLock.unlock();
                 }
+                firstBatchRecordsOffered();
             }
+        } catch(Throwable throwable) {
+            //Recorded before the queue is stopped by the error, the reading thread fails with it.
+            readAheadError = throwable;
+            throw throwable;
+        }
+    }
+
+    /**
+     * Wait until the batches read ahead are offered.
+     */
+    private void waitReadAhead() {
+        if(readAheadQueue == null)
+            return;
+        while(!readAheadQueue.waitIdle(TimeUnit.MINUTES.toMillis(1))) {
+            if(readAheadError != null)
+                throw CommonUtils.generateCoreException(readAheadError);
+            if(readAheadQueue.isStopped() || Thread.currentThread().isInterrupted())
+                throw new CoreException(ErrorCodes.SOURCE_READ_STOPPED, "Source read is stopped, the batches read ahead are not offered, " + LoggerUtils.sourceNodeMessage(sourceNode));
+            TapLogger.info(TAG, "Still waiting for {} batches read ahead to be offered, {}", readAheadQueue.getQueue().size(), LoggerUtils.sourceNodeMessage(sourceNode));
         }
+    }
 
+    private void streamRead() {
+        PDKInvocationMonitor pdkInvocationMonitor = PDKInvocationMonitor.getInstance();
         StreamReadFunction streamReadFunction = sourceNode.getConnectorFunctions().getStreamReadFunction();
         if (enableStreamRead && streamReadFunction != null) {
-            pdkInvocationMonitor.invokePDKMethod(PDKMethod.SOURCE_STREAM_READ, () -> {
+            pdkInvocationMonitor.invokePDKMethod(PDKMethod.SOURCE_STREAM_READ, readStoppable(() -> {
                 while(!shutDown.get()) {
                     streamReadFunction.streamRead(sourceNode.getConnectorContext(), streamOffsetStr, batchLimit, StreamReadConsumer.create((events) -> {
                         if (events != null) {
                             if(events.size() > batchLimit)
                                 throw new CoreException(ErrorCodes.SOURCE_EXCEEDED_BATCH_SIZE, "Batch read exceeded eventBatchSize " + batchLimit + " actual is " + events.size());
                             TapLogger.debug(TAG, "Stream read {} of events, {}", events.size(), LoggerUtils.sourceNodeMessage(sourceNode));
-                            offerToQueue(events);
 
 //                            List<TapEvent> externalEvents = sourceNode.pullAllExternalEventsInList(this::filterExternalEvent);
 //                            if(externalEvents != null) {
@@ -213,19 +400,20 @@ public class SourceNodeDriver extends Driver {
 //                                offer(externalEvents);
 //                            }
                         }
-
-                        StreamOffsetFunction streamOffsetFunction = sourceNode.getConnectorFunctions().getStreamOffsetFunction();
-                        if(streamOffsetFunction != null) {
-                            pdkInvocationMonitor.invokePDKMethod(PDKMethod.STREAM_OFFSET, () -> {
-                                String offsetState = streamOffsetFunction.streamOffset(sourceNode.getConnectorContext(), null);
-                                if (offsetState != null) {
-                                    TapLogger.debug(TAG, "Stream read update offset from {} to {}", this.streamOffsetStr, offsetState);
-                                    this.streamOffsetStr = offsetState;
-                                }
-                            }, "Stream read sourceNode " + sourceNode.getConnectorContext(), TAG, error -> {
-                                TapLogger.error("streamOffset failed, {} sourceNode {}", error.getMessage(), sourceNode.getConnectorContext());
-                            });
-                        }
+                        offerToQueue(events, () -> {
+                            StreamOffsetFunction streamOffsetFunction = sourceNode.getConnectorFunctions().getStreamOffsetFunction();
+                            if(streamOffsetFunction != null) {
+                                pdkInvocationMonitor.invokePDKMethod(PDKMethod.STREAM_OFFSET, () -> {
+                                    String offsetState = streamOffsetFunction.streamOffset(sourceNode.getConnectorContext(), null);
+                                    if (offsetState != null) {
+                                        TapLogger.debug(TAG, "Stream read update offset from {} to {}", this.streamOffsetStr, offsetState);
+                                        this.streamOffsetStr = offsetState;
+                                    }
+                                }, "Stream read sourceNode " + sourceNode.getConnectorContext(), TAG, error -> {
+                                    TapLogger.error("streamOffset failed, {} sourceNode {}", error.getMessage(), sourceNode.getConnectorContext());
+                                });
+                            }
+                        });
                     }).stateListener((from, to) -> {
                         if(to == StreamReadConsumer.STATE_STREAM_READ_STARTED) {
                             CommonUtils.ignoreAnyError(() -> {
@@ -241,12 +429,69 @@ public class SourceNodeDriver extends Driver {
 
                     }));
                 }
-            }, "connect " + LoggerUtils.sourceNodeMessage(sourceNode), TAG, null, true, Long.MAX_VALUE, 5);
+            }, new AtomicReference<>()), "connect " + LoggerUtils.sourceNodeMessage(sourceNode), TAG, null, true, Long.MAX_VALUE, 5);
+        }
+    }
+
+    /**
+     * The SOURCE_READ_STOPPED error rejecting the events after read is stopped ends the read of the connector on purpose, it is not an error of the connector.
+     * Keep it from the invocation monitor, the caller decides what to do with it.
+     */
+    private CommonUtils.AnyError readStoppable(CommonUtils.AnyError read, AtomicReference<CoreException> readStopped) {
+        return () -> {
+            try {
+                read.run();
+            } catch(Throwable throwable) {
+                CoreException stoppedException = readStoppedException(throwable);
+                if(stoppedException == null)
+                    throw throwable;
+                TapLogger.debug(TAG, "Read stopped, {}", LoggerUtils.sourceNodeMessage(sourceNode));
+                readStopped.set(stoppedException);
+            }
+        };
+    }
+
+    /**
+     * The connector may wrap the error thrown by the consumer.
+     */
+    private CoreException readStoppedException(Throwable throwable) {
+        while(throwable != null) {
+            if(throwable instanceof CoreException && ((CoreException) throwable).getCode() == ErrorCodes.SOURCE_READ_STOPPED)
+                return (CoreException) throwable;
+            throwable = throwable.getCause() != throwable ? throwable.getCause() : null;
         }
+        return null;
     }
 
     private void offerToQueue(List<TapEvent> events) {
-        offer(events, this::filterEvents);
+        offerToQueue(events, null);
+    }
+
+    /**
+     * Offer the events and update the offset of them together, the offset is never ahead of the events offered when read is stopped.
+     *
+     * @param events null for updating the offset only.
+     */
+    private void offerToQueue(List<TapEvent> events, Runnable offsetUpdater) {
+        offerLock.lock();
+        try {
+            if(shutDown.get())
+                throw new CoreException(ErrorCodes.SOURCE_READ_STOPPED, "Source read is stopped, " + (events != null ? events.size() : 0) + " events are not offered, " + LoggerUtils.sourceNodeMessage(sourceNode));
+            if(events != null) {
+                if(eventTracer != null)
+                    eventTracer.sample(events, traceNodeId);
+                offer(events, this::filterEvents);
+            }
+            if(offsetUpdater != null)
+                offsetUpdater.run();
+        } finally {
+            offerLock.unlock();
+        }
+        if(events != null)
+            firstBatchRecordsOffered();
+    }
+
+    private void firstBatchRecordsOffered() {
         if(firstBatchRecordsOffered.compareAndSet(false, true)) {
             CommonUtils.ignoreAnyError(() -> {
                 if(sourceStateListener != null)
@@ -265,7 +510,7 @@ public class SourceNodeDriver extends Driver {
             if(event instanceof ControlEvent) {
                 controlEvents.add((ControlEvent) event);
             } else if(event instanceof TapBaseEvent) {
-                ((TapBaseEvent) event).setTable(sourceNode.getConnectorContext().getTable());
+                ((TapBaseEvent) event).setTable(eventTable((TapBaseEvent) event));
             }
         }
 
@@ -299,21 +544,127 @@ public class SourceNodeDriver extends Driver {
         }
     }
 
+    /**
+     * Stop reading, the events the connector gives after are rejected by an error, so the connector stops promptly.
+     */
+    public void stopRead() {
+        shutDown.set(true);
+    }
+
+    public boolean isReadStopped() {
+        return shutDown.get();
+    }
+
+    /**
+     * Stop reading and wait for the events being offered, the offsets are the ones of the last events offered after it returns true.
+     *
+     * @return false when the offering doesn't finish in time, like blocked by a full queue.
+     */
+    public boolean stopReadAndWait(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        stopRead();
+        try {
+            if(readAheadQueue != null) {
+                if(!readAheadLock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS))
+                    return false;
+                readAheadLock.unlock();
+                if(!readAheadQueue.waitIdle(Math.max(0, deadline - System.currentTimeMillis())))
+                    return false;
+            }
+            if(!offerLock.tryLock(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS))
+                return false;
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        offerLock.unlock();
+        return true;
+    }
+
+    /**
+     * Called when the events offered before read stopped are all written to the targets, the offsets can be committed.
+     */
+    public void drained() {
+        TapLogger.info(TAG, "Source drained, batch offset {} stream offset {}, {}", batchOffsetStr, streamOffsetStr, LoggerUtils.sourceNodeMessage(sourceNode));
+        CommonUtils.ignoreAnyError(() -> {
+            if(sourceStateListener != null)
+                sourceStateListener.stateChanged(STATE_DRAINED);
+        }, TAG);
+    }
+
+    public String getBatchOffset() {
+        return batchOffsetStr;
+    }
+
+    /**
+     * Resume batch read from the offset given by getBatchOffset, set before start.
+     */
+    public void setBatchOffset(String batchOffset) {
+        this.batchOffsetStr = batchOffset;
+    }
+
+    public String getStreamOffset() {
+        return streamOffsetStr;
+    }
+
+    /**
+     * Resume stream read from the offset given by getStreamOffset, set before start.
+     */
+    public void setStreamOffset(String streamOffset) {
+        this.streamOffsetStr = streamOffset;
+    }
+
+    /**
+     * The batches read ahead but not offered are discarded too.
+     */
+    @Override
+    public void stopQueues() {
+        super.stopQueues();
+        if(readAheadQueue != null) {
+            readAheadQueue.stop();
+            readAheadExecutor.shutdown();
+        }
+    }
+
     @Override
     public void destroy() {
         CommonUtils.ignoreAnyError(() -> {
             if(sourceStateListener != null)
                 sourceStateListener.stateChanged(STATE_ENDED);
         }, TAG);
+        super.destroy();
+    }
+
+    /**
+     * For multiple tables node, the stream events keep the table set by connector if it is one of the node's tables.
+     * Otherwise the events belong to the table which is reading.
+     */
+    private TapTable eventTable(TapBaseEvent event) {
+        TapTable table = event.getTable();
+        if(nameTableMap.size() > 1 && table != null && table.getName() != null) {
+            TapTable nodeTable = nameTableMap.get(table.getName());
+            if(nodeTable != null)
+                return nodeTable;
+        }
+        return sourceNode.getConnectorContext().getTable();
+    }
+
+    private List<TapTable> nodeTables() {
+        List<TapTable> tables = sourceNode.getConnectorContext().getTables();
+        if(tables == null || tables.isEmpty())
+            return Collections.singletonList(sourceNode.getConnectorContext().getTable());
+        return tables;
     }
 
     public List<TapEvent> filterEvents(List<TapEvent> events, boolean needClone) {
-        LinkedHashMap<String, TapField> nameFieldMap = sourceNode.getConnectorContext().getTable().getNameFieldMap();
         TapCodecFilterManager codecFilterManager = sourceNode.getCodecFilterManager();
         List<TapEvent> newEvents = new ArrayList<>();
         for(TapEvent tapEvent : events) {
+            LinkedHashMap<String, TapField> nameFieldMap = null;
             if(tapEvent instanceof TapBaseEvent) {
-                ((TapBaseEvent) tapEvent).setTable(sourceNode.getConnectorContext().getTable());
+                TapTable table = eventTable((TapBaseEvent) tapEvent);
+                ((TapBaseEvent) tapEvent).setTable(table);
+                nameFieldMap = table.getNameFieldMap();
             }
             if(tapEvent instanceof TapInsertRecordEvent) {
                 TapInsertRecordEvent insertDMLEvent = (TapInsertRecordEvent) tapEvent;
@@ -363,6 +714,37 @@ public class SourceNodeDriver extends Driver {
         return newEvents;
     }
 
+    /**
+     * When the node's table is configured with fields, only these fields and the primary keys are read.
+     * The fields are pushed down to the connector as projection, and the other discovered fields are removed.
+     */
+    private void selectFields(TapTable table, TapTable nodeTable) {
+        LinkedHashMap<String, TapField> nodeFieldMap = nodeTable.getNameFieldMap();
+        if(nodeFieldMap == null || nodeFieldMap.isEmpty())
+            return;
+        Projection projection = Projection.create();
+        Collection<String> primaryKeys = table.primaryKeys();
+        if(primaryKeys.isEmpty() && table.getDefaultPrimaryKeys() != null)
+            primaryKeys = table.getDefaultPrimaryKeys();
+        for(String primaryKey : primaryKeys) {
+            projection.include(primaryKey);
+        }
+        for(String fieldName : nodeFieldMap.keySet()) {
+            projection.include(fieldName);
+        }
+        LinkedHashMap<String, TapField> nameFieldMap = table.getNameFieldMap();
+        if(nameFieldMap != null) {
+            LinkedHashMap<String, TapField> selectedFieldMap = new LinkedHashMap<>();
+            for(Map.Entry<String, TapField> entry : nameFieldMap.entrySet()) {
+                if(projection.getIncludeFields().contains(entry.getKey()))
+                    selectedFieldMap.put(entry.getKey(), entry.getValue());
+            }
+            table.setNameFieldMap(selectedFieldMap);
+        }
+        sourceNode.getConnectorContext().putProjection(table.getName(), projection);
+        TapLogger.debug(TAG, "Read fields {} of table {}", projection.getIncludeFields(), table.getName());
+    }
+
     public void analyzeTableFields(TapTable table) {
         sourceNode.getConnectorContext().setTable(table);
 
@@ -387,7 +769,7 @@ public class SourceNodeDriver extends Driver {
         if (queryByAdvanceFilterFunction != null) {
             PDKInvocationMonitor pdkInvocationMonitor = PDKInvocationMonitor.getInstance();
             pdkInvocationMonitor.invokePDKMethod(PDKMethod.SOURCE_QUERY_BY_ADVANCE_FILTER,
-                    () -> queryByAdvanceFilterFunction.query(sourceNode.getConnectorContext(), TapAdvanceFilter.create().limit(sampleSize), (filterResults) -> {
+                    () -> queryByAdvanceFilterFunction.query(sourceNode.getConnectorContext(), TapAdvanceFilter.create().limit(sampleSize).projection(sourceNode.getConnectorContext().getProjection()), (filterResults) -> {
                         if (filterResults != null && filterResults.getResults() != null) {
                             TapLogger.debug(TAG, "Batch read {} of events for sample field data types", filterResults.getResults().size());
                             fillNameFieldsFromSampleRecords(nameFieldMap, filterResults.getResults(), table.getDefaultPrimaryKeys());
@@ -444,6 +826,48 @@ public class SourceNodeDriver extends Driver {
         }
     }
 
+    /**
+     * @return the estimated count of initial records, refined by the records already read. Exact after batch read completed.
+     */
+    public Long getBatchCount() {
+        Long count = batchCount;
+        if(count == null)
+            return null;
+        return Math.max(count, batchReadCount.get());
+    }
+
+    public long getBatchReadCount() {
+        return batchReadCount.get();
+    }
+
+    /**
+     * @return progress of batch read in percent, stays below 100 until batch read completed, as the count may be estimated.
+     */
+    public int getBatchProgress() {
+        if(batchCompleted)
+            return 100;
+        Long count = getBatchCount();
+        if(count == null || count == 0)
+            return 0;
+        return (int) Math.min(99, batchReadCount.get() * 100 / count);
+    }
+
+    /**
+     * Let the connector read up to batches ahead while the batches read are converted and offered by another thread, 0 reads and offers on the same thread.
+     */
+    public void setBatchReadAhead(int batches) {
+        if(readAheadQueue != null || batches <= 0)
+            return;
+        String name = "Source " + sourceNode.getAssociateId() + " read ahead";
+        readAheadExecutor = ExecutorsManager.getInstance().newSingleThreadExecutorService(name);
+        readAheadQueue = new SingleThreadBlockingQueue<ReadAheadBatch>(name)
+                .withMaxSize(batches)
+                .withHandleSize(batches)
+                .withExecutorService(readAheadExecutor)
+                .withHandler(this::offerReadAheadBatches)
+                .start();
+    }
+
     public int getBatchLimit() {
         return batchLimit;
     }
@@ -467,4 +891,14 @@ public class SourceNodeDriver extends Driver {
     public void setEnableStreamRead(boolean enableStreamRead) {
         this.enableStreamRead = enableStreamRead;
     }
+
+    private static class ReadAheadBatch {
+        private final List<TapEvent> events;
+        private final Runnable offsetUpdater;
+
+        ReadAheadBatch(List<TapEvent> events, Runnable offsetUpdater) {
+            this.events = events;
+            this.offsetUpdater = offsetUpdater;
+        }
+    }
 }
@@ -16,21 +16,29 @@ import io.tapdata.entity.result.TapResult;
 import io.tapdata.entity.schema.TapField;
 import io.tapdata.entity.schema.TapTable;
 import io.tapdata.entity.utils.ClassFactory;
+import io.tapdata.pdk.apis.context.TapConnectorContext;
 import io.tapdata.pdk.apis.functions.connector.target.*;
 import io.tapdata.entity.logger.TapLogger;
 import io.tapdata.pdk.apis.pretty.ClassHandlers;
 import io.tapdata.pdk.core.api.TargetNode;
+import io.tapdata.pdk.core.error.CoreException;
+import io.tapdata.pdk.core.error.ErrorCodes;
+import io.tapdata.pdk.core.executor.ExecutorsManager;
+import io.tapdata.pdk.core.monitor.EventTracer;
 import io.tapdata.pdk.core.monitor.PDKInvocationMonitor;
 import io.tapdata.pdk.core.monitor.PDKMethod;
 import io.tapdata.pdk.core.utils.CommonUtils;
 import io.tapdata.pdk.core.utils.LoggerUtils;
+import io.tapdata.pdk.core.utils.queue.ListErrorHandler;
 import io.tapdata.pdk.core.utils.queue.ListHandler;
+import io.tapdata.pdk.core.utils.queue.NestedListIterator;
+import io.tapdata.pdk.core.utils.queue.SingleThreadBlockingQueue;
+import io.tapdata.pdk.core.utils.queue.TapEventsWeigher;
 import io.tapdata.pdk.core.workflow.engine.JobOptions;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class TargetNodeDriver extends Driver implements ListHandler<List<TapEvent>> {
@@ -40,9 +48,40 @@ public class TargetNodeDriver extends Driver implements ListHandler<List<TapEven
 
     private List<String> actionsBeforeStart;
 
+    private RecordEventCoalescer recordEventCoalescer;
+
     private AtomicBoolean started = new AtomicBoolean(false);
 
-    private AtomicBoolean firstNonControlReceived = new AtomicBoolean(false);
+    private int writeRetryTimes;
+    private long writeRetryIntervalMillis = 1000;
+    private long writeRetryMaxIntervalMillis = 30000;
+
+    /**
+     * Queues of the workers writing the partitions of the record events in parallel, null when the events are written by the queue thread calling execute.
+     * The workers write the table set in the connector context, so the table is only changed after the workers are idle.
+     */
+    private List<SingleThreadBlockingQueue<List<TapEvent>>> writers;
+    /**
+     * One thread for a writer, the writers mostly wait for the target, they should not take the threads of the shared executor.
+     */
+    private List<ExecutorService> writerExecutors;
+    private RecordEventPartitioner recordEventPartitioner;
+    private TapTable writingTable;
+
+    private EventTracer.StageRecorder convertedRecorder;
+    private EventTracer.StageRecorder writtenRecorder;
+
+    /**
+     * Source table id to target table, multiple tables node routes the events by the source table name.
+     */
+    private final Map<String, TapTable> sourceTargetTableMap = new HashMap<>();
+    private final Set<TapTable> initializedTables = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final LinkedHashMap<TapTable, List<TapRecordEvent>> tableRecordEventsMap = new LinkedHashMap<>();
+    /**
+     * Reused by every execute, the queue calls execute from its single consumer thread.
+     */
+    private final NestedListIterator<TapEvent> queueEvents = new NestedListIterator<>();
+    private final List<ControlEvent> controlEvents = new ArrayList<>();
 
     private ClassHandlers classHandlers = new ClassHandlers();
     public TargetNodeDriver() {
@@ -124,43 +163,95 @@ public class TargetNodeDriver extends Driver implements ListHandler<List<TapEven
 //            }
 //        }
 
-        List<TapRecordEvent> recordEvents = new ArrayList<>();
-        List<ControlEvent> controlEvents = new ArrayList<>();
-        for(List<TapEvent> events : list) {
-//            targetNode.pullAllExternalEvents(tapEvent -> events.add(tapEvent));
-            for (TapEvent event : events) {
-                if(!firstNonControlReceived.get() && event instanceof TapBaseEvent) {
-                    TapTable table = ((TapBaseEvent) event).getTable();
-                    firstNonControlReceived.set(true);
-                    handleActionsBeforeStart(table);
-
-                    tableInitialCheck(table);
-                }
-                if(event instanceof TapDDLEvent) {
-                    //force to handle DML before handle DDL.
-                    handleRecordEvents(recordEvents);
-                    handleControlEvent(controlEvents);
-                    //handle ddl events
-                    handleDDLEvent((TapDDLEvent) event);
-                } else if(event instanceof TapRecordEvent) {
-                    recordEvents.add(filterEvent((TapRecordEvent) event));
-                } else if(event instanceof ControlEvent) {
-                    if(event instanceof PatrolEvent) {
-                        PatrolEvent patrolEvent = (PatrolEvent) event;
-                        if(patrolEvent.applyState(targetNode.getAssociateId(), PatrolEvent.STATE_ENTER)) {
-                            if(patrolEvent.getPatrolListener() != null) {
-                                CommonUtils.ignoreAnyError(() -> patrolEvent.getPatrolListener().patrol(targetNode.getAssociateId(), PatrolEvent.STATE_ENTER), TAG);
-                            }
+//        targetNode.pullAllExternalEvents(tapEvent -> events.add(tapEvent));
+        for (TapEvent event : queueEvents.reset(list)) {
+            TapTable targetTable = null;
+            if(event instanceof TapBaseEvent) {
+                targetTable = targetTable(((TapBaseEvent) event).getTable());
+            }
+            if(event instanceof TapDDLEvent) {
+                //force to handle DML before handle DDL.
+                handleTableRecordEvents();
+                handleControlEvent(controlEvents);
+                waitWriters();
+                if(recordEventPartitioner != null)
+                    recordEventPartitioner.clear();
+                //handle ddl events
+                targetNode.getConnectorContext().setTable(targetTable);
+                handleDDLEvent((TapDDLEvent) event);
+            } else if(event instanceof TapRecordEvent) {
+                TapRecordEvent recordEvent = filterEvent((TapRecordEvent) event);
+                if(convertedRecorder != null)
+                    convertedRecorder.stamp(recordEvent);
+                tableRecordEventsMap.computeIfAbsent(targetTable, table -> new ArrayList<>()).add(recordEvent);
+            } else if(event instanceof ControlEvent) {
+                if(event instanceof PatrolEvent) {
+                    PatrolEvent patrolEvent = (PatrolEvent) event;
+                    if(patrolEvent.applyState(targetNode.getAssociateId(), PatrolEvent.STATE_ENTER)) {
+                        if(patrolEvent.getPatrolListener() != null) {
+                            CommonUtils.ignoreAnyError(() -> patrolEvent.getPatrolListener().patrol(targetNode.getAssociateId(), PatrolEvent.STATE_ENTER), TAG);
                         }
                     }
-                    controlEvents.add((ControlEvent) event);
                 }
+                controlEvents.add((ControlEvent) event);
             }
         }
-        handleRecordEvents(recordEvents);
+        handleTableRecordEvents();
         handleControlEvent(controlEvents);
     }
 
+    /**
+     * Find the target table of the source table, the first event of the table will trigger the actions before start and the table check.
+     * Single table node writes all the events into its table.
+     */
+    private TapTable targetTable(TapTable sourceTable) {
+        TapConnectorContext connectorContext = targetNode.getConnectorContext();
+        if(sourceTable == null)
+            return connectorContext.getTable();
+        String key = sourceTable.getId() != null ? sourceTable.getId() : sourceTable.getName();
+        TapTable targetTable = sourceTargetTableMap.get(key);
+        if(targetTable == null) {
+            List<TapTable> tables = connectorContext.getTables();
+            if(tables == null || tables.isEmpty()) {
+                targetTable = connectorContext.getTable();
+            } else if(tables.size() == 1) {
+                targetTable = tables.get(0);
+            } else {
+                for(TapTable table : tables) {
+                    if(table.getName().equals(sourceTable.getName())) {
+                        targetTable = table;
+                        break;
+                    }
+                }
+                if(targetTable == null) {
+                    targetTable = new TapTable(sourceTable.getName());
+                    tables.add(targetTable);
+                }
+            }
+            sourceTargetTableMap.put(key, targetTable);
+        }
+        if(initializedTables.add(targetTable)) {
+            waitWriters();
+            connectorContext.setTable(targetTable);
+            handleActionsBeforeStart(sourceTable);
+
+            tableInitialCheck(sourceTable);
+        }
+        return targetTable;
+    }
+
+    private void handleTableRecordEvents() {
+        for(Map.Entry<TapTable, List<TapRecordEvent>> entry : tableRecordEventsMap.entrySet()) {
+            if(writers != null && writingTable != entry.getKey()) {
+                waitWriters();
+                writingTable = entry.getKey();
+            }
+            targetNode.getConnectorContext().setTable(entry.getKey());
+            handleRecordEvents(entry.getValue());
+        }
+        tableRecordEventsMap.clear();
+    }
+
     private void tableInitialCheck(TapTable incomingTable) {
         TapTable targetTable = targetNode.getConnectorContext().getTable();
         LinkedHashMap<String, TapField> targetFieldMap = targetTable.getNameFieldMap();
@@ -277,25 +368,112 @@ public class TargetNodeDriver extends Driver implements ListHandler<List<TapEven
     private void handleRecordEvents(List<TapRecordEvent> recordEvents) {
         if(recordEvents.isEmpty())
             return;
-        PDKInvocationMonitor pdkInvocationMonitor = PDKInvocationMonitor.getInstance();
         WriteRecordFunction insertRecordFunction = targetNode.getConnectorFunctions().getWriteRecordFunction();
         if(insertRecordFunction != null) {
-            TapLogger.debug(TAG, "Handled {} of record events, {}", recordEvents.size(), LoggerUtils.targetNodeMessage(targetNode));
-            pdkInvocationMonitor.invokePDKMethod(PDKMethod.TARGET_DML, () -> {
-                insertRecordFunction.writeDML(targetNode.getConnectorContext(), recordEvents, (event) -> {
-                    TapLogger.debug(TAG, "Handled {} of record events, {}", recordEvents.size(), LoggerUtils.targetNodeMessage(targetNode));
-                });
-            }, "insert " + LoggerUtils.targetNodeMessage(targetNode), TAG);
+            List<TapRecordEvent> writeEvents = recordEventCoalescer != null ? recordEventCoalescer.coalesce(recordEvents) : recordEvents;
+            TapLogger.debug(TAG, "Handled {} of record events, coalesced to {}, {}", recordEvents.size(), writeEvents.size(), LoggerUtils.targetNodeMessage(targetNode));
+            if(writers != null)
+                dispatchRecordEvents(writeEvents);
+            else
+                writeRecordEvents(insertRecordFunction, writeEvents);
         }
         recordEvents.clear();
     }
 
+    /**
+     * Offer the events to the writers by the partition of the primary key, the events without partition are written here after the writers are idle.
+     */
+    private void dispatchRecordEvents(List<TapRecordEvent> writeEvents) {
+        List<List<TapEvent>> partitions = new ArrayList<>(writers.size());
+        for(int i = 0; i < writers.size(); i++)
+            partitions.add(new ArrayList<>());
+        List<TapRecordEvent> serialEvents = null;
+        for(TapRecordEvent recordEvent : writeEvents) {
+            int partition = recordEventPartitioner.partition(recordEvent, writers.size());
+            if(partition == RecordEventPartitioner.NO_PARTITION) {
+                if(serialEvents == null) {
+                    offerPartitions(partitions);
+                    waitWriters();
+                    serialEvents = new ArrayList<>();
+                }
+                serialEvents.add(recordEvent);
+            } else {
+                if(serialEvents != null) {
+                    writeRecordEvents(targetNode.getConnectorFunctions().getWriteRecordFunction(), serialEvents);
+                    serialEvents = null;
+                }
+                partitions.get(partition).add(recordEvent);
+            }
+        }
+        if(serialEvents != null)
+            writeRecordEvents(targetNode.getConnectorFunctions().getWriteRecordFunction(), serialEvents);
+        offerPartitions(partitions);
+    }
+
+    private void offerPartitions(List<List<TapEvent>> partitions) {
+        for(int i = 0; i < partitions.size(); i++) {
+            List<TapEvent> events = partitions.get(i);
+            if(!events.isEmpty()) {
+                writers.get(i).offer(events);
+                partitions.set(i, new ArrayList<>());
+            }
+        }
+    }
+
+    /**
+     * Handler of a writer, the partitions queued are written in one call.
+     */
+    private void writePartitions(List<List<TapEvent>> partitions) {
+        List<TapRecordEvent> writeEvents = new ArrayList<>();
+        for(List<TapEvent> events : partitions) {
+            for(TapEvent event : events) {
+                writeEvents.add((TapRecordEvent) event);
+            }
+        }
+        writeRecordEvents(targetNode.getConnectorFunctions().getWriteRecordFunction(), writeEvents);
+    }
+
+    /**
+     * Wait until the writers have written all the events offered, before changing the table of the connector context or handling the events not partitioned.
+     */
+    private void waitWriters() {
+        if(writers == null)
+            return;
+        for(SingleThreadBlockingQueue<List<TapEvent>> writer : writers) {
+            while(!writer.waitIdle(TimeUnit.MINUTES.toMillis(1))) {
+                if(writer.isStopped())
+                    throw new CoreException(ErrorCodes.COMMON_SINGLE_THREAD_QUEUE_STOPPED, "Writer " + writer.getName() + " is stopped, " + LoggerUtils.targetNodeMessage(targetNode));
+                if(Thread.currentThread().isInterrupted())
+                    throw new CoreException(ErrorCodes.COMMON_SINGLE_THREAD_QUEUE_STOPPED, "Interrupted while waiting for writer " + writer.getName() + ", " + LoggerUtils.targetNodeMessage(targetNode));
+                TapLogger.info(TAG, "Still waiting for writer {} to write {} pending partitions, {}", writer.getName(), writer.getQueue().size(), LoggerUtils.targetNodeMessage(targetNode));
+            }
+        }
+    }
+
+    private void writeRecordEvents(WriteRecordFunction insertRecordFunction, List<TapRecordEvent> writeEvents) {
+        if(writeEvents.isEmpty())
+            return;
+        PDKInvocationMonitor pdkInvocationMonitor = PDKInvocationMonitor.getInstance();
+        //Retry the same events for the transient errors, the non-transient error or the error after the last retry fails the data flow.
+        CommonUtils.autoRetry(() -> pdkInvocationMonitor.invokePDKMethod(PDKMethod.TARGET_DML, () -> {
+            insertRecordFunction.writeDML(targetNode.getConnectorContext(), writeEvents, (event) -> {
+                TapLogger.debug(TAG, "Handled {} of record events, {}", writeEvents.size(), LoggerUtils.targetNodeMessage(targetNode));
+            });
+        }, "insert " + LoggerUtils.targetNodeMessage(targetNode), TAG), TAG, "insert " + LoggerUtils.targetNodeMessage(targetNode),
+                writeRetryTimes, writeRetryIntervalMillis, writeRetryMaxIntervalMillis, CommonUtils::isTransientError);
+        //The events merged away by the coalescer are not written, their traces end here.
+        if(writtenRecorder != null)
+            writtenRecorder.stamp(writeEvents);
+    }
+
     private void handleControlEvent(List<ControlEvent> events) {
         if(events.isEmpty())
             return;
         PDKInvocationMonitor pdkInvocationMonitor = PDKInvocationMonitor.getInstance();
         ControlFunction controlFunction = targetNode.getConnectorFunctions().getControlFunction();
 
+        //The control events, like PatrolEvent, are handled after the record events before them are written.
+        waitWriters();
         TapLogger.debug(TAG, "Handled {} of control events, {}", events.size(), LoggerUtils.targetNodeMessage(targetNode));
         for(ControlEvent controlEvent : events) {
             if(controlFunction != null) {
@@ -332,6 +510,95 @@ public class TargetNodeDriver extends Driver implements ListHandler<List<TapEven
         return null;
     }
 
+    /**
+     * @param times retry times of a failed write, 0 fails the data flow at once.
+     * @param intervalMillis the interval before the first retry, doubled after every retry.
+     * @param maxIntervalMillis the max interval between the retries.
+     */
+    public void setWriteRetry(int times, long intervalMillis, long maxIntervalMillis) {
+        writeRetryTimes = times;
+        writeRetryIntervalMillis = intervalMillis;
+        writeRetryMaxIntervalMillis = maxIntervalMillis;
+    }
+
+    /**
+     * @param workers count of the writers, 1 writes the events in the queue thread calling execute.
+     *                The target connector should declare ConnectorFunctions#supportParallelWrite, otherwise it falls back to 1.
+     * @param queueSize max partitions queued for a writer before blocking execute.
+     * @param eventBatchSize max events a writer writes in one call.
+     */
+    public void setWriteWorkers(int workers, int queueSize, int eventBatchSize) {
+        if(writers != null || workers <= 1)
+            return;
+        if(!targetNode.getConnectorFunctions().isSupportParallelWrite()) {
+            TapLogger.warn(TAG, "Target doesn't support parallel write, {} write workers fall back to 1, {}", workers, LoggerUtils.targetNodeMessage(targetNode));
+            return;
+        }
+        recordEventPartitioner = new RecordEventPartitioner();
+        writers = new ArrayList<>(workers);
+        writerExecutors = new ArrayList<>(workers);
+        for(int i = 0; i < workers; i++) {
+            String name = "Target " + targetNode.getAssociateId() + " writer " + i;
+            ExecutorService writerExecutor = ExecutorsManager.getInstance().newSingleThreadExecutorService(name);
+            writerExecutors.add(writerExecutor);
+            writers.add(new SingleThreadBlockingQueue<List<TapEvent>>(name)
+                    .withMaxSize(queueSize)
+                    .withHandleSize(queueSize)
+                    .withWeigher(new TapEventsWeigher())
+                    .withHandleCount(eventBatchSize)
+                    .withExecutorService(writerExecutor)
+                    .withHandler(this::writePartitions)
+                    .start());
+        }
+    }
+
+    @Override
+    public void setQueueErrorHandler(ListErrorHandler<List<TapEvent>> queueErrorHandler) {
+        super.setQueueErrorHandler(queueErrorHandler);
+        if(writers != null) {
+            for(SingleThreadBlockingQueue<List<TapEvent>> writer : writers) {
+                writer.withErrorHandler(queueErrorHandler);
+            }
+        }
+    }
+
+    @Override
+    public void stopQueues() {
+        super.stopQueues();
+        if(writers != null) {
+            for(SingleThreadBlockingQueue<List<TapEvent>> writer : writers) {
+                writer.stop();
+            }
+            for(ExecutorService writerExecutor : writerExecutors) {
+                writerExecutor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * The writers are drained too, the events are written when it returns true.
+     */
+    @Override
+    public boolean drainQueues(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        if(!super.drainQueues(timeoutMillis))
+            return false;
+        if(writers != null) {
+            for(SingleThreadBlockingQueue<List<TapEvent>> writer : writers) {
+                if(!writer.waitIdle(Math.max(0, deadline - System.currentTimeMillis())))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void setEventTracer(EventTracer eventTracer, String nodeId) {
+        super.setEventTracer(eventTracer, nodeId);
+        convertedRecorder = eventTracer != null ? eventTracer.stage(nodeId, EventTracer.STAGE_CONVERTED) : null;
+        writtenRecorder = eventTracer != null ? eventTracer.stage(nodeId, EventTracer.STAGE_WRITTEN) : null;
+    }
+
     public TargetNode getTargetNode() {
         return targetNode;
     }
@@ -388,4 +655,11 @@ public class TargetNodeDriver extends Driver implements ListHandler<List<TapEven
     public void setActionsBeforeStart(List<String> actionsBeforeStart) {
         this.actionsBeforeStart = actionsBeforeStart;
     }
+
+    /**
+     * Merge the record events of the same primary key before write, DDL events are barriers.
+     */
+    public void setCoalesceRecordEvents(boolean coalesceRecordEvents) {
+        recordEventCoalescer = coalesceRecordEvents ? new RecordEventCoalescer() : null;
+    }
 }
@@ -0,0 +1,60 @@
+package io.tapdata.entity.utils;
+
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compare the heap of IndexedRecordMap with LinkedHashMap, run it manually with -Xmx4g.
+ */
+@Tag("benchmark")
+@Disabled("Benchmark, run manually")
+class IndexedRecordMapBenchmark {
+    @Test
+    void heapPerMillionRecords() {
+        final int recordCount = 1000000;
+        TapTable table = table("test");
+        for(int i = 0; i < 20; i++) {
+            table.add(field("f" + i, "varchar").tapType(tapString()));
+        }
+        String[] keys = table.getNameFieldMap().keySet().toArray(new String[0]);
+        long linkedHashMapBytes = measureHeap(() -> {
+            List<Map<String, Object>> records = new ArrayList<>(recordCount);
+            for(int i = 0; i < recordCount; i++) {
+                Map<String, Object> map = new LinkedHashMap<>();
+                for(int j = 0; j < 20; j++)
+                    map.put(keys[j], j);
+                records.add(map);
+            }
+            return records;
+        });
+        long indexedBytes = measureHeap(() -> {
+            List<Map<String, Object>> records = new ArrayList<>(recordCount);
+            for(int i = 0; i < recordCount; i++) {
+                IndexedRecordMap map = IndexedRecordMap.create(table);
+                for(int j = 0; j < 20; j++)
+                    map.putByOrdinal(j, j);
+                records.add(map);
+            }
+            return records;
+        });
+        assertTrue(indexedBytes < linkedHashMapBytes, "1M 20-field records, LinkedHashMap " + linkedHashMapBytes / 1024 / 1024 + "MB, IndexedRecordMap " + indexedBytes / 1024 / 1024 + "MB");
+    }
+
+    private long measureHeap(java.util.function.Supplier<Object> supplier) {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        Object holder = supplier.get();
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        assertNotNull(holder);
+        return after - before;
+    }
+}
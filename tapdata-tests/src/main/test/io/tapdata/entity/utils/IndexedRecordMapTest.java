@@ -0,0 +1,103 @@
+package io.tapdata.entity.utils;
+
+import io.tapdata.entity.codec.TapCodecRegistry;
+import io.tapdata.entity.codec.filter.TapCodecFilterManager;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.value.TapStringValue;
+import io.tapdata.entity.schema.value.TapValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedRecordMapTest {
+    private TapTable newTable(int fieldCount) {
+        TapTable table = table("test");
+        for(int i = 0; i < fieldCount; i++) {
+            table.add(field("f" + i, "varchar").tapType(tapString()));
+        }
+        return table;
+    }
+
+    @Test
+    void mapViewEqualsLinkedHashMap() {
+        TapTable table = newTable(20);
+        Random random = new Random(1);
+        for(int round = 0; round < 200; round++) {
+            IndexedRecordMap indexedMap = IndexedRecordMap.create(table);
+            Map<String, Object> linkedHashMap = new LinkedHashMap<>();
+            for(int op = 0; op < 50; op++) {
+                //f20~f24 are not in the table, go into the extra map
+                String key = "f" + random.nextInt(25);
+                Object value = random.nextInt(5) == 0 ? null : random.nextInt(100);
+                switch (random.nextInt(3)) {
+                    case 0:
+                    case 1:
+                        assertEquals(linkedHashMap.put(key, value), indexedMap.put(key, value));
+                        break;
+                    case 2:
+                        assertEquals(linkedHashMap.remove(key), indexedMap.remove(key));
+                        break;
+                }
+                assertEquals(linkedHashMap.size(), indexedMap.size());
+                assertEquals(linkedHashMap.containsKey(key), indexedMap.containsKey(key));
+                assertEquals(linkedHashMap.get(key), indexedMap.get(key));
+            }
+            assertEquals(linkedHashMap, indexedMap);
+            assertEquals(indexedMap, linkedHashMap);
+            assertEquals(linkedHashMap.hashCode(), indexedMap.hashCode());
+            assertEquals(linkedHashMap.keySet(), indexedMap.keySet());
+            assertEquals(new ArrayList<>(linkedHashMap.values()).size(), indexedMap.values().size());
+        }
+    }
+
+    @Test
+    void nullValueIsNotAbsent() {
+        IndexedRecordMap indexedMap = IndexedRecordMap.create(newTable(3));
+        indexedMap.put("f1", null);
+        assertTrue(indexedMap.containsKey("f1"));
+        assertFalse(indexedMap.containsKey("f0"));
+        assertEquals(1, indexedMap.size());
+        assertNull(indexedMap.get("f1"));
+    }
+
+    @Test
+    void iterateInFieldOrderAndSetValue() {
+        IndexedRecordMap indexedMap = IndexedRecordMap.create(newTable(5));
+        indexedMap.kv("extra", 1).kv("f3", 3).kv("f0", 0);
+        List<String> keys = new ArrayList<>();
+        for(Map.Entry<String, Object> entry : indexedMap.entrySet()) {
+            keys.add(entry.getKey());
+            entry.setValue("v" + entry.getValue());
+        }
+        assertEquals(list("f0", "f3", "extra"), keys);
+        assertEquals("v3", indexedMap.get("f3"));
+        assertEquals("v1", indexedMap.get("extra"));
+
+        Iterator<Map.Entry<String, Object>> iterator = indexedMap.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        assertFalse(indexedMap.containsKey("f0"));
+        assertEquals(2, indexedMap.size());
+    }
+
+    @Test
+    void cloneAndCodecKeepCompactLayout() {
+        TapTable table = newTable(3);
+        IndexedRecordMap indexedMap = indexedMap(table, entry("f0", "a"), entry("f2", "c"), entry("extra", "e"));
+        Map<String, Object> cloned = InstanceFactory.instance(TapUtils.class).cloneMap(indexedMap);
+        assertTrue(cloned instanceof IndexedRecordMap);
+        assertEquals(indexedMap, cloned);
+
+        TapCodecFilterManager codecFilterManager = TapCodecFilterManager.create(TapCodecRegistry.create());
+        codecFilterManager.transformToTapValueMap(cloned, table.getNameFieldMap());
+        assertTrue(cloned.get("f0") instanceof TapStringValue);
+        assertTrue(cloned.get("extra") instanceof TapStringValue);
+        assertEquals("varchar", ((TapValue<?, ?>) cloned.get("f2")).getOriginType());
+
+        codecFilterManager.transformFromTapValueMap(cloned);
+        assertEquals(indexedMap, cloned);
+    }
+}
@@ -0,0 +1,131 @@
+package io.tapdata.pdk.core.monitor;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.core.utils.queue.SingleThreadBlockingQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventTracerTest {
+    private static final String SOURCE = "source";
+    private static final String PROCESSOR = "processor";
+    private static final String TARGET = "target";
+    private static final String SOURCE_EDGE = "Source queue source to processor processor";
+    private static final String PROCESSOR_EDGE = "Processor queue processor to target target";
+
+    private final TapTable table = table("traceTable")
+            .add(field("id", "bigint").tapType(tapNumber()).isPrimaryKey(true).primaryKeyPos(1));
+
+    private List<TapEvent> events(long firstId, int count) {
+        List<TapEvent> events = new ArrayList<>();
+        for(long id = firstId; id < firstId + count; id++)
+            events.add(insertRecordEvent(map(entry("id", id)), table));
+        return events;
+    }
+
+    @Test
+    void slowProcessorDominatesHistogram() throws Exception {
+        final int batchCount = 20;
+        final int batchSize = 10;
+        final long processMillis = 20;
+        EventTracer eventTracer = new EventTracer(1);
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        CountDownLatch finished = new CountDownLatch(batchCount * batchSize);
+        EventTracer.StageRecorder processed = eventTracer.stage(PROCESSOR, EventTracer.STAGE_PROCESSED);
+        EventTracer.StageRecorder converted = eventTracer.stage(TARGET, EventTracer.STAGE_CONVERTED);
+        EventTracer.StageRecorder written = eventTracer.stage(TARGET, EventTracer.STAGE_WRITTEN);
+
+        SingleThreadBlockingQueue<List<TapEvent>> targetQueue = new SingleThreadBlockingQueue<List<TapEvent>>(PROCESSOR_EDGE)
+                .withMaxSize(10)
+                .withHandleSize(5)
+                .withExecutorService(executorService)
+                .withTracer(eventTracer.queueTracer(PROCESSOR_EDGE))
+                .withHandler(batches -> {
+                    for(List<TapEvent> events : batches) {
+                        converted.stamp(events);
+                        written.stamp(events);
+                        for(int i = 0; i < events.size(); i++)
+                            finished.countDown();
+                    }
+                }).start();
+        SingleThreadBlockingQueue<List<TapEvent>> processorQueue = new SingleThreadBlockingQueue<List<TapEvent>>(SOURCE_EDGE)
+                .withMaxSize(10)
+                .withHandleSize(5)
+                .withExecutorService(executorService)
+                .withTracer(eventTracer.queueTracer(SOURCE_EDGE))
+                .withHandler(batches -> {
+                    for(List<TapEvent> events : batches) {
+                        //The deliberately slow stage.
+                        Thread.sleep(processMillis);
+                        processed.stamp(events);
+                        targetQueue.offer(events);
+                    }
+                }).start();
+
+        //Offer slower than the processor, so the events don't wait in the queues.
+        for(int i = 0; i < batchCount; i++) {
+            List<TapEvent> events = events((long) i * batchSize, batchSize);
+            eventTracer.sample(events, SOURCE);
+            processorQueue.offer(events);
+            Thread.sleep(processMillis * 2);
+        }
+        assertTrue(finished.await(30, TimeUnit.SECONDS));
+        executorService.shutdownNow();
+
+        long expectedCount = batchCount * batchSize;
+        LatencyHistogram processedHistogram = eventTracer.getHistogram(PROCESSOR, EventTracer.STAGE_PROCESSED);
+        assertEquals(expectedCount, processedHistogram.count());
+        assertTrue(processedHistogram.percentile(50) >= TimeUnit.MILLISECONDS.toNanos(processMillis), eventTracer.toMap().toString());
+
+        LatencyHistogram[] otherHistograms = {
+                eventTracer.getHistogram(SOURCE_EDGE, EventTracer.STAGE_ENQUEUED),
+                eventTracer.getHistogram(SOURCE_EDGE, EventTracer.STAGE_DEQUEUED),
+                eventTracer.getHistogram(PROCESSOR_EDGE, EventTracer.STAGE_ENQUEUED),
+                eventTracer.getHistogram(PROCESSOR_EDGE, EventTracer.STAGE_DEQUEUED),
+                eventTracer.getHistogram(TARGET, EventTracer.STAGE_CONVERTED),
+                eventTracer.getHistogram(TARGET, EventTracer.STAGE_WRITTEN),
+        };
+        for(LatencyHistogram histogram : otherHistograms) {
+            assertEquals(expectedCount, histogram.count());
+            assertTrue(histogram.percentile(50) * 4 < processedHistogram.percentile(50), eventTracer.toMap().toString());
+        }
+
+        LatencyHistogram endToEnd = eventTracer.getEndToEndHistogram(TARGET);
+        assertEquals(expectedCount, endToEnd.count());
+        assertTrue(endToEnd.percentile(50) >= processedHistogram.percentile(50) * 15 / 16);
+    }
+
+    @Test
+    void sampleOneOfInterval() {
+        EventTracer eventTracer = new EventTracer(10);
+        List<TapEvent> events = events(0, 95);
+        eventTracer.sample(events, SOURCE);
+        int sampled = 0;
+        for(TapEvent event : events) {
+            if(event.getTraceNanos() != null)
+                sampled++;
+        }
+        assertEquals(10, sampled);
+        assertEquals(10, eventTracer.getHistogram(SOURCE, EventTracer.STAGE_READ).count());
+
+        //Not sampled events are ignored by the stages, clone keeps the trace.
+        EventTracer.StageRecorder written = eventTracer.stage(TARGET, EventTracer.STAGE_WRITTEN);
+        written.stamp(events);
+        assertEquals(10, eventTracer.getHistogram(TARGET, EventTracer.STAGE_WRITTEN).count());
+        TapEvent cloned = new TapInsertRecordEvent();
+        events.get(0).clone(cloned);
+        assertArrayEquals(events.get(0).getTraceNanos(), cloned.getTraceNanos());
+        assertNotSame(events.get(0).getTraceNanos(), cloned.getTraceNanos());
+    }
+}
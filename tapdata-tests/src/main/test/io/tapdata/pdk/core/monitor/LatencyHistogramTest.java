@@ -0,0 +1,40 @@
+package io.tapdata.pdk.core.monitor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    @Test
+    void bucketsCoverEveryValue() {
+        Random random = new Random(42);
+        for(int i = 0; i < 100000; i++) {
+            long value = i < 1000 ? i : (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int index = LatencyHistogram.bucketIndex(value);
+            long bucketValue = LatencyHistogram.bucketValue(index);
+            assertTrue(bucketValue >= value, "value " + value);
+            assertTrue(bucketValue - value <= value / 16, "value " + value + " bucket value " + bucketValue);
+            if(index > 0)
+                assertTrue(LatencyHistogram.bucketValue(index - 1) < value, "value " + value);
+        }
+        assertEquals(31, LatencyHistogram.bucketValue(LatencyHistogram.bucketIndex(31)));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketValue(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(long i = 1; i <= 1000; i++)
+            histogram.record(i * 1000);
+        assertEquals(1000, histogram.count());
+        assertEquals(1000000, histogram.max());
+        assertEquals(500500, histogram.mean(), 0.001);
+        long p50 = histogram.percentile(50);
+        assertTrue(p50 >= 500000 && p50 <= 500000 * 17 / 16, "p50 " + p50);
+        long p99 = histogram.percentile(99);
+        assertTrue(p99 >= 990000 && p99 <= 1000000, "p99 " + p99);
+        assertEquals(1000000, histogram.percentile(100));
+    }
+}
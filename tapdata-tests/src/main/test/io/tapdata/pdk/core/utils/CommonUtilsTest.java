@@ -0,0 +1,84 @@
+package io.tapdata.pdk.core.utils;
+
+import io.tapdata.pdk.core.error.CoreException;
+import io.tapdata.pdk.core.error.ErrorCodes;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommonUtilsTest {
+    @Test
+    void autoRetryTransientError() {
+        List<Long> attempts = new ArrayList<>();
+        CommonUtils.autoRetry(() -> {
+            attempts.add(System.nanoTime());
+            if(attempts.size() < 3)
+                throw new IllegalStateException("Transient error " + attempts.size());
+        }, "test", "transient", 5, 20, 1000);
+        assertEquals(3, attempts.size());
+        //The interval doubles after every retry.
+        assertTrue(attempts.get(1) - attempts.get(0) >= 20_000_000L);
+        assertTrue(attempts.get(2) - attempts.get(1) >= 40_000_000L);
+    }
+
+    @Test
+    void autoRetryGivesUp() {
+        List<Long> attempts = new ArrayList<>();
+        long time = System.currentTimeMillis();
+        CoreException coreException = assertThrows(CoreException.class, () -> CommonUtils.autoRetry(() -> {
+            attempts.add(System.nanoTime());
+            throw new IllegalStateException("Permanent error");
+        }, "test", "permanent", 3, 10, 15));
+        assertEquals(4, attempts.size());
+        assertInstanceOf(IllegalStateException.class, coreException.getCause());
+        //10 + 15 + 15, capped by the max interval.
+        long takes = System.currentTimeMillis() - time;
+        assertTrue(takes >= 40 && takes < 1000, "takes " + takes);
+
+        attempts.clear();
+        assertThrows(CoreException.class, () -> CommonUtils.autoRetry(() -> {
+            attempts.add(System.nanoTime());
+            throw new IllegalStateException("No retry");
+        }, "test", "no retry", 0, 10, 10));
+        assertEquals(1, attempts.size());
+    }
+
+    @Test
+    void autoRetryOnlyRetryableError() {
+        List<Long> attempts = new ArrayList<>();
+        CoreException coreException = assertThrows(CoreException.class, () -> CommonUtils.autoRetry(() -> {
+            attempts.add(System.nanoTime());
+            throw new CoreException(ErrorCodes.COMMON_UNKNOWN, "Duplicate key", new SQLIntegrityConstraintViolationException("Duplicate entry '1' for key 'PRIMARY'", "23000"));
+        }, "test", "constraint", 5, 10, 10, CommonUtils::isTransientError));
+        assertEquals(1, attempts.size());
+        assertInstanceOf(SQLIntegrityConstraintViolationException.class, coreException.getCause());
+
+        attempts.clear();
+        CommonUtils.autoRetry(() -> {
+            attempts.add(System.nanoTime());
+            if(attempts.size() < 3)
+                throw new CoreException(ErrorCodes.COMMON_UNKNOWN, "Broken connection", new SQLException("Communications link failure", "08S01"));
+        }, "test", "transient", 5, 10, 10, CommonUtils::isTransientError);
+        assertEquals(3, attempts.size());
+    }
+
+    @Test
+    void transientErrors() {
+        assertTrue(CommonUtils.isTransientError(new IllegalStateException("Writer is busy")));
+        assertTrue(CommonUtils.isTransientError(new SQLException("Communications link failure", "08S01")));
+        assertTrue(CommonUtils.isTransientError(new SQLTransientConnectionException("Connection is not available")));
+        assertTrue(CommonUtils.isTransientError(new CoreException(ErrorCodes.COMMON_UNKNOWN, "Unknown", new SocketTimeoutException("Read timed out"))));
+
+        assertFalse(CommonUtils.isTransientError(new SQLSyntaxErrorException("You have an error in your SQL syntax")));
+        assertFalse(CommonUtils.isTransientError(new SQLException("Duplicate entry", "23505")));
+        assertFalse(CommonUtils.isTransientError(new SQLException("Unknown column 'a'", "42S22")));
+        assertFalse(CommonUtils.isTransientError(new RuntimeException(new BatchUpdateException("Data truncation", "22001", new int[0]))));
+        assertFalse(CommonUtils.isTransientError(new CoreException(ErrorCodes.PDK_ILLEGAL_PARAMETER, "Illegal parameter")));
+        assertFalse(CommonUtils.isTransientError(new CoreException(ErrorCodes.COMMON_UNKNOWN, "Unknown", new IllegalArgumentException("Unsupported type"))));
+    }
+}
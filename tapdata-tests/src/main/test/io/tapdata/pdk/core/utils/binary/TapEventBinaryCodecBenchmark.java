@@ -0,0 +1,74 @@
+package io.tapdata.pdk.core.utils.binary;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.InstanceFactory;
+import io.tapdata.entity.utils.JsonParser;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compare the binary format with json on 100k insert events, run it manually.
+ */
+@Tag("benchmark")
+@Disabled("Benchmark, run manually")
+class TapEventBinaryCodecBenchmark {
+    private final TapTable table = table("binaryTable")
+            .add(field("id", "varchar").tapType(tapString().bytes(100L)).isPrimaryKey(true).primaryKeyPos(1))
+            .add(field("amount", "decimal").tapType(tapNumber().precision(20).scale(4)))
+            .add(field("created", "datetime").tapType(tapDateTime()))
+            .add(field("data", "blob").tapType(tapBinary()))
+            .add(field("flag", "bit").tapType(tapBoolean()));
+
+    @Test
+    void throughputComparedWithJson() {
+        Random random = new Random(1);
+        List<TapEvent> events = new ArrayList<>();
+        for(int i = 0; i < 100000; i++) {
+            Map<String, Object> after = new LinkedHashMap<>();
+            after.put("id", "id_" + i);
+            after.put("amount", random.nextDouble() * 1000);
+            after.put("created", new Date());
+            after.put("data", ("bytes" + i).getBytes());
+            after.put("flag", random.nextBoolean());
+            events.add(insertRecordEvent(after, table));
+        }
+        JsonParser jsonParser = InstanceFactory.instance(JsonParser.class);
+        for(int warmup = 0; warmup < 3; warmup++) {
+            binaryRound(events);
+            jsonRound(events, jsonParser);
+        }
+        long time = System.currentTimeMillis();
+        long binaryBytes = binaryRound(events);
+        long binaryTakes = System.currentTimeMillis() - time;
+        time = System.currentTimeMillis();
+        long jsonBytes = jsonRound(events, jsonParser);
+        long jsonTakes = System.currentTimeMillis() - time;
+        assertTrue(binaryBytes < jsonBytes, "100k events binary " + binaryTakes + "ms " + binaryBytes + " bytes, json " + jsonTakes + "ms " + jsonBytes + " bytes");
+    }
+
+    private long binaryRound(List<TapEvent> events) {
+        TapEventBinaryWriter writer = new TapEventBinaryWriter(1024 * 1024);
+        writer.writeList(events);
+        TapEventBinaryReader reader = new TapEventBinaryReader(writer.toByteBuffer(), id -> table);
+        assertEquals(events.size(), reader.nextList().size());
+        return writer.size();
+    }
+
+    private long jsonRound(List<TapEvent> events, JsonParser jsonParser) {
+        long bytes = 0;
+        for(TapEvent event : events) {
+            String json = jsonParser.toJson(((TapInsertRecordEvent) event).getAfter());
+            bytes += json.length();
+            assertNotNull(jsonParser.fromJson(json));
+        }
+        return bytes;
+    }
+}
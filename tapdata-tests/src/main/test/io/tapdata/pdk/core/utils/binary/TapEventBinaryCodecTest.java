@@ -0,0 +1,247 @@
+package io.tapdata.pdk.core.utils.binary;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.ddl.index.TapCreateIndexEvent;
+import io.tapdata.entity.event.ddl.table.TapAlterTableEvent;
+import io.tapdata.entity.event.ddl.table.TapDropTableEvent;
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapIndex;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.schema.type.TapType;
+import io.tapdata.entity.schema.value.*;
+import io.tapdata.entity.utils.IndexedRecordMap;
+import io.tapdata.pdk.core.error.CoreException;
+import io.tapdata.pdk.core.error.ErrorCodes;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TapEventBinaryCodecTest {
+    private final TapTable table = table("binaryTable")
+            .add(field("id", "varchar").tapType(tapString().bytes(100L)).isPrimaryKey(true).primaryKeyPos(1))
+            .add(field("amount", "decimal").tapType(tapNumber().precision(20).scale(4)))
+            .add(field("created", "datetime").tapType(tapDateTime()))
+            .add(field("data", "blob").tapType(tapBinary()))
+            .add(field("flag", "bit").tapType(tapBoolean()));
+
+    @Test
+    void fuzzRoundTrip() {
+        Random random = new Random(7);
+        for(int round = 0; round < 2000; round++) {
+            List<TapEvent> events = new ArrayList<>();
+            for(int i = 0; i < 5; i++)
+                events.add(randomRecordEvent(random));
+            TapEventBinaryWriter writer = new TapEventBinaryWriter(16);
+            writer.writeList(events);
+            TapEventBinaryReader reader = new TapEventBinaryReader(writer.toByteBuffer(), id -> table);
+            List<TapEvent> readEvents = reader.nextList();
+            assertFalse(reader.hasNext());
+            assertEquals(describe(events), describe(readEvents));
+        }
+    }
+
+    @Test
+    void ddlRoundTrip() {
+        TapAlterTableEvent alterTableEvent = new TapAlterTableEvent();
+        alterTableEvent.setTable(table);
+        alterTableEvent.setTime(System.currentTimeMillis());
+        alterTableEvent.setName("newName");
+        alterTableEvent.setInsertFields(list(field("newField", "int").tapType(tapNumber().bit(32)).nullable(false).pos(6)));
+        alterTableEvent.setDeleteFields(list("flag"));
+        TapCreateIndexEvent createIndexEvent = new TapCreateIndexEvent();
+        createIndexEvent.setTable(table);
+        TapIndex index = new TapIndex();
+        index.setName("idx");
+        index.setFields(list("id", "amount"));
+        index.setFieldAscList(list(true, false));
+        createIndexEvent.setIndexList(list(index));
+        TapDropTableEvent dropTableEvent = new TapDropTableEvent();
+        dropTableEvent.setTable(table);
+
+        TapEventBinaryWriter writer = new TapEventBinaryWriter();
+        writer.write(alterTableEvent).write(createIndexEvent).write(dropTableEvent);
+        TapEventBinaryReader reader = new TapEventBinaryReader(writer.toByteBuffer(), id -> table);
+
+        TapAlterTableEvent readAlter = (TapAlterTableEvent) reader.next();
+        assertEquals("newName", readAlter.getName());
+        assertEquals(alterTableEvent.getTime(), readAlter.getTime());
+        assertEquals(list("flag"), readAlter.getDeleteFields());
+        TapField newField = readAlter.getInsertFields().get(0);
+        assertEquals("newField", newField.getName());
+        assertEquals(false, newField.getNullable());
+        assertEquals(32, ((io.tapdata.entity.schema.type.TapNumber) newField.getTapType()).getBit());
+
+        TapCreateIndexEvent readIndex = (TapCreateIndexEvent) reader.next();
+        assertEquals(list("id", "amount"), readIndex.getIndexList().get(0).getFields());
+        assertEquals(list(true, false), readIndex.getIndexList().get(0).getFieldAscList());
+        assertSame(table, ((TapDropTableEvent) reader.next()).getTable());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    void fieldsChangedAfterWrite() {
+        TapEventBinaryWriter writer = new TapEventBinaryWriter();
+        writer.write(insertRecordEvent(map(entry("id", "1"), entry("amount", 2), entry("flag", true)), table));
+        //The table after DDL has the same field count, the ordinals would be resolved to the wrong fields.
+        TapTable alteredTable = table("binaryTable")
+                .add(field("id", "varchar").tapType(tapString().bytes(100L)).isPrimaryKey(true).primaryKeyPos(1))
+                .add(field("created", "datetime").tapType(tapDateTime()))
+                .add(field("amount", "decimal").tapType(tapNumber().precision(20).scale(4)))
+                .add(field("data", "blob").tapType(tapBinary()))
+                .add(field("flag", "bit").tapType(tapBoolean()));
+        TapEventBinaryReader reader = new TapEventBinaryReader(writer.toByteBuffer(), id -> alteredTable);
+        CoreException coreException = assertThrows(CoreException.class, reader::next);
+        assertEquals(ErrorCodes.COMMON_BINARY_DESERIALIZE_FAILED, coreException.getCode());
+
+        assertEquals(table.fieldIndex().fingerprint(), table("binaryTable")
+                .add(field("id", "varchar")).add(field("amount", "decimal")).add(field("created", "datetime"))
+                .add(field("data", "blob")).add(field("flag", "bit")).fieldIndex().fingerprint());
+    }
+
+    @Test
+    void indexedRecordWithoutTable() {
+        IndexedRecordMap record = new IndexedRecordMap(table.fieldIndex());
+        record.put("id", "1");
+        TapInsertRecordEvent insertRecordEvent = new TapInsertRecordEvent();
+        insertRecordEvent.setAfter(record);
+        CoreException coreException = assertThrows(CoreException.class, () -> new TapEventBinaryWriter().write(insertRecordEvent));
+        assertEquals(ErrorCodes.COMMON_BINARY_SERIALIZE_FAILED, coreException.getCode());
+    }
+
+    private TapEvent randomRecordEvent(Random random) {
+        Map<String, Object> record = random.nextBoolean() ? IndexedRecordMap.create(table) : new LinkedHashMap<>();
+        record.put("id", randomTapValue(random, table.getNameFieldMap().get("id")));
+        record.put("amount", randomValue(random, 0));
+        record.put("created", randomTapValue(random, null));
+        if(random.nextBoolean())
+            record.put("notInTable", randomValue(random, 0));
+        record.put("flag", null);
+        TapEvent event;
+        switch (random.nextInt(3)) {
+            case 0:
+                event = insertRecordEvent(record, table);
+                break;
+            case 1:
+                event = updateDMLEvent(random.nextBoolean() ? null : new LinkedHashMap<>(record), record, table)
+                        .partial(random.nextBoolean()).removedFields(random.nextBoolean() ? null : list("removed", "nested.removed"));
+                break;
+            default:
+                event = deleteDMLEvent(record, table);
+                break;
+        }
+        ((io.tapdata.entity.event.dml.TapRecordEvent) event).setReferenceTime(random.nextBoolean() ? null : random.nextLong());
+        ((io.tapdata.entity.event.dml.TapRecordEvent) event).setConnector(random.nextBoolean() ? null : "connector");
+        if(random.nextBoolean())
+            event.addInfo("key", randomValue(random, 1));
+        return event;
+    }
+
+    private Object randomValue(Random random, int depth) {
+        switch (random.nextInt(depth > 2 ? 16 : 18)) {
+            case 0: return null;
+            case 1: return random.nextInt();
+            case 2: return random.nextLong();
+            case 3: return random.nextDouble();
+            case 4: return random.nextFloat();
+            case 5: return random.nextBoolean();
+            case 6: return randomString(random);
+            case 7: byte[] bytes = new byte[random.nextInt(20)]; random.nextBytes(bytes); return bytes;
+            case 8: return new BigDecimal(new BigInteger(64, random), random.nextInt(20) - 5);
+            case 9: return new BigInteger(100, random).negate();
+            case 10: return new Date(random.nextLong() / 1000);
+            case 11: Timestamp timestamp = new Timestamp(random.nextInt()); timestamp.setNanos(random.nextInt(999999999)); return timestamp;
+            case 12: return randomDateTime(random);
+            case 13: return (short) random.nextInt();
+            case 14: return (byte) random.nextInt();
+            case 15: return randomTapValue(random, null);
+            case 16: Map<String, Object> map = new LinkedHashMap<>(); map.put(randomString(random), randomValue(random, depth + 1)); return map;
+            default: return list(randomValue(random, depth + 1), randomValue(random, depth + 1));
+        }
+    }
+
+    private TapValue<?, ?> randomTapValue(Random random, TapField field) {
+        TapValue<?, ?> tapValue;
+        switch (random.nextInt(11)) {
+            case 0: tapValue = new TapStringValue(randomString(random)); break;
+            case 1: tapValue = new TapNumberValue(random.nextDouble()); break;
+            case 2: tapValue = new TapBooleanValue(random.nextBoolean()); break;
+            case 3: tapValue = new TapBinaryValue(randomString(random).getBytes()); break;
+            case 4: tapValue = new TapDateValue(randomDateTime(random)); break;
+            case 5: tapValue = new TapDateTimeValue(randomDateTime(random)); break;
+            case 6: tapValue = new TapTimeValue(randomDateTime(random)); break;
+            case 7: tapValue = new TapYearValue(randomDateTime(random)); break;
+            case 8: tapValue = new TapArrayValue(list(random.nextInt(), randomString(random))); break;
+            case 9: Map<String, Object> map = new LinkedHashMap<>(); map.put("k", random.nextLong()); tapValue = new TapMapValue(map); break;
+            default: tapValue = new TapRawValue(new BigDecimal(random.nextInt())); break;
+        }
+        tapValue.setOriginType(random.nextBoolean() ? "origin" : null);
+        tapValue.setOriginValue(random.nextBoolean() ? tapValue.getValue() : randomString(random));
+        if(field != null && random.nextBoolean())
+            ((TapValue<?, TapType>) tapValue).setTapType(field.getTapType());
+        else if(random.nextBoolean())
+            ((TapValue<?, TapType>) tapValue).setTapType(tapValue.createDefaultTapType());
+        return tapValue;
+    }
+
+    private DateTime randomDateTime(Random random) {
+        DateTime dateTime = new DateTime();
+        dateTime.setSeconds(random.nextBoolean() ? null : random.nextLong() / 1000);
+        dateTime.setNano(random.nextBoolean() ? null : random.nextLong());
+        dateTime.setTimeZone(random.nextBoolean() ? null : TimeZone.getTimeZone("GMT+8"));
+        return dateTime;
+    }
+
+    private String randomString(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(10);
+        for(int i = 0; i < length; i++)
+            builder.append((char) (random.nextInt(0x4E00) + 0x20));
+        return builder.toString();
+    }
+
+    /**
+     * Convert to comparable structure, as TapValue, byte[] and events don't implement equals.
+     */
+    private Object describe(Object object) {
+        if(object instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for(Object item : (List<?>) object)
+                list.add(describe(item));
+            return list;
+        } else if(object instanceof Map) {
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet())
+                map.put(entry.getKey(), describe(entry.getValue()));
+            return list(object.getClass().getSimpleName(), map);
+        } else if(object instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) object);
+        } else if(object instanceof TapValue) {
+            TapValue<?, ?> tapValue = (TapValue<?, ?>) object;
+            TapType tapType = tapValue.getTapType();
+            return list(tapValue.getClass(), describe(tapValue.getValue()), tapValue.getOriginType(), describe(tapValue.getOriginValue()),
+                    tapType != null ? tapType.getClass() + toJson(tapType) : null);
+        } else if(object instanceof TapInsertRecordEvent) {
+            TapInsertRecordEvent event = (TapInsertRecordEvent) object;
+            return list("insert", event.getTime(), event.getReferenceTime(), event.getConnector(), describe(event.getInfo()), event.getTable().getId(), describe(event.getAfter()));
+        } else if(object instanceof TapUpdateRecordEvent) {
+            TapUpdateRecordEvent event = (TapUpdateRecordEvent) object;
+            return list("update", event.getTime(), event.getReferenceTime(), event.getConnector(), describe(event.getInfo()), event.getTable().getId(), describe(event.getBefore()), describe(event.getAfter()), event.isPartial(), event.getRemovedFields());
+        } else if(object instanceof TapDeleteRecordEvent) {
+            TapDeleteRecordEvent event = (TapDeleteRecordEvent) object;
+            return list("delete", event.getTime(), event.getReferenceTime(), event.getConnector(), describe(event.getInfo()), event.getTable().getId(), describe(event.getBefore()));
+        } else if(object != null) {
+            return list(object.getClass(), object);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,103 @@
+package io.tapdata.pdk.core.utils.queue;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleThreadBlockingQueueAllocationTest {
+    private final TapTable table = table("allocationTable")
+            .add(field("id", "bigint").tapType(tapNumber()).isPrimaryKey(true).primaryKeyPos(1));
+
+    @Test
+    void steadyDrainAllocatesNothing() throws Exception {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final int listCount = 50000;
+        final int handleSize = 10;
+        final int warmupDrains = 1000;
+        final int drainCount = listCount / handleSize;
+        List<TapEvent> events = new ArrayList<>();
+        for(long id = 0; id < 10; id++)
+            events.add(insertRecordEvent(map(entry("id", id)), table));
+
+        //The consumer starts after all the lists are offered, so it never waits on the locks of the producer.
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        CountDownLatch consumerStart = new CountDownLatch(1);
+        executorService.execute(() -> {
+            try {
+                consumerStart.await();
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CountDownLatch finished = new CountDownLatch(1);
+        NestedListIterator<TapEvent> iterator = new NestedListIterator<>();
+        long[] drains = new long[1];
+        long[] eventCount = new long[1];
+        long[] allocated = new long[3];
+        SingleThreadBlockingQueue<List<TapEvent>> queue = new SingleThreadBlockingQueue<List<TapEvent>>("allocation test")
+                .withMaxSize(listCount)
+                .withHandleSize(handleSize)
+                .withExecutorService(executorService)
+                .withHandler(lists -> {
+                    for(TapEvent event : iterator.reset(lists)) {
+                        if(event instanceof TapInsertRecordEvent)
+                            eventCount[0]++;
+                    }
+                    drains[0]++;
+                    if(drains[0] == warmupDrains) {
+                        long threadId = Thread.currentThread().getId();
+                        //The cost of reading the allocated bytes itself.
+                        allocated[0] = threadMXBean.getThreadAllocatedBytes(threadId);
+                        allocated[1] = threadMXBean.getThreadAllocatedBytes(threadId);
+                    } else if(drains[0] == drainCount) {
+                        allocated[2] = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                        finished.countDown();
+                    }
+                }).start();
+        for(int i = 0; i < listCount; i++)
+            queue.offer(events);
+        consumerStart.countDown();
+        assertTrue(finished.await(30, TimeUnit.SECONDS));
+        executorService.shutdownNow();
+
+        assertEquals((long) listCount * events.size(), eventCount[0]);
+        long readCost = allocated[1] - allocated[0];
+        long perDrain = (allocated[2] - allocated[1] - readCost) / (drainCount - warmupDrains);
+        assertTrue(perDrain < 8, "Allocated " + perDrain + " bytes per drain of " + handleSize + " lists in steady state");
+    }
+
+    @Test
+    void nestedListIterator() {
+        NestedListIterator<Integer> iterator = new NestedListIterator<>();
+        List<List<Integer>> lists = Arrays.asList(Collections.emptyList(), Arrays.asList(1, 2), Collections.emptyList(), Collections.singletonList(3), Collections.emptyList());
+        List<Integer> items = new ArrayList<>();
+        for(Integer item : iterator.reset(lists))
+            items.add(item);
+        assertEquals(Arrays.asList(1, 2, 3), items);
+        assertThrows(NoSuchElementException.class, iterator::next);
+
+        Iterator<Integer> empty = iterator.reset(Collections.<List<Integer>>emptyList());
+        assertFalse(empty.hasNext());
+        //Reused for the next drain.
+        items.clear();
+        for(Integer item : iterator.reset(Collections.singletonList(Arrays.asList(4, 5))))
+            items.add(item);
+        assertEquals(Arrays.asList(4, 5), items);
+    }
+}
@@ -0,0 +1,159 @@
+package io.tapdata.pdk.core.utils.queue;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleThreadBlockingQueueBatchTest {
+    private final TapTable table = table("batchTable")
+            .add(field("id", "bigint").tapType(tapNumber()).isPrimaryKey(true).primaryKeyPos(1))
+            .add(field("name", "varchar").tapType(tapString().bytes(50L)));
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final TapEventsWeigher weigher = new TapEventsWeigher();
+    /**
+     * Event count of every batch handed to the handler.
+     */
+    private final List<Integer> batchEvents = new CopyOnWriteArrayList<>();
+    private final List<Long> batchBytes = new CopyOnWriteArrayList<>();
+    /**
+     * Max time from offer to handle, in nanoseconds.
+     */
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    @AfterEach
+    void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    private List<TapEvent> events(long firstId, int count) {
+        List<TapEvent> events = new ArrayList<>();
+        for(long id = firstId; id < firstId + count; id++) {
+            TapEvent event = insertRecordEvent(map(entry("id", id), entry("name", "name " + id)), table);
+            //Offer time, for the latency.
+            event.setTime(System.nanoTime());
+            events.add(event);
+        }
+        return events;
+    }
+
+    private SingleThreadBlockingQueue<List<TapEvent>> queue(int handleCount, long handleBytes, long lingerMillis, CountDownLatch finished) {
+        return new SingleThreadBlockingQueue<List<TapEvent>>("batch test")
+                .withMaxSize(100)
+                .withHandleSize(1000)
+                .withWeigher(weigher)
+                .withHandleCount(handleCount)
+                .withHandleBytes(handleBytes)
+                .withLinger(lingerMillis)
+                .withExecutorService(executorService)
+                .withHandler(batches -> {
+                    long now = System.nanoTime();
+                    int count = 0;
+                    long bytes = 0;
+                    for(List<TapEvent> events : batches) {
+                        count += events.size();
+                        bytes += weigher.bytes(events);
+                        for(TapEvent event : events)
+                            maxLatency.accumulateAndGet(now - event.getTime(), Math::max);
+                    }
+                    batchEvents.add(count);
+                    batchBytes.add(bytes);
+                    for(int i = 0; i < count; i++)
+                        finished.countDown();
+                }).start();
+    }
+
+    @Test
+    void trickleIsBatchedWithinLinger() throws Exception {
+        final int eventCount = 200;
+        final long lingerMillis = 50;
+        CountDownLatch finished = new CountDownLatch(eventCount);
+        SingleThreadBlockingQueue<List<TapEvent>> queue = queue(100, 0, lingerMillis, finished);
+        //One event every 2 milliseconds, a CDC source in quiet time.
+        for(int i = 0; i < eventCount; i++) {
+            queue.offer(events(i, 1));
+            Thread.sleep(2);
+        }
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+
+        assertEquals(eventCount, batchEvents.stream().mapToInt(Integer::intValue).sum());
+        //Without linger every event would be a batch, 25 events at most arrive in a linger of 50 milliseconds.
+        double averageEvents = (double) eventCount / batchEvents.size();
+        assertTrue(averageEvents >= 5, "average events of a batch " + averageEvents + ", batches " + batchEvents);
+        for(int events : batchEvents)
+            assertTrue(events <= 100, "batches " + batchEvents);
+        long maxLatencyMillis = TimeUnit.NANOSECONDS.toMillis(maxLatency.get());
+        assertTrue(maxLatencyMillis < lingerMillis + 40, "max latency " + maxLatencyMillis + "ms");
+    }
+
+    @Test
+    void noLingerHandsOffAtOnce() throws Exception {
+        final int eventCount = 50;
+        CountDownLatch finished = new CountDownLatch(eventCount);
+        SingleThreadBlockingQueue<List<TapEvent>> queue = queue(100, 0, 0, finished);
+        for(int i = 0; i < eventCount; i++) {
+            queue.offer(events(i, 1));
+            Thread.sleep(5);
+        }
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        //The consumer is faster than the producer, batches are handed off without waiting.
+        assertTrue(batchEvents.size() > eventCount / 2, "batches " + batchEvents);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(maxLatency.get()) < 40);
+    }
+
+    @Test
+    void burstIsSplitByEventCount() throws Exception {
+        final int batchSize = 10;
+        final int handleCount = 200;
+        final int eventCount = 100000;
+        CountDownLatch finished = new CountDownLatch(eventCount);
+        SingleThreadBlockingQueue<List<TapEvent>> queue = queue(handleCount, 0, 1000, finished);
+        for(int i = 0; i < eventCount; i += batchSize)
+            queue.offer(events(i, batchSize));
+        assertTrue(finished.await(30, TimeUnit.SECONDS));
+
+        assertEquals(eventCount, batchEvents.stream().mapToInt(Integer::intValue).sum());
+        int fullBatches = 0;
+        for(int events : batchEvents) {
+            //Lists are not split, the limit may be exceeded by the last list.
+            assertTrue(events < handleCount + batchSize, "batch of " + events + " events");
+            if(events >= handleCount)
+                fullBatches++;
+        }
+        //Only the last batch may be handed off by the linger deadline.
+        assertTrue(fullBatches >= batchEvents.size() - 1, "batches " + batchEvents);
+    }
+
+    @Test
+    void burstIsSplitByBytes() throws Exception {
+        final int batchSize = 10;
+        final long handleBytes = 32 * 1024;
+        final int eventCount = 50000;
+        long listBytes = weigher.bytes(events(0, batchSize));
+        CountDownLatch finished = new CountDownLatch(eventCount);
+        SingleThreadBlockingQueue<List<TapEvent>> queue = queue(0, handleBytes, 1000, finished);
+        for(int i = 0; i < eventCount; i += batchSize)
+            queue.offer(events(i, batchSize));
+        assertTrue(finished.await(30, TimeUnit.SECONDS));
+
+        assertEquals(eventCount, batchEvents.stream().mapToInt(Integer::intValue).sum());
+        for(int i = 0; i < batchBytes.size(); i++) {
+            long bytes = batchBytes.get(i);
+            assertTrue(bytes < handleBytes + listBytes * 2, "batch of " + bytes + " bytes");
+            if(i < batchBytes.size() - 1)
+                assertTrue(bytes >= handleBytes, "batch of " + bytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.tapdata.pdk.core.utils.queue;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.pdk.core.error.CoreException;
+import io.tapdata.pdk.core.error.ErrorCodes;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleThreadBlockingQueueErrorTest {
+    private final TapTable table = table("errorTable")
+            .add(field("id", "bigint").tapType(tapNumber()).isPrimaryKey(true).primaryKeyPos(1));
+
+    private List<TapEvent> events(long firstId, int count) {
+        List<TapEvent> events = new ArrayList<>();
+        for(long id = firstId; id < firstId + count; id++)
+            events.add(insertRecordEvent(map(entry("id", id)), table));
+        return events;
+    }
+
+    private static Object firstId(List<TapEvent> events) {
+        return ((TapInsertRecordEvent) events.get(0)).getAfter().get("id");
+    }
+
+    @Test
+    void failOnNthBatchStopsSource() throws Exception {
+        final int batchSize = 10;
+        final int failedBatch = 5;
+        final int queueSize = 4;
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        List<Object> handledIds = new CopyOnWriteArrayList<>();
+        List<Object> failedIds = new CopyOnWriteArrayList<>();
+        AtomicReference<Throwable> reportedError = new AtomicReference<>();
+        //Set by the error handler, as DataFlowWorker stops the sources.
+        AtomicBoolean sourceStopped = new AtomicBoolean(false);
+
+        SingleThreadBlockingQueue<List<TapEvent>> queue = new SingleThreadBlockingQueue<List<TapEvent>>("error test")
+                .withMaxSize(queueSize)
+                .withHandleSize(1)
+                .withExecutorService(executorService)
+                .withHandler(batches -> {
+                    for(List<TapEvent> events : batches) {
+                        //A slow target, the source is blocked by the full queue when the target fails.
+                        Thread.sleep(20);
+                        if(handledIds.size() == failedBatch - 1)
+                            throw new IllegalStateException("Write failed on batch " + failedBatch);
+                        handledIds.add(firstId(events));
+                    }
+                })
+                .withErrorHandler((batches, throwable) -> {
+                    for(List<TapEvent> events : batches)
+                        failedIds.add(firstId(events));
+                    reportedError.set(throwable);
+                    sourceStopped.set(true);
+                }).start();
+
+        List<Object> offeredIds = new CopyOnWriteArrayList<>();
+        AtomicReference<Throwable> sourceError = new AtomicReference<>();
+        CountDownLatch sourceFinished = new CountDownLatch(1);
+        executorService.execute(() -> {
+            try {
+                for(long id = 0; !sourceStopped.get(); id += batchSize) {
+                    List<TapEvent> events = events(id, batchSize);
+                    queue.offer(events);
+                    offeredIds.add(firstId(events));
+                }
+            } catch(Throwable throwable) {
+                sourceError.set(throwable);
+            } finally {
+                sourceFinished.countDown();
+            }
+        });
+        assertTrue(sourceFinished.await(10, TimeUnit.SECONDS), "source is still blocked");
+        Thread.sleep(200);
+        executorService.shutdownNow();
+
+        //The target is not called after the failed batch.
+        assertEquals(failedBatch - 1, handledIds.size());
+        assertEquals(1, failedIds.size());
+        assertInstanceOf(IllegalStateException.class, reportedError.get());
+        assertEquals((long) (failedBatch - 1) * batchSize, failedIds.get(0));
+        //The source blocked by the full queue is woken up by an error instead of enqueuing more.
+        assertInstanceOf(CoreException.class, sourceError.get());
+        assertEquals(ErrorCodes.COMMON_SINGLE_THREAD_QUEUE_STOPPED, ((CoreException) sourceError.get()).getCode());
+        //Every batch read is handled, reported failed, or discarded from the stopped queue which holds queueSize at most.
+        List<Object> notHandled = new ArrayList<>(offeredIds);
+        notHandled.removeAll(handledIds);
+        notHandled.removeAll(failedIds);
+        assertTrue(notHandled.size() <= queueSize, "discarded " + notHandled);
+        assertTrue(offeredIds.containsAll(handledIds));
+        assertThrows(CoreException.class, () -> queue.offer(events(-10, batchSize)));
+    }
+
+    @Test
+    void interruptWhileFull() throws Exception {
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        CountDownLatch handlerRelease = new CountDownLatch(1);
+        SingleThreadBlockingQueue<List<TapEvent>> queue = new SingleThreadBlockingQueue<List<TapEvent>>("interrupt test")
+                .withMaxSize(2)
+                .withHandleSize(1)
+                .withExecutorService(executorService)
+                .withHandler(batches -> handlerRelease.await())
+                .start();
+
+        AtomicReference<Throwable> sourceError = new AtomicReference<>();
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        Thread source = new Thread(() -> {
+            try {
+                for(long id = 0; ; id++)
+                    queue.offer(events(id, 1));
+            } catch(Throwable throwable) {
+                sourceError.set(throwable);
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        source.start();
+        //The source is blocked by the full queue.
+        Thread.sleep(200);
+        assertEquals(Thread.State.TIMED_WAITING, source.getState());
+        source.interrupt();
+        source.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(source.isAlive(), "source is still blocked");
+        handlerRelease.countDown();
+        executorService.shutdownNow();
+
+        assertInstanceOf(CoreException.class, sourceError.get());
+        assertEquals(ErrorCodes.COMMON_SINGLE_THREAD_QUEUE_STOPPED, ((CoreException) sourceError.get()).getCode());
+        assertTrue(interrupted.get());
+    }
+}
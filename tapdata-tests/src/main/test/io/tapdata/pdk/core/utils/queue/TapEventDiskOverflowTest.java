@@ -0,0 +1,123 @@
+package io.tapdata.pdk.core.utils.queue;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.schema.TapField;
+import io.tapdata.entity.schema.TapTable;
+import io.tapdata.entity.utils.IndexedRecordMap;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TapEventDiskOverflowTest {
+    private final TapTable table = table("overflowTable")
+            .add(field("id", "bigint").tapType(tapNumber()).isPrimaryKey(true).primaryKeyPos(1))
+            .add(field("name", "varchar").tapType(tapString().bytes(50L)));
+
+    @Test
+    void stalledConsumerKeepsOrderWithoutLoss() throws Exception {
+        verifyStalledConsumer(1024 * 1024, 64L * 1024 * 1024, 20000);
+    }
+
+    @Test
+    void blockProducerWhenDiskIsFull() throws Exception {
+        verifyStalledConsumer(16 * 1024, 64 * 1024, 5000);
+    }
+
+    @Test
+    void batchesBeforeDDLReadWithTheirFields() throws Exception {
+        File directory = Files.createTempDirectory("overflow").toFile();
+        TapEventDiskOverflow overflow = new TapEventDiskOverflow(new File(directory, "edge"), 1024 * 1024, 64L * 1024 * 1024);
+        TapTable ddlTable = table("ddlTable")
+                .add(field("id", "bigint").tapType(tapNumber()).isPrimaryKey(true).primaryKeyPos(1))
+                .add(field("name", "varchar").tapType(tapString().bytes(50L)));
+        overflow.spill(list(insertRecordEvent(indexedMap(ddlTable, entry("id", 1L), entry("name", "before")), ddlTable)));
+        //DDL swaps the field order in place.
+        LinkedHashMap<String, TapField> nameFieldMap = new LinkedHashMap<>();
+        nameFieldMap.put("name", ddlTable.getNameFieldMap().get("name"));
+        nameFieldMap.put("id", ddlTable.getNameFieldMap().get("id"));
+        ddlTable.setNameFieldMap(nameFieldMap);
+        overflow.spill(list(insertRecordEvent(indexedMap(ddlTable, entry("id", 2L), entry("name", "after")), ddlTable)));
+
+        TapInsertRecordEvent before = (TapInsertRecordEvent) overflow.poll().get(0);
+        assertEquals(1L, before.getAfter().get("id"));
+        assertEquals("before", before.getAfter().get("name"));
+        assertNotSame(ddlTable, before.getTable());
+        TapInsertRecordEvent after = (TapInsertRecordEvent) overflow.poll().get(0);
+        assertEquals(2L, after.getAfter().get("id"));
+        assertEquals("after", after.getAfter().get("name"));
+        //The table not changed since spilling is the same instance.
+        assertSame(ddlTable, after.getTable());
+        assertNull(overflow.poll());
+        overflow.close();
+        directory.delete();
+    }
+
+    private void verifyStalledConsumer(int segmentSize, long maxDiskSize, int batchCount) throws Exception {
+        final int batchSize = 10;
+        final int queueSize = 10;
+        File directory = Files.createTempDirectory("overflow").toFile();
+        TapEventDiskOverflow overflow = new TapEventDiskOverflow(new File(directory, "edge"), segmentSize, maxDiskSize);
+        ExecutorService executorService = Executors.newCachedThreadPool();
+        AtomicLong expectedId = new AtomicLong();
+        CountDownLatch finished = new CountDownLatch(1);
+        List<String> errors = new ArrayList<>();
+        long[] maxPendingBytes = new long[1];
+
+        SingleThreadBlockingQueue<List<TapEvent>> queue = new SingleThreadBlockingQueue<List<TapEvent>>("overflow test")
+                .withMaxSize(queueSize)
+                .withHandleSize(5)
+                .withExecutorService(executorService)
+                .withOverflow(overflow)
+                .withHandler(batches -> {
+                    if(expectedId.get() == 0) {
+                        //Target stalls, the source keeps producing into the overflow.
+                        Thread.sleep(2000);
+                    }
+                    maxPendingBytes[0] = Math.max(maxPendingBytes[0], overflow.getPendingBytes());
+                    for(List<TapEvent> events : batches) {
+                        for(TapEvent event : events) {
+                            Object id = ((TapInsertRecordEvent) event).getAfter().get("id");
+                            if(!id.equals(expectedId.get()) && errors.isEmpty())
+                                errors.add("Expect id " + expectedId.get() + " but " + id);
+                            expectedId.incrementAndGet();
+                        }
+                    }
+                    if(expectedId.get() == (long) batchCount * batchSize)
+                        finished.countDown();
+                }).start();
+
+        long id = 0;
+        for(int i = 0; i < batchCount; i++) {
+            List<TapEvent> events = new ArrayList<>();
+            for(int j = 0; j < batchSize; j++) {
+                IndexedRecordMap record = indexedMap(table, entry("id", id++), entry("name", "name of some length " + id));
+                events.add(insertRecordEvent(record, table));
+            }
+            queue.offer(events);
+            assertTrue(queue.getQueue().size() <= queueSize);
+        }
+        assertTrue(finished.await(60, TimeUnit.SECONDS), "Only received " + expectedId.get());
+        assertTrue(errors.isEmpty(), errors.toString());
+        assertTrue(overflow.getTotalSpilled() > 0);
+        assertTrue(maxPendingBytes[0] < maxDiskSize + segmentSize, "Pending bytes " + maxPendingBytes[0]);
+        assertTrue(overflow.isEmpty());
+
+        queue.stop();
+        assertFalse(new File(directory, "edge").exists());
+        executorService.shutdownNow();
+        directory.delete();
+    }
+}
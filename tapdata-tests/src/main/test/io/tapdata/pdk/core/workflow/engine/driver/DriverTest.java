@@ -0,0 +1,48 @@
+package io.tapdata.pdk.core.workflow.engine.driver;
+
+import io.tapdata.entity.event.TapEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverTest {
+    private final TapTable table = table("cloneTable")
+            .add(field("id", "int").tapType(tapNumber()).isPrimaryKey(true).primaryKeyPos(1))
+            .add(field("name", "varchar").tapType(tapString()));
+    private final Driver driver = new Driver() {};
+
+    @Test
+    void cloneEventsForEachQueue() {
+        TapInsertRecordEvent insert = insertRecordEvent(map(entry("id", 1), entry("name", "a")), table);
+        insert.setTraceNanos(new long[]{1, 2});
+        TapUpdateRecordEvent update = updateDMLEvent(map(entry("id", 1), entry("name", "a")), map(entry("id", 1), entry("name", "b")), table);
+        List<TapEvent> events = list(insert, update);
+
+        //Only one queue, no copy.
+        assertSame(events, driver.cloneEvents(events, false));
+
+        List<TapEvent> cloned = driver.cloneEvents(events, true);
+        assertEquals(2, cloned.size());
+        TapInsertRecordEvent clonedInsert = (TapInsertRecordEvent) cloned.get(0);
+        assertNotSame(insert, clonedInsert);
+        assertEquals(insert.getAfter(), clonedInsert.getAfter());
+        assertArrayEquals(insert.getTraceNanos(), clonedInsert.getTraceNanos());
+        //The downstream changing its copy doesn't affect the others.
+        clonedInsert.getAfter().put("name", "changed");
+        clonedInsert.getTraceNanos()[0] = 100;
+        assertEquals("a", insert.getAfter().get("name"));
+        assertEquals(1, insert.getTraceNanos()[0]);
+
+        TapUpdateRecordEvent clonedUpdate = (TapUpdateRecordEvent) cloned.get(1);
+        assertNotSame(update, clonedUpdate);
+        assertNotSame(update.getAfter(), clonedUpdate.getAfter());
+        assertEquals(update.getBefore(), clonedUpdate.getBefore());
+        assertEquals(update.getAfter(), clonedUpdate.getAfter());
+    }
+}
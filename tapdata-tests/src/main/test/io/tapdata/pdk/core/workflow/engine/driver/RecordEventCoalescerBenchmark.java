@@ -0,0 +1,43 @@
+package io.tapdata.pdk.core.workflow.engine.driver;
+
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Coalesce 1M updates of 10 hot keys, run it manually.
+ */
+@Tag("benchmark")
+@Disabled("Benchmark, run manually")
+class RecordEventCoalescerBenchmark {
+    private final TapTable table = table("hotTable")
+            .add(field("id", "int").tapType(tapNumber()).isPrimaryKey(true).primaryKeyPos(1))
+            .add(field("type", "varchar").tapType(tapString()).isPrimaryKey(true).primaryKeyPos(2))
+            .add(field("a", "int").tapType(tapNumber()))
+            .add(field("b", "int").tapType(tapNumber()));
+
+    @Test
+    void hotKeys() {
+        Random random = new Random(1);
+        RecordEventCoalescer coalescer = new RecordEventCoalescer();
+        long events = 0, written = 0;
+        long time = System.currentTimeMillis();
+        for(int batch = 0; batch < 1000; batch++) {
+            List<TapRecordEvent> recordEvents = new ArrayList<>();
+            for(int i = 0; i < 1000; i++) {
+                int id = random.nextInt(10);
+                recordEvents.add(updateDMLEvent(null, map(entry("id", id), entry("type", "hot"), entry("a", i), entry("b", batch)), table));
+            }
+            events += recordEvents.size();
+            written += coalescer.coalesce(recordEvents).size();
+        }
+        assertTrue(written <= 10 * 1000, "Hot key workload, " + events + " events coalesced to " + written + " takes " + (System.currentTimeMillis() - time) + "ms");
+    }
+}
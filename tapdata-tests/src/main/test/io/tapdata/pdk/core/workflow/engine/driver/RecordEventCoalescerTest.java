@@ -0,0 +1,181 @@
+package io.tapdata.pdk.core.workflow.engine.driver;
+
+import io.tapdata.entity.event.dml.TapDeleteRecordEvent;
+import io.tapdata.entity.event.dml.TapInsertRecordEvent;
+import io.tapdata.entity.event.dml.TapRecordEvent;
+import io.tapdata.entity.event.dml.TapUpdateRecordEvent;
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordEventCoalescerTest {
+    private final TapTable table1 = newTable("table1");
+    private final TapTable table2 = newTable("table2");
+
+    private TapTable newTable(String name) {
+        return table(name)
+                .add(field("id", "int").tapType(tapNumber()).isPrimaryKey(true).primaryKeyPos(1))
+                .add(field("type", "varchar").tapType(tapString()).isPrimaryKey(true).primaryKeyPos(2))
+                .add(field("a", "int").tapType(tapNumber()))
+                .add(field("b", "int").tapType(tapNumber()));
+    }
+
+    @Test
+    void mergeRules() {
+        RecordEventCoalescer coalescer = new RecordEventCoalescer();
+        List<TapRecordEvent> events = new ArrayList<>();
+        events.add(insertRecordEvent(record(1, "x", 1, 1), table1));
+        events.add(updateDMLEvent(null, map(entry("id", 1), entry("type", "x"), entry("a", 2)), table1));
+        events.add(updateDMLEvent(null, map(entry("id", 1), entry("type", "x"), entry("b", 3)), table1));
+        events.add(insertRecordEvent(record(2, "x", 1, 1), table1));
+        events.add(deleteDMLEvent(record(2, "x", 1, 1), table1));
+        events.add(updateDMLEvent(record(3, "x", 1, 1), record(3, "x", 2, 2), table1));
+        events.add(deleteDMLEvent(record(3, "x", 2, 2), table1));
+        List<TapRecordEvent> result = coalescer.coalesce(events);
+
+        assertEquals(2, result.size());
+        TapInsertRecordEvent insertRecordEvent = (TapInsertRecordEvent) result.get(0);
+        assertEquals(record(1, "x", 2, 3), insertRecordEvent.getAfter());
+        assertTrue(result.get(1) instanceof TapDeleteRecordEvent);
+        assertEquals(3, ((TapDeleteRecordEvent) result.get(1)).getBefore().get("id"));
+    }
+
+    @Test
+    void mergePartialUpdates() {
+        RecordEventCoalescer coalescer = new RecordEventCoalescer();
+        List<TapRecordEvent> events = new ArrayList<>();
+        events.add(updateDMLEvent(map(entry("id", 1), entry("type", "x")), map(entry("a", 2)), table1).partial(true).removedFields(list("b")));
+        events.add(updateDMLEvent(map(entry("id", 1), entry("type", "x")), map(entry("b", 3)), table1).partial(true).removedFields(list("c")));
+        events.add(insertRecordEvent(record(2, "x", 1, 1), table1));
+        events.add(updateDMLEvent(map(entry("id", 2), entry("type", "x")), map(entry("a", 5)), table1).partial(true).removedFields(list("b")));
+        events.add(updateDMLEvent(record(3, "x", 1, 1), record(3, "x", 2, 2), table1));
+        events.add(updateDMLEvent(map(entry("id", 3), entry("type", "x")), map(entry("a", 3)), table1).partial(true).removedFields(list("b")));
+        List<TapRecordEvent> result = coalescer.coalesce(events);
+
+        assertEquals(3, result.size());
+        TapUpdateRecordEvent partialUpdate = (TapUpdateRecordEvent) result.get(0);
+        assertTrue(partialUpdate.isPartial());
+        assertEquals(map(entry("a", 2), entry("b", 3)), partialUpdate.getAfter());
+        assertEquals(list("c"), partialUpdate.getRemovedFields());
+        assertEquals(map(entry("id", 2), entry("type", "x"), entry("a", 5)), ((TapInsertRecordEvent) result.get(1)).getAfter());
+        TapUpdateRecordEvent fullUpdate = (TapUpdateRecordEvent) result.get(2);
+        assertFalse(fullUpdate.isPartial());
+        assertEquals(map(entry("id", 3), entry("type", "x"), entry("a", 3)), fullUpdate.getAfter());
+    }
+
+    @Test
+    void keepPartialUpdatesWithNestedPaths() {
+        RecordEventCoalescer coalescer = new RecordEventCoalescer();
+        List<TapRecordEvent> events = new ArrayList<>();
+        events.add(insertRecordEvent(record(1, "x", 1, 1), table1));
+        events.add(updateDMLEvent(map(entry("id", 1), entry("type", "x")), map(entry("a.b", 2)), table1).partial(true));
+        events.add(updateDMLEvent(map(entry("id", 2), entry("type", "x")), map(entry("a.b", 2)), table1).partial(true));
+        events.add(updateDMLEvent(map(entry("id", 2), entry("type", "x")), map(entry("a", 3)), table1).partial(true));
+        events.add(updateDMLEvent(map(entry("id", 3), entry("type", "x")), map(entry("a", 3)), table1).partial(true));
+        events.add(updateDMLEvent(map(entry("id", 3), entry("type", "x")), map(entry("arr.3", 4)), table1).partial(true));
+        events.add(updateDMLEvent(map(entry("id", 4), entry("type", "x")), map(entry("a", 3)), table1).partial(true));
+        events.add(updateDMLEvent(map(entry("id", 4), entry("type", "x")), map(entry("b", 4)), table1).partial(true).removedFields(list("a.c")));
+        List<TapRecordEvent> result = coalescer.coalesce(new ArrayList<>(events));
+
+        assertEquals(events, result);
+        assertEquals(record(1, "x", 1, 1), ((TapInsertRecordEvent) result.get(0)).getAfter());
+        assertEquals(map(entry("a.b", 2)), ((TapUpdateRecordEvent) result.get(2)).getAfter());
+        assertEquals(map(entry("a", 3)), ((TapUpdateRecordEvent) result.get(3)).getAfter());
+
+        //The delete still replaces the nested update before it.
+        events = new ArrayList<>();
+        events.add(updateDMLEvent(map(entry("id", 1), entry("type", "x")), map(entry("a.b", 2)), table1).partial(true));
+        events.add(deleteDMLEvent(record(1, "x", 1, 1), table1));
+        result = coalescer.coalesce(events);
+        assertEquals(1, result.size());
+        assertTrue(result.get(0) instanceof TapDeleteRecordEvent);
+    }
+
+    @Test
+    void randomEventsAgainstReferenceApplier() {
+        Random random = new Random(29);
+        RecordEventCoalescer coalescer = new RecordEventCoalescer();
+        for(int round = 0; round < 2000; round++) {
+            Map<List<Object>, Map<String, Object>> sourceState = new HashMap<>();
+            for(int i = 0; i < 5; i++) {
+                if(random.nextBoolean())
+                    sourceState.put(key(table1, i, "x"), record(i, "x", 0, 0));
+            }
+            Map<List<Object>, Map<String, Object>> initialState = copyState(sourceState);
+            List<TapRecordEvent> events = new ArrayList<>();
+            int count = random.nextInt(30);
+            for(int i = 0; i < count; i++) {
+                events.add(randomEvent(random, sourceState));
+            }
+
+            Map<List<Object>, Map<String, Object>> expected = copyState(initialState);
+            apply(expected, events);
+            List<TapRecordEvent> coalesced = coalescer.coalesce(new ArrayList<>(events));
+            assertTrue(coalesced.size() <= events.size());
+            Map<List<Object>, Map<String, Object>> actual = copyState(initialState);
+            apply(actual, coalesced);
+            assertEquals(expected, actual, "Round " + round);
+            assertEquals(sourceState, actual, "Round " + round);
+        }
+    }
+
+    private TapRecordEvent randomEvent(Random random, Map<List<Object>, Map<String, Object>> sourceState) {
+        TapTable table = random.nextInt(5) == 0 ? table2 : table1;
+        int id = random.nextInt(5);
+        List<Object> key = key(table, id, "x");
+        Map<String, Object> current = sourceState.get(key);
+        if(current == null) {
+            Map<String, Object> after = record(id, "x", random.nextInt(100), random.nextInt(100));
+            sourceState.put(key, new LinkedHashMap<>(after));
+            return insertRecordEvent(after, table);
+        }
+        switch (random.nextInt(4)) {
+            case 0:
+                sourceState.remove(key);
+                return deleteDMLEvent(new LinkedHashMap<>(current), table);
+            case 1:
+                //partial update without before
+                Map<String, Object> partial = map(entry("id", id), entry("type", "x"), entry("b", random.nextInt(100)));
+                current.putAll(partial);
+                return updateDMLEvent(null, partial, table);
+            default:
+                Map<String, Object> before = new LinkedHashMap<>(current);
+                current.put("a", random.nextInt(100));
+                return updateDMLEvent(before, new LinkedHashMap<>(current), table);
+        }
+    }
+
+    private void apply(Map<List<Object>, Map<String, Object>> state, List<TapRecordEvent> events) {
+        for(TapRecordEvent event : events) {
+            if(event instanceof TapInsertRecordEvent) {
+                Map<String, Object> after = ((TapInsertRecordEvent) event).getAfter();
+                state.put(key(event.getTable(), after.get("id"), after.get("type")), new LinkedHashMap<>(after));
+            } else if(event instanceof TapUpdateRecordEvent) {
+                Map<String, Object> after = ((TapUpdateRecordEvent) event).getAfter();
+                state.computeIfAbsent(key(event.getTable(), after.get("id"), after.get("type")), k -> new LinkedHashMap<>()).putAll(after);
+            } else if(event instanceof TapDeleteRecordEvent) {
+                Map<String, Object> before = ((TapDeleteRecordEvent) event).getBefore();
+                state.remove(key(event.getTable(), before.get("id"), before.get("type")));
+            }
+        }
+    }
+
+    private Map<List<Object>, Map<String, Object>> copyState(Map<List<Object>, Map<String, Object>> state) {
+        Map<List<Object>, Map<String, Object>> copy = new HashMap<>();
+        for(Map.Entry<List<Object>, Map<String, Object>> entry : state.entrySet())
+            copy.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+        return copy;
+    }
+
+    private List<Object> key(TapTable table, Object id, Object type) {
+        return Arrays.asList(table.getId(), id, type);
+    }
+
+    private Map<String, Object> record(int id, String type, int a, int b) {
+        return map(entry("id", id), entry("type", type), entry("a", a), entry("b", b));
+    }
+}
@@ -0,0 +1,57 @@
+package io.tapdata.pdk.core.workflow.engine.driver;
+
+import io.tapdata.entity.schema.TapTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static io.tapdata.entity.simplify.TapSimplify.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordEventPartitionerTest {
+    private final TapTable table = table("table1")
+            .add(field("id", "int").tapType(tapNumber()).isPrimaryKey(true).primaryKeyPos(1))
+            .add(field("type", "varchar").tapType(tapString()).isPrimaryKey(true).primaryKeyPos(2))
+            .add(field("a", "int").tapType(tapNumber()));
+    private final TapTable noKeyTable = table("table2")
+            .add(field("a", "int").tapType(tapNumber()));
+
+    private Map<String, Object> record(int id, String type, int a) {
+        return map(entry("id", id), entry("type", type), entry("a", a));
+    }
+
+    @Test
+    void sameKeySamePartition() {
+        RecordEventPartitioner partitioner = new RecordEventPartitioner();
+        for(int id = 0; id < 100; id++) {
+            int partition = partitioner.partition(insertRecordEvent(record(id, "x", 1), table), 8);
+            assertTrue(partition >= 0 && partition < 8);
+            assertEquals(partition, partitioner.partition(updateDMLEvent(record(id, "x", 1), record(id, "x", 2), table), 8));
+            //Partial update without the key in after image.
+            assertEquals(partition, partitioner.partition(updateDMLEvent(map(entry("id", id), entry("type", "x")), map(entry("a", 3)), table), 8));
+            assertEquals(partition, partitioner.partition(deleteDMLEvent(record(id, "x", 2), table), 8));
+        }
+    }
+
+    @Test
+    void keysSpread() {
+        RecordEventPartitioner partitioner = new RecordEventPartitioner();
+        int[] counts = new int[8];
+        for(int id = 0; id < 8000; id++) {
+            counts[partitioner.partition(insertRecordEvent(record(id, "type_" + id, 1), table), 8)]++;
+        }
+        for(int count : counts) {
+            assertTrue(count > 700 && count < 1300, Arrays.toString(counts));
+        }
+    }
+
+    @Test
+    void noPartition() {
+        RecordEventPartitioner partitioner = new RecordEventPartitioner();
+        assertEquals(RecordEventPartitioner.NO_PARTITION, partitioner.partition(insertRecordEvent(map(entry("a", 1)), noKeyTable), 8));
+        assertEquals(RecordEventPartitioner.NO_PARTITION, partitioner.partition(insertRecordEvent(map(entry("id", 1), entry("a", 1)), table), 8));
+        assertEquals(RecordEventPartitioner.NO_PARTITION, partitioner.partition(insertRecordEvent(record(1, "x", 1), null), 8));
+        //The update changing the primary key touches two keys.
+        assertEquals(RecordEventPartitioner.NO_PARTITION, partitioner.partition(updateDMLEvent(record(1, "x", 1), record(2, "x", 1), table), 8));
+    }
+}